@@ -0,0 +1,99 @@
+import java.util.Arrays;
+
+/**
+ * Blocked Bloom filter over the hashes of the keys of a HashtableMap, telling that a key is
+ * certainly absent or may be stored. Each key sets one bit in each of the 8 longs of a single
+ * 64-byte block, so adding or checking a key reads one block, a single cache line when the block
+ * is aligned, instead of bits spread over the whole filter
+ *
+ * <p>
+ * Bits are never cleared, so a removed key keeps answering "may be stored" until the filter is
+ * rebuilt, & the false positive rate climbs once more keys were added than the filter was sized
+ * for. The HashtableMap builds a new filter on each resize, & rebuilds it once the keys it holds
+ * plus those removed since outnumber that size
+ */
+final class BlockedBloomFilter {
+
+  // Longs per block, each key sets one bit in every one of them
+  private static final int BLOCK_LONGS = 8;
+  // Bits of filter per key it is sized for. Full, the filter lets about 3% of absent keys
+  // through, half full about 0.1%
+  private static final int BITS_PER_KEY = 8;
+  // Odd multipliers turning the hash into the bit set in each long of the block
+  private static final int[] SALTS = {0x47b6137b, 0x44974d91, 0x8824ad5b, 0xa2b7289d, 0x705495c7,
+      0x2df1424b, 0x9efc4947, 0x5c6bfb31};
+
+  // Blocks of BLOCK_LONGS longs, back to back
+  private final long[] words;
+  // # of blocks
+  private final int blocks;
+  // # of keys the filter is sized for
+  private final int expectedKeys;
+
+  /**
+   * Constructor method for BlockedBloomFilter
+   *
+   * @param expectedKeys - # of keys to size the filter for
+   */
+  BlockedBloomFilter(int expectedKeys) {
+    this.expectedKeys = Math.max(expectedKeys, 1);
+    this.blocks = (int) Math.max(1,
+        ((long) this.expectedKeys * BITS_PER_KEY + 64 * BLOCK_LONGS - 1) / (64 * BLOCK_LONGS));
+    this.words = new long[blocks * BLOCK_LONGS];
+  }
+
+  /**
+   * Getter method for the # of keys the filter is sized for
+   *
+   * @return - # of keys above which the false positive rate climbs
+   */
+  int expectedKeys() {
+    return expectedKeys;
+  }
+
+  /**
+   * Helper method that finds the first long of the block of a hash, picked by its high bits
+   *
+   * @param hash - well mixed hash of the key
+   * @return - index of the block's first long
+   */
+  private int blockStart(int hash) {
+    return (int) (((hash & 0xFFFFFFFFL) * blocks) >>> 32) * BLOCK_LONGS;
+  }
+
+  /**
+   * Adds a key, setting its bit in each long of its block
+   *
+   * @param hash - well mixed hash of the key, such as a spread hashcode
+   */
+  void add(int hash) {
+    int start = blockStart(hash);
+    for (int i = 0; i < BLOCK_LONGS; i++) {
+      words[start + i] |= 1L << (hash * SALTS[i] >>> 26);
+    }
+  }
+
+  /**
+   * Checks whether a key may have been added
+   *
+   * @param hash - well mixed hash of the key, such as a spread hashcode
+   * @return - false if the key was certainly never added, true if it may have been
+   */
+  boolean mightContain(int hash) {
+    int start = blockStart(hash);
+    for (int i = 0; i < BLOCK_LONGS; i++) {
+      if ((words[start + i] & 1L << (hash * SALTS[i] >>> 26)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Removes every key from the filter
+   */
+  void clear() {
+    Arrays.fill(words, 0L);
+  }
+
+}
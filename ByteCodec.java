@@ -0,0 +1,149 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Interface turning Keys or Values into bytes & back, used by the OffHeapHashtableMap to store
+ * them outside of the Java heap. Two Keys are considered equal when they encode to the same bytes,
+ * so a codec for Keys must encode equal Keys identically
+ *
+ * @param <T> - ObjectType encoded by the codec
+ */
+public interface ByteCodec<T> {
+
+    /**
+     * Writes the bytes of a value at the position of the buffer, advancing the position
+     *
+     * @param value - value to encode, never null
+     * @param buffer - buffer to write into
+     * @throws java.nio.BufferOverflowException - if the buffer is too small, the caller then
+     *         retries with a larger buffer
+     */
+    public void encode(T value, ByteBuffer buffer);
+
+    /**
+     * Reads a value back from its bytes without changing the position of the buffer
+     *
+     * @param buffer - buffer to read from
+     * @param offset - index of the first byte of the value
+     * @param length - # of bytes of the value
+     * @return - decoded value
+     */
+    public T decode(ByteBuffer buffer, int offset, int length);
+
+    /**
+     * Codec storing Strings as UTF-8 without allocating while encoding
+     */
+    public static final ByteCodec<String> UTF8 = new ByteCodec<String>() {
+        @Override
+        public void encode(String value, ByteBuffer buffer) {
+            int length = value.length();
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    buffer.put((byte) c);
+                } else if (c < 0x800) {
+                    buffer.put((byte) (0xC0 | (c >> 6)));
+                    buffer.put((byte) (0x80 | (c & 0x3F)));
+                } else if (Character.isSurrogate(c)) {
+                    // A valid surrogate pair becomes one 4 byte code point, a lone surrogate
+                    // becomes '?' like String.getBytes() does
+                    if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                        buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                        buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                        buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                        buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+                    } else {
+                        buffer.put((byte) '?');
+                    }
+                } else {
+                    buffer.put((byte) (0xE0 | (c >> 12)));
+                    buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    buffer.put((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+        }
+
+        @Override
+        public String decode(ByteBuffer buffer, int offset, int length) {
+            byte[] bytes = new byte[length];
+            buffer.get(offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    /**
+     * Codec storing Longs as 8 bytes
+     */
+    public static final ByteCodec<Long> LONG = new ByteCodec<Long>() {
+        @Override
+        public void encode(Long value, ByteBuffer buffer) {
+            buffer.putLong(value);
+        }
+
+        @Override
+        public Long decode(ByteBuffer buffer, int offset, int length) {
+            return buffer.getLong(offset);
+        }
+    };
+
+    /**
+     * Codec storing Integers as 4 bytes
+     */
+    public static final ByteCodec<Integer> INTEGER = new ByteCodec<Integer>() {
+        @Override
+        public void encode(Integer value, ByteBuffer buffer) {
+            buffer.putInt(value);
+        }
+
+        @Override
+        public Integer decode(ByteBuffer buffer, int offset, int length) {
+            return buffer.getInt(offset);
+        }
+    };
+
+    /**
+     * Codec storing any Serializable value through Java serialization. Slow & verbose, meant as a
+     * fallback for snapshots of values without a codec, not for Keys of the OffHeapHashtableMap
+     *
+     * @param <T> - ObjectType encoded by the codec
+     * @return - serializing codec
+     */
+    public static <T> ByteCodec<T> serialized() {
+        return new ByteCodec<T>() {
+            @Override
+            public void encode(T value, ByteBuffer buffer) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                    out.writeObject(value);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                buffer.put(bytes.toByteArray());
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T decode(ByteBuffer buffer, int offset, int length) {
+                byte[] bytes = new byte[length];
+                buffer.get(offset, bytes);
+                ByteArrayInputStream input = new ByteArrayInputStream(bytes);
+                try (ObjectInputStream in = new ObjectInputStream(input)) {
+                    return (T) in.readObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalStateException("Cannot decode a serialized value", e);
+                }
+            }
+        };
+    }
+
+}
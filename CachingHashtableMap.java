@@ -0,0 +1,490 @@
+import java.util.function.BiConsumer;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Bounded HashtableMap meant as a cache in front of a slow store. Once the entries exceed a
+ * maximum count, or a maximum total weight when a weigher is given, entries are evicted in O(1)
+ * per operation without scanning the Hashtable: every Node carries intrusive links into an
+ * access-ordered list & the entry at the cold end of the list is the one evicted
+ *
+ * <p>
+ * Two policies are offered:
+ * <ul>
+ * <li>LRU evicts the least recently used entry</li>
+ * <li>TINY_LFU (W-TinyLFU) lets new entries into a small LRU window (1% of the maximum). An entry
+ * leaving the window only replaces the LRU entry of the main region if it was used more often, as
+ * estimated by a count-min sketch of 4 bit counters that is halved periodically so old popularity
+ * fades. This keeps one-off lookups from flushing out frequently used entries</li>
+ * </ul>
+ * Hits, misses & evictions are counted, & an eviction listener can be told about each eviction.
+ * Values replaced in place by replaceAll() keep the weight they were inserted with, while the
+ * update methods such as merge() & putOrReplace() count as a use & reweigh the entry
+ *
+ * @param <KeyType> - ObjectType of the Keys
+ * @param <ValueType> - ObjectType of the Values
+ */
+public class CachingHashtableMap<KeyType, ValueType> extends HashtableMap<KeyType, ValueType> {
+
+  /**
+   * Choice of which entry is evicted once the cache is full
+   */
+  public enum EvictionPolicy {
+    LRU, TINY_LFU
+  }
+
+  /**
+   * Node linked into the window or main access-ordered list, most recent entry at the head
+   */
+  private static final class CacheNode<KeyType, ValueType> extends Node<KeyType, ValueType> {
+    private CacheNode<KeyType, ValueType> before;
+    private CacheNode<KeyType, ValueType> after;
+    private long weight;
+    private boolean inWindow;
+
+    private CacheNode(int hash, KeyType key, ValueType value) {
+      super(hash, key, value);
+    }
+  }
+
+  /**
+   * Doubly linked list of CacheNodes & their total weight
+   */
+  private static final class AccessOrder<KeyType, ValueType> {
+    private CacheNode<KeyType, ValueType> head;
+    private CacheNode<KeyType, ValueType> tail;
+    private long weight;
+
+    private void addFirst(CacheNode<KeyType, ValueType> node) {
+      node.before = null;
+      node.after = head;
+      if (head == null) {
+        tail = node;
+      } else {
+        head.before = node;
+      }
+      head = node;
+      weight += node.weight;
+    }
+
+    private void unlink(CacheNode<KeyType, ValueType> node) {
+      if (node.before == null) {
+        head = node.after;
+      } else {
+        node.before.after = node.after;
+      }
+      if (node.after == null) {
+        tail = node.before;
+      } else {
+        node.after.before = node.before;
+      }
+      node.before = null;
+      node.after = null;
+      weight -= node.weight;
+    }
+
+    private void moveToFront(CacheNode<KeyType, ValueType> node) {
+      if (head != node) {
+        unlink(node);
+        addFirst(node);
+      }
+    }
+
+    private void clear() {
+      head = null;
+      tail = null;
+      weight = 0;
+    }
+  }
+
+  /**
+   * Count-min sketch estimating how often each key was used, with 4 bit counters packed 16 to a
+   * long. Every counter is halved once the # of increments reaches 10 times the maximum, so the
+   * estimates follow recent popularity
+   */
+  private static final class FrequencySketch {
+    private final long[] table;
+    private final int counterMask;
+    private final int sampleSize;
+    private int additions;
+
+    private FrequencySketch(long maximum) {
+      // 16 counters per entry keeps collisions between the 4 rows rare
+      int counters = HashtableMap.roundUpToPowerOfTwo((int) Math.min(Math.max(maximum, 16) * 16,
+          1 << 26));
+      this.table = new long[counters >>> 4];
+      this.counterMask = counters - 1;
+      this.sampleSize = (int) Math.min(10 * Math.max(maximum, 16), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Helper method that picks the counter of one of the 4 rows for a hash
+     */
+    private int counterIndex(int hash, int row) {
+      return HashtableMap.spread(hash + row * 0x9E3779B9) & counterMask;
+    }
+
+    private int frequency(int hash) {
+      int frequency = 15;
+      for (int row = 0; row < 4; row++) {
+        int index = counterIndex(hash, row);
+        frequency = Math.min(frequency, (int) (table[index >>> 4] >>> ((index & 15) << 2)) & 15);
+      }
+      return frequency;
+    }
+
+    private void increment(int hash) {
+      for (int row = 0; row < 4; row++) {
+        int index = counterIndex(hash, row);
+        int shift = (index & 15) << 2;
+        if (((table[index >>> 4] >>> shift) & 15) < 15) {
+          table[index >>> 4] += 1L << shift;
+        }
+      }
+      if (++additions >= sampleSize) {
+        for (int i = 0; i < table.length; i++) {
+          table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+        }
+        additions >>>= 1;
+      }
+    }
+  }
+
+  /**
+   * Builder for the CachingHashtableMap, bounded either by a maximum # of entries or by a maximum
+   * total weight
+   *
+   * @param <KeyType> - ObjectType of the Keys
+   * @param <ValueType> - ObjectType of the Values
+   */
+  public static class Builder<KeyType, ValueType> {
+    private int capacity = 16;
+    private long maximumSize = -1;
+    private long maximumWeight = -1;
+    private ToLongBiFunction<KeyType, ValueType> weigher;
+    private EvictionPolicy policy = EvictionPolicy.LRU;
+    private BiConsumer<KeyType, ValueType> evictionListener;
+
+    /**
+     * Sets the original capacity of the Hashtable, 16 by default
+     *
+     * @param capacity - Original Capacity of Hashtable
+     * @return - this Builder
+     */
+    public Builder<KeyType, ValueType> capacity(int capacity) {
+      this.capacity = capacity;
+      return this;
+    }
+
+    /**
+     * Bounds the cache by its # of entries, unset by default. Exactly one of maximumSize &
+     * maximumWeight must be set
+     *
+     * @param maximumSize - most entries kept, every entry weighing 1
+     * @return - this Builder
+     */
+    public Builder<KeyType, ValueType> maximumSize(long maximumSize) {
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    /**
+     * Bounds the cache by the total weight of its entries, unset by default. Exactly one of
+     * maximumSize & maximumWeight must be set
+     *
+     * @param maximumWeight - most total weight kept
+     * @param weigher - weight of an entry, computed once when it is inserted & never negative
+     * @return - this Builder
+     */
+    public Builder<KeyType, ValueType> maximumWeight(long maximumWeight,
+        ToLongBiFunction<KeyType, ValueType> weigher) {
+      this.maximumWeight = maximumWeight;
+      this.weigher = weigher;
+      return this;
+    }
+
+    /**
+     * Sets the eviction policy, LRU by default
+     *
+     * @param policy - which entry is evicted once the cache is full
+     * @return - this Builder
+     */
+    public Builder<KeyType, ValueType> policy(EvictionPolicy policy) {
+      this.policy = policy;
+      return this;
+    }
+
+    /**
+     * Sets the listener told of each eviction, none by default
+     *
+     * @param evictionListener - called with the Key & Value of each evicted entry, not for
+     *                         entries removed by remove() or clear()
+     * @return - this Builder
+     */
+    public Builder<KeyType, ValueType> evictionListener(
+        BiConsumer<KeyType, ValueType> evictionListener) {
+      this.evictionListener = evictionListener;
+      return this;
+    }
+
+    /**
+     * Creates the CachingHashtableMap
+     *
+     * @return - new CachingHashtableMap
+     * @throws IllegalArgumentException - if neither or both bounds are set, a bound is negative or
+     *                                  the policy is null
+     */
+    public CachingHashtableMap<KeyType, ValueType> build() {
+      return new CachingHashtableMap<KeyType, ValueType>(this);
+    }
+  }
+
+  // Most total weight kept, the # of entries when no weigher is given
+  private final long maximumWeight;
+  private final ToLongBiFunction<KeyType, ValueType> weigher;
+  private final EvictionPolicy policy;
+  private final BiConsumer<KeyType, ValueType> evictionListener;
+  // New entries enter the window, entries admitted past it live in main. LRU only uses main
+  private final AccessOrder<KeyType, ValueType> window = new AccessOrder<KeyType, ValueType>();
+  private final AccessOrder<KeyType, ValueType> main = new AccessOrder<KeyType, ValueType>();
+  private final long windowMaximum;
+  // Popularity estimates, only kept by TINY_LFU
+  private final FrequencySketch sketch;
+  // Counters for sizing the cache
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+  // Whether the entry being removed is an eviction
+  private boolean evicting;
+
+  /**
+   * Constructor method for an LRU CachingHashtableMap holding at most maximumSize entries
+   *
+   * @param maximumSize - most entries kept
+   */
+  public CachingHashtableMap(long maximumSize) {
+    this(new Builder<KeyType, ValueType>().maximumSize(maximumSize));
+  }
+
+  /**
+   * Constructor method used by the Builder
+   *
+   * @param builder - Builder holding the configuration
+   */
+  private CachingHashtableMap(Builder<KeyType, ValueType> builder) {
+    super(builder.capacity, true);
+    if ((builder.maximumSize < 0) == (builder.maximumWeight < 0)) {
+      throw new IllegalArgumentException("Set exactly one of maximumSize & maximumWeight!");
+    }
+    if (builder.maximumWeight >= 0 && builder.weigher == null) {
+      throw new IllegalArgumentException("maximumWeight needs a weigher!");
+    }
+    if (builder.policy == null) {
+      throw new IllegalArgumentException("Eviction policy must not be null!");
+    }
+    this.maximumWeight = builder.maximumSize >= 0 ? builder.maximumSize : builder.maximumWeight;
+    this.weigher = builder.maximumSize >= 0 ? null : builder.weigher;
+    this.policy = builder.policy;
+    this.evictionListener = builder.evictionListener;
+    if (policy == EvictionPolicy.TINY_LFU) {
+      this.windowMaximum = Math.max(1, maximumWeight / 100);
+      this.sketch = new FrequencySketch(builder.maximumSize >= 0 ? maximumWeight
+          : Math.min(maximumWeight, 1 << 20));
+    } else {
+      this.windowMaximum = 0;
+      this.sketch = null;
+    }
+  }
+
+  /**
+   * Getter methods for the counters, useful to size the cache
+   *
+   * @return - # of get() hits, misses & evicted entries since the cache was created
+   */
+  public long hitCount() {
+    return hitCount;
+  }
+
+  public long missCount() {
+    return missCount;
+  }
+
+  public long evictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * Gets the total weight of the entries, their # when no weigher is given
+   *
+   * @return - total weight
+   */
+  public long weightedSize() {
+    return window.weight + main.weight;
+  }
+
+  /**
+   * Creates CacheNodes, weighing the entry once
+   */
+  @Override
+  protected Node<KeyType, ValueType> newNode(int hash, KeyType key, ValueType value) {
+    CacheNode<KeyType, ValueType> node = new CacheNode<KeyType, ValueType>(hash, key, value);
+    node.weight = weigher == null ? 1 : weigher.applyAsLong(key, value);
+    if (node.weight < 0) {
+      throw new IllegalArgumentException("Weight must not be negative: " + node.weight);
+    }
+    return node;
+  }
+
+  /**
+   * Counts the hit or miss, records the use & moves a hit to the front of its list
+   */
+  @Override
+  protected void afterNodeAccess(KeyType key, Node<KeyType, ValueType> node) {
+    if (node == null) {
+      missCount++;
+    } else {
+      hitCount++;
+      CacheNode<KeyType, ValueType> cacheNode = (CacheNode<KeyType, ValueType>) node;
+      (cacheNode.inWindow ? window : main).moveToFront(cacheNode);
+    }
+    if (sketch != null && key != null) {
+      sketch.increment(key.hashCode());
+    }
+  }
+
+  /**
+   * Links the new entry at the front of the window (main for LRU), then evicts until the cache
+   * fits its maximum again. An entry heavier than the maximum is evicted at once, rather than
+   * flushing out every other entry first
+   */
+  @Override
+  protected void afterNodeInsertion(Node<KeyType, ValueType> node) {
+    CacheNode<KeyType, ValueType> cacheNode = (CacheNode<KeyType, ValueType>) node;
+    if (cacheNode.weight > maximumWeight) {
+      main.addFirst(cacheNode);
+      evict(cacheNode);
+      return;
+    }
+    if (sketch == null) {
+      main.addFirst(cacheNode);
+    } else {
+      sketch.increment(node.key.hashCode());
+      cacheNode.inWindow = true;
+      window.addFirst(cacheNode);
+    }
+    evictIfNeeded();
+  }
+
+  /**
+   * Unlinks the removed entry from its list & counts it when it was evicted
+   */
+  @Override
+  protected void afterNodeRemoval(Node<KeyType, ValueType> node) {
+    CacheNode<KeyType, ValueType> cacheNode = (CacheNode<KeyType, ValueType>) node;
+    (cacheNode.inWindow ? window : main).unlink(cacheNode);
+    if (evicting) {
+      evictionCount++;
+    }
+  }
+
+  /**
+   * Moves the updated entry to the front of its list & reweighs it, then evicts if it grew past
+   * the maximum
+   */
+  @Override
+  protected void afterNodeUpdate(Node<KeyType, ValueType> node) {
+    CacheNode<KeyType, ValueType> cacheNode = (CacheNode<KeyType, ValueType>) node;
+    AccessOrder<KeyType, ValueType> order = cacheNode.inWindow ? window : main;
+    order.unlink(cacheNode);
+    if (weigher != null) {
+      long weight = weigher.applyAsLong(node.key, node.value);
+      if (weight < 0) {
+        throw new IllegalArgumentException("Weight must not be negative: " + weight);
+      }
+      cacheNode.weight = weight;
+    }
+    order.addFirst(cacheNode);
+    if (sketch != null) {
+      sketch.increment(node.key.hashCode());
+    }
+    if (cacheNode.weight > maximumWeight) {
+      evict(cacheNode);
+    } else {
+      evictIfNeeded();
+    }
+  }
+
+  /**
+   * Helper method that evicts entries until the cache fits its maximum. For TINY_LFU, entries
+   * overflowing the window first compete with the LRU entry of main, the less frequently used of
+   * the two being evicted. Each eviction is a hash lookup, never a scan
+   */
+  private void evictIfNeeded() {
+    while (window.weight > windowMaximum && window.tail != null) {
+      CacheNode<KeyType, ValueType> candidate = window.tail;
+      window.unlink(candidate);
+      candidate.inWindow = false;
+      main.addFirst(candidate);
+
+      // The candidate is admitted only if it is used more often than the entries it displaces
+      while (window.weight + main.weight > maximumWeight) {
+        CacheNode<KeyType, ValueType> victim = main.tail;
+        if (victim == candidate || sketch.frequency(candidate.key.hashCode())
+            <= sketch.frequency(victim.key.hashCode())) {
+          evict(candidate);
+          break;
+        }
+        evict(victim);
+      }
+    }
+
+    // Evicts from the cold end of main, then of the window
+    while (window.weight + main.weight > maximumWeight) {
+      evict(main.tail != null ? main.tail : window.tail);
+    }
+  }
+
+  /**
+   * Helper method that removes an entry as an eviction & tells the listener
+   *
+   * @param node - entry to evict
+   */
+  private void evict(CacheNode<KeyType, ValueType> node) {
+    evicting = true;
+    try {
+      remove(node.key);
+    } finally {
+      evicting = false;
+    }
+    if (evictionListener != null) {
+      evictionListener.accept(node.key, node.value);
+    }
+  }
+
+  /**
+   * Stores each Key/Value pair of the batch through put(), so each insertion can evict
+   */
+  @Override
+  public int putAll(KeyType[] keys, ValueType[] values) {
+    if (keys.length != values.length) {
+      throw new IllegalArgumentException("Keys & values differ in length!");
+    }
+    int stored = 0;
+    for (int i = 0; i < keys.length; i++) {
+      if (put(keys[i], values[i])) {
+        stored++;
+      }
+    }
+    return stored;
+  }
+
+  /**
+   * Removes every entry, none of them counted as evicted
+   */
+  @Override
+  public void clear() {
+    super.clear();
+    window.clear();
+    main.clear();
+  }
+
+}
@@ -0,0 +1,434 @@
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe Hashtable implementation. The Hashtable is split into lock-striped segments, each of
+ * which is a small chained Hashtable guarded by its own lock:
+ * <ul>
+ * <li>put(), remove() & clear() lock only the segment owning the key</li>
+ * <li>get(), containsKey() & size() never lock. Entries are immutable apart from their volatile
+ * value & bucket heads are published through volatile array writes, so a reader always sees a
+ * consistent chain</li>
+ * <li>Each segment resizes on its own, so a resize only holds up writers of that one segment
+ * while readers keep using the old table until the new one is published</li>
+ * </ul>
+ *
+ * @param <KeyType> - ObjectType of the Keys
+ * @param <ValueType> - ObjectType of the Values
+ */
+public class ConcurrentHashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+  // Largest number of segments the Hashtable can be split into
+  private static final int MAXIMUM_SEGMENTS = 1 << 16;
+
+  // Segments of the Hashtable, a key's segment is picked from the high bits of its spread hash
+  private final Segment<KeyType, ValueType>[] segments;
+  // Shift & mask selecting the segment bits of a spread hash
+  private final int segmentShift;
+  private final int segmentMask;
+
+  /**
+   * Immutable chain entry. Unlike Node, the next reference is final, so a chain that a reader
+   * has started to walk can never be relinked underneath it. Removal copies the entries in front
+   * of the removed one instead
+   */
+  private static final class Entry<KeyType, ValueType> {
+    final int hash;
+    final KeyType key;
+    volatile ValueType value;
+    final Entry<KeyType, ValueType> next;
+
+    Entry(int hash, KeyType key, ValueType value, Entry<KeyType, ValueType> next) {
+      this.hash = hash;
+      this.key = key;
+      this.value = value;
+      this.next = next;
+    }
+  }
+
+  /**
+   * Chained Hashtable holding the keys of one segment. Writers hold the segment's lock, readers
+   * only read its volatile fields
+   */
+  private static final class Segment<KeyType, ValueType> extends ReentrantLock {
+    private static final long serialVersionUID = 1L;
+
+    // Will double capacity & rehash whenever load factor is >= 0.8
+    private static final double LOAD_FACTOR_THRESHOLD = 0.8;
+
+    // Buckets of the segment, always a power of two long
+    volatile AtomicReferenceArray<Entry<KeyType, ValueType>> table;
+    // Number of Key/Value pairs currently stored in the segment
+    volatile int count;
+
+    Segment(int capacity) {
+      this.table = new AtomicReferenceArray<Entry<KeyType, ValueType>>(capacity);
+    }
+
+    /**
+     * Finds the entry containing the Key without locking
+     */
+    Entry<KeyType, ValueType> find(int hash, KeyType key) {
+      AtomicReferenceArray<Entry<KeyType, ValueType>> table = this.table;
+      for (Entry<KeyType, ValueType> entry = table.get(hash & (table.length() - 1));
+          entry != null; entry = entry.next) {
+        if (entry.hash == hash && (entry.key == key || entry.key.equals(key))) {
+          return entry;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Stores the Key/Value pair unless the key is already in the segment
+     */
+    boolean put(int hash, KeyType key, ValueType value) {
+      lock();
+      try {
+        AtomicReferenceArray<Entry<KeyType, ValueType>> table = this.table;
+        int index = hash & (table.length() - 1);
+        Entry<KeyType, ValueType> head = table.get(index);
+        for (Entry<KeyType, ValueType> entry = head; entry != null; entry = entry.next) {
+          if (entry.hash == hash && (entry.key == key || entry.key.equals(key))) {
+            return false;
+          }
+        }
+
+        // Publishes the new entry in front of the chain
+        table.set(index, new Entry<KeyType, ValueType>(hash, key, value, head));
+        int newCount = count + 1;
+        count = newCount;
+
+        // If the ratio of the numOfPairs / capacity is greater than 0.8, rehash & resize
+        if (Double.compare(LOAD_FACTOR_THRESHOLD, (double) newCount / table.length()) <= 0) {
+          capacityAdjustment(table);
+        }
+        return true;
+      } finally {
+        unlock();
+      }
+    }
+
+    /**
+     * Rehashes the segment into a table twice as large, then publishes it. The trailing run of
+     * each chain whose entries all land in the same new bucket is reused as is, only the entries
+     * in front of it are copied
+     */
+    private void capacityAdjustment(AtomicReferenceArray<Entry<KeyType, ValueType>> oldTable) {
+      // A segment stops growing at the largest power of two capacity
+      if (oldTable.length() >= 1 << 30) {
+        return;
+      }
+      int newCapacity = oldTable.length() * 2;
+      AtomicReferenceArray<Entry<KeyType, ValueType>> newTable =
+          new AtomicReferenceArray<Entry<KeyType, ValueType>>(newCapacity);
+      int mask = newCapacity - 1;
+
+      for (int i = 0; i < oldTable.length(); i++) {
+        Entry<KeyType, ValueType> head = oldTable.get(i);
+        if (head == null) {
+          continue;
+        }
+
+        // Finds the trailing run of entries that all move to the same new bucket
+        Entry<KeyType, ValueType> lastRun = head;
+        int lastIndex = head.hash & mask;
+        for (Entry<KeyType, ValueType> entry = head.next; entry != null; entry = entry.next) {
+          int index = entry.hash & mask;
+          if (index != lastIndex) {
+            lastIndex = index;
+            lastRun = entry;
+          }
+        }
+        newTable.set(lastIndex, lastRun);
+
+        // Copies the entries in front of the run into their new buckets
+        for (Entry<KeyType, ValueType> entry = head; entry != lastRun; entry = entry.next) {
+          int index = entry.hash & mask;
+          newTable.set(index, new Entry<KeyType, ValueType>(entry.hash, entry.key, entry.value,
+              newTable.get(index)));
+        }
+      }
+
+      table = newTable;
+    }
+
+    /**
+     * Removes the Key from the segment, returning its value or null
+     */
+    ValueType remove(int hash, KeyType key) {
+      lock();
+      try {
+        AtomicReferenceArray<Entry<KeyType, ValueType>> table = this.table;
+        int index = hash & (table.length() - 1);
+        Entry<KeyType, ValueType> head = table.get(index);
+        Entry<KeyType, ValueType> removed = head;
+        while (removed != null
+            && !(removed.hash == hash && (removed.key == key || removed.key.equals(key)))) {
+          removed = removed.next;
+        }
+        if (removed == null) {
+          return null;
+        }
+
+        // Copies the entries in front of the removed one onto the rest of the chain
+        Entry<KeyType, ValueType> newHead = removed.next;
+        for (Entry<KeyType, ValueType> entry = head; entry != removed; entry = entry.next) {
+          newHead = new Entry<KeyType, ValueType>(entry.hash, entry.key, entry.value, newHead);
+        }
+        table.set(index, newHead);
+        count = count - 1;
+        return removed.value;
+      } finally {
+        unlock();
+      }
+    }
+
+    /**
+     * Removes every Key/Value pair from the segment
+     */
+    void clear() {
+      lock();
+      try {
+        AtomicReferenceArray<Entry<KeyType, ValueType>> table = this.table;
+        for (int i = 0; i < table.length(); i++) {
+          table.set(i, null);
+        }
+        count = 0;
+      } finally {
+        unlock();
+      }
+    }
+  }
+
+  /**
+   * Constructor method for ConcurrentHashtableMap
+   *
+   * @param capacity - Original total Capacity of Hashtable, shared between the segments
+   * @param concurrencyLevel - expected # of concurrent writers, rounded up to a power of two to
+   *                         give the # of segments
+   */
+  @SuppressWarnings("unchecked")
+  public ConcurrentHashtableMap(int capacity, int concurrencyLevel) {
+    int segmentCount =
+        HashtableMap.roundUpToPowerOfTwo(Math.min(Math.max(concurrencyLevel, 1), MAXIMUM_SEGMENTS));
+    int segmentCapacity =
+        HashtableMap.roundUpToPowerOfTwo(Math.max(capacity / segmentCount, 2));
+
+    this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+    this.segmentMask = segmentCount - 1;
+    this.segments = (Segment<KeyType, ValueType>[]) new Segment<?, ?>[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment<KeyType, ValueType>(segmentCapacity);
+    }
+  }
+
+  /**
+   * Default constructor method for the ConcurrentHashtableMap with a default capacity of 256
+   * split into 16 segments
+   */
+  public ConcurrentHashtableMap() {
+    this(256, 16);
+  }
+
+  /**
+   * Gets the segment owning a hash
+   *
+   * @param hash - spread hash of a key
+   * @return - segment the key belongs to
+   */
+  private Segment<KeyType, ValueType> segmentFor(int hash) {
+    // A single segment would need a shift of 32, which Java treats as a shift of 0
+    return segments[segmentMask == 0 ? 0 : (hash >>> segmentShift) & segmentMask];
+  }
+
+  /**
+   * Getter method for the capacity of hashtable
+   *
+   * @return - Capacity of Hashtable, summed over all segments
+   */
+  public int getCapacity() {
+    int capacity = 0;
+    for (Segment<KeyType, ValueType> segment : segments) {
+      capacity += segment.table.length();
+    }
+    return capacity;
+  }
+
+  /**
+   * Stores the Key/Value pair into the HashTable
+   */
+  @Override
+  public boolean put(KeyType key, ValueType value) {
+    // Checks that key is not null
+    if (key == null) {
+      return false;
+    }
+    int hash = HashtableMap.spread(key.hashCode());
+    return segmentFor(hash).put(hash, key, value);
+  }
+
+  /**
+   * Gets the Value associated with the Key Exception is thrown when Key is not contained within
+   * HashTable
+   */
+  @Override
+  public ValueType get(KeyType key) throws NoSuchElementException {
+    Entry<KeyType, ValueType> entry = null;
+    if (key != null) {
+      int hash = HashtableMap.spread(key.hashCode());
+      entry = segmentFor(hash).find(hash, key);
+    }
+
+    // If the hashTable does not contain key, throw the exception
+    if (entry == null) {
+      throw new NoSuchElementException("Does not contain this key!");
+    }
+    return entry.value;
+  }
+
+  /**
+   * Gets the Value of the Key with a single lock-free lookup, a miss costing no exception
+   */
+  @Override
+  public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+    Entry<KeyType, ValueType> entry = findEntry(key);
+    return entry == null ? defaultValue : entry.value;
+  }
+
+  /**
+   * Finds the pair of the Key with a single lock-free lookup. The Node is a copy, it does not
+   * follow later updates of the Key's Value
+   */
+  @Override
+  public Node<KeyType, ValueType> find(KeyType key) {
+    Entry<KeyType, ValueType> entry = findEntry(key);
+    return entry == null ? null
+        : new Node<KeyType, ValueType>(entry.hash, entry.key, entry.value);
+  }
+
+  /**
+   * Helper method that finds the entry of a key without locking
+   *
+   * @param key - key to search for
+   * @return - entry of the key, or null if the key is missing or null
+   */
+  private Entry<KeyType, ValueType> findEntry(KeyType key) {
+    if (key == null) {
+      return null;
+    }
+    int hash = HashtableMap.spread(key.hashCode());
+    return segmentFor(hash).find(hash, key);
+  }
+
+  /**
+   * Gets the number of Key/Value pairs stored within the HashTable. The segments are summed
+   * without locking, so while writers are active the result may be momentarily stale
+   */
+  @Override
+  public int size() {
+    int size = 0;
+    for (Segment<KeyType, ValueType> segment : segments) {
+      size += segment.count;
+    }
+    return size;
+  }
+
+  /**
+   * Checks if the HashTable contains the Key
+   */
+  @Override
+  public boolean containsKey(KeyType key) {
+    if (key == null) {
+      return false;
+    }
+    int hash = HashtableMap.spread(key.hashCode());
+    return segmentFor(hash).find(hash, key) != null;
+  }
+
+  /**
+   * Removes the Key within the HashTable Returns Value associated with the Key
+   */
+  @Override
+  public ValueType remove(KeyType key) {
+    if (key == null) {
+      return null;
+    }
+    int hash = HashtableMap.spread(key.hashCode());
+    return segmentFor(hash).remove(hash, key);
+  }
+
+  /**
+   * Removes all key-value pairs from the collection without changing underlying array capacity.
+   * Segments are cleared one at a time, so concurrent puts into already cleared segments are
+   * kept
+   */
+  @Override
+  public void clear() {
+    for (Segment<KeyType, ValueType> segment : segments) {
+      segment.clear();
+    }
+  }
+
+  /**
+   * Creates a cursor walking each segment in turn without locking. Unlike the other MapADT
+   * cursors it never fails fast: it is weakly consistent, so it sees every pair present for the
+   * whole walk & may or may not see pairs put or removed during it
+   */
+  @Override
+  public MapCursor<KeyType, ValueType> cursor() {
+    return new MapCursor<KeyType, ValueType>() {
+      // Segment & bucket being walked, & the entry the cursor is on
+      private int segmentIndex;
+      private AtomicReferenceArray<Entry<KeyType, ValueType>> table;
+      private int bucketIndex;
+      private Entry<KeyType, ValueType> entry;
+
+      @Override
+      public boolean advance() {
+        Entry<KeyType, ValueType> next = entry == null ? null : entry.next;
+        while (next == null) {
+          if (table == null || bucketIndex == table.length()) {
+            // Moves on to the next segment's current table
+            if (segmentIndex == segments.length) {
+              entry = null;
+              return false;
+            }
+            table = segments[segmentIndex++].table;
+            bucketIndex = 0;
+          } else {
+            next = table.get(bucketIndex++);
+          }
+        }
+        entry = next;
+        return true;
+      }
+
+      @Override
+      public KeyType getKey() {
+        if (entry == null) {
+          throw new NoSuchElementException("Cursor is not on a pair!");
+        }
+        return entry.key;
+      }
+
+      @Override
+      public ValueType getValue() {
+        if (entry == null) {
+          throw new NoSuchElementException("Cursor is not on a pair!");
+        }
+        return entry.value;
+      }
+
+      @Override
+      public void reset() {
+        segmentIndex = 0;
+        table = null;
+        bucketIndex = 0;
+        entry = null;
+      }
+    };
+  }
+
+}
@@ -0,0 +1,52 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator built on a MapCursor, used by the iterators of MapADT. Subclasses pick what each
+ * element is: the Key, the Value or the whole pair
+ *
+ * @param <KeyType> - KeyType of the map being walked
+ * @param <ValueType> - ValueType of the map being walked
+ * @param <ElementType> - ObjectType returned by next()
+ */
+abstract class CursorIterator<KeyType, ValueType, ElementType> implements Iterator<ElementType> {
+  // Cursor walking the map
+  protected final MapCursor<KeyType, ValueType> cursor;
+  // Whether the cursor has already been advanced for the next element, & its result
+  private boolean advanced;
+  private boolean hasNext;
+
+  /**
+   * Constructor method for CursorIterator
+   * 
+   * @param cursor - cursor in front of the first pair
+   */
+  CursorIterator(MapCursor<KeyType, ValueType> cursor) {
+    this.cursor = cursor;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (!advanced) {
+      hasNext = cursor.advance();
+      advanced = true;
+    }
+    return hasNext;
+  }
+
+  @Override
+  public ElementType next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException("No more pairs!");
+    }
+    advanced = false;
+    return current();
+  }
+
+  /**
+   * Gets the element for the pair the cursor is on
+   * 
+   * @return - element returned by next()
+   */
+  protected abstract ElementType current();
+}
@@ -0,0 +1,670 @@
+import java.lang.ref.WeakReference;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * HashtableMap whose entries expire after a time to live. A map-wide time to live can start at
+ * each write (expire-after-write) or be extended by each get() (expire-after-access), & put() can
+ * give a single entry its own time to live
+ *
+ * <p>
+ * Expired entries are reaped by a hierarchical timer wheel rather than by scanning the Hashtable.
+ * Each scheduled entry sits in one bucket of a wheel, the finest wheel ticking every ~16.8ms & the
+ * coarser wheels every ~1.07s, ~68.7s, ~73min & ~78h. Every operation advances the wheels to the
+ * current time: the buckets whose time has passed are emptied, expired entries are removed so they
+ * stop holding memory & entries not yet due cascade down into a finer wheel. A background thread
+ * can advance the wheels as well, so entries are reaped while the map sits idle
+ *
+ * <p>
+ * get() & containsKey() check the deadline of the entry they find, so an entry is absent from the
+ * moment it expires. size() & cursors only see what the wheels have reaped, which lags by at most
+ * one tick of the finest wheel. Every operation of this class is synchronized so the background
+ * thread can share the map, the inherited cursors, bulk operations & snapshots must hold the map's
+ * lock themselves while a background thread is running
+ *
+ * @param <KeyType> - ObjectType of the Keys
+ * @param <ValueType> - ObjectType of the Values
+ */
+public class ExpiringHashtableMap<KeyType, ValueType> extends HashtableMap<KeyType, ValueType>
+    implements AutoCloseable {
+
+  // Deadline of an entry that never expires
+  private static final long NEVER = Long.MAX_VALUE;
+  // Each wheel's bucket spans 2^shift nanoseconds, so a wheel covers 2^shift * # of buckets. The
+  // last wheel holds everything beyond ~78h in a single bucket
+  private static final int[] SHIFTS = {24, 30, 36, 42, 48};
+  private static final int[] BUCKETS = {64, 64, 64, 64, 1};
+
+  /**
+   * Node carrying its deadlines & its links into a timer wheel bucket
+   */
+  private static final class ExpiringNode<KeyType, ValueType> extends Node<KeyType, ValueType> {
+    // Deadline set by the write, NEVER if the entry only expires after access
+    private long writeExpiry;
+    // Deadline the entry expires at, the earlier of the write & access deadlines
+    private long expiresAt;
+    // Circular links of the bucket, null while the Node is not scheduled
+    private ExpiringNode<KeyType, ValueType> timerPrevious;
+    private ExpiringNode<KeyType, ValueType> timerNext;
+
+    private ExpiringNode(int hash, KeyType key, ValueType value) {
+      super(hash, key, value);
+    }
+  }
+
+  /**
+   * Builder for the ExpiringHashtableMap
+   *
+   * @param <KeyType> - ObjectType of the Keys
+   * @param <ValueType> - ObjectType of the Values
+   */
+  public static class Builder<KeyType, ValueType> {
+    private int capacity = 16;
+    private long expireAfterWriteNanos;
+    private long expireAfterAccessNanos;
+    private long cleanupIntervalNanos;
+    private LongSupplier ticker = System::nanoTime;
+
+    /**
+     * Sets the original capacity of the Hashtable, 16 by default
+     *
+     * @param capacity - Original Capacity of Hashtable
+     * @return - this Builder
+     */
+    public Builder<KeyType, ValueType> capacity(int capacity) {
+      this.capacity = capacity;
+      return this;
+    }
+
+    /**
+     * Sets how long an entry lives after its write, 0 (never expire) by default
+     *
+     * @param duration - time to live of each entry from its write, 0 for none
+     * @param unit - unit of the duration
+     * @return - this Builder
+     */
+    public Builder<KeyType, ValueType> expireAfterWrite(long duration, TimeUnit unit) {
+      this.expireAfterWriteNanos = unit.toNanos(duration);
+      return this;
+    }
+
+    /**
+     * Sets how long an entry lives after its write or last get(), 0 (never expire) by default
+     *
+     * @param duration - time to live of each entry from its write or last get(), 0 for none
+     * @param unit - unit of the duration
+     * @return - this Builder
+     */
+    public Builder<KeyType, ValueType> expireAfterAccess(long duration, TimeUnit unit) {
+      this.expireAfterAccessNanos = unit.toNanos(duration);
+      return this;
+    }
+
+    /**
+     * Sets how often a background thread reaps expired entries, 0 (no thread, entries are reaped
+     * by the map's own operations) by default
+     *
+     * @param interval - delay between runs of a background thread reaping expired entries, 0 for
+     *                 no thread
+     * @param unit - unit of the interval
+     * @return - this Builder
+     */
+    public Builder<KeyType, ValueType> cleanupInterval(long interval, TimeUnit unit) {
+      this.cleanupIntervalNanos = unit.toNanos(interval);
+      return this;
+    }
+
+    /**
+     * Sets the source of the current time, System.nanoTime() by default
+     *
+     * @param ticker - source of the current time in nanoseconds
+     * @return - this Builder
+     */
+    public Builder<KeyType, ValueType> ticker(LongSupplier ticker) {
+      this.ticker = ticker;
+      return this;
+    }
+
+    /**
+     * Creates the ExpiringHashtableMap
+     *
+     * @return - new ExpiringHashtableMap
+     * @throws IllegalArgumentException - if a duration is negative or the ticker is null
+     */
+    public ExpiringHashtableMap<KeyType, ValueType> build() {
+      return new ExpiringHashtableMap<KeyType, ValueType>(this);
+    }
+  }
+
+  private final long expireAfterWriteNanos;
+  private final long expireAfterAccessNanos;
+  private final LongSupplier ticker;
+  // Ticker reading the map was created at, times are kept relative to it so they never overflow
+  private final long origin;
+  // Sentinels of each wheel's buckets, an empty bucket links its sentinel to itself
+  private final ExpiringNode<KeyType, ValueType>[][] wheels;
+  // Time the wheels were last advanced to
+  private long wheelTime;
+  // Time to live of the put() in progress, read by newNode()
+  private long pendingWriteNanos;
+  // # of entries reaped or found expired since the map was created
+  private long expiredCount;
+  // Thread advancing the wheels, null unless a cleanup interval is set
+  private final ScheduledExecutorService cleaner;
+
+  /**
+   * Constructor method for an ExpiringHashtableMap whose entries expire a fixed time after their
+   * write
+   *
+   * @param duration - time to live of each entry
+   * @param unit - unit of the duration
+   */
+  public ExpiringHashtableMap(long duration, TimeUnit unit) {
+    this(new Builder<KeyType, ValueType>().expireAfterWrite(duration, unit));
+  }
+
+  /**
+   * Constructor method used by the Builder
+   *
+   * @param builder - Builder holding the configuration
+   */
+  @SuppressWarnings("unchecked")
+  private ExpiringHashtableMap(Builder<KeyType, ValueType> builder) {
+    super(builder.capacity, true);
+    if (builder.expireAfterWriteNanos < 0 || builder.expireAfterAccessNanos < 0
+        || builder.cleanupIntervalNanos < 0) {
+      throw new IllegalArgumentException("Durations must not be negative!");
+    }
+    if (builder.ticker == null) {
+      throw new IllegalArgumentException("Ticker must not be null!");
+    }
+    this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+    this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+    this.ticker = builder.ticker;
+    this.origin = ticker.getAsLong();
+
+    this.wheels = (ExpiringNode<KeyType, ValueType>[][]) new ExpiringNode<?, ?>[BUCKETS.length][];
+    for (int i = 0; i < BUCKETS.length; i++) {
+      wheels[i] = (ExpiringNode<KeyType, ValueType>[]) new ExpiringNode<?, ?>[BUCKETS[i]];
+      for (int j = 0; j < BUCKETS[i]; j++) {
+        ExpiringNode<KeyType, ValueType> sentinel =
+            new ExpiringNode<KeyType, ValueType>(0, null, null);
+        sentinel.timerPrevious = sentinel;
+        sentinel.timerNext = sentinel;
+        wheels[i][j] = sentinel;
+      }
+    }
+
+    // The thread only holds the map weakly, so a map dropped without close() is still collected
+    if (builder.cleanupIntervalNanos > 0) {
+      ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, task -> {
+        Thread thread = new Thread(task, "ExpiringHashtableMap-cleaner");
+        thread.setDaemon(true);
+        return thread;
+      });
+      WeakReference<ExpiringHashtableMap<KeyType, ValueType>> reference =
+          new WeakReference<ExpiringHashtableMap<KeyType, ValueType>>(this);
+      executor.scheduleWithFixedDelay(() -> {
+        ExpiringHashtableMap<KeyType, ValueType> map = reference.get();
+        if (map == null) {
+          executor.shutdown();
+        } else {
+          map.cleanUp();
+        }
+      }, builder.cleanupIntervalNanos, builder.cleanupIntervalNanos, TimeUnit.NANOSECONDS);
+      this.cleaner = executor;
+    } else {
+      this.cleaner = null;
+    }
+  }
+
+  /**
+   * Stores the Key/Value pair with its own time to live, replacing the map-wide expire-after-write
+   * duration for this entry
+   *
+   * @param key - key to store
+   * @param value - value to store
+   * @param duration - time to live of the entry from now
+   * @param unit - unit of the duration
+   * @return - true if the pair was stored, false if the key is null or already present
+   * @throws IllegalArgumentException - if the duration is not positive
+   */
+  public synchronized boolean put(KeyType key, ValueType value, long duration, TimeUnit unit) {
+    if (duration <= 0) {
+      throw new IllegalArgumentException("Time to live must be positive: " + duration);
+    }
+    return putExpiring(key, value, unit.toNanos(duration));
+  }
+
+  @Override
+  public synchronized boolean put(KeyType key, ValueType value) {
+    return putExpiring(key, value, expireAfterWriteNanos);
+  }
+
+  /**
+   * Helper method that stores a pair after reaping an expired entry of the same key
+   *
+   * @param key - key to store
+   * @param value - value to store
+   * @param writeNanos - time to live from the write, 0 for none
+   * @return - true if the pair was stored
+   */
+  private boolean putExpiring(KeyType key, ValueType value, long writeNanos) {
+    long now = advance();
+    findLive(key, now);
+    pendingWriteNanos = writeNanos;
+    return super.put(key, value);
+  }
+
+  /**
+   * Gets the Value of the Key, restarting its expire-after-access time to live
+   */
+  @Override
+  public synchronized ValueType get(KeyType key) throws NoSuchElementException {
+    ExpiringNode<KeyType, ValueType> node = findAccessed(key);
+    if (node == null) {
+      throw new NoSuchElementException("Does not contain this key!");
+    }
+    return node.value;
+  }
+
+  @Override
+  public synchronized ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+    ExpiringNode<KeyType, ValueType> node = findAccessed(key);
+    return node == null ? defaultValue : node.value;
+  }
+
+  @Override
+  public synchronized Node<KeyType, ValueType> find(KeyType key) {
+    return findAccessed(key);
+  }
+
+  /**
+   * Helper method that finds the live Node of a key for get(), getOrDefault() & find(),
+   * restarting its expire-after-access time to live
+   *
+   * @param key - key to search for
+   * @return - Node of the key, or null if the key is missing or expired
+   */
+  private ExpiringNode<KeyType, ValueType> findAccessed(KeyType key) {
+    long now = advance();
+    ExpiringNode<KeyType, ValueType> node = findLive(key, now);
+
+    // Only an entry whose deadline actually moves is moved to another bucket
+    if (node != null && expireAfterAccessNanos > 0) {
+      long expiresAt = Math.min(node.writeExpiry, deadline(now, expireAfterAccessNanos));
+      if (expiresAt != node.expiresAt) {
+        unschedule(node);
+        node.expiresAt = expiresAt;
+        schedule(node);
+      }
+    }
+    return node;
+  }
+
+  @Override
+  public synchronized boolean containsKey(KeyType key) {
+    return findLive(key, advance()) != null;
+  }
+
+  @Override
+  public synchronized ValueType remove(KeyType key) {
+    Node<KeyType, ValueType> removed = removeLive(key, advance());
+    return removed == null ? null : removed.value;
+  }
+
+  /**
+   * The update methods first reap an expired entry of the key, so it counts as absent, & an
+   * update restarts the entry's time to live with the map-wide durations
+   */
+  @Override
+  public synchronized ValueType putIfAbsent(KeyType key, ValueType value) {
+    prepareWrite(key);
+    return super.putIfAbsent(key, value);
+  }
+
+  @Override
+  public synchronized ValueType putOrReplace(KeyType key, ValueType value) {
+    prepareWrite(key);
+    return super.putOrReplace(key, value);
+  }
+
+  @Override
+  public synchronized ValueType replace(KeyType key, ValueType value) {
+    prepareWrite(key);
+    return super.replace(key, value);
+  }
+
+  @Override
+  public synchronized boolean replace(KeyType key, ValueType expected, ValueType value) {
+    prepareWrite(key);
+    return super.replace(key, expected, value);
+  }
+
+  @Override
+  public synchronized ValueType computeIfAbsent(KeyType key,
+      Function<? super KeyType, ? extends ValueType> mappingFunction) {
+    prepareWrite(key);
+    return super.computeIfAbsent(key, mappingFunction);
+  }
+
+  @Override
+  public synchronized ValueType compute(KeyType key,
+      BiFunction<? super KeyType, ? super ValueType, ? extends ValueType> remappingFunction) {
+    prepareWrite(key);
+    return super.compute(key, remappingFunction);
+  }
+
+  @Override
+  public synchronized ValueType merge(KeyType key, ValueType value,
+      BiFunction<? super ValueType, ? super ValueType, ? extends ValueType> remappingFunction) {
+    prepareWrite(key);
+    return super.merge(key, value, remappingFunction);
+  }
+
+  @Override
+  public synchronized int addToInt(KeyType key, int delta) {
+    prepareWrite(key);
+    return super.addToInt(key, delta);
+  }
+
+  @Override
+  public synchronized long addToLong(KeyType key, long delta) {
+    prepareWrite(key);
+    return super.addToLong(key, delta);
+  }
+
+  /**
+   * Helper method that reaps an expired entry of the key & sets the map-wide time to live for
+   * the Node an update method may create
+   *
+   * @param key - key about to be written
+   */
+  private void prepareWrite(KeyType key) {
+    findLive(key, advance());
+    pendingWriteNanos = expireAfterWriteNanos;
+  }
+
+  /**
+   * Copies the entries into an immutable map after advancing the timer wheels, so only entries
+   * expired within the last tick of the finest wheel are copied. The copy never expires them
+   */
+  @Override
+  public synchronized FrozenHashtableMap<KeyType, ValueType> freeze() {
+    advance();
+    return super.freeze();
+  }
+
+  /**
+   * Gets the # of pairs, counting entries expired within the last tick of the finest wheel
+   */
+  @Override
+  public synchronized int size() {
+    advance();
+    return super.size();
+  }
+
+  @Override
+  public synchronized int putAll(KeyType[] keys, ValueType[] values) {
+    if (keys.length != values.length) {
+      throw new IllegalArgumentException("Keys & values differ in length!");
+    }
+    int stored = 0;
+    for (int i = 0; i < keys.length; i++) {
+      if (put(keys[i], values[i])) {
+        stored++;
+      }
+    }
+    return stored;
+  }
+
+  @Override
+  public synchronized int getAll(KeyType[] keys, ValueType[] values) {
+    if (values.length < keys.length) {
+      throw new IllegalArgumentException("Output array is too short!");
+    }
+    int found = 0;
+    for (int i = 0; i < keys.length; i++) {
+      ExpiringNode<KeyType, ValueType> node = keys[i] == null ? null : findAccessed(keys[i]);
+      values[i] = node == null ? null : node.value;
+      if (node != null) {
+        found++;
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public synchronized int removeAll(KeyType[] keys) {
+    long now = advance();
+    int removed = 0;
+    for (KeyType key : keys) {
+      if (removeLive(key, now) != null) {
+        removed++;
+      }
+    }
+    return removed;
+  }
+
+  @Override
+  public synchronized void clear() {
+    super.clear();
+    for (ExpiringNode<KeyType, ValueType>[] wheel : wheels) {
+      for (ExpiringNode<KeyType, ValueType> sentinel : wheel) {
+        sentinel.timerPrevious = sentinel;
+        sentinel.timerNext = sentinel;
+      }
+    }
+  }
+
+  /**
+   * Advances the timer wheels to the current time, reaping every expired entry they hold. Called
+   * by every operation & by the background thread
+   */
+  public synchronized void cleanUp() {
+    advance();
+  }
+
+  /**
+   * Gets the # of entries that expired, whether reaped by the wheels or found by a lookup
+   *
+   * @return - # of expired entries since the map was created
+   */
+  public synchronized long expiredCount() {
+    return expiredCount;
+  }
+
+  /**
+   * Stops the background thread, if any. The map stays usable & keeps reaping on its operations
+   */
+  @Override
+  public void close() {
+    if (cleaner != null) {
+      cleaner.shutdownNow();
+    }
+  }
+
+  /**
+   * Creates ExpiringNodes with the deadlines of the put() in progress
+   */
+  @Override
+  protected Node<KeyType, ValueType> newNode(int hash, KeyType key, ValueType value) {
+    ExpiringNode<KeyType, ValueType> node = new ExpiringNode<KeyType, ValueType>(hash, key, value);
+    node.writeExpiry = deadline(wheelTime, pendingWriteNanos);
+    node.expiresAt = Math.min(node.writeExpiry, deadline(wheelTime, expireAfterAccessNanos));
+    return node;
+  }
+
+  /**
+   * Schedules the new entry on the timer wheels unless it never expires
+   */
+  @Override
+  protected void afterNodeInsertion(Node<KeyType, ValueType> node) {
+    schedule((ExpiringNode<KeyType, ValueType>) node);
+  }
+
+  /**
+   * Restarts the updated entry's time to live, moving it to the bucket of its new deadline
+   */
+  @Override
+  protected void afterNodeUpdate(Node<KeyType, ValueType> node) {
+    ExpiringNode<KeyType, ValueType> expiringNode = (ExpiringNode<KeyType, ValueType>) node;
+    unschedule(expiringNode);
+    expiringNode.writeExpiry = deadline(wheelTime, pendingWriteNanos);
+    expiringNode.expiresAt =
+        Math.min(expiringNode.writeExpiry, deadline(wheelTime, expireAfterAccessNanos));
+    schedule(expiringNode);
+  }
+
+  /**
+   * Takes the removed entry off its timer wheel bucket
+   */
+  @Override
+  protected void afterNodeRemoval(Node<KeyType, ValueType> node) {
+    unschedule((ExpiringNode<KeyType, ValueType>) node);
+  }
+
+  /**
+   * Helper method that finds the Node of a key, reaping it if it has expired
+   *
+   * @param key - key to search for
+   * @param now - current time
+   * @return - Node of the key, or null if the key is missing or expired
+   */
+  private ExpiringNode<KeyType, ValueType> findLive(KeyType key, long now) {
+    ExpiringNode<KeyType, ValueType> node = (ExpiringNode<KeyType, ValueType>) findNode(key);
+    if (node != null && node.expiresAt <= now) {
+      expire(node);
+      return null;
+    }
+    return node;
+  }
+
+  /**
+   * Helper method that removes the Node of a key with a single walk of its chain, counting it as
+   * expired rather than removed if it had expired
+   *
+   * @param key - key to remove
+   * @param now - current time
+   * @return - removed Node, or null if the key was missing or expired
+   */
+  private Node<KeyType, ValueType> removeLive(KeyType key, long now) {
+    Node<KeyType, ValueType> node = removeNode(key);
+    if (node != null && ((ExpiringNode<KeyType, ValueType>) node).expiresAt <= now) {
+      expiredCount++;
+      return null;
+    }
+    return node;
+  }
+
+  /**
+   * Helper method that adds a duration to a time, saturating at NEVER
+   *
+   * @param now - current time
+   * @param nanos - duration, 0 for no deadline
+   * @return - deadline, or NEVER
+   */
+  private static long deadline(long now, long nanos) {
+    return nanos == 0 || nanos >= NEVER - now ? NEVER : now + nanos;
+  }
+
+  /**
+   * Helper method that removes an expired entry
+   *
+   * @param node - expired entry
+   */
+  private void expire(ExpiringNode<KeyType, ValueType> node) {
+    super.remove(node.key);
+    expiredCount++;
+  }
+
+  /**
+   * Helper method that links a Node into the bucket of the finest wheel whose range still reaches
+   * its deadline
+   *
+   * @param node - Node to schedule
+   */
+  private void schedule(ExpiringNode<KeyType, ValueType> node) {
+    if (node.expiresAt == NEVER) {
+      return;
+    }
+    long delay = node.expiresAt - wheelTime;
+    int level = 0;
+    while (level < BUCKETS.length - 1 && delay >= (long) BUCKETS[level] << SHIFTS[level]) {
+      level++;
+    }
+    ExpiringNode<KeyType, ValueType> sentinel =
+        wheels[level][(int) (node.expiresAt >>> SHIFTS[level]) & (BUCKETS[level] - 1)];
+    node.timerPrevious = sentinel.timerPrevious;
+    node.timerNext = sentinel;
+    sentinel.timerPrevious.timerNext = node;
+    sentinel.timerPrevious = node;
+  }
+
+  /**
+   * Helper method that unlinks a Node from its bucket, if it is scheduled
+   *
+   * @param node - Node to unschedule
+   */
+  private void unschedule(ExpiringNode<KeyType, ValueType> node) {
+    if (node.timerNext != null) {
+      node.timerPrevious.timerNext = node.timerNext;
+      node.timerNext.timerPrevious = node.timerPrevious;
+      node.timerPrevious = null;
+      node.timerNext = null;
+    }
+  }
+
+  /**
+   * Helper method that advances the timer wheels to the current time. Each wheel whose tick
+   * changed empties the buckets it ticked past, from the finest wheel up, so its cost follows the
+   * # of ticks & entries due rather than the size of the Hashtable
+   *
+   * @return - current time
+   */
+  private long advance() {
+    long now = ticker.getAsLong() - origin;
+    long previous = wheelTime;
+    if (now <= previous) {
+      return previous;
+    }
+    wheelTime = now;
+    for (int level = 0; level < BUCKETS.length; level++) {
+      long previousTicks = previous >>> SHIFTS[level];
+      long ticks = (now >>> SHIFTS[level]) - previousTicks;
+      if (ticks <= 0) {
+        break;
+      }
+
+      // The bucket of the previous tick is included, its entries may have come due since
+      int steps = (int) Math.min(ticks + 1, BUCKETS[level]);
+      int mask = BUCKETS[level] - 1;
+      for (int i = 0; i < steps; i++) {
+        ExpiringNode<KeyType, ValueType> sentinel = wheels[level][(int) (previousTicks + i) & mask];
+        ExpiringNode<KeyType, ValueType> node = sentinel.timerNext;
+        sentinel.timerPrevious = sentinel;
+        sentinel.timerNext = sentinel;
+
+        // Detached entries are either expired or rescheduled into a finer wheel
+        while (node != sentinel) {
+          ExpiringNode<KeyType, ValueType> next = node.timerNext;
+          node.timerPrevious = null;
+          node.timerNext = null;
+          if (node.expiresAt <= now) {
+            expire(node);
+          } else {
+            schedule(node);
+          }
+          node = next;
+        }
+      }
+    }
+    return now;
+  }
+
+}
@@ -0,0 +1,420 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable map built by HashtableMap.freeze() for maps that are only read once loaded. Each key
+ * sits next to its Value in one flat array with no empty slot, & a minimal perfect hash (CHD, hash
+ * & displace) maps each key to its own slot, so a lookup reads one slot & calls equals() at most
+ * once. No Node is allocated per pair & no headroom is kept for growth
+ *
+ * <p>
+ * The perfect hash splits the keys into buckets of about LAMBDA keys by their spread hash. Each
+ * bucket stores a seed, chosen while building so the keys of the bucket land on positions no other
+ * key took. A lookup finds the key's bucket, mixes the hash with its seed & reads the slot. The
+ * positions outnumber the slots by about 1%, as finding seeds for the last buckets gets slow once
+ * nearly every position is taken: the few keys landing past the last slot are moved to the slots
+ * left free & a small array remaps their positions. Keys whose whole 32 bit hash is shared with
+ * another key can't be told apart by any seed: the first of them takes the slot & the others are
+ * kept after the slots, sorted by hash & binary searched
+ *
+ * <p>
+ * Every field is final & never written after construction, so the map can be shared across
+ * threads without synchronization. put(), remove() & clear() throw UnsupportedOperationException
+ *
+ * @param <KeyType> - ObjectType of the Keys
+ * @param <ValueType> - ObjectType of the Values
+ */
+public final class FrozenHashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+  // Average # of keys per bucket of the perfect hash. Fewer keys per bucket build faster but
+  // store more seeds
+  private static final int LAMBDA = 4;
+  // Extra positions of the perfect hash, 1 per this many slots
+  private static final int SLACK = 100;
+
+  // Key of each slot at 2 * slot & its Value at 2 * slot + 1, so a hit reads one cache line. The
+  // slots of the perfect hash come first & the keys sharing a hash after them
+  private final Object[] pairs;
+  // Spread hash of each slot's key, only read once equals() failed
+  private final int[] hashes;
+  // # of Key/Value pairs
+  private final int size;
+  // # of slots of the perfect hash, one per distinct hash, & # of positions it maps keys to
+  private final int slots;
+  private final int positions;
+  // Slot of each position past the last slot
+  private final int[] remap;
+  // Seed of each bucket of the perfect hash
+  private final int[] seeds;
+
+  /**
+   * Constructor method that builds the perfect hash over the pairs of a HashtableMap
+   *
+   * @param pairHashes - spread hash of each key
+   * @param pairKeys - distinct keys
+   * @param pairValues - Value of each key
+   */
+  FrozenHashtableMap(int[] pairHashes, Object[] pairKeys, Object[] pairValues) {
+    this.size = pairKeys.length;
+
+    // Sorting by unsigned hash groups the keys of each bucket, as buckets are ranges of hashes,
+    // & puts keys sharing a hash next to each other. Flipping the sign bit of the hash makes the
+    // signed order of the longs follow the unsigned order of the hashes
+    long[] order = new long[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = (long) (pairHashes[i] ^ Integer.MIN_VALUE) << 32 | i;
+    }
+    Arrays.sort(order);
+    int distinct = 0;
+    for (int i = 0; i < size; i++) {
+      if (i == 0 || (int) (order[i] >>> 32) != (int) (order[i - 1] >>> 32)) {
+        distinct++;
+      }
+    }
+
+    this.pairs = new Object[2 * size];
+    this.hashes = new int[size];
+    this.slots = distinct;
+    this.positions = distinct + distinct / SLACK;
+    this.remap = new int[positions - slots];
+    this.seeds = new int[Math.max(1, (distinct + LAMBDA - 1) / LAMBDA)];
+
+    // The first key of each hash goes through the perfect hash, the others after the slots. The
+    // hashes are copied in sorted order, so placing the buckets reads them sequentially
+    int[] primaries = new int[distinct];
+    int[] primaryHashes = new int[distinct];
+    int overflow = distinct;
+    for (int i = 0, primary = 0; i < size; i++) {
+      int pair = (int) order[i];
+      if (i == 0 || (int) (order[i] >>> 32) != (int) (order[i - 1] >>> 32)) {
+        primaryHashes[primary] = pairHashes[pair];
+        primaries[primary++] = pair;
+      } else {
+        pairs[2 * overflow] = pairKeys[pair];
+        pairs[2 * overflow + 1] = pairValues[pair];
+        hashes[overflow] = pairHashes[pair];
+        overflow++;
+      }
+    }
+    int[] placed = placeBuckets(primaryHashes);
+    for (int i = 0; i < distinct; i++) {
+      int pair = primaries[i];
+      pairs[2 * placed[i]] = pairKeys[pair];
+      pairs[2 * placed[i] + 1] = pairValues[pair];
+      hashes[placed[i]] = pairHashes[pair];
+    }
+  }
+
+  /**
+   * Helper method that picks the seed of every bucket, largest buckets first since they are the
+   * hardest to fit while most positions are still free, then remaps the positions past the last
+   * slot
+   *
+   * @param primaryHashes - hashes of the keys going through the perfect hash, sorted unsigned
+   * @return - slot of each of these keys
+   */
+  private int[] placeBuckets(int[] primaryHashes) {
+    int bucketCount = seeds.length;
+
+    // Buckets are ranges of hashes, so each bucket is a run of the sorted primaries
+    int[] bucketStart = new int[bucketCount + 1];
+    for (int hash : primaryHashes) {
+      bucketStart[bucket(hash) + 1]++;
+    }
+    int largest = 0;
+    for (int b = 0; b < bucketCount; b++) {
+      largest = Math.max(largest, bucketStart[b + 1]);
+      bucketStart[b + 1] += bucketStart[b];
+    }
+
+    // Counting sort of the buckets by decreasing size
+    int[] bySize = new int[largest + 2];
+    for (int b = 0; b < bucketCount; b++) {
+      bySize[largest - (bucketStart[b + 1] - bucketStart[b]) + 1]++;
+    }
+    for (int i = 1; i < bySize.length; i++) {
+      bySize[i] += bySize[i - 1];
+    }
+    int[] buckets = new int[bucketCount];
+    for (int b = 0; b < bucketCount; b++) {
+      buckets[bySize[largest - (bucketStart[b + 1] - bucketStart[b])]++] = b;
+    }
+
+    // Tries seeds until every key of the bucket lands on a free position of its own
+    long[] taken = new long[(positions + 63) >>> 6];
+    int[] placed = new int[primaryHashes.length];
+    int[] candidate = new int[largest];
+    for (int b : buckets) {
+      int start = bucketStart[b];
+      int length = bucketStart[b + 1] - start;
+      if (length == 0) {
+        break;
+      }
+      for (int seed = 0;; seed++) {
+        if (fits(primaryHashes, start, length, seed, taken, candidate)) {
+          seeds[b] = seed;
+          for (int i = 0; i < length; i++) {
+            taken[candidate[i] >>> 6] |= 1L << candidate[i];
+            placed[start + i] = candidate[i];
+          }
+          break;
+        }
+      }
+    }
+
+    // Each taken position past the last slot gets one of the slots left free, in order
+    int free = 0;
+    for (int position = slots; position < positions; position++) {
+      if ((taken[position >>> 6] & 1L << position) != 0) {
+        while ((taken[free >>> 6] & 1L << free) != 0) {
+          free++;
+        }
+        remap[position - slots] = free++;
+      }
+    }
+    for (int i = 0; i < placed.length; i++) {
+      if (placed[i] >= slots) {
+        placed[i] = remap[placed[i] - slots];
+      }
+    }
+    return placed;
+  }
+
+  /**
+   * Helper method that checks whether a seed sends every key of a bucket to a distinct free
+   * position
+   *
+   * @param primaryHashes - hashes of the keys going through the perfect hash
+   * @param start - index of the bucket's first key within primaryHashes
+   * @param length - # of keys in the bucket
+   * @param seed - seed to try
+   * @param taken - bitset of the positions already taken
+   * @param candidate - output array receiving the position of each key
+   * @return - true if the seed fits the bucket
+   */
+  private boolean fits(int[] primaryHashes, int start, int length, int seed, long[] taken,
+      int[] candidate) {
+    for (int i = 0; i < length; i++) {
+      int position = position(primaryHashes[start + i], seed);
+      if ((taken[position >>> 6] & 1L << position) != 0) {
+        return false;
+      }
+      for (int j = 0; j < i; j++) {
+        if (candidate[j] == position) {
+          return false;
+        }
+      }
+      candidate[i] = position;
+    }
+    return true;
+  }
+
+  /**
+   * Helper method that picks the bucket of a hash from its high bits
+   */
+  private int bucket(int hash) {
+    return (int) (((hash & 0xFFFFFFFFL) * seeds.length) >>> 32);
+  }
+
+  /**
+   * Helper method that mixes a hash with its bucket's seed into a position
+   */
+  private int position(int hash, int seed) {
+    return (int) ((HashtableMap.spread(hash + seed * 0x9E3779B9) & 0xFFFFFFFFL) * positions
+        >>> 32);
+  }
+
+  /**
+   * Helper method that finds the index of a key, reading a single slot unless other keys share
+   * its whole hash
+   *
+   * @param key - key to search for
+   * @return - index of the key, or -1 if the key is missing or null
+   */
+  private int indexOf(Object key) {
+    if (key == null || slots == 0) {
+      return -1;
+    }
+    int hash = HashtableMap.spread(key.hashCode());
+    int slot = position(hash, seeds[bucket(hash)]);
+    if (slot >= slots) {
+      slot = remap[slot - slots];
+    }
+    // Tries equals() before the hash so a hit reads only the seed & the pairs, the hash tells a
+    // miss apart from a key sharing the hash of the slot's key
+    Object stored = pairs[slot << 1];
+    if (stored == key || stored.equals(key)) {
+      return slot;
+    }
+    return size == slots || hashes[slot] != hash ? -1 : indexOfShared(hash, key);
+  }
+
+  /**
+   * Helper method that searches the keys sharing a hash with the key of a slot
+   *
+   * @param hash - hash of the key
+   * @param key - key to search for
+   * @return - index of the key, or -1 if the key is missing
+   */
+  private int indexOfShared(int hash, Object key) {
+    // Binary search for the first key of the hash, the keys are sorted by unsigned hash
+    int low = slots;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (Integer.compareUnsigned(hashes[middle], hash) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    for (int i = low; i < size && hashes[i] == hash; i++) {
+      Object stored = pairs[i << 1];
+      if (stored == key || stored.equals(key)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Not supported, the map is immutable
+   *
+   * @throws UnsupportedOperationException - always
+   */
+  @Override
+  public boolean put(KeyType key, ValueType value) {
+    throw new UnsupportedOperationException("Frozen map is immutable!");
+  }
+
+  /**
+   * Gets the Value associated with the Key Exception is thrown when Key is not contained within
+   * HashTable
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType get(KeyType key) throws NoSuchElementException {
+    int index = indexOf(key);
+
+    // If the hashTable does not contain key, throw the exception
+    if (index == -1) {
+      throw new NoSuchElementException("Does not contain this key!");
+    }
+    return (ValueType) pairs[2 * index + 1];
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+    int index = indexOf(key);
+    return index == -1 ? defaultValue : (ValueType) pairs[2 * index + 1];
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Node<KeyType, ValueType> find(KeyType key) {
+    int index = indexOf(key);
+    if (index == -1) {
+      return null;
+    }
+    return new Node<KeyType, ValueType>((KeyType) pairs[2 * index],
+        (ValueType) pairs[2 * index + 1]);
+  }
+
+  /**
+   * Gets the number of Key/Value pairs stored within the HashTable
+   */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(KeyType key) {
+    return indexOf(key) != -1;
+  }
+
+  /**
+   * Not supported, the map is immutable
+   *
+   * @throws UnsupportedOperationException - always
+   */
+  @Override
+  public ValueType remove(KeyType key) {
+    throw new UnsupportedOperationException("Frozen map is immutable!");
+  }
+
+  /**
+   * Not supported, the map is immutable
+   *
+   * @throws UnsupportedOperationException - always
+   */
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException("Frozen map is immutable!");
+  }
+
+  /**
+   * Not supported, the map is immutable
+   *
+   * @throws UnsupportedOperationException - always
+   */
+  @Override
+  public int putAll(KeyType[] keys, ValueType[] values) {
+    throw new UnsupportedOperationException("Frozen map is immutable!");
+  }
+
+  /**
+   * Not supported, the map is immutable
+   *
+   * @throws UnsupportedOperationException - always
+   */
+  @Override
+  public int removeAll(KeyType[] keys) {
+    throw new UnsupportedOperationException("Frozen map is immutable!");
+  }
+
+  /**
+   * Creates a cursor walking the arrays in slot order. The map never changes, so the cursor
+   * never throws ConcurrentModificationException
+   */
+  @Override
+  public MapCursor<KeyType, ValueType> cursor() {
+    return new MapCursor<KeyType, ValueType>() {
+      // Index the cursor is on, -1 before the first pair
+      private int index = -1;
+
+      @Override
+      public boolean advance() {
+        if (index < size) {
+          index++;
+        }
+        return index < size;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public KeyType getKey() {
+        if (index < 0 || index >= size) {
+          throw new NoSuchElementException("Cursor is not on a pair!");
+        }
+        return (KeyType) pairs[2 * index];
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public ValueType getValue() {
+        if (index < 0 || index >= size) {
+          throw new NoSuchElementException("Cursor is not on a pair!");
+        }
+        return (ValueType) pairs[2 * index + 1];
+      }
+
+      @Override
+      public void reset() {
+        index = -1;
+      }
+    };
+  }
+
+}
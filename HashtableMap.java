@@ -1,8 +1,30 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.NoSuchElementException;
-import java.util.LinkedList;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32C;
 
 /**
- * Hashtable implementation that uses Nodes containing Key/Value to store data
+ * Hashtable implementation that uses Nodes containing Key/Value to store data. Collisions are
+ * chained through each Node's next reference, so every bucket is a singly linked list of Nodes
  *
  * @param <KeyType> - ObjectType of the Keys
  * @param <ValueType> - ObjectType of the Values
@@ -11,10 +33,72 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
 
   // Capacity of the HashTable
   private int capacity;
-  // Will double capacity & rehas whenever load factor is >= 0.8
-  private double LOAD_FACTOR_THRESHOLD = 0.8;
-  // Object array that will be Hashtable
-  private Object[] hashTable;
+  // Will grow capacity & rehash whenever load factor is >= this threshold (0.8 by default)
+  private final double LOAD_FACTOR_THRESHOLD;
+  // Capacity is multiplied by this factor on each growth (2.0 by default)
+  private final double growthFactor;
+  // Capacity shrinks whenever a remove() leaves the load factor below this threshold, 0 disables
+  // shrinking (the default)
+  private final double shrinkThreshold;
+  // Capacity the Hashtable was created with, shrinking never goes below it
+  private final int initialCapacity;
+  // Node array that will be Hashtable, each index holds the head of a chain of Nodes
+  private Node<KeyType, ValueType>[] hashTable;
+  // Number of Key/Value pairs currently stored in the Hashtable
+  private int size;
+  // Largest power of two capacity the Hashtable can be created with
+  private static final int MAXIMUM_POWER_OF_TWO_CAPACITY = 1 << 30;
+  // If true, capacity is always a power of two & indexes are masked from a spread hash
+  private final boolean powerOfTwoCapacity;
+  // If true, a resize moves the old Hashtable's buckets a few at a time on later operations
+  private final boolean incrementalResize;
+  // Max # of non-empty old buckets moved by each operation while incrementally resizing
+  private static final int MIGRATION_STEP = 4;
+  // Old Hashtable still being moved by an incremental resize, null when no resize is in progress
+  private Node<KeyType, ValueType>[] oldTable;
+  // Capacity of the old Hashtable
+  private int oldCapacity;
+  // Index of the next old bucket to move, every bucket before it is already empty
+  private int migrationIndex;
+  // # of structural modifications (puts, removes, resizes & clears), checked by cursors
+  private int modCount;
+  // Batches smaller than this are processed in their given order instead of by bucket
+  private static final int BATCH_SORT_THRESHOLD = 32;
+  // Most bucket ranges a batch is grouped into
+  private static final int MAXIMUM_BATCH_RANGES = 4096;
+  // Identifies snapshot files & their format version
+  private static final long SNAPSHOT_MAGIC = 0x48544D4150534E50L;
+  private static final int SNAPSHOT_VERSION = 1;
+  // [magic: 8][version: 4][block size: 4][# of pairs: 8] in front of the blocks
+  private static final int SNAPSHOT_HEADER_SIZE = 24;
+  // Bytes of each snapshot block, the only buffer a snapshot or restore needs
+  private static final int SNAPSHOT_BLOCK_SIZE = 1 << 20;
+  // [payload length: 4][# of pairs: 4] in front of each block & [crc: 4] after its payload
+  private static final int BLOCK_HEADER_SIZE = 8;
+  private static final int BLOCK_CRC_SIZE = 4;
+  // Largest block a snapshot writes, a pair larger than a block doubling the block up to this
+  private static final int MAXIMUM_BLOCK_SIZE = 1 << 30;
+  // A chain reaching this many Nodes is indexed by a TreeBin, once capacity is at least
+  // MIN_TREEIFY_CAPACITY, & a TreeBin shrinking to UNTREEIFY_THRESHOLD Nodes goes back to a chain
+  private static final int TREEIFY_THRESHOLD = 8;
+  private static final int UNTREEIFY_THRESHOLD = 6;
+  private static final int MIN_TREEIFY_CAPACITY = 64;
+  // TreeBins of the current Hashtable's overlong chains, null until a chain first gets too long
+  private TreeBin<KeyType, ValueType>[] treeBins;
+  // Metrics recorded by the operations, null unless built with recordStats(true) so a map without
+  // stats only pays for a null check
+  private final HashtableMapStats stats;
+  // Blocked Bloom filter over the hashes of the stored keys, checked before walking a bucket so
+  // most lookups of absent keys touch a single block of it. Null unless built with
+  // negativeLookupFilter(true). While an incremental resize is in progress, oldFilter covers the
+  // keys still in the old Hashtable
+  private BlockedBloomFilter filter;
+  private BlockedBloomFilter oldFilter;
+  // # of keys removed since the filter was built, whose bits are still set
+  private int staleFilterKeys;
+  // Absent keys the filter answered alone, & those it let through to a bucket
+  private long filteredMisses;
+  private long filterFalsePositives;
 
   /**
    * Constructor method for HashTableMap
@@ -22,263 +106,2272 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
    * @param capacity - Original Capacity of Hashtable
    */
   public HashtableMap(int capacity) {
-    this.capacity = capacity;
-    this.hashTable = new Object[this.capacity];
+    this(capacity, false);
+  }
+
+  /**
+   * Constructor method for HashTableMap that can keep its capacity a power of two. In that mode
+   * the requested capacity is rounded up to the next power of two, key hashcodes are spread
+   * so their high bits affect the index & the index is computed with a mask instead of a modulus
+   * 
+   * @param capacity - Original Capacity of Hashtable
+   * @param powerOfTwoCapacity - true to keep capacity a power of two
+   */
+  public HashtableMap(int capacity, boolean powerOfTwoCapacity) {
+    this(capacity, powerOfTwoCapacity, false);
+  }
+
+  /**
+   * Constructor method for HashTableMap that can also resize incrementally. In that mode, the put()
+   * that reaches the LOAD_FACTOR_THRESHOLD only allocates the larger Hashtable. Each later put(),
+   * get(), containsKey() & remove() then moves a few buckets of the old Hashtable across, & keys
+   * are looked up in both Hashtables until the old one is empty. No single operation pays for
+   * rehashing every Key/Value pair
+   * 
+   * @param capacity - Original Capacity of Hashtable
+   * @param powerOfTwoCapacity - true to keep capacity a power of two
+   * @param incrementalResize - true to spread each resize over later operations
+   */
+  public HashtableMap(int capacity, boolean powerOfTwoCapacity, boolean incrementalResize) {
+    this(new Builder<KeyType, ValueType>().capacity(capacity)
+        .powerOfTwoCapacity(powerOfTwoCapacity).incrementalResize(incrementalResize));
+  }
+
+  /**
+   * Constructor method for HashTableMap used by the Builder
+   * 
+   * @param builder - Builder holding every setting of the Hashtable
+   * @throws IllegalArgumentException - if the load factor, growth factor or shrink threshold is
+   *                                  out of range
+   */
+  private HashtableMap(Builder<KeyType, ValueType> builder) {
+    if (!(builder.loadFactor > 0)) {
+      throw new IllegalArgumentException("Load factor must be positive: " + builder.loadFactor);
+    }
+    if (!(builder.growthFactor > 1)) {
+      throw new IllegalArgumentException(
+          "Growth factor must be greater than 1: " + builder.growthFactor);
+    }
+    // Right after growing, the load factor is loadFactor / growthFactor. The shrink threshold
+    // has to stay below it, otherwise a grow could immediately be followed by a shrink
+    if (builder.shrinkThreshold < 0
+        || builder.shrinkThreshold >= builder.loadFactor / builder.growthFactor) {
+      throw new IllegalArgumentException("Shrink threshold must be between 0 & load factor / "
+          + "growth factor: " + builder.shrinkThreshold);
+    }
+
+    this.LOAD_FACTOR_THRESHOLD = builder.loadFactor;
+    this.growthFactor = builder.growthFactor;
+    this.shrinkThreshold = builder.shrinkThreshold;
+    this.powerOfTwoCapacity = builder.powerOfTwoCapacity;
+    this.incrementalResize = builder.incrementalResize;
+    this.capacity =
+        powerOfTwoCapacity ? roundUpToPowerOfTwo(builder.capacity) : builder.capacity;
+    this.initialCapacity = this.capacity;
+    this.hashTable = createTable(this.capacity);
+    this.stats = builder.recordStats ? new HashtableMapStats(this) : null;
+    this.filter = builder.negativeLookupFilter
+        ? new BlockedBloomFilter(filterKeys(this.capacity)) : null;
   }
 
   /**
    * Default constructor method for the HashtableMap with a default capacity of 20
    */
-  public HashtableMap() {
-    this.capacity = 20;
-    this.hashTable = new Object[20];
+  public HashtableMap() {
+    this(20);
+  }
+
+  /**
+   * Builder for HashtableMaps that need more settings than the constructors offer, such as the
+   * load factor, growth factor or shrinking
+   *
+   * @param <KeyType> - ObjectType of the Keys
+   * @param <ValueType> - ObjectType of the Values
+   */
+  public static class Builder<KeyType, ValueType> {
+    private int capacity = 20;
+    private boolean powerOfTwoCapacity = false;
+    private boolean incrementalResize = false;
+    private double loadFactor = 0.8;
+    private double growthFactor = 2.0;
+    private double shrinkThreshold = 0.0;
+    private boolean recordStats = false;
+    private boolean negativeLookupFilter = false;
+
+    /**
+     * Sets the original capacity of the Hashtable, 20 by default
+     * 
+     * @param capacity - Original Capacity of Hashtable
+     * @return - this Builder
+     */
+    public Builder<KeyType, ValueType> capacity(int capacity) {
+      this.capacity = capacity;
+      return this;
+    }
+
+    /**
+     * Sets whether capacity is kept a power of two, false by default
+     * 
+     * @param powerOfTwoCapacity - true to keep capacity a power of two
+     * @return - this Builder
+     */
+    public Builder<KeyType, ValueType> powerOfTwoCapacity(boolean powerOfTwoCapacity) {
+      this.powerOfTwoCapacity = powerOfTwoCapacity;
+      return this;
+    }
+
+    /**
+     * Sets whether resizes are spread over later operations, false by default
+     * 
+     * @param incrementalResize - true to resize incrementally
+     * @return - this Builder
+     */
+    public Builder<KeyType, ValueType> incrementalResize(boolean incrementalResize) {
+      this.incrementalResize = incrementalResize;
+      return this;
+    }
+
+    /**
+     * Sets the load factor at which the Hashtable grows, 0.8 by default
+     * 
+     * @param loadFactor - # of pairs / capacity that triggers a growth, must be positive
+     * @return - this Builder
+     */
+    public Builder<KeyType, ValueType> loadFactor(double loadFactor) {
+      this.loadFactor = loadFactor;
+      return this;
+    }
+
+    /**
+     * Sets the factor capacity is multiplied by on each growth, 2.0 by default. In power of two
+     * mode the grown capacity is rounded up to the next power of two
+     * 
+     * @param growthFactor - growth multiplier, must be greater than 1
+     * @return - this Builder
+     */
+    public Builder<KeyType, ValueType> growthFactor(double growthFactor) {
+      this.growthFactor = growthFactor;
+      return this;
+    }
+
+    /**
+     * Sets the load factor below which remove() shrinks the Hashtable, 0 (never shrink) by
+     * default. Shrinking never goes below the original capacity, & a shrinking Hashtable also
+     * drops back to its original capacity on clear()
+     * 
+     * @param shrinkThreshold - low-water load factor, must be below loadFactor / growthFactor
+     * @return - this Builder
+     */
+    public Builder<KeyType, ValueType> shrinkThreshold(double shrinkThreshold) {
+      this.shrinkThreshold = shrinkThreshold;
+      return this;
+    }
+
+    /**
+     * Sets whether operation counts & latencies, chain lengths & resizes are recorded, false by
+     * default. Every operation is counted, 1 in 64 is sampled for its latency & chain length,
+     * which costs two System.nanoTime() calls & a walk of the key's chain
+     * 
+     * @param recordStats - true to record the metrics read through stats()
+     * @return - this Builder
+     */
+    public Builder<KeyType, ValueType> recordStats(boolean recordStats) {
+      this.recordStats = recordStats;
+      return this;
+    }
+
+    /**
+     * Sets whether a Bloom filter over the stored keys is checked before walking a bucket, false
+     * by default. A lookup, put() or remove() of an absent key then usually reads one 64-byte
+     * block of the filter instead of walking a chain & calling equals(), at the cost of about 2
+     * bytes per bucket & a filter check on every operation. Worth it when most lookups miss, as
+     * filteredMissCount() & filterFalsePositiveCount() tell
+     * 
+     * @param negativeLookupFilter - true to keep the filter
+     * @return - this Builder
+     */
+    public Builder<KeyType, ValueType> negativeLookupFilter(boolean negativeLookupFilter) {
+      this.negativeLookupFilter = negativeLookupFilter;
+      return this;
+    }
+
+    /**
+     * Creates the HashtableMap
+     * 
+     * @return - new empty HashtableMap with this Builder's settings
+     * @throws IllegalArgumentException - if a setting is out of range
+     */
+    public HashtableMap<KeyType, ValueType> build() {
+      return new HashtableMap<KeyType, ValueType>(this);
+    }
+  }
+
+  /**
+   * Helper method that rounds a capacity up to the next power of two
+   * 
+   * @param capacity - requested capacity
+   * @return - smallest power of two that is >= capacity, between 1 and 2^30
+   */
+  static int roundUpToPowerOfTwo(int capacity) {
+    if (capacity <= 1) {
+      return 1;
+    }
+    if (capacity >= MAXIMUM_POWER_OF_TWO_CAPACITY) {
+      return MAXIMUM_POWER_OF_TWO_CAPACITY;
+    }
+    return Integer.highestOneBit(capacity - 1) << 1;
+  }
+
+  /**
+   * Mixes all bits of a hashcode into its low bits (the finalizer of MurmurHash3), so keys whose
+   * hashcodes only differ in their high bits still land in different buckets once masked
+   * 
+   * @param hashCode - hashcode of a key
+   * @return - spread hash
+   */
+  static int spread(int hashCode) {
+    int hash = hashCode;
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+    return hash;
+  }
+
+  /**
+   * Helper method that creates an empty bucket array
+   * 
+   * @param capacity - # of buckets in the array
+   * @return - empty bucket array of the given capacity
+   */
+  @SuppressWarnings("unchecked")
+  private Node<KeyType, ValueType>[] createTable(int capacity) {
+    return (Node<KeyType, ValueType>[]) new Node<?, ?>[capacity];
+  }
+
+  /**
+   * Computes the hash of a key. The result is cached within the key's Node, so it is only ever
+   * computed once per operation
+   * 
+   * @param key - key that contains the necessary hashcode
+   * @return - hash of the key
+   */
+  private int hash(KeyType key) {
+    return powerOfTwoCapacity ? spread(key.hashCode()) : key.hashCode();
+  }
+
+  /**
+   * Hash Function that calculates and returns the index of the HashMap to store key
+   * 
+   * @param hash - hash of the key used to calculate index
+   * @return - index of HashMap to store key
+   */
+  private int hashFunction(int hash) {
+    return hashFunction(hash, this.capacity);
+  }
+
+  /**
+   * Hash Function that calculates the index of a key within a Hashtable of the given capacity
+   * 
+   * @param hash - hash of the key used to calculate index
+   * @param capacity - capacity of the Hashtable
+   * @return - index of HashMap to store key
+   */
+  private int hashFunction(int hash, int capacity) {
+    // A power of two capacity keeps the low bits of the spread hash
+    if (powerOfTwoCapacity) {
+      return hash & (capacity - 1);
+    }
+
+    // Takes the key's hashcode and modulus by the HashMap's current capacity
+    int index = Math.abs(hash % capacity);
+    return index;
+  }
+
+  /**
+   * Walks a single chain looking for the Key. Nodes whose cached hash differs from the key's are
+   * skipped without calling equals()
+   * 
+   * @param node - head of the chain
+   * @param hash - hash of the key
+   * @param key - key to search for
+   * @return - Node containing the key, or null if the chain does not contain it
+   */
+  private Node<KeyType, ValueType> findInChain(Node<KeyType, ValueType> node, int hash,
+      KeyType key) {
+    for (; node != null; node = node.next) {
+      if (node.hash == hash && (node.key == key || node.key.equals(key))) {
+        return node;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Finds the Key within a bucket of the current Hashtable, searching its TreeBin if the chain
+   * has one
+   * 
+   * @param index - index of the bucket
+   * @param hash - hash of the key
+   * @param key - key to search for
+   * @return - Node containing the key, or null if the bucket does not contain it
+   */
+  private Node<KeyType, ValueType> findInBucket(int index, int hash, KeyType key) {
+    // Only a chain of TREEIFY_THRESHOLD Nodes or more can have a TreeBin, so the first Nodes are
+    // walked without looking for one, keeping the tree off the path of short chains
+    Node<KeyType, ValueType> node = hashTable[index];
+    for (int walked = 0; node != null; node = node.next) {
+      if (node.hash == hash && (node.key == key || node.key.equals(key))) {
+        return node;
+      }
+      if (++walked == TREEIFY_THRESHOLD) {
+        return findInLongChain(index, node.next, hash, key);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Helper method that finishes the search of a long chain, through its TreeBin if it has one
+   * 
+   * @param index - index of the bucket
+   * @param node - first Node not walked yet
+   * @param hash - hash of the key
+   * @param key - key to search for
+   * @return - Node containing the key, or null if the bucket does not contain it
+   */
+  private Node<KeyType, ValueType> findInLongChain(int index, Node<KeyType, ValueType> node,
+      int hash, KeyType key) {
+    if (treeBins != null && treeBins[index] != null) {
+      return treeBins[index].find(hash, key);
+    }
+    return findInChain(node, hash, key);
+  }
+
+  /**
+   * Links a new Node in front of its chain in the current Hashtable, indexing it in the chain's
+   * TreeBin, or building one once the chain reaches TREEIFY_THRESHOLD Nodes, & in the filter
+   * 
+   * @param index - index of the bucket
+   * @param node - Node to link
+   */
+  private void linkFirst(int index, Node<KeyType, ValueType> node) {
+    if (filter != null) {
+      filter.add(filterHash(node.hash));
+    }
+    node.next = hashTable[index];
+    hashTable[index] = node;
+    if (treeBins != null && treeBins[index] != null) {
+      treeBins[index].addFirst(node);
+    } else if (node.next != null && capacity >= MIN_TREEIFY_CAPACITY) {
+      treeifyIfLong(index);
+    }
+  }
+
+  /**
+   * Builds a TreeBin for a chain of the current Hashtable if it has TREEIFY_THRESHOLD Nodes or
+   * more. Only the first TREEIFY_THRESHOLD Nodes are counted
+   * 
+   * @param index - index of the bucket
+   */
+  @SuppressWarnings("unchecked")
+  private void treeifyIfLong(int index) {
+    int length = 0;
+    for (Node<KeyType, ValueType> node = hashTable[index];
+        node != null && length < TREEIFY_THRESHOLD; node = node.next) {
+      length++;
+    }
+    if (length < TREEIFY_THRESHOLD) {
+      return;
+    }
+    if (treeBins == null) {
+      treeBins = (TreeBin<KeyType, ValueType>[]) new TreeBin<?, ?>[capacity];
+    }
+    treeBins[index] = new TreeBin<KeyType, ValueType>(hashTable[index]);
+  }
+
+  /**
+   * Finds the Node containing the Key with a single walk of its chain. While an incremental
+   * resize is in progress, the key's chain in the old Hashtable is walked as well. Package-private
+   * so subclasses can inspect a Node before deciding what get() returns
+   * 
+   * @param key - key to search for
+   * @return - Node containing the key, or null if the key is not in HashTable
+   */
+  Node<KeyType, ValueType> findNode(KeyType key) {
+    // A null key is never stored
+    if (key == null) {
+      return null;
+    }
+
+    migrationStep();
+    int hash = hash(key);
+    if (filterExcludes(hash)) {
+      return null;
+    }
+    Node<KeyType, ValueType> node = findInBucket(hashFunction(hash), hash, key);
+    if (node == null && oldTable != null) {
+      node = findInChain(oldTable[hashFunction(hash, oldCapacity)], hash, key);
+    }
+    if (node == null && filter != null) {
+      filterFalsePositives++;
+    }
+    return node;
+  }
+
+  /**
+   * Helper method that calculates the # of keys the filter of a Hashtable is sized for: twice
+   * the pairs it holds before growing, so as many keys can be removed before a rebuild
+   * 
+   * @param capacity - capacity of the Hashtable
+   * @return - # of keys to size the filter for
+   */
+  private int filterKeys(int capacity) {
+    return (int) Math.min(2 * capacity * LOAD_FACTOR_THRESHOLD, 1 << 30);
+  }
+
+  /**
+   * Helper method that mixes the hash of a key for the filter. In power of two mode the hash is
+   * already spread, & the filter picks its block from the high bits the index does not use
+   * 
+   * @param hash - hash of the key
+   * @return - well mixed hash
+   */
+  private int filterHash(int hash) {
+    return powerOfTwoCapacity ? hash : spread(hash);
+  }
+
+  /**
+   * Checks the negative lookup filter for a key, counting a filtered miss when it answers alone
+   * 
+   * @param hash - hash of the key
+   * @return - true if the key is certainly absent, false if it may be stored or there is no
+   *         filter
+   */
+  private boolean filterExcludes(int hash) {
+    if (filter == null) {
+      return false;
+    }
+    int filterHash = filterHash(hash);
+    if (filter.mightContain(filterHash)
+        || (oldFilter != null && oldFilter.mightContain(filterHash))) {
+      return false;
+    }
+    filteredMisses++;
+    return true;
+  }
+
+  /**
+   * Counts keys removed while their bits stay set in the filter. Once they & the stored keys
+   * outnumber what the filter is sized for, it is rebuilt from the stored keys, at most once per
+   * that many removals. Postponed while an incremental resize is in progress
+   * 
+   * @param removed - # of keys just removed
+   */
+  private void afterFilteredRemovals(int removed) {
+    staleFilterKeys += removed;
+    if (size + staleFilterKeys <= filter.expectedKeys() || oldTable != null) {
+      return;
+    }
+    filter.clear();
+    for (int i = 0; i < capacity; i++) {
+      for (Node<KeyType, ValueType> node = hashTable[i]; node != null; node = node.next) {
+        filter.add(filterHash(node.hash));
+      }
+    }
+    staleFilterKeys = 0;
+  }
+  
+  /**
+   * Getter method for the capacity of hashtable
+   * 
+   * @return - Capacity of Hashtable
+   */
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  /**
+   * Gets the length of the longest chain in the Hashtable, used to check hash distribution
+   * 
+   * @return - # of Nodes in the longest chain
+   */
+  int longestChain() {
+    int longest = 0;
+    for (int i = 0; i < capacity; i++) {
+      int length = 0;
+      for (Node<KeyType, ValueType> node = hashTable[i]; node != null; node = node.next) {
+        length++;
+      }
+      longest = Math.max(longest, length);
+    }
+    return longest;
+  }
+  
+  /**
+   * Getter method for the metrics of the Hashtable, which can also be registered as a JMX MBean
+   * 
+   * @return - metrics recorded since the HashtableMap was created or the stats were reset
+   * @throws IllegalStateException - if the HashtableMap was not built with recordStats(true)
+   */
+  public HashtableMapStatsMXBean stats() {
+    if (stats == null) {
+      throw new IllegalStateException("Stats are not recorded, build with recordStats(true)!");
+    }
+    return stats;
+  }
+
+  /**
+   * Getter method for the # of lookups, puts & removes of absent keys the negative lookup filter
+   * answered without walking a bucket. Batch operations do not check the filter
+   * 
+   * @return - # of filtered misses since the HashtableMap was created
+   * @throws IllegalStateException - if not built with negativeLookupFilter(true)
+   */
+  public long filteredMissCount() {
+    checkFiltered();
+    return filteredMisses;
+  }
+
+  /**
+   * Getter method for the # of lookups, puts & removes of absent keys the negative lookup filter
+   * let through to a bucket
+   * 
+   * @return - # of false positives since the HashtableMap was created
+   * @throws IllegalStateException - if not built with negativeLookupFilter(true)
+   */
+  public long filterFalsePositiveCount() {
+    checkFiltered();
+    return filterFalsePositives;
+  }
+
+  /**
+   * Gets the share of operations on absent keys that the negative lookup filter let through. A
+   * map whose operations rarely miss gains little from the filter, whatever this rate
+   * 
+   * @return - false positives / (filtered misses + false positives), 0 before any miss
+   * @throws IllegalStateException - if not built with negativeLookupFilter(true)
+   */
+  public double filterFalsePositiveRate() {
+    checkFiltered();
+    long misses = filteredMisses + filterFalsePositives;
+    return misses == 0 ? 0 : (double) filterFalsePositives / misses;
+  }
+
+  /**
+   * Helper method that checks the HashtableMap keeps a negative lookup filter
+   * 
+   * @throws IllegalStateException - if not built with negativeLookupFilter(true)
+   */
+  private void checkFiltered() {
+    if (filter == null) {
+      throw new IllegalStateException(
+          "No negative lookup filter, build with negativeLookupFilter(true)!");
+    }
+  }
+
+  /**
+   * Helper method that records an operation in the stats, along with the length of the key's
+   * chain when the operation's latency was sampled
+   * 
+   * @param operation - operation index of HashtableMapStats
+   * @param start - value stats.startTiming() returned for the operation
+   * @param key - key of the operation
+   */
+  private void recordOperation(int operation, long start, KeyType key) {
+    stats.recordOperation(operation, start,
+        start == HashtableMapStats.NOT_TIMED ? -1 : chainLength(key));
+  }
+
+  /**
+   * Helper method that counts the Nodes in the chain of a key, only called while recording stats
+   * 
+   * @param key - key whose chain is counted
+   * @return - # of Nodes in the key's chain of the current Hashtable
+   */
+  private int chainLength(KeyType key) {
+    if (key == null) {
+      return 0;
+    }
+    int length = 0;
+    for (Node<KeyType, ValueType> node = hashTable[hashFunction(hash(key))]; node != null;
+        node = node.next) {
+      length++;
+    }
+    return length;
+  }
+
+  /**
+   * Creates the Node stored for a new Key/Value pair. Subclasses override it to store Nodes
+   * carrying extra state
+   * 
+   * @param hash - hash of the key
+   * @param key - key to store
+   * @param value - value to store
+   * @return - new Node, not yet linked into a chain
+   */
+  protected Node<KeyType, ValueType> newNode(int hash, KeyType key, ValueType value) {
+    return new Node<KeyType, ValueType>(hash, key, value);
+  }
+
+  /**
+   * Hook called by get(), getOrDefault(), find() & getAll() after each lookup, does nothing unless
+   * overridden
+   * 
+   * @param key - key looked up
+   * @param node - Node found, or null on a miss
+   */
+  protected void afterNodeAccess(KeyType key, Node<KeyType, ValueType> node) {
+  }
+
+  /**
+   * Hook called by put() once a new Node is linked & counted, does nothing unless overridden.
+   * putAll() does not call it, subclasses relying on it override putAll() too
+   * 
+   * @param node - Node inserted
+   */
+  protected void afterNodeInsertion(Node<KeyType, ValueType> node) {
+  }
+
+  /**
+   * Hook called by remove() & removeAll() once a Node is unlinked, does nothing unless overridden
+   * 
+   * @param node - Node removed
+   */
+  protected void afterNodeRemoval(Node<KeyType, ValueType> node) {
+  }
+
+  /**
+   * Hook called by the update methods, such as merge() & putOrReplace(), once they replaced the
+   * Value of a Node in place, does nothing unless overridden
+   * 
+   * @param node - Node updated
+   */
+  protected void afterNodeUpdate(Node<KeyType, ValueType> node) {
+  }
+
+  /**
+   * Stores the Key/Value pair into the HashTable
+   */
+  @Override
+  public boolean put(KeyType key, ValueType value) {
+    if (stats == null) {
+      return insert(key, value);
+    }
+    long start = stats.startTiming();
+    boolean stored = insert(key, value);
+    recordOperation(HashtableMapStats.PUT, start, key);
+    return stored;
+  }
+
+  /**
+   * Helper method that stores the Key/Value pair, put() without the stats
+   * 
+   * @param key - key to store
+   * @param value - value to store
+   * @return - true if the pair was stored, false if the key is null or already present
+   */
+  private boolean insert(KeyType key, ValueType value) {
+    // Checks that key is not null
+    if (key == null) {
+      return false;
+    }
+
+    // Gets the hash & the index to place the Node
+    migrationStep();
+    int hash = hash(key);
+    int index = hashFunction(hash);
+
+    // Checks that key is not equal to a key already in the chain at that index, or in the old
+    // Hashtable while it is still being moved, unless the filter tells the key is absent
+    if (!filterExcludes(hash)) {
+      if (findInBucket(index, hash, key) != null || (oldTable != null
+          && findInChain(oldTable[hashFunction(hash, oldCapacity)], hash, key) != null)) {
+        return false;
+      }
+      if (filter != null) {
+        filterFalsePositives++;
+      }
+    }
+
+    linkNew(index, hash, key, value);
+    return true;
+  }
+
+  /**
+   * Helper method that links a Node for a key known to be absent, then grows the Hashtable if
+   * needed
+   * 
+   * @param index - index of the key's bucket in the current Hashtable
+   * @param hash - hash of the key
+   * @param key - key to store
+   * @param value - value to store
+   * @return - Node linked
+   */
+  private Node<KeyType, ValueType> linkNew(int index, int hash, KeyType key, ValueType value) {
+    // Links the NodeToAdd in front of the chain at that index (null if no collision has
+    // occurred) & updates the running count of pairs
+    Node<KeyType, ValueType> nodeToAdd = newNode(hash, key, value);
+    linkFirst(index, nodeToAdd);
+    size++;
+    modCount++;
+
+    // If the ratio of the numOfPairs / capacity is greater than the threshold, rehash & grow
+    double currentThreshold = (double) size / capacity;
+    if (Double.compare(LOAD_FACTOR_THRESHOLD, currentThreshold) <= 0) {
+      resize(grownCapacity(), incrementalResize);
+    }
+
+    afterNodeInsertion(nodeToAdd);
+    return nodeToAdd;
+  }
+
+  /**
+   * Calculates the capacity to grow to, multiplying the current one by the growth factor
+   * 
+   * @return - grown capacity, at least one more than the current capacity
+   */
+  private int grownCapacity() {
+    long grown = Math.max(capacity + 1L, (long) Math.ceil(capacity * growthFactor));
+    if (powerOfTwoCapacity) {
+      return roundUpToPowerOfTwo((int) Math.min(grown, MAXIMUM_POWER_OF_TWO_CAPACITY));
+    }
+    return (int) Math.min(grown, Integer.MAX_VALUE - 8);
+  }
+
+  /**
+   * Calculates the smallest capacity that holds a # of pairs below the load factor
+   * 
+   * @param pairs - # of Key/Value pairs to hold
+   * @param minimum - smallest capacity allowed
+   * @return - capacity, rounded up to a power of two in that mode
+   */
+  private int fittedCapacity(int pairs, int minimum) {
+    long fitted = Math.max(minimum, (long) Math.floor(pairs / LOAD_FACTOR_THRESHOLD) + 1);
+    if (powerOfTwoCapacity) {
+      return roundUpToPowerOfTwo((int) Math.min(fitted, MAXIMUM_POWER_OF_TWO_CAPACITY));
+    }
+    return (int) Math.min(fitted, Integer.MAX_VALUE - 8);
+  }
+
+  /**
+   * Replaces the Hashtable with one of a new capacity, larger or smaller
+   * 
+   * @param newCapacity - capacity of the new Hashtable
+   * @param incremental - true to move the Nodes across over later operations, false to move them
+   *                    all now
+   */
+  private void resize(int newCapacity, boolean incremental) {
+    long start = stats == null ? 0 : System.nanoTime();
+    // A resize still in progress is finished before starting the next one
+    finishResize();
+
+    // The TreeBins index the previous Hashtable's chains, so a Hashtable holding any is resized
+    // all at once & its TreeBins rebuilt for the new chains
+    Node<KeyType, ValueType>[] previousTable = hashTable;
+    int previousCapacity = capacity;
+    TreeBin<KeyType, ValueType>[] previousTreeBins = treeBins;
+    hashTable = createTable(newCapacity);
+    capacity = newCapacity;
+    treeBins = null;
+    if (filter != null) {
+      // A filter sized for the new capacity is filled as the Nodes are moved across, the previous
+      // one still covering the Nodes an incremental resize has not moved yet
+      oldFilter = incremental && previousTreeBins == null ? filter : null;
+      filter = new BlockedBloomFilter(filterKeys(newCapacity));
+      staleFilterKeys = 0;
+    }
+    if (incremental && previousTreeBins == null) {
+      // Later operations move the previous Hashtable across, starting from its first bucket
+      oldTable = previousTable;
+      oldCapacity = previousCapacity;
+      migrationIndex = 0;
+    } else {
+      capacityAdjustment(previousTable, previousCapacity);
+      if (previousTreeBins != null && capacity >= MIN_TREEIFY_CAPACITY) {
+        for (TreeBin<KeyType, ValueType> treeBin : previousTreeBins) {
+          if (treeBin != null) {
+            treeBin.forEachNode(node -> {
+              int index = hashFunction(node.hash);
+              if (treeBins == null || treeBins[index] == null) {
+                treeifyIfLong(index);
+              }
+            });
+          }
+        }
+      }
+    }
+    if (stats != null) {
+      stats.recordResize(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Shrinks the Hashtable to the smallest capacity that keeps every Key/Value pair below the
+   * load factor, releasing the empty buckets left behind by earlier growth
+   */
+  public void trimToSize() {
+    int trimmed = fittedCapacity(size, 1);
+    if (trimmed < capacity) {
+      resize(trimmed, false);
+      modCount++;
+    }
+  }
+
+  /**
+   * Copies every Key/Value pair into an immutable FrozenHashtableMap, whose minimal perfect hash
+   * answers each lookup with a single slot. The cached hashes are reused, so no key's hashCode()
+   * is called. This map is left unchanged & later changes to it are not seen by the frozen copy
+   * 
+   * @return - immutable copy of the HashTable
+   */
+  public FrozenHashtableMap<KeyType, ValueType> freeze() {
+    int[] hashes = new int[size];
+    Object[] keys = new Object[size];
+    Object[] values = new Object[size];
+    int i = 0;
+    for (Iterator<Node<KeyType, ValueType>> nodes = entryIterator(); nodes.hasNext(); i++) {
+      Node<KeyType, ValueType> node = nodes.next();
+      hashes[i] = powerOfTwoCapacity ? node.hash : spread(node.hash);
+      keys[i] = node.key;
+      values[i] = node.value;
+    }
+    return new FrozenHashtableMap<KeyType, ValueType>(hashes, keys, values);
+  }
+
+  /**
+   * Rehashing function once the LOAD_FACTOR_THRESHOLD is reached. Nodes are moved straight from
+   * the old buckets into the new ones in a single pass, without going back through put()
+   * 
+   * @param oldTable - old HashTable that needs to be enlarged
+   * @param oldCapacity - capacity of oldTable
+   */
+  private void capacityAdjustment(Node<KeyType, ValueType>[] oldTable, int oldCapacity) {
+    // Goes through the old HashTable
+    for (int i = 0; i < oldCapacity; i++) {
+      moveChain(oldTable[i]);
+      oldTable[i] = null;
+    }
+  }
+
+  /**
+   * Relinks each Node of a chain into its bucket of the current HashTable. Keys are already known
+   * to be unique, so no containsKey() check is needed & the cached hash means hashCode() is never
+   * called again. A Node moved by an incremental resize into a chain that has a TreeBin is
+   * indexed by it too, & every Node moved is added to the filter of the current Hashtable
+   * 
+   * @param node - head of the chain to move
+   */
+  private void moveChain(Node<KeyType, ValueType> node) {
+    while (node != null) {
+      Node<KeyType, ValueType> next = node.next;
+      int index = hashFunction(node.hash);
+      node.next = hashTable[index];
+      hashTable[index] = node;
+      if (treeBins != null && treeBins[index] != null) {
+        treeBins[index].addFirst(node);
+      }
+      if (filter != null) {
+        filter.add(filterHash(node.hash));
+      }
+      node = next;
+    }
+  }
+
+  /**
+   * Moves up to MIGRATION_STEP non-empty buckets of the old Hashtable into the current one while
+   * an incremental resize is in progress. Empty buckets are skipped too, but at most
+   * 10 * MIGRATION_STEP of them, so every call does a bounded amount of work
+   */
+  private void migrationStep() {
+    if (oldTable == null) {
+      return;
+    }
+
+    long start = stats == null ? 0 : System.nanoTime();
+    int moved = 0;
+    int visited = 0;
+    while (migrationIndex < oldCapacity && moved < MIGRATION_STEP
+        && visited < 10 * MIGRATION_STEP) {
+      if (oldTable[migrationIndex] != null) {
+        moveChain(oldTable[migrationIndex]);
+        oldTable[migrationIndex] = null;
+        moved++;
+      }
+      migrationIndex++;
+      visited++;
+    }
+
+    // Every bucket has been moved, the old Hashtable & its filter can be dropped
+    if (migrationIndex == oldCapacity) {
+      oldTable = null;
+      oldFilter = null;
+    }
+    if (stats != null) {
+      stats.recordMigration(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Checks if an incremental resize is still moving buckets from the old Hashtable
+   * 
+   * @return - true if the old Hashtable still holds Nodes
+   */
+  boolean isResizing() {
+    return oldTable != null;
+  }
+
+  /**
+   * Gets the Value associated with the Key Exception is thrown when Key is not contained within
+   * HashTable
+   */
+  @Override
+  public ValueType get(KeyType key) throws NoSuchElementException {
+    // Finds the Node containing the Key
+    Node<KeyType, ValueType> node = lookup(key);
+
+    // If the hashTable does not contain key, throw the exception
+    if (node == null) {
+      throw new NoSuchElementException("Does not contain this key!");
+    }
+
+    // Return the retrieved key's value
+    return node.value;
+  }
+
+  /**
+   * Gets the Value of the Key with a single walk of its chain, a miss costing no exception
+   */
+  @Override
+  public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+    Node<KeyType, ValueType> node = lookup(key);
+    return node == null ? defaultValue : node.value;
+  }
+
+  /**
+   * Finds the Node of the Key with a single walk of its chain. The Node is the one stored, so it
+   * reflects later updates of the Key's Value
+   */
+  @Override
+  public Node<KeyType, ValueType> find(KeyType key) {
+    return lookup(key);
+  }
+
+  /**
+   * Helper method that finds the Node of a key for get(), getOrDefault() & find(), calling the
+   * access hook & recording the lookup as a get
+   * 
+   * @param key - key to search for
+   * @return - Node containing the key, or null if the key is not in HashTable
+   */
+  private Node<KeyType, ValueType> lookup(KeyType key) {
+    long start = stats == null ? 0 : stats.startTiming();
+    Node<KeyType, ValueType> node = findNode(key);
+    afterNodeAccess(key, node);
+    if (stats != null) {
+      recordOperation(HashtableMapStats.GET, start, key);
+    }
+    return node;
+  }
+
+  /**
+   * Gets the number of Key/Value pairs stored within the HashTable
+   */
+  @Override
+  public int size() {
+    // Returns # of Key/Value pairs in the HashTable, maintained by put(), remove() & clear()
+    return size;
+  }
+
+  /**
+   * Checks if the HashTable contains the Key
+   */
+  @Override
+  public boolean containsKey(KeyType key) {
+    // Key is in the HashTable if a Node containing it was found
+    if (stats == null) {
+      return findNode(key) != null;
+    }
+    long start = stats.startTiming();
+    boolean found = findNode(key) != null;
+    recordOperation(HashtableMapStats.CONTAINS_KEY, start, key);
+    return found;
+  }
+
+  /**
+   * Removes the Node containing the Key within the HashTable Returns Value associated with the Key
+   */
+  @Override
+  public ValueType remove(KeyType key) {
+    Node<KeyType, ValueType> removed = removeNode(key);
+    return removed == null ? null : removed.value;
+  }
+
+  /**
+   * Removes the Node containing the Key, remove() returning the Node so subclasses can tell what
+   * they removed without searching the chain first
+   * 
+   * @param key - key to remove
+   * @return - Node removed, or null if the key was not present
+   */
+  Node<KeyType, ValueType> removeNode(KeyType key) {
+    if (stats == null) {
+      return delete(key);
+    }
+    long start = stats.startTiming();
+    Node<KeyType, ValueType> removed = delete(key);
+    recordOperation(HashtableMapStats.REMOVE, start, key);
+    return removed;
+  }
+
+  /**
+   * Helper method that removes the Node containing the Key, removeNode() without the stats
+   * 
+   * @param key - key to remove
+   * @return - Node removed, or null if the key was not present
+   */
+  private Node<KeyType, ValueType> delete(KeyType key) {
+    // If the key is null
+    if (key == null) {
+      return null;
+    }
+
+    migrationStep();
+    int hash = hash(key);
+    if (filterExcludes(hash)) {
+      return null;
+    }
+    Node<KeyType, ValueType> removed = deleteNode(hash, key);
+    if (removed == null && filter != null) {
+      filterFalsePositives++;
+    }
+    return removed;
+  }
+
+  /**
+   * Helper method that removes the Node containing a key already hashed, then shrinks the
+   * Hashtable if needed
+   * 
+   * @param hash - hash of the key
+   * @param key - key to remove
+   * @return - Node removed, or null if the key was not present
+   */
+  private Node<KeyType, ValueType> deleteNode(int hash, KeyType key) {
+    // Looks for the key in its chain, then in the old Hashtable if a resize is still in progress
+    Node<KeyType, ValueType> removed = unlink(hashTable, hashFunction(hash), hash, key);
+    if (removed == null && oldTable != null) {
+      removed = unlink(oldTable, hashFunction(hash, oldCapacity), hash, key);
+    }
+
+    // If the HashTable does not contain the key, return null
+    if (removed == null) {
+      return null;
+    }
+    afterNodeRemoval(removed);
+
+    // Shrinks once the load factor falls below the shrink threshold, to the load factor reached
+    // right after a growth, so the Hashtable sits between both thresholds again
+    size--;
+    modCount++;
+    if (filter != null) {
+      afterFilteredRemovals(1);
+    }
+    if (shrinkThreshold > 0 && capacity > initialCapacity
+        && Double.compare((double) size / capacity, shrinkThreshold) < 0) {
+      int shrunk = fittedCapacity((int) Math.ceil(size * growthFactor), initialCapacity);
+      if (shrunk < capacity) {
+        resize(shrunk, incrementalResize);
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Unlinks the Node containing the Key from a chain
+   * 
+   * @param table - Hashtable containing the chain
+   * @param index - index of the chain within the Hashtable
+   * @param hash - hash of the key
+   * @param key - key to remove
+   * @return - unlinked Node, or null if the chain does not contain the key
+   */
+  private Node<KeyType, ValueType> unlink(Node<KeyType, ValueType>[] table, int index, int hash,
+      KeyType key) {
+    // A chain with a TreeBin is unlinked through it, & turns back into a plain chain once short
+    if (table == hashTable && treeBins != null && treeBins[index] != null) {
+      Node<KeyType, ValueType> removed = treeBins[index].unlink(table, index, hash, key);
+      if (treeBins[index].size() <= UNTREEIFY_THRESHOLD) {
+        treeBins[index] = null;
+      }
+      return removed;
+    }
+
+    // Goes through the chain, keeping track of the Node before the current one
+    Node<KeyType, ValueType> previous = null;
+    for (Node<KeyType, ValueType> node = table[index]; node != null; node = node.next) {
+      // Once finding the key, unlink the Node
+      if (node.hash == hash && (node.key == key || node.key.equals(key))) {
+        if (previous == null) {
+          table[index] = node.next;
+        } else {
+          previous.next = node.next;
+        }
+        return node;
+      }
+      previous = node;
+    }
+    return null;
+  }
+
+  /**
+   * Stores the Key/Value pair only if the key is absent, with a single walk of its chain. Like the
+   * other update methods, & unlike put(), it rejects a null key with an exception, as the counter
+   * helpers have no null to return
+   * 
+   * @param key - key to store
+   * @param value - value to store
+   * @return - Value already associated with the key, or null if the pair was stored
+   * @throws IllegalArgumentException - if the key is null
+   */
+  public ValueType putIfAbsent(KeyType key, ValueType value) {
+    if (key == null) {
+      throw new IllegalArgumentException("Key must not be null!");
+    }
+    migrationStep();
+    int hash = hash(key);
+    Node<KeyType, ValueType> node = findForUpdate(hash, key);
+    if (node != null) {
+      return node.value;
+    }
+    linkNew(hashFunction(hash), hash, key, value);
+    return null;
+  }
+
+  /**
+   * Stores the Key/Value pair, replacing the Value of a key already present instead of rejecting
+   * it like put() does, with a single walk of its chain
+   * 
+   * @param key - key to store
+   * @param value - value to store
+   * @return - Value the key was associated with, or null if the key was absent
+   * @throws IllegalArgumentException - if the key is null
+   */
+  public ValueType putOrReplace(KeyType key, ValueType value) {
+    if (key == null) {
+      throw new IllegalArgumentException("Key must not be null!");
+    }
+    migrationStep();
+    int hash = hash(key);
+    Node<KeyType, ValueType> node = findForUpdate(hash, key);
+    if (node == null) {
+      linkNew(hashFunction(hash), hash, key, value);
+      return null;
+    }
+    return updateValue(node, value);
+  }
+
+  /**
+   * Replaces the Value of a key only if the key is present
+   * 
+   * @param key - key whose Value is replaced
+   * @param value - new Value
+   * @return - Value the key was associated with, or null if the key is absent
+   * @throws IllegalArgumentException - if the key is null
+   */
+  public ValueType replace(KeyType key, ValueType value) {
+    if (key == null) {
+      throw new IllegalArgumentException("Key must not be null!");
+    }
+    migrationStep();
+    Node<KeyType, ValueType> node = findForUpdate(hash(key), key);
+    return node == null ? null : updateValue(node, value);
+  }
+
+  /**
+   * Replaces the Value of a key only if the key is currently associated with an expected Value
+   * 
+   * @param key - key whose Value is replaced
+   * @param expected - Value the key must be associated with, compared with equals()
+   * @param value - new Value
+   * @return - true if the Value was replaced
+   * @throws IllegalArgumentException - if the key is null
+   */
+  public boolean replace(KeyType key, ValueType expected, ValueType value) {
+    if (key == null) {
+      throw new IllegalArgumentException("Key must not be null!");
+    }
+    migrationStep();
+    Node<KeyType, ValueType> node = findForUpdate(hash(key), key);
+    if (node == null || !Objects.equals(node.value, expected)) {
+      return false;
+    }
+    updateValue(node, value);
+    return true;
+  }
+
+  /**
+   * Gets the Value of a key, first storing the Value computed from the key if it is absent. The
+   * function must not modify the HashTable
+   * 
+   * @param key - key to look up
+   * @param mappingFunction - computes the Value of an absent key, null to store nothing
+   * @return - Value of the key after the call, or null if nothing was stored
+   * @throws IllegalArgumentException - if the key is null
+   * @throws ConcurrentModificationException - if the function modified the HashTable
+   */
+  public ValueType computeIfAbsent(KeyType key,
+      Function<? super KeyType, ? extends ValueType> mappingFunction) {
+    if (key == null) {
+      throw new IllegalArgumentException("Key must not be null!");
+    }
+    migrationStep();
+    int hash = hash(key);
+    Node<KeyType, ValueType> node = findForUpdate(hash, key);
+    if (node != null) {
+      return node.value;
+    }
+    int expectedModCount = modCount;
+    ValueType value = mappingFunction.apply(key);
+    checkNotModified(expectedModCount);
+    if (value != null) {
+      linkNew(hashFunction(hash), hash, key, value);
+    }
+    return value;
+  }
+
+  /**
+   * Computes the new Value of a key from its current one, storing the key if absent & removing
+   * it if the function returns null. The function must not modify the HashTable
+   * 
+   * @param key - key to update
+   * @param remappingFunction - computes the new Value from the key & its Value, null if absent
+   * @return - new Value of the key, or null if the key was removed
+   * @throws IllegalArgumentException - if the key is null
+   * @throws ConcurrentModificationException - if the function modified the HashTable
+   */
+  public ValueType compute(KeyType key,
+      BiFunction<? super KeyType, ? super ValueType, ? extends ValueType> remappingFunction) {
+    if (key == null) {
+      throw new IllegalArgumentException("Key must not be null!");
+    }
+    migrationStep();
+    int hash = hash(key);
+    Node<KeyType, ValueType> node = findForUpdate(hash, key);
+    int expectedModCount = modCount;
+    ValueType value = remappingFunction.apply(key, node == null ? null : node.value);
+    checkNotModified(expectedModCount);
+    return storeComputed(hash, key, node, value);
+  }
+
+  /**
+   * Stores the Value for an absent key, or combines it with the Value of a present key, removing
+   * the key if the function returns null. The function must not modify the HashTable
+   * 
+   * @param key - key to update
+   * @param value - Value stored if the key is absent, & combined with the current one otherwise
+   * @param remappingFunction - combines the current Value & the given one
+   * @return - new Value of the key, or null if the key was removed
+   * @throws IllegalArgumentException - if the key is null
+   * @throws ConcurrentModificationException - if the function modified the HashTable
+   */
+  public ValueType merge(KeyType key, ValueType value,
+      BiFunction<? super ValueType, ? super ValueType, ? extends ValueType> remappingFunction) {
+    if (key == null) {
+      throw new IllegalArgumentException("Key must not be null!");
+    }
+    migrationStep();
+    int hash = hash(key);
+    Node<KeyType, ValueType> node = findForUpdate(hash, key);
+    if (node == null) {
+      linkNew(hashFunction(hash), hash, key, value);
+      return value;
+    }
+    int expectedModCount = modCount;
+    ValueType merged = remappingFunction.apply(node.value, value);
+    checkNotModified(expectedModCount);
+    return storeComputed(hash, key, node, merged);
+  }
+
+  /**
+   * Adds to the Value of a key in a map counting with Integer Values, storing the delta if the
+   * key is absent. The sum is unboxed & reboxed without a function call or a second lookup
+   * 
+   * @param key - key whose count is updated
+   * @param delta - amount to add, may be negative
+   * @return - new count of the key
+   * @throws IllegalArgumentException - if the key is null
+   * @throws ClassCastException - if the key's Value is not an Integer
+   */
+  @SuppressWarnings("unchecked")
+  public int addToInt(KeyType key, int delta) {
+    if (key == null) {
+      throw new IllegalArgumentException("Key must not be null!");
+    }
+    migrationStep();
+    int hash = hash(key);
+    Node<KeyType, ValueType> node = findForUpdate(hash, key);
+    if (node == null) {
+      linkNew(hashFunction(hash), hash, key, (ValueType) Integer.valueOf(delta));
+      return delta;
+    }
+    int count = node.value == null ? delta : (Integer) node.value + delta;
+    updateValue(node, (ValueType) Integer.valueOf(count));
+    return count;
+  }
+
+  /**
+   * Adds to the Value of a key in a map counting with Long Values, storing the delta if the key
+   * is absent. The sum is unboxed & reboxed without a function call or a second lookup
+   * 
+   * @param key - key whose count is updated
+   * @param delta - amount to add, may be negative
+   * @return - new count of the key
+   * @throws IllegalArgumentException - if the key is null
+   * @throws ClassCastException - if the key's Value is not a Long
+   */
+  @SuppressWarnings("unchecked")
+  public long addToLong(KeyType key, long delta) {
+    if (key == null) {
+      throw new IllegalArgumentException("Key must not be null!");
+    }
+    migrationStep();
+    int hash = hash(key);
+    Node<KeyType, ValueType> node = findForUpdate(hash, key);
+    if (node == null) {
+      linkNew(hashFunction(hash), hash, key, (ValueType) Long.valueOf(delta));
+      return delta;
+    }
+    long count = node.value == null ? delta : (Long) node.value + delta;
+    updateValue(node, (ValueType) Long.valueOf(count));
+    return count;
+  }
+
+  /**
+   * Helper method that finds the Node of a key for the update methods, in the current Hashtable
+   * then in the old one while a resize is in progress
+   * 
+   * @param hash - hash of the key
+   * @param key - key to search for
+   * @return - Node containing the key, or null if the key is absent
+   */
+  private Node<KeyType, ValueType> findForUpdate(int hash, KeyType key) {
+    Node<KeyType, ValueType> node = findInBucket(hashFunction(hash), hash, key);
+    if (node == null && oldTable != null) {
+      node = findInChain(oldTable[hashFunction(hash, oldCapacity)], hash, key);
+    }
+    return node;
+  }
+
+  /**
+   * Helper method that replaces the Value of a Node in place. Only the Value changes, so the
+   * modification count is left alone & cursors walking the HashTable carry on
+   * 
+   * @param node - Node to update
+   * @param value - new Value
+   * @return - previous Value
+   */
+  private ValueType updateValue(Node<KeyType, ValueType> node, ValueType value) {
+    ValueType previous = node.value;
+    node.value = value;
+    afterNodeUpdate(node);
+    return previous;
+  }
+
+  /**
+   * Helper method that stores the Value computed by compute() or merge(): a null Value removes
+   * the key, any other one updates its Node or links a new one
+   * 
+   * @param hash - hash of the key
+   * @param key - key computed
+   * @param node - Node of the key found before computing, or null if the key was absent
+   * @param value - computed Value
+   * @return - computed Value
+   */
+  private ValueType storeComputed(int hash, KeyType key, Node<KeyType, ValueType> node,
+      ValueType value) {
+    if (value == null) {
+      if (node != null) {
+        deleteNode(hash, key);
+      }
+    } else if (node == null) {
+      linkNew(hashFunction(hash), hash, key, value);
+    } else {
+      updateValue(node, value);
+    }
+    return value;
   }
 
   /**
-   * Hash Function that calculates and returns the index of the HashMap to store key
+   * Helper method that checks a mapping function left the HashTable unmodified, since the Node
+   * found before calling it may have been unlinked or moved
    * 
-   * @param key - key that contains the necessary hashcode to calculate index
-   * @return - index of HashMap to store key
+   * @param expectedModCount - modification count before calling the function
+   * @throws ConcurrentModificationException - if the HashTable was modified
    */
-  private int hashFunction(KeyType key) {
-    // Takes the key's hashcode and modulus by the HashMap's current capacity
-    int index = Math.abs(key.hashCode() % this.capacity);
-    return index;
+  private void checkNotModified(int expectedModCount) {
+    if (modCount != expectedModCount) {
+      throw new ConcurrentModificationException("Hashtable was modified by the function!");
+    }
   }
-  
+
   /**
-   * Getter method for the capacity of hashtable
+   * Helper method that hashes every key of a batch up front & groups the batch by ranges of
+   * neighbouring buckets, so the batch walks the bucket array from front to back instead of
+   * jumping around it
    * 
-   * @return - Capacity of Hashtable
+   * @param keys - keys of the batch, null keys are left out
+   * @param hashes - output array receiving the hash of each key
+   * @return - positions of the non-null keys within the batch, grouped by bucket range
    */
-  public int getCapacity() {
-    return this.capacity;
+  private int[] bucketOrder(KeyType[] keys, int[] hashes) {
+    int count = 0;
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != null) {
+        hashes[i] = hash(keys[i]);
+        count++;
+      }
+    }
+
+    // Small batches gain nothing from sorting
+    int[] order = new int[count];
+    if (count < BATCH_SORT_THRESHOLD) {
+      for (int i = 0, j = 0; i < keys.length; i++) {
+        if (keys[i] != null) {
+          order[j++] = i;
+        }
+      }
+      return order;
+    }
+
+    // Counting sort into ranges of neighbouring buckets, which is linear unlike a full sort & is
+    // enough to walk the bucket array front to back
+    int ranges = Math.min(roundUpToPowerOfTwo(count / 8 + 1), MAXIMUM_BATCH_RANGES);
+    int[] starts = new int[ranges + 1];
+    int[] rangeOf = new int[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != null) {
+        rangeOf[i] = (int) ((long) hashFunction(hashes[i]) * ranges / capacity);
+        starts[rangeOf[i] + 1]++;
+      }
+    }
+    for (int r = 0; r < ranges; r++) {
+      starts[r + 1] += starts[r];
+    }
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != null) {
+        order[starts[rangeOf[i]]++] = i;
+      }
+    }
+    return order;
   }
-  
+
   /**
-   * Stores the Key/Value pair into the HashTable
+   * Helper method that lets a batch move an incremental resize along without the latency of
+   * finishing it: the resize is only finished when the batch has at least as many keys as the
+   * old Hashtable has buckets left to move, otherwise each key moves a bounded step of it
+   * 
+   * @param batchSize - # of keys of the batch
+   */
+  private void migrateForBatch(int batchSize) {
+    if (oldTable != null && batchSize >= oldCapacity - migrationIndex) {
+      finishResize();
+    }
+  }
+
+  /**
+   * Stores each Key/Value pair of the batch. The Hashtable is grown once, up front, to hold the
+   * whole batch below the load factor, then the pairs are inserted in bucket order
    */
-  @SuppressWarnings("unchecked")
   @Override
-  public boolean put(KeyType key, ValueType value) {
-    // Checks that key is not null
-    if (key == null) {
-      return false;
+  public int putAll(KeyType[] keys, ValueType[] values) {
+    if (keys.length != values.length) {
+      throw new IllegalArgumentException("Keys & values differ in length!");
     }
 
-    // Gets the index to place the Node & creates the NodeToAdd
-    int index = hashFunction(key);
-    Node<KeyType, ValueType> nodeToAdd = new Node<KeyType, ValueType>(key, value);
+    // Grows once for the final count, so no resize happens in the middle of the batch
+    migrateForBatch(keys.length);
+    if (Double.compare(LOAD_FACTOR_THRESHOLD, (double) (size + keys.length) / capacity) <= 0) {
+      resize(fittedCapacity(size + keys.length, capacity), incrementalResize);
+    }
 
-    // Checks that key is not equal to a key already in HashTable
-    if (containsKey(key)) {
-      return false;
+    int[] hashes = new int[keys.length];
+    int stored = 0;
+    for (int i : bucketOrder(keys, hashes)) {
+      // While an incremental resize is in progress, the key may also be in the old Hashtable
+      migrationStep();
+      int index = hashFunction(hashes[i]);
+      if (findInBucket(index, hashes[i], keys[i]) == null && (oldTable == null
+          || findInChain(oldTable[hashFunction(hashes[i], oldCapacity)], hashes[i], keys[i])
+              == null)) {
+        linkFirst(index, newNode(hashes[i], keys[i], values[i]));
+        stored++;
+      }
     }
+    size += stored;
+    modCount++;
+    return stored;
+  }
 
-    // If no collision has occurred, simply place the Node into the Hashtable
-    if (hashTable[index] == null) {
-      // Creates a LinkedList at the hashTable index
-      hashTable[index] = new LinkedList<Node<KeyType, ValueType>>();
-      // Adds the node into the newly created LinkedList
-      ((LinkedList<Node<KeyType, ValueType>>) hashTable[index]).add(nodeToAdd);
+  /**
+   * Gets the Value of each Key of the batch with a single probe per Key. Unlike putAll() &
+   * removeAll(), the Keys are looked up in their given order, since filling the output array in
+   * bucket order scatters its writes & costs more than the bucket order saves. Like get(), each
+   * Key moves a bounded step of an incremental resize & is also looked up in the old Hashtable
+   */
+  @Override
+  public int getAll(KeyType[] keys, ValueType[] values) {
+    if (values.length < keys.length) {
+      throw new IllegalArgumentException("Output array is too short!");
+    }
 
-      // If the ratio of the numOfPairs / capacity is greater than 0.8, rehash & resize
-      double numOfPairs = size();
-      double currentThreshold = numOfPairs / capacity;
-      if (Double.compare(LOAD_FACTOR_THRESHOLD, currentThreshold) <= 0) {
-        Object[] oldTable = hashTable;
-        int oldCapacity = capacity;
-        hashTable = new Object[this.capacity * 2];
-        capacity = capacity * 2;
-        capacityAdjustment(oldTable, oldCapacity);
+    int found = 0;
+    for (int i = 0; i < keys.length; i++) {
+      Node<KeyType, ValueType> node = null;
+      if (keys[i] != null) {
+        migrationStep();
+        int hash = hash(keys[i]);
+        node = findInBucket(hashFunction(hash), hash, keys[i]);
+        if (node == null && oldTable != null) {
+          node = findInChain(oldTable[hashFunction(hash, oldCapacity)], hash, keys[i]);
+        }
+        afterNodeAccess(keys[i], node);
       }
+      values[i] = node == null ? null : node.value;
+      found += node == null ? 0 : 1;
+    }
+    return found;
+  }
 
-      return true;
+  /**
+   * Removes each Key of the batch in bucket order, shrinking at most once at the end
+   */
+  @Override
+  public int removeAll(KeyType[] keys) {
+    migrateForBatch(keys.length);
+    int[] hashes = new int[keys.length];
+    int removed = 0;
+    for (int i : bucketOrder(keys, hashes)) {
+      // While an incremental resize is in progress, the key may also be in the old Hashtable
+      migrationStep();
+      Node<KeyType, ValueType> node =
+          unlink(hashTable, hashFunction(hashes[i]), hashes[i], keys[i]);
+      if (node == null && oldTable != null) {
+        node = unlink(oldTable, hashFunction(hashes[i], oldCapacity), hashes[i], keys[i]);
+      }
+      if (node != null) {
+        afterNodeRemoval(node);
+        removed++;
+      }
+    }
+    if (removed == 0) {
+      return 0;
+    }
+    size -= removed;
+    modCount++;
+    if (filter != null) {
+      afterFilteredRemovals(removed);
     }
 
-    // If collision has occurred
-    if (hashTable[index] != null) {
-      // Get the LinkedList at that hashTable index
-      LinkedList<Node<KeyType, ValueType>> nodeList =
-          (LinkedList<Node<KeyType, ValueType>>) hashTable[index];
-      // Add the node within the LinkedList
-      nodeList.add(nodeToAdd);
+    if (shrinkThreshold > 0 && capacity > initialCapacity
+        && Double.compare((double) size / capacity, shrinkThreshold) < 0) {
+      int shrunk = fittedCapacity((int) Math.ceil(size * growthFactor), initialCapacity);
+      if (shrunk < capacity) {
+        resize(shrunk, incrementalResize);
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Creates a cursor walking the Hashtable bucket by bucket & down each chain in a single pass.
+   * An incremental resize in progress is finished first, so every Node is in one Hashtable
+   */
+  @Override
+  public MapCursor<KeyType, ValueType> cursor() {
+    return new HashtableCursor();
+  }
 
-      // If the ratio of the numOfPairs / capacity is greater than 0.8, rehash & resize
-      double numOfPairs = size();
-      double currentThreshold = numOfPairs / capacity;
-      if (Double.compare(LOAD_FACTOR_THRESHOLD, currentThreshold) <= 0) {
-        Object[] oldTable = hashTable;
-        int oldCapacity = capacity;
-        hashTable = new Object[this.capacity * 2];
-        capacity = capacity * 2;
-        capacityAdjustment(oldTable, oldCapacity);
+  /**
+   * Creates an iterator over the Nodes stored in the Hashtable, without creating any new Node
+   */
+  @Override
+  public Iterator<Node<KeyType, ValueType>> entryIterator() {
+    HashtableCursor nodeCursor = new HashtableCursor();
+    return new CursorIterator<KeyType, ValueType, Node<KeyType, ValueType>>(nodeCursor) {
+      @Override
+      protected Node<KeyType, ValueType> current() {
+        return nodeCursor.node;
       }
+    };
+  }
 
-      return true;
+  /**
+   * Cursor over the Nodes of the Hashtable, failing fast once the Hashtable is modified
+   */
+  private class HashtableCursor implements MapCursor<KeyType, ValueType> {
+    // Hashtable being walked & index of the next bucket to visit
+    private Node<KeyType, ValueType>[] table;
+    private int bucketIndex;
+    // Node the cursor is on, null before the first & after the last
+    private Node<KeyType, ValueType> node;
+    // modCount the Hashtable had when the cursor was created or reset
+    private int expectedModCount;
+
+    private HashtableCursor() {
+      reset();
     }
 
-    return true;
+    @Override
+    public boolean advance() {
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException("Hashtable was modified during iteration!");
+      }
+
+      // Moves down the current chain, then on to the next non-empty bucket
+      Node<KeyType, ValueType> next = node == null ? null : node.next;
+      while (next == null && bucketIndex < table.length) {
+        next = table[bucketIndex++];
+      }
+      node = next;
+      return next != null;
+    }
+
+    @Override
+    public KeyType getKey() {
+      if (node == null) {
+        throw new NoSuchElementException("Cursor is not on a pair!");
+      }
+      return node.key;
+    }
+
+    @Override
+    public ValueType getValue() {
+      if (node == null) {
+        throw new NoSuchElementException("Cursor is not on a pair!");
+      }
+      return node.value;
+    }
+
+    @Override
+    public void reset() {
+      // Finishes an incremental resize, so lookups during the walk do not move Nodes around
+      finishResize();
+      table = hashTable;
+      bucketIndex = 0;
+      node = null;
+      expectedModCount = modCount;
+    }
+  }
+
+  /**
+   * Finishes an incremental resize in progress, so every Node is in hashTable before a walk
+   */
+  private void finishResize() {
+    if (oldTable != null) {
+      capacityAdjustment(oldTable, oldCapacity);
+      oldTable = null;
+      oldFilter = null;
+    }
   }
 
   /**
-   * Rehashing function once the LOAD_FACTOR_THRESHOLD is reached
+   * Creates a Spliterator over the Nodes of the Hashtable. It splits by halving its range of
+   * bucket indexes, so a parallel stream partitions the bucket array across threads
    * 
-   * @param oldTable - old HashTable that needs to be enlarged
-   * @param oldCapacity - capacity of oldTable
+   * @return - Spliterator over every Node
    */
-  @SuppressWarnings("unchecked")
-  private void capacityAdjustment(Object[] oldTable, int oldCapacity) {
-    // Goes through the old HashTable
-    for (int i = 0; i < oldCapacity; i++) {
-      if (oldTable[i] != null) {
-        // Gets the LinkedList for the i index of the old HashTable
-        LinkedList<Node<KeyType, ValueType>> nodeList =
-            (LinkedList<Node<KeyType, ValueType>>) oldTable[i];
-
-        // Goes through the LinkedList, getting the key, value pairs
-        for (int j = 0; j < nodeList.size(); j++) {
-          KeyType key = nodeList.get(j).getKey();
-          ValueType value = nodeList.get(j).getValue();
-          // Puts the Key/Value pair into the new HashTable
-          put(key, value);
+  public Spliterator<Node<KeyType, ValueType>> spliterator() {
+    finishResize();
+    return new BucketSpliterator(hashTable, 0, capacity, size, modCount);
+  }
+
+  /**
+   * Creates a sequential Stream over the Nodes of the Hashtable, call parallel() on it to split
+   * the work by bucket ranges
+   * 
+   * @return - Stream of every Node
+   */
+  public Stream<Node<KeyType, ValueType>> stream() {
+    return StreamSupport.stream(spliterator(), false);
+  }
+
+  /**
+   * Spliterator walking the chains of a range of buckets
+   */
+  private class BucketSpliterator implements Spliterator<Node<KeyType, ValueType>> {
+    private final Node<KeyType, ValueType>[] table;
+    // Next bucket to walk & the end of the range (exclusive)
+    private int index;
+    private final int fence;
+    // Estimated # of Nodes in the range
+    private long estimate;
+    // Node within the current bucket to return next
+    private Node<KeyType, ValueType> node;
+    // modCount the Hashtable had when the walk started
+    private final int expectedModCount;
+
+    private BucketSpliterator(Node<KeyType, ValueType>[] table, int origin, int fence,
+        long estimate, int expectedModCount) {
+      this.table = table;
+      this.index = origin;
+      this.fence = fence;
+      this.estimate = estimate;
+      this.expectedModCount = expectedModCount;
+    }
+
+    @Override
+    public Spliterator<Node<KeyType, ValueType>> trySplit() {
+      // Only untouched ranges of at least 2 buckets are split
+      int middle = (index + fence) >>> 1;
+      if (node != null || middle <= index) {
+        return null;
+      }
+      estimate >>>= 1;
+      BucketSpliterator prefix =
+          new BucketSpliterator(table, index, middle, estimate, expectedModCount);
+      index = middle;
+      return prefix;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Node<KeyType, ValueType>> action) {
+      while (node == null && index < fence) {
+        node = table[index++];
+      }
+      if (node == null) {
+        return false;
+      }
+      Node<KeyType, ValueType> current = node;
+      node = node.next;
+      action.accept(current);
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException("Hashtable was modified during iteration!");
+      }
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Node<KeyType, ValueType>> action) {
+      // Walks the rest of the range in one loop, checking for modification once at the end
+      Node<KeyType, ValueType> current = node;
+      node = null;
+      while (current != null || index < fence) {
+        if (current == null) {
+          current = table[index++];
+          continue;
         }
+        action.accept(current);
+        current = current.next;
+      }
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException("Hashtable was modified during iteration!");
       }
     }
+
+    @Override
+    public long estimateSize() {
+      return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+      return Spliterator.DISTINCT | Spliterator.NONNULL;
+    }
   }
 
   /**
-   * Gets the Value associated with the Key Exception is thrown when Key is not contained within
-   * HashTable
+   * Performs the action on every Key/Value pair, in parallel once the Hashtable holds at least
+   * parallelismThreshold pairs. Like java.util.concurrent.ConcurrentHashMap, a threshold of
+   * Long.MAX_VALUE runs sequentially & a threshold of 1 splits the buckets as finely as possible.
+   * The action must not modify the Hashtable
+   * 
+   * @param parallelismThreshold - estimated # of pairs below which a range is walked by a single
+   *                             thread
+   * @param action - action performed on each Key & its Value
    */
-  @Override
-  @SuppressWarnings("unchecked")
-  public ValueType get(KeyType key) throws NoSuchElementException {
-    // If the hashTable does not contain key, throw the exception
-    if (!containsKey(key)) {
-      throw new NoSuchElementException("Does not contain this key!");
-    }
+  public void forEach(long parallelismThreshold,
+      BiConsumer<? super KeyType, ? super ValueType> action) {
+    runBulkTask(parallelismThreshold, null, (table, origin, fence) -> {
+      for (int i = origin; i < fence; i++) {
+        for (Node<KeyType, ValueType> node = table[i]; node != null; node = node.next) {
+          action.accept(node.key, node.value);
+        }
+      }
+      return null;
+    }, null);
+  }
 
-    // Calculates index of the Key and creates a null ValueType variable
-    int index = hashFunction(key);
-    ValueType value = null;
+  /**
+   * Replaces the Value of every pair with the result of the function, in parallel once the
+   * Hashtable holds at least parallelismThreshold pairs. Values are replaced within their Nodes,
+   * so this is not a structural modification
+   * 
+   * @param parallelismThreshold - estimated # of pairs below which a range is walked by a single
+   *                             thread
+   * @param function - computes each new Value from its Key & old Value
+   */
+  public void replaceAll(long parallelismThreshold,
+      BiFunction<? super KeyType, ? super ValueType, ? extends ValueType> function) {
+    runBulkTask(parallelismThreshold, null, (table, origin, fence) -> {
+      for (int i = origin; i < fence; i++) {
+        for (Node<KeyType, ValueType> node = table[i]; node != null; node = node.next) {
+          node.value = function.apply(node.key, node.value);
+        }
+      }
+      return null;
+    }, null);
+  }
 
-    // Gets the LinkedList at the key's hashTable index
-    LinkedList<Node<KeyType, ValueType>> nodeList =
-        (LinkedList<Node<KeyType, ValueType>>) hashTable[index];
+  /**
+   * Combines every non-null Value with the reducer, in parallel once the Hashtable holds at least
+   * parallelismThreshold pairs. Ranges are reduced separately & their results combined in no
+   * particular order, so the reducer must be associative & commutative
+   * 
+   * @param parallelismThreshold - estimated # of pairs below which a range is walked by a single
+   *                             thread
+   * @param reducer - combines two Values into one
+   * @return - the reduction of every Value, or null if there is none
+   */
+  public ValueType reduceValues(long parallelismThreshold, BinaryOperator<ValueType> reducer) {
+    return runBulkTask(parallelismThreshold, null, (table, origin, fence) -> {
+      ValueType result = null;
+      for (int i = origin; i < fence; i++) {
+        for (Node<KeyType, ValueType> node = table[i]; node != null; node = node.next) {
+          if (node.value != null) {
+            result = result == null ? node.value : reducer.apply(result, node.value);
+          }
+        }
+      }
+      return result;
+    }, reducer);
+  }
 
-    // Goes through the LinkedList to find the Key, then get its value
-    for (int i = 0; i < nodeList.size(); i++) {
-      if (nodeList.get(i).getKey().equals(key)) {
-        value = nodeList.get(i).getValue();
+  /**
+   * Returns a non-null result of the search function applied to some pair, in parallel once the
+   * Hashtable holds at least parallelismThreshold pairs. As soon as any range finds a result,
+   * the other ranges stop walking & no more ranges are split off
+   * 
+   * @param <ResultType> - ObjectType of the result
+   * @param parallelismThreshold - estimated # of pairs below which a range is walked by a single
+   *                             thread
+   * @param searchFunction - returns a result for a matching pair, null otherwise
+   * @return - a non-null result, or null if no pair matched
+   */
+  public <ResultType> ResultType search(long parallelismThreshold,
+      BiFunction<? super KeyType, ? super ValueType, ? extends ResultType> searchFunction) {
+    AtomicReference<ResultType> found = new AtomicReference<ResultType>();
+    runBulkTask(parallelismThreshold, found, (table, origin, fence) -> {
+      for (int i = origin; i < fence && found.get() == null; i++) {
+        for (Node<KeyType, ValueType> node = table[i]; node != null; node = node.next) {
+          ResultType result = searchFunction.apply(node.key, node.value);
+          if (result != null) {
+            found.compareAndSet(null, result);
+            return null;
+          }
+        }
       }
+      return null;
+    }, null);
+    return found.get();
+  }
+
+  /**
+   * Walks a range of buckets sequentially, producing a result for the range
+   *
+   * @param <KeyType> - ObjectType of the Keys
+   * @param <ValueType> - ObjectType of the Values
+   * @param <ResultType> - ObjectType of the result, Void for walks without one
+   */
+  private interface RangeWalker<KeyType, ValueType, ResultType> {
+    ResultType walk(Node<KeyType, ValueType>[] table, int origin, int fence);
+  }
+
+  /**
+   * Helper method running a bulk operation over the whole Hashtable, then checking that it was
+   * not structurally modified meanwhile
+   * 
+   * @param <ResultType> - ObjectType of the result
+   * @param parallelismThreshold - estimated # of pairs below which a range is walked by a single
+   *                             thread
+   * @param found - result shared by a search, stops splitting once set, null otherwise
+   * @param walker - walks one range of buckets
+   * @param combiner - combines the non-null results of two ranges, null if there are none
+   * @return - combined result of every range
+   */
+  private <ResultType> ResultType runBulkTask(long parallelismThreshold, AtomicReference<?> found,
+      RangeWalker<KeyType, ValueType, ResultType> walker, BinaryOperator<ResultType> combiner) {
+    finishResize();
+    int expectedModCount = modCount;
+
+    ResultType result;
+    if (size < parallelismThreshold) {
+      result = walker.walk(hashTable, 0, capacity);
+    } else {
+      result = ForkJoinPool.commonPool().invoke(new BulkTask<KeyType, ValueType, ResultType>(null,
+          hashTable, 0, capacity, size, parallelismThreshold, found, walker, combiner));
     }
 
-    // Return the retrieved key's value variable
-    return value;
+    if (modCount != expectedModCount) {
+      throw new ConcurrentModificationException("Hashtable was modified during iteration!");
+    }
+    return result;
   }
 
   /**
-   * Gets the number of Key/Value pairs stored within the HashTable
+   * Fork/join task walking a range of buckets. The range is halved while its estimated # of
+   * pairs is at least the parallelism threshold: the upper half is forked & the lower half
+   * computed directly. Once both halves complete, their results are combined into the parent's
+   * 
+   * @param <KeyType> - ObjectType of the Keys
+   * @param <ValueType> - ObjectType of the Values
+   * @param <ResultType> - ObjectType of the result, Void for walks without one
    */
-  @Override
-  @SuppressWarnings("unchecked")
-  public int size() {
-    // Initialize size variable used for storing # of Key/Value pairs
-    int size = 0;
+  private static final class BulkTask<KeyType, ValueType, ResultType>
+      extends CountedCompleter<ResultType> {
+    private static final long serialVersionUID = 1L;
 
+    private final Node<KeyType, ValueType>[] table;
+    private final int origin;
+    private final int fence;
+    // Estimated # of pairs in the range
+    private final long estimate;
+    private final long parallelismThreshold;
+    private final AtomicReference<?> found;
+    private final RangeWalker<KeyType, ValueType, ResultType> walker;
+    private final BinaryOperator<ResultType> combiner;
+    // Other half of the parent's range & this range's result
+    private BulkTask<KeyType, ValueType, ResultType> sibling;
+    private ResultType result;
 
-    // Goes through hashTable
-    for (int i = 0; i < capacity; i++) {
-      // If the specific index of the HashTable is not null
-      if (hashTable[i] != null) {
-        // Gets the LinkedList for that specific HashTable index
-        LinkedList<Node<KeyType, ValueType>> nodeList =
-            (LinkedList<Node<KeyType, ValueType>>) hashTable[i];
-        // Add the size of that LinkedList to the size variable
-        size += nodeList.size();
+    private BulkTask(BulkTask<KeyType, ValueType, ResultType> parent,
+        Node<KeyType, ValueType>[] table, int origin, int fence, long estimate,
+        long parallelismThreshold, AtomicReference<?> found,
+        RangeWalker<KeyType, ValueType, ResultType> walker, BinaryOperator<ResultType> combiner) {
+      super(parent);
+      this.table = table;
+      this.origin = origin;
+      this.fence = fence;
+      this.estimate = estimate;
+      this.parallelismThreshold = parallelismThreshold;
+      this.found = found;
+      this.walker = walker;
+      this.combiner = combiner;
+    }
+
+    @Override
+    public void compute() {
+      if (estimate >= parallelismThreshold && fence - origin > 1
+          && (found == null || found.get() == null)) {
+        int middle = (origin + fence) >>> 1;
+        BulkTask<KeyType, ValueType, ResultType> lower = new BulkTask<>(this, table, origin,
+            middle, estimate >>> 1, parallelismThreshold, found, walker, combiner);
+        BulkTask<KeyType, ValueType, ResultType> upper = new BulkTask<>(this, table, middle,
+            fence, estimate >>> 1, parallelismThreshold, found, walker, combiner);
+        lower.sibling = upper;
+        upper.sibling = lower;
+        setPendingCount(1);
+        upper.fork();
+        lower.compute();
+      } else {
+        result = walker.walk(table, origin, fence);
+        tryComplete();
       }
     }
 
-    // Returns # of Key/Value pairs in the HashTable
-    return size;
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onCompletion(CountedCompleter<?> caller) {
+      // Combines the results of both halves once the second one completes
+      if (caller != this) {
+        BulkTask<KeyType, ValueType, ResultType> child =
+            (BulkTask<KeyType, ValueType, ResultType>) caller;
+        ResultType first = child.result;
+        ResultType second = child.sibling == null ? null : child.sibling.result;
+        if (first == null || combiner == null) {
+          result = second;
+        } else if (second == null) {
+          result = first;
+        } else {
+          result = combiner.apply(first, second);
+        }
+      }
+    }
+
+    @Override
+    public ResultType getRawResult() {
+      return result;
+    }
   }
 
   /**
-   * Checks if the HashTable contains the Key
+   * Writes every Key/Value pair into a snapshot file, streamed through a FileChannel one block at
+   * a time, so the memory needed stays constant whatever the size of the Hashtable. Each block
+   * carries its own CRC32C checksum
+   * 
+   * @param path - snapshot file, replaced if it exists
+   * @param keyCodec - codec of the Keys
+   * @param valueCodec - codec of the Values
+   * @throws IOException - if the file cannot be written
+   * @throws ConcurrentModificationException - if the Hashtable is modified during the snapshot
    */
-  @Override
-  @SuppressWarnings("unchecked")
-  public boolean containsKey(KeyType key) {
-    // Gets the index the possible Key would be at
-    int index = hashFunction(key);
+  public void snapshot(Path path, ByteCodec<KeyType> keyCodec, ByteCodec<ValueType> valueCodec)
+      throws IOException {
+    finishResize();
+    int expectedModCount = modCount;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE);
+      header.putLong(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putInt(SNAPSHOT_BLOCK_SIZE)
+          .putLong(size).flip();
+      writeFully(channel, header);
 
-    // If that index has a null reference, key is not in HashTable, return false
-    if (hashTable[index] == null) {
-      return false;
+      // Encodes pairs straight into the block, writing it out whenever the next pair overflows
+      ByteBuffer block = ByteBuffer.allocateDirect(SNAPSHOT_BLOCK_SIZE);
+      block.position(BLOCK_HEADER_SIZE).limit(block.capacity() - BLOCK_CRC_SIZE);
+      CRC32C crc = new CRC32C();
+      int pairs = 0;
+      for (int i = 0; i < capacity; i++) {
+        for (Node<KeyType, ValueType> node = hashTable[i]; node != null; node = node.next) {
+          while (!encodeEntry(block, node, keyCodec, valueCodec)) {
+            if (pairs > 0) {
+              writeBlock(channel, block, pairs, crc);
+              pairs = 0;
+            } else {
+              // A pair larger than a whole block gets a larger block
+              block = ByteBuffer.allocateDirect(block.capacity() * 2);
+              block.position(BLOCK_HEADER_SIZE).limit(block.capacity() - BLOCK_CRC_SIZE);
+            }
+          }
+          pairs++;
+        }
+      }
+      if (pairs > 0) {
+        writeBlock(channel, block, pairs, crc);
+      }
+      channel.force(false);
     }
+    if (modCount != expectedModCount) {
+      throw new ConcurrentModificationException("Hashtable was modified during the snapshot!");
+    }
+  }
+
+  /**
+   * Writes a snapshot using Java serialization for the Keys & Values, which must be Serializable.
+   * Much slower than snapshot() with codecs, but needs none
+   * 
+   * @param path - snapshot file, replaced if it exists
+   * @throws IOException - if the file cannot be written
+   */
+  public void snapshot(Path path) throws IOException {
+    snapshot(path, ByteCodec.serialized(), ByteCodec.serialized());
+  }
+
+  /**
+   * Replaces the contents of the Hashtable with the pairs of a snapshot file. The Hashtable is
+   * resized once, up front, to hold every pair of the snapshot, so no resize happens while the
+   * pairs are inserted. Every block's checksum is verified before its pairs are inserted, & no
+   * buffer is sized from a length before that length is checked against the file
+   * 
+   * @param path - snapshot file
+   * @param keyCodec - codec of the Keys, the one the snapshot was written with
+   * @param valueCodec - codec of the Values, the one the snapshot was written with
+   * @throws IOException - if the file cannot be read, is not a snapshot or is corrupt, in which
+   *                     case the Hashtable is left empty
+   */
+  public void restore(Path path, ByteCodec<KeyType> keyCodec, ByteCodec<ValueType> valueCodec)
+      throws IOException {
+    clear();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE);
+      readFully(channel, header);
+      if (header.getLong(0) != SNAPSHOT_MAGIC) {
+        throw new IOException("Not a HashtableMap snapshot: " + path);
+      }
+      if (header.getInt(8) != SNAPSHOT_VERSION) {
+        throw new IOException("Unsupported snapshot version: " + header.getInt(8));
+      }
+      long total = header.getLong(16);
+      if (total < 0 || total > Integer.MAX_VALUE - 8) {
+        throw new IOException("Corrupt snapshot header, # of pairs: " + total);
+      }
+
+      int blockSize = header.getInt(12);
+      if (blockSize < BLOCK_HEADER_SIZE + BLOCK_CRC_SIZE || blockSize > MAXIMUM_BLOCK_SIZE) {
+        throw new IOException("Corrupt snapshot header, block size: " + blockSize);
+      }
+
+      // Grows once for every pair of the snapshot
+      if (Double.compare(LOAD_FACTOR_THRESHOLD, (double) total / capacity) <= 0) {
+        resize(fittedCapacity((int) total, capacity), false);
+      }
+
+      // A snapshot smaller than a block only needs a buffer of its own size
+      ByteBuffer block = ByteBuffer.allocateDirect(
+          (int) Math.max(Math.min(blockSize, channel.size() - channel.position()), 64));
+      CRC32C crc = new CRC32C();
+      long restored = 0;
+      for (int blockIndex = 0; restored < total; blockIndex++) {
+        block.clear().limit(BLOCK_HEADER_SIZE);
+        readFully(channel, block);
+        int payloadLength = block.getInt(0);
+        int pairs = block.getInt(4);
+        if (payloadLength < 0 || payloadLength > MAXIMUM_BLOCK_SIZE
+            || (long) payloadLength + BLOCK_CRC_SIZE > channel.size() - channel.position()
+            || pairs <= 0 || pairs > total - restored) {
+          throw new IOException("Snapshot block " + blockIndex + " is corrupt");
+        }
+        if (block.capacity() < payloadLength + BLOCK_CRC_SIZE) {
+          block = ByteBuffer.allocateDirect(payloadLength + BLOCK_CRC_SIZE);
+        }
+
+        // Verifies the checksum of the whole block before inserting any of its pairs
+        block.clear().limit(payloadLength + BLOCK_CRC_SIZE);
+        readFully(channel, block);
+        crc.reset();
+        crc.update(block.duplicate().position(0).limit(payloadLength));
+        if ((int) crc.getValue() != block.getInt(payloadLength)) {
+          throw new IOException("Snapshot block " + blockIndex + " is corrupt");
+        }
 
-    // If that index does not contain a null reference
-    if (hashTable[index] != null) {
-      // Get the LinkedList for that HashTable index
-      LinkedList<Node<KeyType, ValueType>> nodeList =
-          (LinkedList<Node<KeyType, ValueType>>) hashTable[index];
-      // Go through the LinkedList and if the key is found, return true
-      for (int j = 0; j < nodeList.size(); j++) {
-        if (nodeList.get(j).getKey().equals(key)) {
-          return true;
+        int position = 0;
+        for (int i = 0; i < pairs; i++) {
+          int keyLength = position + 8 <= payloadLength ? block.getInt(position) : -1;
+          int valueLength = keyLength < 0 ? 0 : block.getInt(position + 4);
+          if (keyLength < 0 || valueLength < -1
+              || (long) position + 8 + keyLength + Math.max(valueLength, 0) > payloadLength) {
+            throw new IOException("Snapshot block " + blockIndex + " is corrupt");
+          }
+          KeyType key = keyCodec.decode(block, position + 8, keyLength);
+          ValueType value = valueLength < 0 ? null
+              : valueCodec.decode(block, position + 8 + keyLength, valueLength);
+          put(key, value);
+          position += 8 + keyLength + Math.max(valueLength, 0);
         }
+        restored += pairs;
       }
+    } catch (IOException | RuntimeException e) {
+      // Leaves nothing half restored behind
+      clear();
+      throw e;
     }
+  }
 
-    // Key was not found, returns false
-    return false;
+  /**
+   * Restores a snapshot written by snapshot(Path), using Java serialization for the Keys & Values
+   * 
+   * @param path - snapshot file
+   * @throws IOException - if the file cannot be read, is not a snapshot or is corrupt
+   */
+  public void restore(Path path) throws IOException {
+    restore(path, ByteCodec.serialized(), ByteCodec.serialized());
   }
 
   /**
-   * Removes the Node containing the Key within the HashTable Returns Value associated with the Key
+   * Helper method that encodes a pair as [key length: 4][value length: 4][key][value] at the
+   * position of a block, a null value having a length of -1
+   * 
+   * @param block - block to encode into
+   * @param node - Node holding the pair
+   * @param keyCodec - codec of the Keys
+   * @param valueCodec - codec of the Values
+   * @return - true if the pair fit, false if the block overflowed & its position was restored
    */
-  @Override
-  @SuppressWarnings("unchecked")
-  public ValueType remove(KeyType key) {
-    // If the key is null
-    if (key == null) {
-      return null;
+  private static <KeyType, ValueType> boolean encodeEntry(ByteBuffer block,
+      Node<KeyType, ValueType> node, ByteCodec<KeyType> keyCodec,
+      ByteCodec<ValueType> valueCodec) {
+    // The length fields must fit before the codecs run, so every exception a codec throws but
+    // BufferOverflowException is its own & reaches the caller
+    int start = block.position();
+    if (block.remaining() < 8) {
+      return false;
     }
-    
-    // If the HashTable does not contain the key, return null
-    if (!containsKey(key)) {
-      return null;
+    try {
+      block.position(start + 8);
+      keyCodec.encode(node.key, block);
+      int keyLength = block.position() - start - 8;
+      int valueLength = -1;
+      if (node.value != null) {
+        valueCodec.encode(node.value, block);
+        valueLength = block.position() - start - 8 - keyLength;
+      }
+      block.putInt(start, keyLength).putInt(start + 4, valueLength);
+      return true;
+    } catch (BufferOverflowException e) {
+      block.position(start);
+      return false;
     }
+  }
 
-    // Gets the index the key will be at and initalizes a ValueType variable to hold
-    // the value of the Key being removed
-    int index = hashFunction(key);
-    ValueType value = null;
+  /**
+   * Helper method that fills in the header & checksum of a block, writes it & empties it
+   * 
+   * @param channel - snapshot file
+   * @param block - block holding encoded pairs after its header
+   * @param pairs - # of pairs in the block
+   * @param crc - checksum to reuse
+   * @throws IOException - if the block cannot be written
+   */
+  private static void writeBlock(FileChannel channel, ByteBuffer block, int pairs, CRC32C crc)
+      throws IOException {
+    int end = block.position();
+    block.putInt(0, end - BLOCK_HEADER_SIZE).putInt(4, pairs);
+    crc.reset();
+    crc.update(block.duplicate().position(BLOCK_HEADER_SIZE).limit(end));
+    block.limit(block.capacity()).putInt((int) crc.getValue()).flip();
+    writeFully(channel, block);
+    block.clear().position(BLOCK_HEADER_SIZE).limit(block.capacity() - BLOCK_CRC_SIZE);
+  }
 
-    // Gets the LinkedList at the index of the HashTable
-    LinkedList<Node<KeyType, ValueType>> nodeList =
-        (LinkedList<Node<KeyType, ValueType>>) hashTable[index];
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
 
-    // Goes through the LinkedList
-    for (int i = 0; i < nodeList.size(); i++) {
-      // Once finding the key, store its value, then remove the key, break loop
-      if (nodeList.get(i).getKey().equals(key)) {
-        value = nodeList.get(i).getValue();
-        nodeList.remove(nodeList.get(i));
-        break;
+  private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new EOFException("Snapshot is truncated");
       }
     }
-
-    // Return value of the removed Key
-    return value;
   }
 
   /**
-   * Removes all key-value pairs from the collection without changing underlying array capacity
+   * Removes all key-value pairs from the collection without changing underlying array capacity.
+   * A Hashtable with a shrink threshold instead drops back to its original capacity
    */
   @Override
   public void clear() {
+    // An empty Hashtable has nothing to scan
+    if (size == 0 && oldTable == null) {
+      return;
+    }
+    oldTable = null;
+    treeBins = null;
+    size = 0;
+    modCount++;
+    if (stats != null) {
+      stats.resetMaxChainLength();
+    }
+    if (filter != null) {
+      oldFilter = null;
+      staleFilterKeys = 0;
+    }
+
+    // A shrinking Hashtable starts over from a fresh array of its original capacity
+    if (shrinkThreshold > 0 && capacity != initialCapacity) {
+      capacity = initialCapacity;
+      hashTable = createTable(capacity);
+      if (filter != null) {
+        filter = new BlockedBloomFilter(filterKeys(capacity));
+      }
+      return;
+    }
+    if (filter != null) {
+      filter.clear();
+    }
+
     // Go through all the HashTable's indexes and set all of them to null
     // This will remove all the Key/Value pairs within the Hashtable
     for (int i = 0; i < capacity; i++) {
@@ -287,4 +2380,3 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
   }
 
 }
-
@@ -0,0 +1,920 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class containing benchmarks measuring the performance of the HashtableMap.java implementation
+ */
+public class HashtableMapBenchmark {
+  // Number of warm up rounds run before each measurement so the JIT has compiled the hot path
+  private static final int WARMUP_ROUNDS = 3;
+
+  /**
+   * Measures the amortized cost of put() as the HashtableMap grows from 1K to 10M entries. Each
+   * size starts from the default capacity, so every resize along the way is included in the
+   * measurement. The cost per put should stay flat as the size grows
+   */
+  public static void amortizedPut() {
+    System.out.println("Amortized put() cost");
+    int[] sizes = {1_000, 10_000, 100_000, 1_000_000, 10_000_000};
+
+    for (int size : sizes) {
+      // Warms up on the same size before measuring
+      for (int i = 0; i < WARMUP_ROUNDS; i++) {
+        fill(size);
+      }
+
+      long start = System.nanoTime();
+      HashtableMap<Integer, Integer> hashTable = fill(size);
+      long elapsed = System.nanoTime() - start;
+
+      System.out.printf("  %,12d entries: %8.1f ns/put (capacity %,d)%n", size,
+          (double) elapsed / size, hashTable.getCapacity());
+    }
+  }
+
+  /**
+   * Helper method that inserts the Keys 0 to size - 1 into a new HashtableMap
+   *
+   * @param size - # of Key/Value pairs to insert
+   * @return - the filled HashtableMap
+   */
+  private static HashtableMap<Integer, Integer> fill(int size) {
+    HashtableMap<Integer, Integer> hashTable = new HashtableMap<Integer, Integer>();
+    for (int i = 0; i < size; i++) {
+      hashTable.put(i, i);
+    }
+    return hashTable;
+  }
+
+  /**
+   * Compares the heap retained by 1M String to Integer entries in the HashtableMap's Node chains
+   * against the previous layout, where every bucket was a java.util.LinkedList of Nodes. The Keys
+   * & Values are created up front, so only the bucket storage itself is measured. The
+   * OffHeapHashtableMap is measured too, both the heap it retains & the bytes it holds off heap
+   */
+  @SuppressWarnings("unchecked")
+  public static void heapFootprint() {
+    System.out.println("Heap footprint of 1M String -> Integer entries");
+    int size = 1_000_000;
+    String[] keys = new String[size];
+    Integer[] values = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = "key" + i;
+      values[i] = i;
+    }
+
+    // Node chains, as stored by the HashtableMap
+    long before = usedHeap();
+    HashtableMap<String, Integer> hashTable = new HashtableMap<String, Integer>();
+    for (int i = 0; i < size; i++) {
+      hashTable.put(keys[i], values[i]);
+    }
+    long chained = usedHeap() - before;
+
+    // LinkedList buckets, sized to the same capacity the HashtableMap ended with
+    before = usedHeap();
+    int capacity = hashTable.getCapacity();
+    Object[] listTable = new Object[capacity];
+    for (int i = 0; i < size; i++) {
+      int index = Math.abs(keys[i].hashCode() % capacity);
+      if (listTable[index] == null) {
+        listTable[index] = new LinkedList<Node<String, Integer>>();
+      }
+      ((LinkedList<Node<String, Integer>>) listTable[index])
+          .add(new Node<String, Integer>(keys[i], values[i]));
+    }
+    long listed = usedHeap() - before;
+
+    System.out.printf("  Node chains:       %,14d bytes (%5.1f bytes/entry)%n", chained,
+        (double) chained / size);
+    System.out.printf("  LinkedList buckets:%,14d bytes (%5.1f bytes/entry)%n", listed,
+        (double) listed / size);
+
+    // Entries encoded into direct ByteBuffers, only the buffer objects stay on the heap
+    before = usedHeap();
+    OffHeapHashtableMap<String, Integer> offHeap =
+        new OffHeapHashtableMap<String, Integer>(ByteCodec.UTF8, ByteCodec.INTEGER);
+    for (int i = 0; i < size; i++) {
+      offHeap.put(keys[i], values[i]);
+    }
+    long offHeapRetained = usedHeap() - before;
+    System.out.printf("  Off heap entries:  %,14d bytes on heap, %,d bytes off heap%n",
+        offHeapRetained, offHeap.offHeapBytes());
+
+    // Keeps every structure reachable until after the last measurement
+    if (hashTable.size() + listTable.length + offHeap.size() + keys.length + values.length == 0) {
+      System.out.println();
+    }
+  }
+
+  /**
+   * Compares the latency of get() hits on the chained HashtableMap & the open addressing
+   * RobinHoodHashtableMap, for maps too large to fit in the CPU caches
+   */
+  public static void getLatency() {
+    System.out.println("get() latency, 1M Integer keys");
+    int size = 1_000_000;
+    HashtableMap<Integer, Integer> chained = new HashtableMap<Integer, Integer>(16, true);
+    RobinHoodHashtableMap<Integer, Integer> probed = new RobinHoodHashtableMap<Integer, Integer>();
+    Integer[] lookups = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      chained.put(i, i);
+      probed.put(i, i);
+      // Keys are looked up in a scrambled order, so consecutive gets touch unrelated buckets
+      lookups[i] = (int) ((i * 0x9E3779B1L) % size);
+    }
+
+    for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+      long chainedTime = timeGets(chained, lookups);
+      long probedTime = timeGets(probed, lookups);
+      if (round == WARMUP_ROUNDS) {
+        System.out.printf("  HashtableMap:          %6.1f ns/get%n", (double) chainedTime / size);
+        System.out.printf("  RobinHoodHashtableMap: %6.1f ns/get%n", (double) probedTime / size);
+      }
+    }
+  }
+
+  /**
+   * Helper method that times a get() of every lookup key
+   *
+   * @param map - map to read from
+   * @param lookups - keys to get, all present in the map
+   * @return - # of nanoseconds taken
+   */
+  private static long timeGets(MapADT<Integer, Integer> map, Integer[] lookups) {
+    long sum = 0;
+    long start = System.nanoTime();
+    for (Integer key : lookups) {
+      sum += map.get(key);
+    }
+    long elapsed = System.nanoTime() - start;
+    // Consumes the sum so the gets cannot be optimized away
+    if (sum == 42) {
+      System.out.println();
+    }
+    return elapsed;
+  }
+
+  /**
+   * Compares get() hits on HashtableMaps built without & with recordStats(true), both for 1K keys
+   * that stay in the CPU caches, where the cost of recording shows the most, & for 1M keys
+   */
+  public static void statsOverhead() {
+    System.out.println("get() cost of recording stats");
+    for (int size : new int[] {1_000, 1_000_000}) {
+      HashtableMap<Integer, Integer> plain = new HashtableMap.Builder<Integer, Integer>()
+          .capacity(16).powerOfTwoCapacity(true).build();
+      HashtableMap<Integer, Integer> recorded = new HashtableMap.Builder<Integer, Integer>()
+          .capacity(16).powerOfTwoCapacity(true).recordStats(true).build();
+      // Small maps are looked up many times over, so every measurement covers 1M gets
+      Integer[] lookups = new Integer[1_000_000];
+      for (int i = 0; i < size; i++) {
+        plain.put(i, i);
+        recorded.put(i, i);
+      }
+      for (int i = 0; i < lookups.length; i++) {
+        lookups[i] = (int) ((i * 0x9E3779B1L) % size);
+      }
+
+      for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+        long plainTime = timeGets(plain, lookups);
+        long recordedTime = timeGets(recorded, lookups);
+        if (round == WARMUP_ROUNDS) {
+          System.out.printf("  %,9d keys   stats off %6.1f ns/get   stats on %6.1f ns/get%n", size,
+              (double) plainTime / lookups.length, (double) recordedTime / lookups.length);
+        }
+      }
+    }
+  }
+
+  /**
+   * Measures get() on keys that all share one hashCode(), as hostile user supplied Strings can.
+   * The Strings are made of "Aa" & "BB" blocks, which hash alike, & are Comparable, so their
+   * TreeBin keeps get() at O(log n) as the # of colliding keys grows 100 fold. Colliding keys that
+   * are not Comparable can only be told apart by equals(), so they show the O(n) walk that every
+   * collision cost before TreeBins
+   */
+  public static void adversarialCollisions() {
+    System.out.println("get() with every key colliding");
+    for (int size : new int[] {1_000, 10_000, 100_000}) {
+      HashtableMap<String, Integer> strings = new HashtableMap<String, Integer>(16, true);
+      String[] keys = new String[size];
+      for (int i = 0; i < size; i++) {
+        StringBuilder key = new StringBuilder();
+        for (int bit = 16; bit >= 0; bit--) {
+          key.append((i >>> bit & 1) == 0 ? "Aa" : "BB");
+        }
+        keys[i] = key.toString();
+        strings.put(keys[i], i);
+      }
+      HashtableMap<Object, Integer> opaque = new HashtableMap<Object, Integer>(16, true);
+      Object[] opaqueKeys = new Object[Math.min(size, 10_000)];
+      for (int i = 0; i < opaqueKeys.length; i++) {
+        opaqueKeys[i] = new CollidingKey(i);
+        opaque.put(opaqueKeys[i], i);
+      }
+
+      // Looks up 10K keys spread over the whole map
+      String[] lookups = new String[10_000];
+      Object[] opaqueLookups = new Object[10_000];
+      for (int i = 0; i < lookups.length; i++) {
+        lookups[i] = keys[(int) ((i * 0x9E3779B1L) % size)];
+        opaqueLookups[i] = opaqueKeys[(int) ((i * 0x9E3779B1L) % opaqueKeys.length)];
+      }
+      for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+        long sum = 0;
+        long start = System.nanoTime();
+        for (String key : lookups) {
+          sum += strings.get(key);
+        }
+        long stringTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (Object key : opaqueLookups) {
+          sum += opaque.get(key);
+        }
+        long opaqueTime = System.nanoTime() - start;
+        // Consumes the sum so the gets cannot be optimized away
+        if (sum == 42) {
+          System.out.println();
+        }
+        if (round == WARMUP_ROUNDS) {
+          System.out.printf("  %,7d keys   Comparable %7.1f ns/get   not Comparable (%,d keys) "
+              + "%9.1f ns/get%n", size, (double) stringTime / lookups.length, opaqueKeys.length,
+              (double) opaqueTime / lookups.length);
+        }
+      }
+    }
+  }
+
+  /**
+   * Key that is not Comparable & whose hashCode() is the same for every instance
+   */
+  private static class CollidingKey {
+    private final int id;
+
+    private CollidingKey(int id) {
+      this.id = id;
+    }
+
+    @Override
+    public int hashCode() {
+      return 42;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof CollidingKey && ((CollidingKey) other).id == id;
+    }
+  }
+
+  /**
+   * Measures counting word-like keys, as an aggregation job does. Through the MapADT methods
+   * alone, each update takes containsKey(), get(), remove() & put(): four hashes & four walks of
+   * the key's chain. merge() & addToLong() find the key's Node once & update its Value in place
+   */
+  public static void counterUpdates() {
+    System.out.println("Counter updates, 2M updates");
+    for (int distinct : new int[] {1_000, 100_000, 1_000_000}) {
+      String[] updates = new String[2_000_000];
+      for (int i = 0; i < updates.length; i++) {
+        updates[i] = "word" + (int) ((i * 0x9E3779B1L) % distinct);
+      }
+
+      for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+        HashtableMap<String, Long> adt = new HashtableMap<String, Long>();
+        long start = System.nanoTime();
+        for (String word : updates) {
+          long count = adt.containsKey(word) ? adt.get(word) : 0;
+          adt.remove(word);
+          adt.put(word, count + 1);
+        }
+        long adtTime = System.nanoTime() - start;
+
+        HashtableMap<String, Long> merged = new HashtableMap<String, Long>();
+        start = System.nanoTime();
+        for (String word : updates) {
+          merged.merge(word, 1L, Long::sum);
+        }
+        long mergeTime = System.nanoTime() - start;
+
+        HashtableMap<String, Long> added = new HashtableMap<String, Long>();
+        start = System.nanoTime();
+        for (String word : updates) {
+          added.addToLong(word, 1);
+        }
+        long addTime = System.nanoTime() - start;
+
+        if (round == WARMUP_ROUNDS) {
+          System.out.printf("  %,9d keys   containsKey+get+remove+put %6.1f ns   merge %6.1f ns"
+              + "   addToLong %6.1f ns%n", distinct, (double) adtTime / updates.length,
+              (double) mergeTime / updates.length, (double) addTime / updates.length);
+        }
+      }
+    }
+  }
+
+  /**
+   * Compares a HashtableMap with the FrozenHashtableMap freeze() copies it into: the time to build
+   * each, get() hits in a scrambled order & the heap each retains beyond its Keys & Values
+   */
+  public static void frozenLookups() {
+    System.out.println("Frozen map vs HashtableMap, Integer keys");
+    for (int size : new int[] {10_000, 1_000_000}) {
+      Integer[] keys = new Integer[size];
+      Integer[] lookups = new Integer[Math.max(size, 1_000_000)];
+      for (int i = 0; i < size; i++) {
+        keys[i] = i * 7;
+      }
+      for (int i = 0; i < lookups.length; i++) {
+        lookups[i] = keys[(int) ((i * 0x9E3779B1L) % size)];
+      }
+
+      for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+        long before = usedHeap();
+        long start = System.nanoTime();
+        HashtableMap<Integer, Integer> mutable = new HashtableMap<Integer, Integer>(16, true);
+        for (int i = 0; i < size; i++) {
+          mutable.put(keys[i], keys[i]);
+        }
+        long putTime = System.nanoTime() - start;
+        long mutableBytes = usedHeap() - before;
+
+        before = usedHeap();
+        start = System.nanoTime();
+        FrozenHashtableMap<Integer, Integer> frozen = mutable.freeze();
+        long freezeTime = System.nanoTime() - start;
+        long frozenBytes = usedHeap() - before;
+
+        // Each map gets its own loop rather than timeGets(), whose call site has seen several map
+        // classes by now & would time a megamorphic call instead of the lookup
+        long sum = 0;
+        start = System.nanoTime();
+        for (Integer key : lookups) {
+          sum += mutable.get(key);
+        }
+        long mutableGets = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (Integer key : lookups) {
+          sum += frozen.get(key);
+        }
+        long frozenGets = System.nanoTime() - start;
+        // Consumes the sum so the gets cannot be optimized away
+        if (sum == 42) {
+          System.out.println();
+        }
+
+        if (round == WARMUP_ROUNDS) {
+          System.out.printf("  %,9d keys   build: put() %7.1f ms   freeze() %7.1f ms%n", size,
+              putTime / 1e6, freezeTime / 1e6);
+          System.out.printf("  %,9d keys   get(): HashtableMap %6.1f ns   frozen %6.1f ns%n",
+              size, (double) mutableGets / lookups.length, (double) frozenGets / lookups.length);
+          // Below a few MB the heap measurement is lost in the noise of the collector
+          if (size >= 1_000_000) {
+            System.out.printf("  %,9d keys   heap: HashtableMap %5.1f bytes/entry   frozen %5.1f"
+                + " bytes/entry%n", size, (double) mutableBytes / size,
+                (double) frozenBytes / size);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Compares a HashtableMap with a StringHashtableMap on 1M short String keys: the heap each
+   * retains for its keys & index, get() from a String & lookups of keys parsed out of a buffer of
+   * UTF-8 lines, which the HashtableMap must first decode into a String
+   */
+  public static void stringKeys() {
+    System.out.println("StringHashtableMap vs HashtableMap, 1M String keys");
+    int size = 1_000_000;
+    // Every pair shares one Value, so only the keys & the index are measured
+    Integer value = 1;
+    String[] lookups = new String[size];
+    StringBuilder lines = new StringBuilder();
+    for (int i = 0; i < size; i++) {
+      lookups[i] = "user:" + (int) ((i * 0x9E3779B1L) % size);
+      lines.append(lookups[i]).append('\n');
+    }
+    byte[] buffer = lines.toString().getBytes(StandardCharsets.UTF_8);
+
+    for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+      // Each key is created within the measurement, as the map is all that keeps it
+      long before = usedHeap();
+      HashtableMap<String, Integer> objects = new HashtableMap<String, Integer>(16, true);
+      for (int i = 0; i < size; i++) {
+        objects.put("user:" + i, value);
+      }
+      long objectBytes = usedHeap() - before;
+      before = usedHeap();
+      StringHashtableMap<Integer> arena = new StringHashtableMap<Integer>();
+      for (int i = 0; i < size; i++) {
+        arena.put("user:" + i, value);
+      }
+      long arenaBytes = usedHeap() - before;
+
+      // Each map gets its own loops, so every call site only sees one map class
+      long found = 0;
+      long start = System.nanoTime();
+      for (String key : lookups) {
+        found += objects.getOrDefault(key, 0);
+      }
+      long objectGets = System.nanoTime() - start;
+      start = System.nanoTime();
+      for (String key : lookups) {
+        found += arena.getOrDefault(key, 0);
+      }
+      long arenaGets = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int lineStart = 0, i = 0; i < buffer.length; i++) {
+        if (buffer[i] == '\n') {
+          String key = new String(buffer, lineStart, i - lineStart, StandardCharsets.UTF_8);
+          found += objects.getOrDefault(key, 0);
+          lineStart = i + 1;
+        }
+      }
+      long objectParsed = System.nanoTime() - start;
+      start = System.nanoTime();
+      for (int lineStart = 0, i = 0; i < buffer.length; i++) {
+        if (buffer[i] == '\n') {
+          found += arena.getOrDefault(buffer, lineStart, i - lineStart, 0);
+          lineStart = i + 1;
+        }
+      }
+      long arenaParsed = System.nanoTime() - start;
+      // Consumes the count so the lookups cannot be optimized away
+      if (found != 4L * size) {
+        System.out.println("  Lookups missed!");
+      }
+
+      if (round == WARMUP_ROUNDS) {
+        System.out.printf("  heap:          HashtableMap %5.1f bytes/entry   StringHashtableMap"
+            + " %5.1f bytes/entry%n", (double) objectBytes / size, (double) arenaBytes / size);
+        System.out.printf("  get(String):   HashtableMap %6.1f ns   StringHashtableMap %6.1f ns%n",
+            (double) objectGets / size, (double) arenaGets / size);
+        System.out.printf("  parsed lines:  HashtableMap %6.1f ns   StringHashtableMap %6.1f ns%n",
+            (double) objectParsed / size, (double) arenaParsed / size);
+      }
+    }
+  }
+
+  /**
+   * Compares HashtableMaps with & without the negative lookup filter on String keys: containsKey()
+   * of absent keys, which the filter should answer alone, of stored keys, which pay for the
+   * filter check on top of the walk, & the false positive rate the filter reports
+   */
+  public static void negativeLookups() {
+    System.out.println("Negative lookup filter, String keys, containsKey()");
+    for (int size : new int[] {10_000, 1_000_000}) {
+      String[] hits = new String[Math.max(size, 1_000_000)];
+      String[] misses = new String[hits.length];
+      for (int i = 0; i < hits.length; i++) {
+        int scrambled = (int) ((i * 0x9E3779B1L) % size);
+        hits[i] = "key" + scrambled;
+        misses[i] = "absent" + scrambled;
+      }
+      HashtableMap<String, Integer> plain = new HashtableMap<String, Integer>(16, true);
+      HashtableMap<String, Integer> filtered = new HashtableMap.Builder<String, Integer>()
+          .capacity(16).powerOfTwoCapacity(true).negativeLookupFilter(true).build();
+      for (int i = 0; i < size; i++) {
+        plain.put("key" + i, i);
+        filtered.put("key" + i, i);
+      }
+
+      for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+        // Each map gets its own loops, so every call site only sees one map
+        long found = 0;
+        long start = System.nanoTime();
+        for (String key : misses) {
+          found += plain.containsKey(key) ? 1 : 0;
+        }
+        long plainMisses = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (String key : misses) {
+          found += filtered.containsKey(key) ? 1 : 0;
+        }
+        long filteredMisses = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (String key : hits) {
+          found += plain.containsKey(key) ? 1 : 0;
+        }
+        long plainHits = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (String key : hits) {
+          found += filtered.containsKey(key) ? 1 : 0;
+        }
+        long filteredHits = System.nanoTime() - start;
+        // Consumes the count so the lookups cannot be optimized away
+        if (found != 2L * hits.length) {
+          System.out.println("  Lookups went wrong!");
+        }
+
+        if (round == WARMUP_ROUNDS) {
+          System.out.printf("  %,9d keys   misses: plain %6.1f ns   filtered %6.1f ns   false"
+              + " positives %.2f%%%n", size, (double) plainMisses / misses.length,
+              (double) filteredMisses / misses.length, 100 * filtered.filterFalsePositiveRate());
+          System.out.printf("  %,9d keys   hits:   plain %6.1f ns   filtered %6.1f ns%n", size,
+              (double) plainHits / hits.length, (double) filteredHits / hits.length);
+        }
+      }
+    }
+  }
+
+  /**
+   * Measures the throughput of the ConcurrentHashtableMap against a HashtableMap behind a single
+   * lock, sweeping from 1 to twice the # of available cores & across read/write mixes. Writes
+   * alternate between put() & remove() of random keys, so the size stays roughly constant
+   */
+  public static void concurrentThroughput() {
+    System.out.println("Concurrent throughput, 100K Integer keys, ops/ms");
+    int keySpace = 100_000;
+    int maxThreads = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+    int[] writePercents = {0, 10, 50};
+
+    for (int writePercent : writePercents) {
+      for (int threads = 1; threads <= maxThreads; threads *= 2) {
+        MapADT<Integer, Integer> concurrent = new ConcurrentHashtableMap<Integer, Integer>();
+        MapADT<Integer, Integer> locked = new LockedMap<Integer, Integer>(
+            new HashtableMap<Integer, Integer>(16, true));
+        for (int i = 0; i < keySpace; i += 2) {
+          concurrent.put(i, i);
+          locked.put(i, i);
+        }
+        System.out.printf("  %2d%% writes, %2d threads: concurrent %,10d  single lock %,10d%n",
+            writePercent, threads, runThroughput(concurrent, threads, writePercent, keySpace),
+            runThroughput(locked, threads, writePercent, keySpace));
+      }
+    }
+  }
+
+  /**
+   * Helper method that runs a read/write mix on a map from several threads for a fixed time
+   *
+   * @param map - map shared by every thread
+   * @param threads - # of threads
+   * @param writePercent - percentage of operations that are writes
+   * @param keySpace - keys are picked between 0 & keySpace - 1
+   * @return - # of operations completed per millisecond
+   */
+  private static long runThroughput(MapADT<Integer, Integer> map, int threads, int writePercent,
+      int keySpace) {
+    long durationNanos = 500_000_000L;
+    AtomicLong operations = new AtomicLong();
+    CountDownLatch start = new CountDownLatch(1);
+    Thread[] workers = new Thread[threads];
+
+    for (int t = 0; t < threads; t++) {
+      workers[t] = new Thread(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long count = 0;
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        long end = System.nanoTime() + durationNanos;
+        while (System.nanoTime() < end) {
+          // Runs a batch between clock reads
+          for (int i = 0; i < 256; i++) {
+            Integer key = random.nextInt(keySpace);
+            if (random.nextInt(100) < writePercent) {
+              if (!map.put(key, key)) {
+                map.remove(key);
+              }
+            } else {
+              try {
+                map.get(key);
+              } catch (NoSuchElementException e) {
+                // Misses are part of the mix
+              }
+            }
+          }
+          count += 256;
+        }
+        operations.addAndGet(count);
+      });
+      workers[t].start();
+    }
+
+    start.countDown();
+    for (Thread worker : workers) {
+      try {
+        worker.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    return operations.get() / (durationNanos / 1_000_000);
+  }
+
+  /**
+   * MapADT wrapper serializing every operation on one lock, the way a HashtableMap has to be
+   * shared between threads
+   */
+  private static class LockedMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+    private final MapADT<KeyType, ValueType> map;
+
+    private LockedMap(MapADT<KeyType, ValueType> map) {
+      this.map = map;
+    }
+
+    public synchronized boolean put(KeyType key, ValueType value) {
+      return map.put(key, value);
+    }
+
+    public synchronized ValueType get(KeyType key) {
+      return map.get(key);
+    }
+
+    public synchronized int size() {
+      return map.size();
+    }
+
+    public synchronized boolean containsKey(KeyType key) {
+      return map.containsKey(key);
+    }
+
+    public synchronized ValueType remove(KeyType key) {
+      return map.remove(key);
+    }
+
+    public synchronized void clear() {
+      map.clear();
+    }
+
+    public MapCursor<KeyType, ValueType> cursor() {
+      return map.cursor();
+    }
+  }
+
+  /**
+   * Records the latency of every put() while growing a HashtableMap to 4M entries, with the
+   * incremental resize mode off & on, & prints the latency percentiles. With the mode off, the
+   * put() that triggers each resize shows up in the tail. GC pauses land in the tail of both, so
+   * run with a large fixed heap (e.g. -Xms4g -Xmx4g) to keep them out of the comparison
+   */
+  public static void resizeLatency() {
+    System.out.println("put() latency percentiles while growing to 4M entries, ns");
+    int size = 4_000_000;
+    for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+      long[] stopTheWorld = recordPutLatencies(false, size);
+      long[] incremental = recordPutLatencies(true, size);
+      if (round == WARMUP_ROUNDS) {
+        printPercentiles("  full resize:       ", stopTheWorld);
+        printPercentiles("  incremental resize:", incremental);
+      }
+    }
+  }
+
+  /**
+   * Helper method that times each put() into a new power of two HashtableMap
+   *
+   * @param incrementalResize - whether the HashtableMap resizes incrementally
+   * @param size - # of Key/Value pairs to insert
+   * @return - latency of each put() in nanoseconds
+   */
+  private static long[] recordPutLatencies(boolean incrementalResize, int size) {
+    HashtableMap<Integer, Integer> hashTable =
+        new HashtableMap<Integer, Integer>(16, true, incrementalResize);
+    Integer[] keys = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = i;
+    }
+
+    long[] latencies = new long[size];
+    for (int i = 0; i < size; i++) {
+      long start = System.nanoTime();
+      hashTable.put(keys[i], keys[i]);
+      latencies[i] = System.nanoTime() - start;
+    }
+    return latencies;
+  }
+
+  /**
+   * Helper method that prints the p50, p99, p99.9, p99.99 & maximum of a set of latencies
+   *
+   * @param label - label printed in front of the percentiles
+   * @param latencies - latencies in nanoseconds, sorted by this method
+   */
+  private static void printPercentiles(String label, long[] latencies) {
+    Arrays.sort(latencies);
+    int n = latencies.length;
+    System.out.printf("%s p50 %,8d  p99 %,8d  p99.9 %,8d  p99.99 %,10d  max %,12d%n", label,
+        latencies[n / 2], latencies[(int) (n * 0.99)], latencies[(int) (n * 0.999)],
+        latencies[(int) (n * 0.9999)], latencies[n - 1]);
+  }
+
+  /**
+   * Compares putAll(), getAll() & removeAll() against the equivalent loop of single key calls on
+   * 1M Integer keys. The keys are looked up & removed in a different scrambled order than they
+   * were inserted in, so neither side walks the Nodes in allocation order. The batch starts from
+   * the default capacity, like the loop, so its single up front resize is included
+   */
+  public static void batchOperations() {
+    System.out.println("Batch vs loop, 1M Integer keys");
+    int size = 1_000_000;
+    Integer[] keys = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = (int) ((i * 0x9E3779B1L) % size);
+    }
+    Integer[] lookups = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      lookups[i] = keys[(int) ((i * 7919L) % size)];
+    }
+    Integer[] out = new Integer[size];
+
+    for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+      long[] loop = new long[3];
+      long[] batch = new long[3];
+
+      HashtableMap<Integer, Integer> looped = new HashtableMap<Integer, Integer>(16, true);
+      long start = System.nanoTime();
+      for (Integer key : keys) {
+        looped.put(key, key);
+      }
+      loop[0] = System.nanoTime() - start;
+      start = System.nanoTime();
+      for (int i = 0; i < size; i++) {
+        out[i] = looped.get(lookups[i]);
+      }
+      loop[1] = System.nanoTime() - start;
+      start = System.nanoTime();
+      for (Integer key : lookups) {
+        looped.remove(key);
+      }
+      loop[2] = System.nanoTime() - start;
+
+      HashtableMap<Integer, Integer> batched = new HashtableMap<Integer, Integer>(16, true);
+      start = System.nanoTime();
+      batched.putAll(keys, keys);
+      batch[0] = System.nanoTime() - start;
+      start = System.nanoTime();
+      batched.getAll(lookups, out);
+      batch[1] = System.nanoTime() - start;
+      start = System.nanoTime();
+      batched.removeAll(lookups);
+      batch[2] = System.nanoTime() - start;
+
+      // Only the last round is reported, the others warm up
+      if (round == WARMUP_ROUNDS) {
+        String[] names = {"put", "get", "remove"};
+        for (int i = 0; i < 3; i++) {
+          System.out.printf("  %-6s loop %6.1f ns/key   batch %6.1f ns/key%n", names[i],
+              (double) loop[i] / size, (double) batch[i] / size);
+        }
+      }
+    }
+  }
+
+  /**
+   * Compares reopening a PersistentHashtableMap of 1M String to Long entries against filling a
+   * HashtableMap with the same entries, which is what a restart costs without persistence
+   *
+   * @throws IOException - if the temporary file cannot be written
+   */
+  public static void warmRestart() throws IOException {
+    System.out.println("Restart with 1M String keys");
+    int size = 1_000_000;
+    Path directory = Files.createTempDirectory("warm-restart");
+    Path path = directory.resolve("table.dat");
+
+    PersistentHashtableMap<String, Long> persistent =
+        new PersistentHashtableMap<String, Long>(path, ByteCodec.UTF8, ByteCodec.LONG);
+    for (int i = 0; i < size; i++) {
+      persistent.put("key" + i, (long) i);
+    }
+    persistent.close();
+
+    long start = System.nanoTime();
+    HashtableMap<String, Long> refilled = new HashtableMap<String, Long>();
+    for (int i = 0; i < size; i++) {
+      refilled.put("key" + i, (long) i);
+    }
+    long refill = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    persistent = new PersistentHashtableMap<String, Long>(path, ByteCodec.UTF8, ByteCodec.LONG);
+    long reopen = System.nanoTime() - start;
+    start = System.nanoTime();
+    long sum = persistent.get("key12345") + persistent.get("key999999");
+    long firstGets = System.nanoTime() - start;
+
+    System.out.printf("  refill HashtableMap:  %,12d us%n", refill / 1000);
+    System.out.printf("  reopen persistent:    %,12d us (first 2 gets %,d us)%n", reopen / 1000,
+        firstGets / 1000);
+    persistent.close();
+    for (Path file : new Path[] {path, path.resolveSibling("table.dat.log"), directory}) {
+      Files.deleteIfExists(file);
+    }
+    if (sum + refilled.size() == 0) {
+      System.out.println();
+    }
+  }
+
+  /**
+   * Measures snapshot() & restore() of 1M String to Long entries against Java serialization of a
+   * java.util.HashMap holding the same entries, reporting time & file bandwidth
+   *
+   * @throws IOException - if the temporary files cannot be written
+   */
+  public static void snapshotRestore() throws IOException {
+    System.out.println("Snapshot & restore of 1M String keys");
+    int size = 1_000_000;
+    Path directory = Files.createTempDirectory("snapshot");
+    Path snapshot = directory.resolve("snapshot.bin");
+    Path serialized = directory.resolve("serialized.bin");
+    HashtableMap<String, Long> hashTable = new HashtableMap<String, Long>(16, true);
+    HashMap<String, Long> hashMap = new HashMap<String, Long>();
+    for (int i = 0; i < size; i++) {
+      hashTable.put("key" + i, (long) i);
+      hashMap.put("key" + i, (long) i);
+    }
+
+    for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+      long start = System.nanoTime();
+      hashTable.snapshot(snapshot, ByteCodec.UTF8, ByteCodec.LONG);
+      long write = System.nanoTime() - start;
+      start = System.nanoTime();
+      HashtableMap<String, Long> restored = new HashtableMap<String, Long>(16, true);
+      restored.restore(snapshot, ByteCodec.UTF8, ByteCodec.LONG);
+      long read = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      try (ObjectOutputStream out = new ObjectOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(serialized)))) {
+        out.writeObject(hashMap);
+      }
+      long serialWrite = System.nanoTime() - start;
+      start = System.nanoTime();
+      Object deserialized;
+      try (ObjectInputStream in = new ObjectInputStream(
+          new BufferedInputStream(Files.newInputStream(serialized)))) {
+        deserialized = in.readObject();
+      } catch (ClassNotFoundException e) {
+        throw new IllegalStateException(e);
+      }
+      long serialRead = System.nanoTime() - start;
+
+      // Only the last round is reported, the others warm up
+      if (round == WARMUP_ROUNDS && restored.size() == size && deserialized != null) {
+        long bytes = Files.size(snapshot);
+        long serialBytes = Files.size(serialized);
+        System.out.printf("  snapshot()      %,8d us  %7.1f MB/s%n", write / 1000,
+            bytes * 1000.0 / write);
+        System.out.printf("  restore()       %,8d us  %7.1f MB/s%n", read / 1000,
+            bytes * 1000.0 / read);
+        System.out.printf("  serialize       %,8d us  %7.1f MB/s%n", serialWrite / 1000,
+            serialBytes * 1000.0 / serialWrite);
+        System.out.printf("  deserialize     %,8d us  %7.1f MB/s%n", serialRead / 1000,
+            serialBytes * 1000.0 / serialRead);
+      }
+    }
+    Files.deleteIfExists(snapshot);
+    Files.deleteIfExists(serialized);
+    Files.deleteIfExists(directory);
+  }
+
+  /**
+   * Helper method that returns the heap currently in use after requesting a garbage collection
+   *
+   * @return - # of bytes in use on the heap
+   */
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  public static void main(String[] args) throws IOException {
+    amortizedPut();
+    heapFootprint();
+    getLatency();
+    statsOverhead();
+    adversarialCollisions();
+    counterUpdates();
+    frozenLookups();
+    stringKeys();
+    negativeLookups();
+    concurrentThroughput();
+    resizeLatency();
+    batchOperations();
+    warmRestart();
+    snapshotRestore();
+  }
+
+}
@@ -0,0 +1,226 @@
+import java.util.Arrays;
+
+/**
+ * Metrics recorded by a HashtableMap built with recordStats(true). The map calls the recording
+ * methods on its hot path, which only add to preallocated arrays: no allocation & no locks. A map
+ * built without stats holds no HashtableMapStats at all, so its operations only pay for a null
+ * check
+ */
+public class HashtableMapStats implements HashtableMapStatsMXBean {
+
+  // Indexes of the recorded operations
+  static final int GET = 0;
+  static final int PUT = 1;
+  static final int REMOVE = 2;
+  static final int CONTAINS_KEY = 3;
+  private static final String[] OPERATIONS = {"get", "put", "remove", "containsKey"};
+  // Chains of this many Nodes or more share the last bucket of the chain length histogram
+  private static final int CHAIN_BUCKETS = 17;
+  // Only 1 in this many operations is timed & has its chain measured. System.nanoTime() costs
+  // tens of nanoseconds & keeps the cache misses of consecutive operations from overlapping, &
+  // walking the rest of the key's chain adds misses, so sampling every operation would multiply
+  // the latency it measures
+  private static final int LATENCY_SAMPLE_INTERVAL = 64;
+  // Returned by startTiming() for an operation that is not sampled
+  static final long NOT_TIMED = Long.MIN_VALUE;
+
+  // Map the gauges are read from
+  private final HashtableMap<?, ?> map;
+  private final long[] operationCounts = new long[OPERATIONS.length];
+  private final long[][] latencyHistograms = new long[OPERATIONS.length][64];
+  private final long[] chainLengthHistogram = new long[CHAIN_BUCKETS];
+  private long maxChainLength;
+  private long resizeCount;
+  private long resizeNanos;
+  private long maxResizeNanos;
+  // # of operations started, picks the ones whose latency is sampled
+  private int started;
+
+  /**
+   * Constructor method for the stats of a map
+   *
+   * @param map - map whose size & capacity are reported
+   */
+  HashtableMapStats(HashtableMap<?, ?> map) {
+    this.map = map;
+  }
+
+  /**
+   * Starts an operation, reading the clock only if its latency is sampled
+   *
+   * @return - start time to pass to recordOperation()
+   */
+  long startTiming() {
+    return ++started % LATENCY_SAMPLE_INTERVAL == 0 ? System.nanoTime() : NOT_TIMED;
+  }
+
+  /**
+   * Records one operation
+   *
+   * @param operation - GET, PUT, REMOVE or CONTAINS_KEY
+   * @param start - value startTiming() returned for the operation
+   * @param chainLength - # of Nodes in the chain of the operation's key, -1 if not sampled
+   */
+  void recordOperation(int operation, long start, int chainLength) {
+    operationCounts[operation]++;
+    if (start != NOT_TIMED) {
+      long nanos = Math.max(System.nanoTime() - start, 0);
+      latencyHistograms[operation][64 - Long.numberOfLeadingZeros(nanos)]++;
+    }
+    if (chainLength >= 0) {
+      chainLengthHistogram[Math.min(chainLength, CHAIN_BUCKETS - 1)]++;
+      maxChainLength = Math.max(maxChainLength, chainLength);
+    }
+  }
+
+  /**
+   * Records one resize() call. The chains it rebuilt are unknown, so the longest chain is
+   * measured afresh by later operations
+   *
+   * @param nanos - time the call took
+   */
+  void recordResize(long nanos) {
+    resizeCount++;
+    resizeNanos += nanos;
+    maxResizeNanos = Math.max(maxResizeNanos, nanos);
+    maxChainLength = 0;
+  }
+
+  /**
+   * Records the time of an incremental resize's migration step
+   *
+   * @param nanos - time the step took
+   */
+  void recordMigration(long nanos) {
+    resizeNanos += nanos;
+  }
+
+  /**
+   * Forgets the longest chain after a clear()
+   */
+  void resetMaxChainLength() {
+    maxChainLength = 0;
+  }
+
+  @Override
+  public int getSize() {
+    return map.size();
+  }
+
+  @Override
+  public int getCapacity() {
+    return map.getCapacity();
+  }
+
+  @Override
+  public double getLoadFactor() {
+    return (double) map.size() / map.getCapacity();
+  }
+
+  @Override
+  public long getMaxChainLength() {
+    return maxChainLength;
+  }
+
+  @Override
+  public long[] getChainLengthHistogram() {
+    return chainLengthHistogram.clone();
+  }
+
+  @Override
+  public long getResizeCount() {
+    return resizeCount;
+  }
+
+  @Override
+  public long getResizeNanos() {
+    return resizeNanos;
+  }
+
+  @Override
+  public long getMaxResizeNanos() {
+    return maxResizeNanos;
+  }
+
+  @Override
+  public long getGetCount() {
+    return operationCounts[GET];
+  }
+
+  @Override
+  public long getPutCount() {
+    return operationCounts[PUT];
+  }
+
+  @Override
+  public long getRemoveCount() {
+    return operationCounts[REMOVE];
+  }
+
+  @Override
+  public long getContainsKeyCount() {
+    return operationCounts[CONTAINS_KEY];
+  }
+
+  @Override
+  public long[] getGetLatencyHistogram() {
+    return latencyHistograms[GET].clone();
+  }
+
+  @Override
+  public long[] getPutLatencyHistogram() {
+    return latencyHistograms[PUT].clone();
+  }
+
+  @Override
+  public long[] getRemoveLatencyHistogram() {
+    return latencyHistograms[REMOVE].clone();
+  }
+
+  @Override
+  public long[] getContainsKeyLatencyHistogram() {
+    return latencyHistograms[CONTAINS_KEY].clone();
+  }
+
+  @Override
+  public long latencyPercentileNanos(String operation, double percentile) {
+    int index = Arrays.asList(OPERATIONS).indexOf(operation);
+    if (index < 0) {
+      throw new IllegalArgumentException("Unknown operation: " + operation);
+    }
+    if (!(percentile >= 0 && percentile <= 100)) {
+      throw new IllegalArgumentException("Percentile must be between 0 & 100: " + percentile);
+    }
+    long[] histogram = latencyHistograms[index];
+    long total = Arrays.stream(histogram).sum();
+    if (total == 0) {
+      return 0;
+    }
+
+    // Walks the buckets until they hold the requested share of the operations
+    long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < histogram.length; i++) {
+      seen += histogram[i];
+      if (seen >= rank) {
+        return i == 0 ? 0 : 1L << Math.min(i, 62);
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+
+  @Override
+  public void reset() {
+    Arrays.fill(operationCounts, 0);
+    for (long[] histogram : latencyHistograms) {
+      Arrays.fill(histogram, 0);
+    }
+    Arrays.fill(chainLengthHistogram, 0);
+    maxChainLength = 0;
+    resizeCount = 0;
+    resizeNanos = 0;
+    maxResizeNanos = 0;
+    started = 0;
+  }
+
+}
@@ -0,0 +1,94 @@
+/**
+ * Read-only view of the metrics a HashtableMap records once built with recordStats(true). It
+ * follows the MXBean naming rules, so it can be registered with the platform MBeanServer as is:
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(map.stats(), objectName)
+ *
+ * <p>
+ * The counters are written by the thread using the map without any synchronization, so another
+ * thread reading them, such as a JMX client, may see values that are slightly stale. Latencies &
+ * chain lengths are sampled from 1 in 64 operations. Latency histograms have 64 buckets, bucket i
+ * counting the sampled operations that took [2^(i-1), 2^i) nanoseconds & bucket 0 those under 1
+ * nanosecond
+ */
+public interface HashtableMapStatsMXBean {
+
+    /**
+     * @return - # of Key/Value pairs stored
+     */
+    public int getSize();
+
+    /**
+     * @return - # of buckets of the Hashtable
+     */
+    public int getCapacity();
+
+    /**
+     * @return - # of pairs / # of buckets
+     */
+    public double getLoadFactor();
+
+    /**
+     * @return - length of the longest chain a sampled operation has landed in since the last
+     *         resize or clear
+     */
+    public long getMaxChainLength();
+
+    /**
+     * @return - # of sampled operations that landed in a chain of each length, the last bucket
+     *         counting every chain of 16 Nodes or more
+     */
+    public long[] getChainLengthHistogram();
+
+    /**
+     * @return - # of resizes, growing or shrinking
+     */
+    public long getResizeCount();
+
+    /**
+     * @return - total nanoseconds spent resizing, including the migration steps of incremental
+     *         resizes
+     */
+    public long getResizeNanos();
+
+    /**
+     * @return - nanoseconds the longest single resize() call took
+     */
+    public long getMaxResizeNanos();
+
+    /**
+     * Getter methods for the # of calls to each operation
+     *
+     * @return - # of calls recorded
+     */
+    public long getGetCount();
+    public long getPutCount();
+    public long getRemoveCount();
+    public long getContainsKeyCount();
+
+    /**
+     * Getter methods for the latency histogram of each operation
+     *
+     * @return - copy of the 64 bucket histogram
+     */
+    public long[] getGetLatencyHistogram();
+    public long[] getPutLatencyHistogram();
+    public long[] getRemoveLatencyHistogram();
+    public long[] getContainsKeyLatencyHistogram();
+
+    /**
+     * Estimates a latency percentile of an operation from its histogram
+     *
+     * @param operation - "get", "put", "remove" or "containsKey"
+     * @param percentile - percentile between 0 & 100
+     * @return - upper bound in nanoseconds of the bucket holding the percentile, 0 if no
+     *         latency of the operation was sampled
+     * @throws IllegalArgumentException - if the operation or percentile is unknown
+     */
+    public long latencyPercentileNanos(String operation, double percentile);
+
+    /**
+     * Resets every counter & histogram to 0
+     */
+    public void reset();
+
+}
@@ -1,4 +1,26 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /**
  * Class containing tests ensuring the functionality of the HashtableMap.java implementation
@@ -324,12 +346,2378 @@ public class HashtableMapTests {
     return true;
   }
 
+  /**
+   * Key whose hashCode() counts how many times it has been called
+   */
+  private static class CountingKey {
+    private static int hashCodeCalls = 0;
+    private final int id;
+
+    private CountingKey(int id) {
+      this.id = id;
+    }
+
+    @Override
+    public int hashCode() {
+      hashCodeCalls++;
+      return id;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof CountingKey && ((CountingKey) other).id == id;
+    }
+  }
+
+  /**
+   * Tests that each operation hashes its key once & that resizing reuses the cached hashes
+   * 
+   * @return - true if all tests passed, false otherwise
+   */
+  public static boolean test6() {
+    HashtableMap<CountingKey, Integer> hashTable = new HashtableMap<CountingKey, Integer>(5);
+    CountingKey[] keys = new CountingKey[20];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = new CountingKey(i);
+    }
+
+    // (1) Each put() hashes once, even across the resizes it triggers
+    CountingKey.hashCodeCalls = 0;
+    for (int i = 0; i < keys.length; i++) {
+      hashTable.put(keys[i], i);
+    }
+    if (CountingKey.hashCodeCalls != keys.length || hashTable.getCapacity() == 5) {
+      System.out.println("(1) Error in test6");
+      return false;
+    }
+
+    // (2) get(), containsKey() & remove() each hash once
+    CountingKey.hashCodeCalls = 0;
+    int value = hashTable.get(new CountingKey(7));
+    boolean contains = hashTable.containsKey(new CountingKey(8));
+    Integer removed = hashTable.remove(new CountingKey(9));
+    if (CountingKey.hashCodeCalls != 3 || value != 7 || !contains || removed != 9) {
+      System.out.println("(2) Error in test6");
+      return false;
+    }
+
+    // (3) A miss also hashes once before throwing
+    CountingKey.hashCodeCalls = 0;
+    try {
+      hashTable.get(new CountingKey(9));
+      System.out.println("(3) Error in test6");
+      return false;
+    } catch (NoSuchElementException e) {
+      if (CountingKey.hashCodeCalls != 1) {
+        System.out.println("(3) Error in test6");
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Tests the power of two capacity mode & the distribution of sequential & adversarial keys
+   * 
+   * @return - true if all tests passed, false otherwise
+   */
+  public static boolean test7() {
+    // (1) Requested capacities are rounded up to a power of two
+    if (new HashtableMap<String, Integer>(5, true).getCapacity() != 8
+        || new HashtableMap<String, Integer>(20, true).getCapacity() != 32
+        || new HashtableMap<String, Integer>(16, true).getCapacity() != 16
+        || new HashtableMap<String, Integer>(0, true).getCapacity() != 1) {
+      System.out.println("(1) Error in test7");
+      return false;
+    }
+
+    // (2) Capacity stays a power of two across resizes & every key is still found
+    HashtableMap<Integer, Integer> hashTable = new HashtableMap<Integer, Integer>(5, true);
+    for (int i = 0; i < 1000; i++) {
+      hashTable.put(i, i);
+    }
+    int capacity = hashTable.getCapacity();
+    if (Integer.bitCount(capacity) != 1 || hashTable.size() != 1000) {
+      System.out.println("(2) Error in test7");
+      return false;
+    }
+    for (int i = 0; i < 1000; i++) {
+      if (hashTable.get(i) != i) {
+        System.out.println("(2) Error in test7");
+        return false;
+      }
+    }
+
+    // (3) Integer.MIN_VALUE & negative hashcodes index correctly
+    hashTable.put(Integer.MIN_VALUE, -1);
+    hashTable.put(-5, -5);
+    if (hashTable.get(Integer.MIN_VALUE) != -1 || hashTable.remove(-5) != -5) {
+      System.out.println("(3) Error in test7");
+      return false;
+    }
+
+    // (4) Sequential keys, multiples of 1024 & keys differing only in their high bits keep
+    // chains short once spread
+    int[] strides = {1, 1024, 1 << 16};
+    for (int stride : strides) {
+      HashtableMap<Integer, Integer> spread = new HashtableMap<Integer, Integer>(16, true);
+      HashtableMap<Integer, Integer> modulus = new HashtableMap<Integer, Integer>(16);
+      for (int i = 0; i < 10000; i++) {
+        spread.put(i * stride, i);
+        modulus.put(i * stride, i);
+      }
+      System.out.println("Test7 (4) stride " + stride + " longest chain: " + spread.longestChain()
+          + " spread vs " + modulus.longestChain() + " modulus");
+      if (spread.longestChain() > 12) {
+        System.out.println("(4) Error in test7");
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Helper method that checks the behaviour expected of every MapADT implementation: null & duplicate
+   * keys are rejected by put(), get() throws on a missing key, remove() returns the removed value
+   * or null & clear() empties the map. Enough keys are added to force several resizes
+   * 
+   * @param map - empty map to test
+   * @param testName - name of the test, used in error messages
+   * @return - true if all checks passed, false otherwise
+   */
+  private static boolean checkMapContract(MapADT<String, Integer> map, String testName) {
+    // (1) Null key & duplicate key are rejected
+    if (map.put(null, 3) || !map.put("Burger", 2) || map.put("Burger", 1) || map.size() != 1
+        || map.get("Burger") != 2) {
+      System.out.println("(1) Error in " + testName);
+      return false;
+    }
+
+    // (2) get() on a missing key throws the NoSuchElementException
+    try {
+      map.get("Fries");
+      System.out.println("(2) Error in " + testName);
+      return false;
+    } catch (NoSuchElementException e) {
+      // Expected
+    }
+    Node<String, Integer> found = map.find("Burger");
+    if (map.getOrDefault("Fries", -1) != -1 || map.getOrDefault(null, -1) != -1
+        || map.getOrDefault("Burger", -1) != 2 || map.find("Fries") != null
+        || map.find(null) != null || found == null || !found.getKey().equals("Burger")
+        || found.getValue() != 2) {
+      System.out.println("(2) Error in " + testName);
+      return false;
+    }
+
+    // (3) Many keys, forcing resizes, are all stored & found
+    for (int i = 0; i < 5000; i++) {
+      if (!map.put("Item" + i, i)) {
+        System.out.println("(3) Error in " + testName);
+        return false;
+      }
+    }
+    if (map.size() != 5001) {
+      System.out.println("(3) Error in " + testName);
+      return false;
+    }
+    for (int i = 0; i < 5000; i++) {
+      if (!map.containsKey("Item" + i) || map.get("Item" + i) != i) {
+        System.out.println("(3) Error in " + testName);
+        return false;
+      }
+    }
+
+    // (4) remove() returns the value of present keys & null for missing ones
+    if (map.remove("Tatertots") != null || map.remove(null) != null) {
+      System.out.println("(4) Error in " + testName);
+      return false;
+    }
+    for (int i = 0; i < 5000; i += 2) {
+      Integer removed = map.remove("Item" + i);
+      if (removed == null || removed != i) {
+        System.out.println("(4) Error in " + testName);
+        return false;
+      }
+    }
+    if (map.size() != 2501 || map.containsKey("Item0") || !map.containsKey("Item1")) {
+      System.out.println("(4) Error in " + testName);
+      return false;
+    }
+    for (int i = 1; i < 5000; i += 2) {
+      if (map.get("Item" + i) != i) {
+        System.out.println("(4) Error in " + testName);
+        return false;
+      }
+    }
+
+    // (5) forEach(), the cursor & every iterator visit each remaining pair exactly once
+    if (!checkIteration(map)) {
+      System.out.println("(5) Error in " + testName);
+      return false;
+    }
+
+    // (6) clear() removes everything & the map can be reused afterwards
+    map.clear();
+    if (map.size() != 0 || map.containsKey("Burger") || !map.put("Burger", 4)
+        || map.get("Burger") != 4) {
+      System.out.println("(6) Error in " + testName);
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Helper method that walks a map with forEach(), a cursor & every iterator, checking that each
+   * walk visits every pair once with the value get() returns
+   * 
+   * @param map - map to walk
+   * @return - true if every walk was correct, false otherwise
+   */
+  private static boolean checkIteration(MapADT<String, Integer> map) {
+    HashtableMap<String, Integer> seen = new HashtableMap<String, Integer>();
+    boolean[] mismatch = new boolean[1];
+    map.forEach((key, value) -> {
+      mismatch[0] |= !value.equals(map.get(key)) || !seen.put(key, value);
+    });
+    if (mismatch[0] || seen.size() != map.size()) {
+      return false;
+    }
+
+    // Each walk must find exactly the keys forEach() saw
+    int cursorCount = 0;
+    MapCursor<String, Integer> cursor = map.cursor();
+    while (cursor.advance()) {
+      cursorCount++;
+      if (!seen.get(cursor.getKey()).equals(cursor.getValue())) {
+        return false;
+      }
+    }
+    int keyCount = 0;
+    for (Iterator<String> keys = map.keyIterator(); keys.hasNext();) {
+      keyCount++;
+      if (!seen.containsKey(keys.next())) {
+        return false;
+      }
+    }
+    long valueSum = 0;
+    long expectedSum = 0;
+    for (Iterator<Integer> values = map.valueIterator(); values.hasNext();) {
+      valueSum += values.next();
+    }
+    int entryCount = 0;
+    for (Iterator<Node<String, Integer>> entries = map.entryIterator(); entries.hasNext();) {
+      Node<String, Integer> entry = entries.next();
+      entryCount++;
+      expectedSum += entry.getValue();
+      if (!seen.get(entry.getKey()).equals(entry.getValue())) {
+        return false;
+      }
+    }
+    return cursorCount == seen.size() && keyCount == seen.size() && entryCount == seen.size()
+        && valueSum == expectedSum;
+  }
+
+  /**
+   * Tests the RobinHoodHashtableMap against the MapADT behaviour of the HashtableMap, & that its
+   * put() hashes the key once
+   * 
+   * @return - true if all tests passed, false otherwise
+   */
+  public static boolean test8() {
+    if (!checkMapContract(new HashtableMap<String, Integer>(5), "test8")
+        || !checkMapContract(new RobinHoodHashtableMap<String, Integer>(5), "test8")) {
+      return false;
+    }
+
+    // Each put() hashes once, a duplicate included, & the entries it displaces are still found
+    RobinHoodHashtableMap<CountingKey, Integer> probed =
+        new RobinHoodHashtableMap<CountingKey, Integer>(2);
+    CountingKey.hashCodeCalls = 0;
+    for (int i = 0; i < 1000; i++) {
+      probed.put(new CountingKey(i), i);
+    }
+    if (CountingKey.hashCodeCalls != 1000 || probed.put(new CountingKey(500), 0)
+        || CountingKey.hashCodeCalls != 1001) {
+      System.out.println("(1) Error in test8");
+      return false;
+    }
+    for (int i = 0; i < 1000; i++) {
+      if (probed.get(new CountingKey(i)) != i) {
+        System.out.println("(1) Error in test8");
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Tests the primitive IntIntHashtableMap & LongObjectHashtableMap, including the Key 0 that
+   * marks empty slots internally & removals that shift probed entries back
+   * 
+   * @return - true if all tests passed, false otherwise
+   */
+  public static boolean test9() {
+    IntIntHashtableMap intMap = new IntIntHashtableMap(4, -1);
+
+    // (1) Missing keys return the missing value, duplicates are rejected
+    if (intMap.get(7) != -1 || intMap.remove(7) != -1 || !intMap.put(7, 70) || intMap.put(7, 71)
+        || intMap.get(7) != 70 || !intMap.put(0, 5) || intMap.get(0) != 5 || intMap.size() != 2) {
+      System.out.println("(1) Error in test9");
+      return false;
+    }
+
+    // (2) Many keys, including negatives, survive resizes & every other one is removed
+    for (int i = 1; i <= 20000; i++) {
+      intMap.put(i * 31, i);
+      intMap.put(-i, -i);
+    }
+    for (int i = 1; i <= 20000; i += 2) {
+      if (intMap.remove(i * 31) != i) {
+        System.out.println("(2) Error in test9");
+        return false;
+      }
+    }
+    for (int i = 1; i <= 20000; i++) {
+      int expected = i % 2 == 1 ? -1 : i;
+      if (intMap.get(i * 31) != expected || intMap.get(-i) != -i) {
+        System.out.println("(2) Error in test9");
+        return false;
+      }
+    }
+    if (intMap.size() != 2 + 10000 + 20000 || intMap.remove(0) != 5 || intMap.containsKey(0)) {
+      System.out.println("(2) Error in test9");
+      return false;
+    }
+    intMap.clear();
+    if (intMap.size() != 0 || intMap.containsKey(62)) {
+      System.out.println("(2) Error in test9");
+      return false;
+    }
+
+    LongObjectHashtableMap<String> longMap = new LongObjectHashtableMap<String>(4);
+
+    // (3) Missing keys return null, duplicates are rejected, Key 0 & large keys are stored
+    if (longMap.get(3L) != null || !longMap.put(3L, "three") || longMap.put(3L, "tres")
+        || !longMap.put(0L, "zero") || !longMap.put(Long.MIN_VALUE, "min")
+        || !"three".equals(longMap.get(3L)) || !"zero".equals(longMap.get(0L))
+        || !"min".equals(longMap.get(Long.MIN_VALUE))) {
+      System.out.println("(3) Error in test9");
+      return false;
+    }
+
+    // (4) Keys that only differ in their high 32 bits survive resizes & removals
+    for (long i = 1; i <= 20000; i++) {
+      longMap.put(i << 32, "high" + i);
+    }
+    for (long i = 1; i <= 20000; i += 2) {
+      if (!("high" + i).equals(longMap.remove(i << 32))) {
+        System.out.println("(4) Error in test9");
+        return false;
+      }
+    }
+    for (long i = 2; i <= 20000; i += 2) {
+      if (!("high" + i).equals(longMap.get(i << 32)) || longMap.containsKey((i - 1) << 32)) {
+        System.out.println("(4) Error in test9");
+        return false;
+      }
+    }
+    if (longMap.size() != 3 + 10000) {
+      System.out.println("(4) Error in test9");
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Tests the ConcurrentHashtableMap, both single threaded against the MapADT behaviour & with
+   * writers racing on separate key ranges while readers look the keys up
+   * 
+   * @return - true if all tests passed, false otherwise
+   */
+  public static boolean test10() {
+    // (1) Single threaded behaviour matches the HashtableMap
+    if (!checkMapContract(new ConcurrentHashtableMap<String, Integer>(4, 4), "test10")) {
+      return false;
+    }
+
+    // (2) 4 writers each insert 20000 keys & remove every other one, while 2 readers check that
+    // any key they can see has the value that was put
+    ConcurrentHashtableMap<Integer, Integer> hashTable =
+        new ConcurrentHashtableMap<Integer, Integer>(16, 4);
+    int writers = 4;
+    int keysPerWriter = 20000;
+    boolean[] failed = new boolean[1];
+    Thread[] threads = new Thread[writers + 2];
+    for (int t = 0; t < writers; t++) {
+      int first = t * keysPerWriter;
+      threads[t] = new Thread(() -> {
+        for (int i = first; i < first + keysPerWriter; i++) {
+          if (!hashTable.put(i, -i)) {
+            failed[0] = true;
+          }
+        }
+        for (int i = first; i < first + keysPerWriter; i += 2) {
+          Integer removed = hashTable.remove(i);
+          if (removed == null || removed != -i) {
+            failed[0] = true;
+          }
+        }
+      });
+    }
+    for (int t = writers; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int round = 0; round < 5; round++) {
+          for (int i = 0; i < writers * keysPerWriter; i++) {
+            try {
+              if (hashTable.get(i) != -i) {
+                failed[0] = true;
+              }
+            } catch (NoSuchElementException e) {
+              // Not put yet or already removed
+            }
+          }
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+    if (failed[0] || hashTable.size() != writers * keysPerWriter / 2) {
+      System.out.println("(2) Error in test10");
+      return false;
+    }
+    for (int i = 0; i < writers * keysPerWriter; i++) {
+      if (hashTable.containsKey(i) != (i % 2 == 1)) {
+        System.out.println("(2) Error in test10");
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Tests the incremental resize mode, checking every key while buckets are still being moved
+   * 
+   * @return - true if all tests passed, false otherwise
+   */
+  public static boolean test11() {
+    // (1) The MapADT behaviour is unchanged
+    if (!checkMapContract(new HashtableMap<String, Integer>(5, false, true), "test11")
+        || !checkMapContract(new HashtableMap<String, Integer>(5, true, true), "test11")) {
+      return false;
+    }
+
+    // (2) Reaching the threshold starts a resize that later operations finish
+    HashtableMap<Integer, Integer> hashTable = new HashtableMap<Integer, Integer>(64, true, true);
+    for (int i = 0; i < 52; i++) {
+      hashTable.put(i, i);
+    }
+    if (!hashTable.isResizing() || hashTable.getCapacity() != 128) {
+      System.out.println("(2) Error in test11");
+      return false;
+    }
+
+    // (3) Keys in the old & new Hashtables are all found, duplicates are rejected & removed keys
+    // are gone while resizes are in progress. Each key i also gets a companion key -i - 1 that
+    // is removed again on the next step
+    boolean sawResize = false;
+    for (int i = 52; i < 3000; i++) {
+      hashTable.put(i, i);
+      hashTable.put(-i - 1, i);
+      sawResize |= hashTable.isResizing();
+      if (hashTable.put(i / 2, -1) || hashTable.get(i / 2) != i / 2) {
+        System.out.println("(3) Error in test11");
+        return false;
+      }
+      if (i > 52 && hashTable.remove(-i) != i - 1) {
+        System.out.println("(3) Error in test11");
+        return false;
+      }
+    }
+    if (!sawResize || hashTable.size() != 3001) {
+      System.out.println("(3) Error in test11");
+      return false;
+    }
+    for (int i = 0; i < 3000; i++) {
+      if (!hashTable.containsKey(i) || hashTable.containsKey(-i - 1) != (i == 2999)) {
+        System.out.println("(3) Error in test11");
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Tests the Builder settings: load factor, growth factor, shrinking & trimToSize()
+   * 
+   * @return - true if all tests passed, false otherwise
+   */
+  public static boolean test12() {
+    // (1) A load factor of 0.5 grows a 10 bucket Hashtable on the 5th put, by 1.5x
+    HashtableMap<Integer, Integer> hashTable = new HashtableMap.Builder<Integer, Integer>()
+        .capacity(10).loadFactor(0.5).growthFactor(1.5).build();
+    for (int i = 0; i < 4; i++) {
+      hashTable.put(i, i);
+    }
+    if (hashTable.getCapacity() != 10) {
+      System.out.println("(1) Error in test12");
+      return false;
+    }
+    hashTable.put(4, 4);
+    if (hashTable.getCapacity() != 15 || !checkMapContract(new HashtableMap.Builder<String,
+        Integer>().capacity(5).loadFactor(0.9).growthFactor(1.5).build(), "test12")) {
+      System.out.println("(1) Error in test12");
+      return false;
+    }
+
+    // (2) Removing most pairs shrinks the Hashtable, never below its original capacity, &
+    // every remaining key is still found
+    hashTable = new HashtableMap.Builder<Integer, Integer>().capacity(16).powerOfTwoCapacity(true)
+        .shrinkThreshold(0.1).build();
+    for (int i = 0; i < 10000; i++) {
+      hashTable.put(i, i);
+    }
+    int peakCapacity = hashTable.getCapacity();
+    for (int i = 0; i < 9900; i++) {
+      hashTable.remove(i);
+    }
+    int shrunkCapacity = hashTable.getCapacity();
+    if (shrunkCapacity >= peakCapacity / 8 || (double) 100 / shrunkCapacity < 0.1) {
+      System.out.println("(2) Error in test12");
+      return false;
+    }
+    for (int i = 9900; i < 10000; i++) {
+      if (hashTable.get(i) != i) {
+        System.out.println("(2) Error in test12");
+        return false;
+      }
+    }
+    for (int i = 9900; i < 10000; i++) {
+      hashTable.remove(i);
+    }
+    if (hashTable.getCapacity() != 16 || hashTable.size() != 0) {
+      System.out.println("(2) Error in test12");
+      return false;
+    }
+
+    // (3) clear() on a shrinking Hashtable drops back to the original capacity
+    for (int i = 0; i < 1000; i++) {
+      hashTable.put(i, i);
+    }
+    hashTable.clear();
+    if (hashTable.getCapacity() != 16 || hashTable.containsKey(5) || !hashTable.put(5, 5)) {
+      System.out.println("(3) Error in test12");
+      return false;
+    }
+
+    // (4) trimToSize() fits the capacity to the remaining pairs
+    HashtableMap<Integer, Integer> trimmed = new HashtableMap<Integer, Integer>(20);
+    for (int i = 0; i < 1000; i++) {
+      trimmed.put(i, i);
+    }
+    for (int i = 0; i < 990; i++) {
+      trimmed.remove(i);
+    }
+    trimmed.trimToSize();
+    if (trimmed.getCapacity() != 13 || trimmed.size() != 10 || trimmed.get(995) != 995) {
+      System.out.println("(4) Error in test12");
+      return false;
+    }
+
+    // (5) Out of range settings are rejected
+    double[][] invalid = {{0, 2, 0}, {0.8, 1, 0}, {0.8, 2, 0.4}, {0.8, 2, -0.1}};
+    for (double[] settings : invalid) {
+      try {
+        new HashtableMap.Builder<Integer, Integer>().loadFactor(settings[0])
+            .growthFactor(settings[1]).shrinkThreshold(settings[2]).build();
+        System.out.println("(5) Error in test12");
+        return false;
+      } catch (IllegalArgumentException e) {
+        // Expected
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Helper method checking that a key iterator survives failed modifications but fails fast once
+   * the key 2 is removed
+   * 
+   * @param map - map containing at least the keys 1 & 2
+   * @return - true if the iterator behaved as expected, false otherwise
+   */
+  private static boolean checkFailFast(MapADT<Integer, Integer> map) {
+    Iterator<Integer> keys = map.keyIterator();
+    keys.next();
+    map.put(1, 5);
+    map.remove(-12345);
+    keys.next();
+    map.remove(2);
+    try {
+      keys.hasNext();
+      keys.next();
+      return false;
+    } catch (ConcurrentModificationException e) {
+      return true;
+    }
+  }
+
+  /**
+   * Tests that cursors & iterators fail fast, can be reset & reuse the stored Nodes
+   * 
+   * @return - true if all tests passed, false otherwise
+   */
+  public static boolean test13() {
+    HashtableMap<Integer, Integer> hashTable = new HashtableMap<Integer, Integer>(16, true, true);
+    for (int i = 0; i < 1000; i++) {
+      hashTable.put(i, i);
+    }
+
+    // (1) Cursors walk a Hashtable in the middle of an incremental resize & can be reset
+    if (!hashTable.isResizing()) {
+      hashTable.put(-1, -1);
+    }
+    MapCursor<Integer, Integer> cursor = hashTable.cursor();
+    for (int pass = 0; pass < 2; pass++) {
+      long sum = 0;
+      int count = 0;
+      while (cursor.advance()) {
+        sum += cursor.getKey();
+        count++;
+        // Lookups during the walk are not modifications
+        hashTable.get(cursor.getKey());
+      }
+      if (count != hashTable.size() || sum != 999L * 1000 / 2 + (hashTable.size() - 1000) * -1L) {
+        System.out.println("(1) Error in test13");
+        return false;
+      }
+      cursor.reset();
+    }
+
+    // (2) entryIterator() returns the stored Nodes themselves
+    Node<Integer, Integer> first = hashTable.entryIterator().next();
+    if (first != hashTable.entryIterator().next()) {
+      System.out.println("(2) Error in test13");
+      return false;
+    }
+
+    // (3) put() & remove() during a walk fail fast, a failed put() or remove() does not
+    RobinHoodHashtableMap<Integer, Integer> probed = new RobinHoodHashtableMap<Integer, Integer>();
+    probed.put(1, 1);
+    probed.put(2, 2);
+    if (!checkFailFast(hashTable) || !checkFailFast(probed)) {
+      System.out.println("(3) Error in test13");
+      return false;
+    }
+
+    // (4) A ConcurrentHashtableMap cursor is weakly consistent & never fails
+    ConcurrentHashtableMap<Integer, Integer> concurrent =
+        new ConcurrentHashtableMap<Integer, Integer>(4, 2);
+    for (int i = 0; i < 100; i++) {
+      concurrent.put(i, i);
+    }
+    int count = 0;
+    for (Iterator<Integer> keys = concurrent.keyIterator(); keys.hasNext(); keys.next()) {
+      concurrent.put(1000 + count, 0);
+      count++;
+    }
+    if (count < 100) {
+      System.out.println("(4) Error in test13");
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Tests the Spliterator, parallel streams & the parallel bulk operations of the HashtableMap
+   * 
+   * @return - true if all tests passed, false otherwise
+   */
+  public static boolean test14() {
+    HashtableMap<Integer, Long> hashTable = new HashtableMap<Integer, Long>(16, true);
+    int size = 100000;
+    long expectedSum = 0;
+    for (int i = 0; i < size; i++) {
+      hashTable.put(i, (long) i);
+      expectedSum += i;
+    }
+
+    // (1) Sequential & parallel streams see every Node exactly once
+    long sequentialSum = hashTable.stream().mapToLong(node -> node.getValue()).sum();
+    long parallelSum = hashTable.stream().parallel().mapToLong(node -> node.getValue()).sum();
+    long distinctKeys = hashTable.stream().parallel().map(node -> node.getKey()).distinct().count();
+    if (sequentialSum != expectedSum || parallelSum != expectedSum || distinctKeys != size) {
+      System.out.println("(1) Error in test14");
+      return false;
+    }
+
+    // (2) forEach() & reduceValues() give the same totals sequentially & in parallel
+    for (long threshold : new long[] {1, 1000, Long.MAX_VALUE}) {
+      AtomicLong forEachSum = new AtomicLong();
+      hashTable.forEach(threshold, (key, value) -> forEachSum.addAndGet(value));
+      Long reduced = hashTable.reduceValues(threshold, Long::sum);
+      if (forEachSum.get() != expectedSum || reduced == null || reduced != expectedSum) {
+        System.out.println("(2) Error in test14");
+        return false;
+      }
+    }
+    if (new HashtableMap<Integer, Long>().reduceValues(1, Long::sum) != null) {
+      System.out.println("(2) Error in test14");
+      return false;
+    }
+
+    // (3) search() finds the one matching pair or returns null
+    Integer match = hashTable.search(1, (key, value) -> value == 77777L ? key : null);
+    Integer noMatch = hashTable.search(1, (key, value) -> value < 0 ? key : null);
+    if (match == null || match != 77777 || noMatch != null) {
+      System.out.println("(3) Error in test14");
+      return false;
+    }
+
+    // (4) replaceAll() updates every value in place without being a modification
+    Iterator<Integer> keys = hashTable.keyIterator();
+    keys.next();
+    hashTable.replaceAll(1, (key, value) -> value * 2);
+    keys.next();
+    if (hashTable.get(12345) != 24690L || hashTable.reduceValues(1, Long::sum) != 2 * expectedSum) {
+      System.out.println("(4) Error in test14");
+      return false;
+    }
+
+    // (5) Modifying the Hashtable from a bulk operation fails fast
+    try {
+      hashTable.forEach(Long.MAX_VALUE, (key, value) -> hashTable.remove(key));
+      System.out.println("(5) Error in test14");
+      return false;
+    } catch (ConcurrentModificationException e) {
+      // Expected
+    }
+
+    return true;
+  }
+
+  /**
+   * Tests putAll(), getAll() & removeAll() on the HashtableMap & the default loops of MapADT
+   * 
+   * @return - true if all tests pass, false otherwise
+   */
+  public static boolean test15() {
+    HashtableMap<Integer, String> hashTable = new HashtableMap<Integer, String>(8, true);
+    hashTable.put(3, "three");
+
+    // (1) putAll() grows once for the whole batch & skips null, existing & repeated keys, so
+    // only the keys 0 to 499 other than 3 are stored, each with its first value
+    int size = 1000;
+    Integer[] keys = new Integer[size];
+    String[] values = new String[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = i % 10 == 9 ? null : i / 2;
+      values[i] = "value" + i;
+    }
+    int expected = 500;
+    int stored = hashTable.putAll(keys, values);
+    if (stored != expected - 1 || hashTable.size() != expected || !hashTable.get(3).equals("three")
+        || !hashTable.get(0).equals("value0") || hashTable.longestChain() > 8) {
+      System.out.println("(1) Error in test15");
+      return false;
+    }
+
+    // (2) getAll() fills the output array & leaves null for missing keys
+    Integer[] lookups = {0, -1, 3, null, 498};
+    String[] found = {"stale", "stale", "stale", "stale", "stale"};
+    if (hashTable.getAll(lookups, found) != 3 || !found[0].equals("value0") || found[1] != null
+        || !found[2].equals("three") || found[3] != null || !found[4].equals("value996")) {
+      System.out.println("(2) Error in test15");
+      return false;
+    }
+
+    // (3) removeAll() removes each key once & reports how many were removed
+    if (hashTable.removeAll(new Integer[] {0, 0, 3, -1, null}) != 2 || hashTable.containsKey(0)
+        || hashTable.containsKey(3) || hashTable.size() != expected - 2) {
+      System.out.println("(3) Error in test15");
+      return false;
+    }
+
+    // (4) Mismatched arrays are rejected
+    try {
+      hashTable.putAll(new Integer[] {1, 2}, new String[] {"one"});
+      System.out.println("(4) Error in test15");
+      return false;
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    // (5) The default loops of MapADT follow the same contract
+    MapADT<Integer, String> probed = new RobinHoodHashtableMap<Integer, String>();
+    String[] probedFound = new String[3];
+    if (probed.putAll(new Integer[] {1, 2, 1}, new String[] {"a", "b", "c"}) != 2
+        || probed.getAll(new Integer[] {1, 5, 2}, probedFound) != 2 || !probedFound[0].equals("a")
+        || probedFound[1] != null || probed.removeAll(new Integer[] {2, 2}) != 1
+        || probed.size() != 1) {
+      System.out.println("(5) Error in test15");
+      return false;
+    }
+
+    // (6) A batch after shrinking enabled removal shrinks at most once to fit what is left
+    HashtableMap<Integer, Integer> shrinking = new HashtableMap.Builder<Integer, Integer>()
+        .capacity(16).shrinkThreshold(0.2).build();
+    Integer[] numbers = new Integer[500];
+    for (int i = 0; i < numbers.length; i++) {
+      numbers[i] = i;
+    }
+    shrinking.putAll(numbers, numbers);
+    shrinking.removeAll(Arrays.copyOf(numbers, 490));
+    if (shrinking.size() != 10 || shrinking.getCapacity() >= 100 || shrinking.get(495) != 495) {
+      System.out.println("(6) Error in test15");
+      return false;
+    }
+
+    // (7) Small batches during an incremental resize only move a bounded step of it each, &
+    // still see the keys the old Hashtable holds
+    HashtableMap<Integer, Integer> resizing = new HashtableMap<Integer, Integer>(4096, true, true);
+    int count = 0;
+    while (!resizing.isResizing()) {
+      resizing.put(count, count);
+      count++;
+    }
+    Integer[] batch = new Integer[3];
+    if (resizing.getAll(new Integer[] {100, -1, count - 1}, batch) != 2 || batch[0] != 100
+        || batch[1] != null || batch[2] != count - 1
+        || resizing.putAll(new Integer[] {200, -2, -3}, new Integer[] {0, -2, -3}) != 2
+        || resizing.removeAll(new Integer[] {300, -2}) != 2 || !resizing.isResizing()) {
+      System.out.println("(7) Error in test15");
+      return false;
+    }
+    if (resizing.size() != count || resizing.get(200) != 200 || resizing.containsKey(300)
+        || resizing.get(-3) != -3) {
+      System.out.println("(7) Error in test15");
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Tests the OffHeapHashtableMap & its ByteCodecs
+   * 
+   * @return - true if all tests pass, false otherwise
+   */
+  public static boolean test16() {
+    // (1) Follows the MapADT contract, decoding Integers back from their bytes
+    if (!checkMapContract(
+        new OffHeapHashtableMap<String, Integer>(ByteCodec.UTF8, ByteCodec.INTEGER), "test16")) {
+      return false;
+    }
+
+    // (2) Keys spread over many small chunks & relinked by resizes are all found, including keys
+    // needing multi byte UTF-8, keys longer than 8 bytes & null values
+    OffHeapHashtableMap<String, Long> hashTable =
+        new OffHeapHashtableMap<String, Long>(ByteCodec.UTF8, ByteCodec.LONG, 2, 4096);
+    String[] unicode =
+        {"caf\u00e9", "\u6771\u4eac", "\ud83d\ude00 emoji", "a-much-longer-key-1234567"};
+    for (int i = 0; i < 10000; i++) {
+      hashTable.put("key" + i, (long) i * 3);
+    }
+    for (int i = 0; i < unicode.length; i++) {
+      hashTable.put(unicode[i], (long) -i);
+    }
+    hashTable.put("nothing", null);
+    if (hashTable.size() != 10005 || hashTable.getCapacity() < 10005 / 0.75
+        || hashTable.get("key9999") != 29997L || hashTable.get("\u6771\u4eac") != -1L
+        || hashTable.get("\ud83d\ude00 emoji") != -2L || hashTable.get("nothing") != null
+        || !hashTable.containsKey("nothing") || hashTable.containsKey("caf\u00e8")
+        || hashTable.put("a-much-longer-key-1234567", 5L)) {
+      System.out.println("(2) Error in test16");
+      return false;
+    }
+
+    // (3) The cursor decodes every key & value
+    long sum = 0;
+    int visited = 0;
+    MapCursor<String, Long> cursor = hashTable.cursor();
+    while (cursor.advance()) {
+      if (cursor.getKey().startsWith("key")) {
+        sum += cursor.getValue();
+      }
+      visited++;
+    }
+    if (visited != 10005 || sum != 3L * 9999 * 10000 / 2) {
+      System.out.println("(3) Error in test16");
+      return false;
+    }
+
+    // (4) Removing most keys compacts the chunks, keeping the remaining keys
+    long bytesBefore = hashTable.offHeapBytes();
+    for (int i = 0; i < 9900; i++) {
+      if (hashTable.remove("key" + i) != i * 3L) {
+        System.out.println("(4) Error in test16");
+        return false;
+      }
+    }
+    if (hashTable.offHeapBytes() >= bytesBefore || hashTable.size() != 105
+        || hashTable.get("key9950") != 29850L || hashTable.get("caf\u00e9") != 0L
+        || hashTable.containsKey("key0")) {
+      System.out.println("(4) Error in test16");
+      return false;
+    }
+
+    // (5) An entry larger than a chunk is rejected
+    try {
+      hashTable.put("x".repeat(5000), 1L);
+      System.out.println("(5) Error in test16");
+      return false;
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    return true;
+  }
+
+  /**
+   * Tests the PersistentHashtableMap, reopening it after a clean close & after a simulated crash
+   * 
+   * @return - true if all tests pass, false otherwise
+   */
+  public static boolean test17() {
+    Path directory = null;
+    try {
+      directory = Files.createTempDirectory("persistent-hashtable");
+      Path path = directory.resolve("table.dat");
+
+      // (1) Follows the MapADT contract, checkpointing every 1000 changed keys
+      if (!checkMapContract(new PersistentHashtableMap<String, Integer>(
+          directory.resolve("contract.dat"), ByteCodec.UTF8, ByteCodec.INTEGER, 16, 1 << 16, 1000),
+          "test17")) {
+        return false;
+      }
+
+      // (2) Survives a clean close, keeping size, capacity & values without re-inserting
+      PersistentHashtableMap<String, Long> hashTable = new PersistentHashtableMap<String, Long>(
+          path, ByteCodec.UTF8, ByteCodec.LONG, 16, 1 << 16, 500);
+      for (int i = 0; i < 3000; i++) {
+        hashTable.put("key" + i, (long) i);
+      }
+      for (int i = 0; i < 3000; i += 3) {
+        hashTable.remove("key" + i);
+      }
+      hashTable.put("nothing", null);
+      int capacity = hashTable.getCapacity();
+      hashTable.close();
+      hashTable = new PersistentHashtableMap<String, Long>(path, ByteCodec.UTF8, ByteCodec.LONG);
+      if (hashTable.size() != 2001 || hashTable.getCapacity() != capacity
+          || hashTable.containsKey("key0") || hashTable.get("key2999") != 2999L
+          || !hashTable.containsKey("nothing") || hashTable.get("nothing") != null) {
+        System.out.println("(2) Error in test17");
+        return false;
+      }
+
+      // (3) Changes since the last checkpoint are replayed from the log when the map is reopened
+      // without being closed, as after a crash
+      hashTable.checkpoint();
+      hashTable.remove("key1");
+      hashTable.put("key0", 42L);
+      hashTable.put("fresh", 7L);
+      hashTable.remove("fresh");
+      hashTable.put("fresh", 8L);
+      PersistentHashtableMap<String, Long> reopened =
+          new PersistentHashtableMap<String, Long>(path, ByteCodec.UTF8, ByteCodec.LONG);
+      if (reopened.size() != hashTable.size() || reopened.containsKey("key1")
+          || reopened.get("key0") != 42L || reopened.get("fresh") != 8L) {
+        System.out.println("(3) Error in test17");
+        return false;
+      }
+
+      // (4) A torn record at the end of the log is dropped & every key is visited by the cursor
+      Files.write(path.resolveSibling("table.dat.log"), new byte[] {1, 0, 0, 0, 9, 0},
+          StandardOpenOption.APPEND);
+      reopened = new PersistentHashtableMap<String, Long>(path, ByteCodec.UTF8, ByteCodec.LONG);
+      int visited = 0;
+      MapCursor<String, Long> cursor = reopened.cursor();
+      while (cursor.advance()) {
+        if (!reopened.containsKey(cursor.getKey())) {
+          System.out.println("(4) Error in test17");
+          return false;
+        }
+        visited++;
+      }
+      if (visited != hashTable.size() || reopened.get("fresh") != 8L) {
+        System.out.println("(4) Error in test17");
+        return false;
+      }
+      reopened.close();
+
+      // (5) A file without a valid header is rejected
+      Path garbage = directory.resolve("garbage.dat");
+      Files.write(garbage, new byte[8192]);
+      try {
+        new PersistentHashtableMap<String, Long>(garbage, ByteCodec.UTF8, ByteCodec.LONG);
+        System.out.println("(5) Error in test17");
+        return false;
+      } catch (IOException e) {
+        // Expected
+      }
+
+      // (6) A crash in clear() after the log is forced but before it is truncated does not bring
+      // the cleared keys back, whether or not the header already switched to the empty slots
+      Path cleared = directory.resolve("cleared.dat");
+      Path clearedLog = directory.resolve("cleared.dat.log");
+      hashTable = new PersistentHashtableMap<String, Long>(cleared, ByteCodec.UTF8, ByteCodec.LONG,
+          16, 1 << 16, 1000);
+      for (int i = 0; i < 100; i++) {
+        hashTable.put("key" + i, (long) i);
+        if (i == 49) {
+          hashTable.checkpoint();
+        }
+      }
+      byte[] table = Files.readAllBytes(cleared);
+      byte[] logged = Files.readAllBytes(clearedLog);
+      hashTable.clear();
+      // Rebuilds the log the crash would leave: the changes in front of the clear, then the clear
+      ByteBuffer clearRecord = ByteBuffer.allocate(13).put((byte) 3).putInt(0).putInt(-1);
+      CRC32C checksum = new CRC32C();
+      checksum.update(clearRecord.array(), 0, 9);
+      clearRecord.putInt((int) checksum.getValue());
+      for (int crash = 0; crash < 2; crash++) {
+        if (crash == 1) {
+          // Before the header switched
+          Files.write(cleared, table);
+        }
+        Files.write(clearedLog, logged);
+        Files.write(clearedLog, clearRecord.array(), StandardOpenOption.APPEND);
+        reopened = new PersistentHashtableMap<String, Long>(cleared, ByteCodec.UTF8,
+            ByteCodec.LONG);
+        if (reopened.size() != 0 || reopened.containsKey("key0") || reopened.containsKey("key99")
+            || reopened.cursor().advance()) {
+          System.out.println("(6) Error in test17");
+          return false;
+        }
+        reopened.close();
+      }
+    } catch (IOException e) {
+      System.out.println("(0) Error in test17: " + e);
+      return false;
+    } finally {
+      deleteDirectory(directory);
+    }
+
+    return true;
+  }
+
+  /**
+   * Helper method that deletes a temporary directory & the files in it
+   * 
+   * @param directory - directory to delete, or null
+   */
+  private static void deleteDirectory(Path directory) {
+    if (directory == null) {
+      return;
+    }
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        Files.deleteIfExists(file);
+      }
+      Files.deleteIfExists(directory);
+    } catch (IOException e) {
+      // Left for the operating system to clean up
+    }
+  }
+
+  /**
+   * Tests snapshot() & restore() of the HashtableMap
+   * 
+   * @return - true if all tests pass, false otherwise
+   */
+  public static boolean test18() {
+    Path directory = null;
+    try {
+      directory = Files.createTempDirectory("hashtable-snapshot");
+      Path path = directory.resolve("snapshot.bin");
+
+      // (1) A snapshot spanning many blocks restores every pair, including null values & keys
+      // larger than a block, into a map pre-sized from the snapshot
+      HashtableMap<String, Long> hashTable = new HashtableMap<String, Long>(16, true);
+      for (int i = 0; i < 100000; i++) {
+        hashTable.put("key" + i, (long) i);
+      }
+      hashTable.put("nothing", null);
+      String large = "x".repeat(3_000_000);
+      hashTable.put(large, -1L);
+      hashTable.snapshot(path, ByteCodec.UTF8, ByteCodec.LONG);
+
+      HashtableMap<String, Long> restored = new HashtableMap<String, Long>(16, true);
+      restored.put("stale", 0L);
+      restored.restore(path, ByteCodec.UTF8, ByteCodec.LONG);
+      if (restored.size() != 100002 || restored.containsKey("stale")
+          || restored.get("key99999") != 99999L || restored.get("nothing") != null
+          || !restored.containsKey("nothing") || restored.get(large) != -1L
+          || restored.getCapacity() != hashTable.getCapacity()) {
+        System.out.println("(1) Error in test18");
+        return false;
+      }
+
+      // (2) A corrupt block is detected by its checksum & leaves the map empty
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+        channel.write(ByteBuffer.wrap(new byte[] {42}), 5000);
+      }
+      try {
+        restored.restore(path, ByteCodec.UTF8, ByteCodec.LONG);
+        System.out.println("(2) Error in test18");
+        return false;
+      } catch (IOException e) {
+        if (restored.size() != 0) {
+          System.out.println("(2) Error in test18");
+          return false;
+        }
+      }
+
+      // (3) A truncated snapshot is rejected
+      hashTable.snapshot(path, ByteCodec.UTF8, ByteCodec.LONG);
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+        channel.truncate(channel.size() / 2);
+      }
+      try {
+        restored.restore(path, ByteCodec.UTF8, ByteCodec.LONG);
+        System.out.println("(3) Error in test18");
+        return false;
+      } catch (IOException e) {
+        // Expected
+      }
+
+      // (4) Without codecs the pairs go through Java serialization
+      HashtableMap<Integer, String> serialized = new HashtableMap<Integer, String>();
+      for (int i = 0; i < 1000; i++) {
+        serialized.put(i, "value" + i);
+      }
+      serialized.snapshot(path);
+      HashtableMap<Integer, String> deserialized = new HashtableMap<Integer, String>();
+      deserialized.restore(path);
+      if (deserialized.size() != 1000 || !deserialized.get(999).equals("value999")) {
+        System.out.println("(4) Error in test18");
+        return false;
+      }
+
+      // (5) A codec rejecting a value fails the snapshot with its own exception, instead of
+      // being taken for a pair too large for the block
+      ByteCodec<Long> positive = new ByteCodec<Long>() {
+        @Override
+        public void encode(Long value, ByteBuffer buffer) {
+          if (value < 0) {
+            throw new IllegalArgumentException("Negative value!");
+          }
+          ByteCodec.LONG.encode(value, buffer);
+        }
+
+        @Override
+        public Long decode(ByteBuffer buffer, int offset, int length) {
+          return ByteCodec.LONG.decode(buffer, offset, length);
+        }
+      };
+      try {
+        hashTable.snapshot(path, ByteCodec.UTF8, positive);
+        System.out.println("(5) Error in test18");
+        return false;
+      } catch (IllegalArgumentException e) {
+        if (!e.getMessage().equals("Negative value!")) {
+          System.out.println("(5) Error in test18");
+          return false;
+        }
+      }
+
+      // (6) A corrupt block size in the header or a corrupt payload length of a block is rejected
+      // before any buffer is sized from it, leaving the map empty
+      int[][] lengths = {{Integer.MAX_VALUE, 4, -1}, {Integer.MAX_VALUE, 1 << 20, -1}};
+      for (int field = 0; field < 2; field++) {
+        for (int length : lengths[field]) {
+          serialized.snapshot(path);
+          try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            // Block size of the header, then payload length of the first block
+            channel.write(ByteBuffer.allocate(4).putInt(0, length), field == 0 ? 12 : 24);
+          }
+          try {
+            deserialized.restore(path);
+            System.out.println("(6) Error in test18");
+            return false;
+          } catch (IOException e) {
+            if (deserialized.size() != 0) {
+              System.out.println("(6) Error in test18");
+              return false;
+            }
+          }
+        }
+      }
+    } catch (IOException e) {
+      System.out.println("(0) Error in test18: " + e);
+      return false;
+    } finally {
+      deleteDirectory(directory);
+    }
+
+    return true;
+  }
+
+  /**
+   * Tests the CachingHashtableMap's eviction policies, weigher, listener & counters
+   * 
+   * @return - true if all tests pass, false otherwise
+   */
+  public static boolean test19() {
+    // (1) Follows the MapADT contract while below its maximum
+    if (!checkMapContract(new CachingHashtableMap<String, Integer>(1_000_000), "test19")) {
+      return false;
+    }
+
+    // (2) LRU evicts the least recently used entry, counting hits, misses & evictions
+    StringBuilder evicted = new StringBuilder();
+    CachingHashtableMap<String, Integer> lru = new CachingHashtableMap.Builder<String, Integer>()
+        .maximumSize(3).evictionListener((key, value) -> evicted.append(key).append(value))
+        .build();
+    lru.put("a", 1);
+    lru.put("b", 2);
+    lru.put("c", 3);
+    lru.get("a");
+    lru.put("d", 4);
+    try {
+      lru.get("b");
+      System.out.println("(2) Error in test19");
+      return false;
+    } catch (NoSuchElementException e) {
+      // Expected, b was the least recently used
+    }
+    lru.remove("c");
+    lru.put("e", 5);
+    if (lru.size() != 3 || !evicted.toString().equals("b2") || lru.hitCount() != 1
+        || lru.missCount() != 1 || lru.evictionCount() != 1 || !lru.containsKey("a")) {
+      System.out.println("(2) Error in test19");
+      return false;
+    }
+
+    // (3) A weigher bounds the total weight, an entry heavier than the maximum is not kept
+    CachingHashtableMap<String, String> weighted = new CachingHashtableMap.Builder<String, String>()
+        .maximumWeight(10, (key, value) -> value.length()).build();
+    weighted.put("one", "aaaa");
+    weighted.put("two", "bbbb");
+    weighted.put("three", "cccc");
+    weighted.put("huge", "x".repeat(11));
+    if (weighted.weightedSize() != 8 || weighted.containsKey("one")
+        || weighted.containsKey("huge") || weighted.evictionCount() != 2) {
+      System.out.println("(3) Error in test19");
+      return false;
+    }
+
+    // (4) TINY_LFU keeps a frequently used working set through a stream of one-off keys that
+    // flushes it out of the LRU cache
+    CachingHashtableMap<Integer, Integer> tinyLfu =
+        new CachingHashtableMap.Builder<Integer, Integer>().maximumSize(100)
+            .policy(CachingHashtableMap.EvictionPolicy.TINY_LFU).build();
+    CachingHashtableMap<Integer, Integer> plainLru = new CachingHashtableMap<Integer, Integer>(100);
+    for (CachingHashtableMap<Integer, Integer> cache : List.of(tinyLfu, plainLru)) {
+      for (int i = 0; i < 20000; i++) {
+        // Every 5th lookup is one of 50 popular keys, the rest are never seen again
+        int key = i % 5 == 0 ? (i / 5) % 50 : 1000 + i;
+        if (cache.containsKey(key)) {
+          cache.get(key);
+        } else {
+          cache.put(key, key);
+        }
+      }
+    }
+    int tinyLfuKept = 0;
+    int lruKept = 0;
+    for (int i = 0; i < 50; i++) {
+      tinyLfuKept += tinyLfu.containsKey(i) ? 1 : 0;
+      lruKept += plainLru.containsKey(i) ? 1 : 0;
+    }
+    if (tinyLfu.size() != 100 || plainLru.size() != 100 || tinyLfuKept < 45
+        || lruKept > 20 || tinyLfu.hitCount() <= plainLru.hitCount()) {
+      System.out.println("(4) Error in test19");
+      return false;
+    }
+
+    // (5) clear() empties the lists without counting evictions
+    long evictions = tinyLfu.evictionCount();
+    tinyLfu.clear();
+    tinyLfu.put(7, 7);
+    if (tinyLfu.weightedSize() != 1 || tinyLfu.evictionCount() != evictions) {
+      System.out.println("(5) Error in test19");
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Tests the ExpiringHashtableMap's expire-after-write, expire-after-access & per-entry time to
+   * live, the timer wheels reaping untouched entries & the background cleaner
+   * 
+   * @return - true if all tests pass, false otherwise
+   */
+  public static boolean test20() {
+    // (1) Follows the MapADT contract while nothing expires
+    if (!checkMapContract(new ExpiringHashtableMap<String, Integer>(1, TimeUnit.HOURS), "test20")) {
+      return false;
+    }
+
+    // (2) An entry is present until its time to live ends, then absent & storable again
+    AtomicLong time = new AtomicLong(123_456_789L);
+    ExpiringHashtableMap<String, Integer> written =
+        new ExpiringHashtableMap.Builder<String, Integer>().expireAfterWrite(1, TimeUnit.SECONDS)
+            .ticker(time::get).build();
+    written.put("a", 1);
+    written.put("b", 2, 1, TimeUnit.MINUTES);
+    time.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+    if (written.get("a") != 1 || written.put("a", 3)) {
+      System.out.println("(2) Error in test20");
+      return false;
+    }
+    time.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+    try {
+      written.get("a");
+      System.out.println("(2) Error in test20");
+      return false;
+    } catch (NoSuchElementException e) {
+      // Expected, a expired
+    }
+    if (written.containsKey("a") || written.remove("a") != null || written.size() != 1
+        || written.get("b") != 2 || !written.put("a", 4) || written.get("a") != 4) {
+      System.out.println("(2) Error in test20");
+      return false;
+    }
+
+    // (3) Each get() restarts the expire-after-access time to live
+    ExpiringHashtableMap<String, Integer> accessed =
+        new ExpiringHashtableMap.Builder<String, Integer>().expireAfterAccess(10, TimeUnit.SECONDS)
+            .ticker(time::get).build();
+    accessed.put("a", 1);
+    accessed.put("b", 2);
+    for (int i = 0; i < 5; i++) {
+      time.addAndGet(TimeUnit.SECONDS.toNanos(6));
+      accessed.get("a");
+    }
+    if (!accessed.containsKey("a") || accessed.containsKey("b") || accessed.size() != 1) {
+      System.out.println("(3) Error in test20");
+      return false;
+    }
+
+    // (4) The timer wheels reap entries nobody looks up, across every wheel
+    ExpiringHashtableMap<Integer, Integer> reaped =
+        new ExpiringHashtableMap.Builder<Integer, Integer>().ticker(time::get).build();
+    long[] ttls = {TimeUnit.MILLISECONDS.toNanos(5), TimeUnit.SECONDS.toNanos(5),
+        TimeUnit.MINUTES.toNanos(5), TimeUnit.HOURS.toNanos(5), TimeUnit.DAYS.toNanos(5)};
+    for (int i = 0; i < 1000; i++) {
+      reaped.put(i, i, ttls[i % ttls.length] + i, TimeUnit.NANOSECONDS);
+    }
+    reaped.put(-1, -1);
+    int expected = 1001;
+    for (long ttl : ttls) {
+      time.addAndGet(ttl / 2);
+      reaped.cleanUp();
+      int before = reaped.size();
+      // Reaping may lag by one tick of the finest wheel, ~16.8ms
+      time.addAndGet(ttl + TimeUnit.MILLISECONDS.toNanos(17));
+      reaped.cleanUp();
+      expected -= 200;
+      if (before != expected + 200 || reaped.size() != expected
+          || reaped.expiredCount() != 1000 - expected + 1) {
+        System.out.println("(4) Error in test20: " + before + ", " + reaped.size());
+        return false;
+      }
+    }
+    if (reaped.get(-1) != -1) {
+      System.out.println("(4) Error in test20");
+      return false;
+    }
+
+    // (5) The background thread reaps entries while the map sits idle
+    try (ExpiringHashtableMap<Integer, Integer> idle =
+        new ExpiringHashtableMap.Builder<Integer, Integer>()
+            .expireAfterWrite(20, TimeUnit.MILLISECONDS)
+            .cleanupInterval(10, TimeUnit.MILLISECONDS).build()) {
+      for (int i = 0; i < 100; i++) {
+        idle.put(i, i);
+      }
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (idle.expiredCount() < 100 && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      if (idle.expiredCount() != 100) {
+        System.out.println("(5) Error in test20");
+        return false;
+      }
+    } catch (InterruptedException e) {
+      System.out.println("(5) Error in test20");
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Tests the opt-in stats: operation counters & latency histograms, chain lengths, resizes, the
+   * load factor & registration as a JMX MBean
+   * 
+   * @return - true if all tests pass, false otherwise
+   */
+  public static boolean test21() {
+    // (1) A map built without stats has none to read
+    try {
+      new HashtableMap<String, Integer>().stats();
+      System.out.println("(1) Error in test21");
+      return false;
+    } catch (IllegalStateException e) {
+      // Expected, stats are off by default
+    }
+
+    // (2) Every operation is counted, 1 in 64 is sampled for its latency & chain length. Growth is
+    // counted too
+    HashtableMap<String, Integer> map = new HashtableMap.Builder<String, Integer>().capacity(4)
+        .powerOfTwoCapacity(true).recordStats(true).build();
+    HashtableMapStatsMXBean stats = map.stats();
+    for (int i = 0; i < 100; i++) {
+      map.put("key" + i, i);
+    }
+    for (int i = 0; i < 150; i++) {
+      try {
+        map.get("key" + i);
+      } catch (NoSuchElementException e) {
+        // Misses are counted as well
+      }
+    }
+    map.containsKey("key7");
+    map.remove("key8");
+    map.remove("missing");
+    if (stats.getPutCount() != 100 || stats.getGetCount() != 150 || stats.getRemoveCount() != 2
+        || stats.getContainsKeyCount() != 1
+        || Arrays.stream(stats.getGetLatencyHistogram()).sum() != 2
+        || Arrays.stream(stats.getChainLengthHistogram()).sum() != 253 / 64
+        || stats.getResizeCount() != 5 || stats.getResizeNanos() <= 0 || stats.getSize() != 99
+        || stats.getCapacity() != 128 || stats.getLoadFactor() != 99.0 / 128
+        || stats.latencyPercentileNanos("get", 50) > stats.latencyPercentileNanos("get", 100)
+        || stats.latencyPercentileNanos("get", 100) <= 0) {
+      System.out.println("(2) Error in test21");
+      return false;
+    }
+
+    // (3) Colliding keys show up in the longest chain & the chain length histogram
+    String[] colliding = new String[8];
+    for (int i = 0; i < colliding.length; i++) {
+      colliding[i] = ((i & 4) == 0 ? "Aa" : "BB") + ((i & 2) == 0 ? "Aa" : "BB")
+          + ((i & 1) == 0 ? "Aa" : "BB");
+      map.put(colliding[i], i);
+    }
+    for (int i = 0; i < 64; i++) {
+      map.containsKey(colliding[i % 8]);
+    }
+    if (stats.getMaxChainLength() < 8 || map.get(colliding[0]) != 0
+        || stats.getChainLengthHistogram()[8] == 0) {
+      System.out.println("(3) Error in test21");
+      return false;
+    }
+
+    // (4) reset() zeroes the counters, which a JMX client reads as attributes
+    stats.reset();
+    map.get("key1");
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName("HashtableMap:type=Stats,name=test21");
+      server.registerMBean(stats, name);
+      try {
+        if (!Long.valueOf(1).equals(server.getAttribute(name, "GetCount"))
+            || !Long.valueOf(0).equals(server.getAttribute(name, "PutCount"))
+            || !Integer.valueOf(107).equals(server.getAttribute(name, "Size"))) {
+          System.out.println("(4) Error in test21");
+          return false;
+        }
+      } finally {
+        server.unregisterMBean(name);
+      }
+    } catch (JMException e) {
+      System.out.println("(4) Error in test21: " + e);
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Key whose hashCode() is the same for every instance, counting its equals() calls
+   */
+  private static class CollidingKey {
+    private static int equalsCalls = 0;
+    protected final int id;
+
+    private CollidingKey(int id) {
+      this.id = id;
+    }
+
+    @Override
+    public int hashCode() {
+      return 42;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      equalsCalls++;
+      return other != null && other.getClass() == getClass() && ((CollidingKey) other).id == id;
+    }
+  }
+
+  /**
+   * Comparable CollidingKey, which a TreeBin can search in O(log n)
+   */
+  private static class SortedCollidingKey extends CollidingKey
+      implements Comparable<SortedCollidingKey> {
+    private SortedCollidingKey(int id) {
+      super(id);
+    }
+
+    @Override
+    public int compareTo(SortedCollidingKey other) {
+      return Integer.compare(id, other.id);
+    }
+  }
+
+  /**
+   * Tests that colliding keys are indexed by TreeBins, searched in O(log n) when Comparable &
+   * still found when not, through removals, resizes & the TreeBins turning back into chains, &
+   * that keys equal across classes are found
+   * 
+   * @return - true if all tests pass, false otherwise
+   */
+  public static boolean test22() {
+    for (boolean incremental : new boolean[] {false, true}) {
+      HashtableMap<CollidingKey, Integer> map = new HashtableMap.Builder<CollidingKey, Integer>()
+          .capacity(64).powerOfTwoCapacity(true).incrementalResize(incremental)
+          .shrinkThreshold(0.2).build();
+
+      // (1) 1000 Comparable keys of one chain cost O(log n) equals() calls per get()
+      for (int i = 0; i < 1000; i++) {
+        map.put(new SortedCollidingKey(i), i);
+      }
+      CollidingKey.equalsCalls = 0;
+      for (int i = 0; i < 1000; i++) {
+        if (map.get(new SortedCollidingKey(i)) != i) {
+          System.out.println("(1) Error in test22");
+          return false;
+        }
+      }
+      if (CollidingKey.equalsCalls > 1000 * 20 || map.put(new SortedCollidingKey(7), 0)) {
+        System.out.println("(1) Error in test22: " + CollidingKey.equalsCalls + " equals()");
+        return false;
+      }
+
+      // (2) Keys that are not Comparable share the chain & are still found
+      for (int i = 0; i < 200; i++) {
+        map.put(new CollidingKey(i), -i);
+      }
+      for (int i = 0; i < 200; i++) {
+        if (map.get(new CollidingKey(i)) != -i || map.get(new SortedCollidingKey(i)) != i) {
+          System.out.println("(2) Error in test22");
+          return false;
+        }
+      }
+      if (map.size() != 1200 || map.containsKey(new CollidingKey(200))
+          || map.containsKey(new SortedCollidingKey(1000))) {
+        System.out.println("(2) Error in test22");
+        return false;
+      }
+
+      // (3) Removing all but a few keys shrinks the Hashtable & turns the TreeBin back into a
+      // chain, every key left is still found & iterated
+      for (int i = 3; i < 1000; i++) {
+        if (map.remove(new SortedCollidingKey(i)) != i
+            || (i < 200 && map.remove(new CollidingKey(i)) != -i)) {
+          System.out.println("(3) Error in test22");
+          return false;
+        }
+      }
+      int iterated = 0;
+      for (MapCursor<CollidingKey, Integer> cursor = map.cursor(); cursor.advance();) {
+        iterated++;
+      }
+      if (map.size() != 6 || iterated != 6 || map.get(new SortedCollidingKey(2)) != 2
+          || map.get(new CollidingKey(0)) != 0 || map.remove(new SortedCollidingKey(500)) != null) {
+        System.out.println("(3) Error in test22");
+        return false;
+      }
+
+      // (4) The chain is indexed again once it grows back, & clear() drops every TreeBin
+      for (int i = 3; i < 100; i++) {
+        map.put(new SortedCollidingKey(i), i);
+      }
+      CollidingKey.equalsCalls = 0;
+      map.get(new SortedCollidingKey(50));
+      if (CollidingKey.equalsCalls > 20) {
+        System.out.println("(4) Error in test22");
+        return false;
+      }
+      map.clear();
+      if (map.size() != 0 || map.containsKey(new SortedCollidingKey(50))
+          || !map.put(new SortedCollidingKey(50), 50)
+          || map.get(new SortedCollidingKey(50)) != 50) {
+        System.out.println("(4) Error in test22");
+        return false;
+      }
+    }
+
+    // (5) A TreeBin finds keys equal to a stored key of another class, such as a LinkedList equal
+    // to a stored ArrayList, instead of telling them apart by class
+    for (boolean powerOfTwo : new boolean[] {false, true}) {
+      HashtableMap<List<Integer>, Integer> map = new HashtableMap.Builder<List<Integer>, Integer>()
+          .capacity(128).powerOfTwoCapacity(powerOfTwo).build();
+
+      // Every list [i, -31 * i] has the hashcode 961, so all 40 share one TreeBin
+      for (int i = 0; i < 40; i++) {
+        map.put(new ArrayList<Integer>(List.of(i, -31 * i)), i);
+      }
+
+      // Equal keys of another class are found & removed, put() does not store a second copy
+      for (int i = 0; i < 40; i++) {
+        List<Integer> key = new LinkedList<Integer>(List.of(i, -31 * i));
+        if (!map.containsKey(key) || map.get(key) != i || map.put(key, i)) {
+          System.out.println("(5) Error in test22");
+          return false;
+        }
+      }
+      if (map.size() != 40 || map.containsKey(new LinkedList<Integer>(List.of(40, -31 * 40)))) {
+        System.out.println("(5) Error in test22");
+        return false;
+      }
+      for (int i = 0; i < 30; i++) {
+        Integer removed = map.remove(new LinkedList<Integer>(List.of(i, -31 * i)));
+        if (removed == null || removed != i) {
+          System.out.println("(5) Error in test22");
+          return false;
+        }
+      }
+      if (map.size() != 10 || map.get(new ArrayList<Integer>(List.of(35, -31 * 35))) != 35) {
+        System.out.println("(5) Error in test22");
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Tests the update methods: putIfAbsent(), putOrReplace(), replace(), computeIfAbsent(),
+   * compute(), merge() & the counter helpers, each finding the key with a single walk of its chain
+   * 
+   * @return - true if all tests pass, false otherwise
+   */
+  public static boolean test23() {
+    // (1) putIfAbsent(), putOrReplace() & both replace() only store what their contract allows
+    HashtableMap<String, Integer> map = new HashtableMap<String, Integer>();
+    if (map.putIfAbsent("a", 1) != null || map.putIfAbsent("a", 2) != 1 || map.get("a") != 1
+        || map.putOrReplace("a", 3) != 1 || map.putOrReplace("b", 4) != null
+        || map.replace("c", 5) != null || map.containsKey("c") || map.replace("b", 6) != 4
+        || map.replace("a", 1, 7) || !map.replace("a", 3, 8) || map.get("a") != 8
+        || map.get("b") != 6 || map.size() != 2) {
+      System.out.println("(1) Error in test23");
+      return false;
+    }
+
+    // (2) compute() & merge() remove the key when the function returns null, computeIfAbsent()
+    // stores nothing then
+    if (map.computeIfAbsent("c", key -> 9) != 9 || map.computeIfAbsent("c", key -> 10) != 9
+        || map.computeIfAbsent("d", key -> null) != null || map.containsKey("d")
+        || map.compute("c", (key, value) -> value + 1) != 10
+        || map.compute("e", (key, value) -> value == null ? 11 : value) != 11
+        || map.compute("e", (key, value) -> null) != null || map.containsKey("e")
+        || map.merge("a", 2, Integer::sum) != 10 || map.merge("f", 2, Integer::sum) != 2
+        || map.merge("f", 0, (a, b) -> null) != null || map.containsKey("f")
+        || map.size() != 3 || map.get("c") != 10) {
+      System.out.println("(2) Error in test23");
+      return false;
+    }
+
+    // (3) A function modifying the HashTable is detected
+    try {
+      map.computeIfAbsent("g", key -> {
+        map.put("h", 1);
+        return 1;
+      });
+      System.out.println("(3) Error in test23");
+      return false;
+    } catch (ConcurrentModificationException e) {
+      // Expected, h was put by the function
+    }
+
+    // (4) The counter helpers count in place & create missing keys
+    HashtableMap<String, Long> longCounts = new HashtableMap<String, Long>();
+    HashtableMap<String, Integer> intCounts = new HashtableMap<String, Integer>();
+    for (int i = 0; i < 1000; i++) {
+      longCounts.addToLong("k" + i % 10, i);
+      intCounts.addToInt("k" + i % 10, 1);
+    }
+    if (longCounts.size() != 10 || longCounts.get("k3") != 49_800L || intCounts.get("k9") != 100
+        || longCounts.addToLong("k3", -49_800L) != 0 || intCounts.addToInt("new", -5) != -5) {
+      System.out.println("(4) Error in test23");
+      return false;
+    }
+
+    // (5) Every update method rejects a null key the same way
+    int size = map.size();
+    List<Runnable> nullUpdates = List.of(() -> map.putIfAbsent(null, 1),
+        () -> map.putOrReplace(null, 1), () -> map.replace(null, 1),
+        () -> map.replace(null, 1, 2), () -> map.computeIfAbsent(null, key -> 1),
+        () -> map.compute(null, (key, value) -> 1), () -> map.merge(null, 1, Integer::sum),
+        () -> intCounts.addToInt(null, 1), () -> longCounts.addToLong(null, 1));
+    for (Runnable update : nullUpdates) {
+      try {
+        update.run();
+        System.out.println("(5) Error in test23");
+        return false;
+      } catch (IllegalArgumentException e) {
+        // Expected, null keys are never stored
+      }
+    }
+    if (map.size() != size) {
+      System.out.println("(5) Error in test23");
+      return false;
+    }
+
+    // (6) Each update calls equals() as often as a single get() does
+    HashtableMap<CollidingKey, Integer> colliding = new HashtableMap<CollidingKey, Integer>();
+    for (int i = 0; i < 5; i++) {
+      colliding.put(new CollidingKey(i), i);
+    }
+    CollidingKey key = new CollidingKey(0);
+    CollidingKey.equalsCalls = 0;
+    colliding.get(key);
+    int perLookup = CollidingKey.equalsCalls;
+    CollidingKey.equalsCalls = 0;
+    colliding.merge(key, 1, Integer::sum);
+    colliding.putOrReplace(key, 5);
+    colliding.compute(key, (k, value) -> value + 1);
+    colliding.addToInt(key, 1);
+    if (CollidingKey.equalsCalls != 4 * perLookup || colliding.get(key) != 7) {
+      System.out.println("(6) Error in test23: " + CollidingKey.equalsCalls + " equals()");
+      return false;
+    }
+
+    // (7) Keys still in the old Hashtable of an incremental resize are updated in place
+    HashtableMap<Integer, Integer> resizing = new HashtableMap.Builder<Integer, Integer>()
+        .capacity(1024).incrementalResize(true).build();
+    for (int i = 0; i < 820; i++) {
+      resizing.put(i, i);
+    }
+    if (!resizing.isResizing()) {
+      System.out.println("(7) Error in test23");
+      return false;
+    }
+    for (int i = 0; i < 820; i++) {
+      resizing.merge(i, 1, Integer::sum);
+    }
+    for (int i = 0; i < 820; i++) {
+      if (resizing.get(i) != i + 1) {
+        System.out.println("(7) Error in test23");
+        return false;
+      }
+    }
+    if (resizing.size() != 820) {
+      System.out.println("(7) Error in test23");
+      return false;
+    }
+
+    // (8) A cache reweighs updated entries, evicting once they outgrow it
+    CachingHashtableMap<String, String> cache = new CachingHashtableMap.Builder<String, String>()
+        .maximumWeight(10, (k, value) -> value.length()).build();
+    cache.put("a", "1234");
+    cache.put("b", "1234");
+    cache.putOrReplace("a", "12345678");
+    if (cache.containsKey("b") || cache.weightedSize() != 8 || cache.evictionCount() != 1) {
+      System.out.println("(8) Error in test23");
+      return false;
+    }
+
+    // (9) An expired entry counts as absent & an update restarts the time to live
+    AtomicLong time = new AtomicLong(0);
+    ExpiringHashtableMap<String, Integer> expiring =
+        new ExpiringHashtableMap.Builder<String, Integer>().expireAfterWrite(1, TimeUnit.SECONDS)
+            .ticker(time::get).build();
+    expiring.put("a", 1);
+    time.addAndGet(TimeUnit.MILLISECONDS.toNanos(1500));
+    if (expiring.putIfAbsent("a", 2) != null || expiring.addToInt("a", 1) != 3) {
+      System.out.println("(9) Error in test23");
+      return false;
+    }
+    time.addAndGet(TimeUnit.MILLISECONDS.toNanos(900));
+    expiring.merge("a", 1, Integer::sum);
+    time.addAndGet(TimeUnit.MILLISECONDS.toNanos(900));
+    if (expiring.get("a") != 4) {
+      System.out.println("(9) Error in test23");
+      return false;
+    }
+    time.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+    if (expiring.containsKey("a")) {
+      System.out.println("(9) Error in test23");
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Tests getOrDefault() & find(), which look a key up once & return a default Value or null on
+   * a miss instead of throwing
+   * 
+   * @return - true if all tests pass, false otherwise
+   */
+  public static boolean test24() {
+    // (1) find() tells a missing key apart from one stored with a null Value, getOrDefault()
+    // can't, & the Node found follows later updates
+    HashtableMap<String, Integer> map = new HashtableMap<String, Integer>();
+    map.put("null", null);
+    map.put("one", 1);
+    Node<String, Integer> one = map.find("one");
+    map.putOrReplace("one", 11);
+    if (map.find("null") == null || map.find("null").getValue() != null
+        || map.getOrDefault("null", -1) != null || map.find("two") != null
+        || map.getOrDefault("two", -1) != -1 || one.getValue() != 11) {
+      System.out.println("(1) Error in test24");
+      return false;
+    }
+
+    // (2) The MapADT defaults behave like the single lookup versions
+    MapADT<String, Integer> adapter = new MapADT<String, Integer>() {
+      public boolean put(String key, Integer value) {
+        return map.put(key, value);
+      }
+
+      public Integer get(String key) {
+        return map.get(key);
+      }
+
+      public int size() {
+        return map.size();
+      }
+
+      public boolean containsKey(String key) {
+        return map.containsKey(key);
+      }
+
+      public Integer remove(String key) {
+        return map.remove(key);
+      }
+
+      public void clear() {
+        map.clear();
+      }
+
+      public MapCursor<String, Integer> cursor() {
+        return map.cursor();
+      }
+    };
+    if (adapter.getOrDefault("one", -1) != 11 || adapter.getOrDefault("two", -1) != -1
+        || adapter.getOrDefault(null, -1) != -1 || adapter.find("one").getValue() != 11
+        || adapter.find("null").getValue() != null || adapter.find("two") != null) {
+      System.out.println("(2) Error in test24");
+      return false;
+    }
+
+    // (3) Lookups count as gets for the stats & as hits or misses for a cache
+    HashtableMap<String, Integer> recorded =
+        new HashtableMap.Builder<String, Integer>().recordStats(true).build();
+    recorded.put("a", 1);
+    recorded.getOrDefault("a", 0);
+    recorded.getOrDefault("b", 0);
+    recorded.find("b");
+    CachingHashtableMap<String, Integer> cache = new CachingHashtableMap<String, Integer>(10);
+    cache.put("a", 1);
+    cache.getOrDefault("a", 0);
+    cache.getOrDefault("b", 0);
+    cache.find("a");
+    if (recorded.stats().getGetCount() != 3 || cache.hitCount() != 2 || cache.missCount() != 1) {
+      System.out.println("(3) Error in test24");
+      return false;
+    }
+
+    // (4) An expired entry is missing & each lookup restarts the expire-after-access time to live
+    AtomicLong time = new AtomicLong(0);
+    ExpiringHashtableMap<String, Integer> expiring = new ExpiringHashtableMap.Builder<String,
+        Integer>().expireAfterAccess(1, TimeUnit.SECONDS).ticker(time::get).build();
+    expiring.put("a", 1);
+    expiring.put("b", 2);
+    for (int i = 0; i < 3; i++) {
+      time.addAndGet(TimeUnit.MILLISECONDS.toNanos(700));
+      if (expiring.getOrDefault("a", -1) != 1) {
+        System.out.println("(4) Error in test24");
+        return false;
+      }
+    }
+    if (expiring.find("b") != null || expiring.getOrDefault("b", -1) != -1
+        || expiring.find("a").getValue() != 1) {
+      System.out.println("(4) Error in test24");
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Tests freeze(), which copies a map into an immutable FrozenHashtableMap indexed by a minimal
+   * perfect hash
+   * 
+   * @return - true if all tests pass, false otherwise
+   */
+  public static boolean test25() {
+    // (1) Every pair is found, including null Values & keys of any hash, & nothing else is
+    for (HashtableMap<Integer, Integer> map : List.of(new HashtableMap<Integer, Integer>(16, true),
+        new HashtableMap<Integer, Integer>(11, false))) {
+      for (int i = 0; i < 50_000; i++) {
+        map.put(i * 31 - 700_000, i % 100 == 0 ? null : i);
+      }
+      FrozenHashtableMap<Integer, Integer> frozen = map.freeze();
+      if (frozen.size() != 50_000) {
+        System.out.println("(1) Error in test25");
+        return false;
+      }
+      for (int i = 0; i < 50_000; i++) {
+        Integer expected = i % 100 == 0 ? null : i;
+        if (!Objects.equals(frozen.get(i * 31 - 700_000), expected)
+            || !Objects.equals(frozen.find(i * 31 - 700_000).getValue(), expected)
+            || frozen.containsKey(i * 31 - 699_999) || frozen.find(i * 31 - 699_999) != null
+            || frozen.getOrDefault(i * 31 - 699_999, -1) != -1) {
+          System.out.println("(1) Error in test25");
+          return false;
+        }
+      }
+      if (frozen.containsKey(null) || frozen.getOrDefault(null, -1) != -1) {
+        System.out.println("(1) Error in test25");
+        return false;
+      }
+      try {
+        frozen.get(1);
+        System.out.println("(1) Error in test25");
+        return false;
+      } catch (NoSuchElementException e) {
+        // Expected
+      }
+    }
+
+    // (2) Keys sharing a whole hash are all found, & the map is a copy
+    HashtableMap<CollidingKey, Integer> colliding = new HashtableMap<CollidingKey, Integer>();
+    colliding.put(new CollidingKey(-1), -1);
+    colliding.put(new SortedCollidingKey(-2), -2);
+    for (int i = 0; i < 20; i++) {
+      colliding.put(new CollidingKey(i), i);
+    }
+    for (int i = 0; i < 1000; i++) {
+      colliding.put(new CollidingKey(i) {
+        @Override
+        public int hashCode() {
+          return id;
+        }
+      }, i);
+    }
+    FrozenHashtableMap<CollidingKey, Integer> frozenColliding = colliding.freeze();
+    colliding.clear();
+    if (frozenColliding.size() != 1022 || frozenColliding.get(new CollidingKey(-1)) != -1
+        || frozenColliding.get(new SortedCollidingKey(-2)) != -2
+        || frozenColliding.containsKey(new CollidingKey(20))
+        || frozenColliding.containsKey(new CollidingKey(-2))) {
+      System.out.println("(2) Error in test25");
+      return false;
+    }
+    for (int i = 0; i < 20; i++) {
+      if (frozenColliding.get(new CollidingKey(i)) != i) {
+        System.out.println("(2) Error in test25");
+        return false;
+      }
+    }
+
+    // (3) An empty map freezes, & every mutator throws
+    FrozenHashtableMap<String, Integer> empty = new HashtableMap<String, Integer>().freeze();
+    if (empty.size() != 0 || empty.containsKey("a") || empty.find("a") != null
+        || empty.cursor().advance()) {
+      System.out.println("(3) Error in test25");
+      return false;
+    }
+    List<Runnable> mutators = List.of(() -> empty.put("a", 1), () -> empty.remove("a"),
+        () -> empty.clear(), () -> empty.putAll(new String[] {"a"}, new Integer[] {1}),
+        () -> empty.removeAll(new String[] {"a"}));
+    for (Runnable mutator : mutators) {
+      try {
+        mutator.run();
+        System.out.println("(3) Error in test25");
+        return false;
+      } catch (UnsupportedOperationException e) {
+        // Expected
+      }
+    }
+
+    // (4) The cursor & iterators walk every pair once
+    HashtableMap<String, Integer> map = new HashtableMap<String, Integer>();
+    for (int i = 0; i < 1000; i++) {
+      map.put("key" + i, i);
+    }
+    FrozenHashtableMap<String, Integer> frozen = map.freeze();
+    boolean[] seen = new boolean[1000];
+    MapCursor<String, Integer> cursor = frozen.cursor();
+    int walked = 0;
+    while (cursor.advance()) {
+      int value = cursor.getValue();
+      if (seen[value] || !cursor.getKey().equals("key" + value)) {
+        System.out.println("(4) Error in test25");
+        return false;
+      }
+      seen[value] = true;
+      walked++;
+    }
+    Iterator<String> keys = frozen.keyIterator();
+    while (keys.hasNext()) {
+      keys.next();
+      walked++;
+    }
+    if (walked != 2000 || cursor.advance()) {
+      System.out.println("(4) Error in test25");
+      return false;
+    }
+
+    // (5) Readers on several threads see every pair with no locking
+    boolean[] failed = new boolean[1];
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int round = 0; round < 20; round++) {
+          for (int i = 0; i < 1000; i++) {
+            if (frozen.get("key" + i) != i || frozen.containsKey("key" + (i + 1000))) {
+              failed[0] = true;
+            }
+          }
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+    if (failed[0]) {
+      System.out.println("(5) Error in test25");
+      return false;
+    }
+
+    // (6) Freezing a cache copies its entries without counting hits, & freezing an expiring map
+    // drops the expired entries & never expires the rest
+    CachingHashtableMap<String, Integer> cache = new CachingHashtableMap<String, Integer>(10);
+    for (int i = 0; i < 20; i++) {
+      cache.put("key" + i, i);
+    }
+    FrozenHashtableMap<String, Integer> frozenCache = cache.freeze();
+    if (frozenCache.size() != 10 || !frozenCache.containsKey("key19")
+        || frozenCache.containsKey("key0") || cache.hitCount() != 0) {
+      System.out.println("(6) Error in test25");
+      return false;
+    }
+    AtomicLong time = new AtomicLong(0);
+    ExpiringHashtableMap<String, Integer> expiring = new ExpiringHashtableMap.Builder<String,
+        Integer>().expireAfterWrite(1, TimeUnit.SECONDS).ticker(time::get).build();
+    expiring.put("a", 1);
+    time.addAndGet(TimeUnit.MILLISECONDS.toNanos(700));
+    expiring.put("b", 2);
+    time.addAndGet(TimeUnit.MILLISECONDS.toNanos(700));
+    FrozenHashtableMap<String, Integer> frozenExpiring = expiring.freeze();
+    time.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    if (frozenExpiring.size() != 1 || frozenExpiring.containsKey("a")
+        || frozenExpiring.get("b") != 2) {
+      System.out.println("(6) Error in test25");
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Tests the StringHashtableMap, which stores its keys as UTF-8 bytes in one arena & looks them
+   * up from Strings, other CharSequences or slices of a byte[]
+   * 
+   * @return - true if all tests pass, false otherwise
+   */
+  public static boolean test26() {
+    // (1) It behaves like any other MapADT
+    if (!checkMapContract(new StringHashtableMap<Integer>(5), "test26")) {
+      return false;
+    }
+
+    // (2) Keys of any script & length are found from a String, a StringBuilder or a slice of
+    // their UTF-8 bytes, & the cursor decodes them back
+    StringHashtableMap<Integer> map = new StringHashtableMap<Integer>(4);
+    String[] keys = {"", "caf\u00E9", "\u65E5\u672C\u8A9E", "\uD83D\uDE00 emoji", "\u00FF",
+        "\u0100", "long ".repeat(4000), "plain"};
+    for (int i = 0; i < keys.length; i++) {
+      map.put(keys[i], i);
+    }
+    for (int i = 0; i < keys.length; i++) {
+      byte[] utf8 = keys[i].getBytes(StandardCharsets.UTF_8);
+      byte[] buffer = new byte[utf8.length + 10];
+      System.arraycopy(utf8, 0, buffer, 3, utf8.length);
+      if (map.get(keys[i]) != i || map.getOrDefault(new StringBuilder(keys[i]), -1) != i
+          || map.getOrDefault(buffer, 3, utf8.length, -1) != i
+          || !map.containsKey(buffer, 3, utf8.length)
+          || map.containsKey(buffer, 2, utf8.length + 1)) {
+        System.out.println("(2) Error in test26");
+        return false;
+      }
+    }
+    // The Latin-1 bytes of "\u00C4\u0080" are the UTF-8 bytes of "\u0100", yet they are
+    // different keys
+    if (map.containsKey("\u00C4\u0080") || map.containsKey(new StringBuilder("caf"))) {
+      System.out.println("(2) Error in test26");
+      return false;
+    }
+    HashtableMap<String, Integer> seen = new HashtableMap<String, Integer>();
+    MapCursor<String, Integer> cursor = map.cursor();
+    while (cursor.advance()) {
+      seen.put(cursor.getKey(), cursor.getValue());
+    }
+    for (int i = 0; i < keys.length; i++) {
+      if (seen.getOrDefault(keys[i], -1) != i) {
+        System.out.println("(2) Error in test26");
+        return false;
+      }
+    }
+
+    // (3) A lone surrogate is stored as '?', like String.getBytes() does
+    if (!map.put("a\uD800", 10) || map.put("a?", 11) || map.get("a?") != 10) {
+      System.out.println("(3) Error in test26");
+      return false;
+    }
+
+    // (4) Removed keys are compacted away & the stored ones are still found
+    StringHashtableMap<Integer> compacted = new StringHashtableMap<Integer>();
+    for (int i = 0; i < 10_000; i++) {
+      compacted.put("session:" + i, i);
+    }
+    int fullArena = compacted.arenaSize();
+    for (int i = 0; i < 10_000; i++) {
+      if (i % 10 != 0 && compacted.remove("session:" + i) != i) {
+        System.out.println("(4) Error in test26");
+        return false;
+      }
+    }
+    if (compacted.arenaSize() > fullArena / 2 || compacted.size() != 1000) {
+      System.out.println("(4) Error in test26");
+      return false;
+    }
+    for (int i = 0; i < 10_000; i++) {
+      if (compacted.containsKey("session:" + i) != (i % 10 == 0)
+          || (i % 10 == 0 && compacted.get("session:" + i) != i)) {
+        System.out.println("(4) Error in test26");
+        return false;
+      }
+    }
+    compacted.clear();
+    if (compacted.arenaSize() != 0 || !compacted.put("session:1", 1)
+        || compacted.get("session:1") != 1) {
+      System.out.println("(4) Error in test26");
+      return false;
+    }
+
+    // (5) Slices outside of the array are rejected & cursors fail fast
+    try {
+      map.containsKey(new byte[4], 2, 3);
+      System.out.println("(5) Error in test26");
+      return false;
+    } catch (IndexOutOfBoundsException e) {
+      // Expected
+    }
+    cursor = map.cursor();
+    cursor.advance();
+    map.remove("plain");
+    try {
+      cursor.advance();
+      System.out.println("(5) Error in test26");
+      return false;
+    } catch (ConcurrentModificationException e) {
+      // Expected
+    }
+
+    // (6) Readers on several threads see every pair, lookups of keys of any script & length
+    // never share a buffer
+    StringHashtableMap<Integer> shared = new StringHashtableMap<Integer>();
+    for (int i = 0; i < 1000; i++) {
+      shared.put((i % 2 == 0 ? "key" : "cl\u00E9 ") + i + "-".repeat(i % 7), i);
+    }
+    boolean[] failed = new boolean[1];
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int round = 0; round < 20; round++) {
+          for (int i = 0; i < 1000; i++) {
+            String key = (i % 2 == 0 ? "key" : "cl\u00E9 ") + i + "-".repeat(i % 7);
+            if (shared.getOrDefault(key, -1) != i || shared.containsKey(key + "-".repeat(7))) {
+              failed[0] = true;
+            }
+          }
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+    if (failed[0]) {
+      System.out.println("(6) Error in test26");
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Tests the negative lookup filter, which answers most lookups of absent keys without walking
+   * a bucket & has to keep answering true for every stored key
+   * 
+   * @return - true if all tests pass, false otherwise
+   */
+  public static boolean test27() {
+    // (1) Filtered maps still behave like any other MapADT, in every resize mode
+    for (boolean powerOfTwo : new boolean[] {false, true}) {
+      for (boolean incremental : new boolean[] {false, true}) {
+        if (!checkMapContract(new HashtableMap.Builder<String, Integer>().capacity(5)
+            .powerOfTwoCapacity(powerOfTwo).incrementalResize(incremental)
+            .negativeLookupFilter(true).build(), "test27")) {
+          return false;
+        }
+      }
+    }
+
+    // (2) Every stored key is found, even mid incremental resize, & few absent keys get through
+    HashtableMap<Integer, Integer> map = new HashtableMap.Builder<Integer, Integer>()
+        .incrementalResize(true).negativeLookupFilter(true).build();
+    for (int i = 0; i < 20_000; i++) {
+      map.put(i, i);
+      if (!map.containsKey(i / 2) || map.containsKey(-i - 1)) {
+        System.out.println("(2) Error in test27");
+        return false;
+      }
+    }
+    // Each put() of a new key & each containsKey() of a negative one is a miss
+    if (map.filteredMissCount() + map.filterFalsePositiveCount() != 40_000
+        || map.filterFalsePositiveRate() > 0.05) {
+      System.out.println("(2) Error in test27");
+      return false;
+    }
+
+    // (3) Removed keys are rebuilt out of the filter, so constant churn keeps the rate low
+    HashtableMap<Integer, Integer> churned = new HashtableMap.Builder<Integer, Integer>()
+        .powerOfTwoCapacity(true).negativeLookupFilter(true).build();
+    for (int i = 0; i < 200_000; i++) {
+      churned.put(i, i);
+      if (i >= 1000 && churned.remove(i - 1000) != i - 1000) {
+        System.out.println("(3) Error in test27");
+        return false;
+      }
+    }
+    long filtered = churned.filteredMissCount();
+    long falsePositives = churned.filterFalsePositiveCount();
+    for (int i = 0; i < 200_000; i++) {
+      if (churned.containsKey(i) != (i >= 199_000)) {
+        System.out.println("(3) Error in test27");
+        return false;
+      }
+    }
+    if ((double) (churned.filterFalsePositiveCount() - falsePositives)
+        / (churned.filteredMissCount() - filtered + churned.filterFalsePositiveCount()
+            - falsePositives) > 0.05) {
+      System.out.println("(3) Error in test27");
+      return false;
+    }
+
+    // (4) Colliding keys, batches, shrinking & clear() keep the filter in step with the map
+    HashtableMap<CollidingKey, Integer> colliding = new HashtableMap.Builder<CollidingKey,
+        Integer>().shrinkThreshold(0.2).negativeLookupFilter(true).build();
+    CollidingKey[] keys = new CollidingKey[100];
+    Integer[] values = new Integer[100];
+    for (int i = 0; i < 100; i++) {
+      keys[i] = new SortedCollidingKey(i);
+      values[i] = i;
+    }
+    colliding.putAll(keys, values);
+    colliding.removeAll(Arrays.copyOf(keys, 90));
+    if (colliding.size() != 10 || colliding.getOrDefault(new SortedCollidingKey(95), -1) != 95
+        || colliding.containsKey(new SortedCollidingKey(5))) {
+      System.out.println("(4) Error in test27");
+      return false;
+    }
+    colliding.clear();
+    if (colliding.containsKey(new SortedCollidingKey(95)) || !colliding.put(keys[0], 0)
+        || colliding.get(new SortedCollidingKey(0)) != 0) {
+      System.out.println("(4) Error in test27");
+      return false;
+    }
+
+    // (5) The counters need the filter
+    try {
+      new HashtableMap<String, Integer>().filterFalsePositiveRate();
+      System.out.println("(5) Error in test27");
+      return false;
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+
+    return true;
+  }
+
   public static void main(String[] args) {
     System.out.println("Test1 Passed All Tests: " + test1());
     System.out.println("Test2 Passed All Tests: " + test2());
     System.out.println("Test3 Passed All Tests: " + test3());
     System.out.println("Test4 Passed All Tests: " + test4());
     System.out.println("Test5 Passed All Tests: " + test5());
+    System.out.println("Test6 Passed All Tests: " + test6());
+    System.out.println("Test7 Passed All Tests: " + test7());
+    System.out.println("Test8 Passed All Tests: " + test8());
+    System.out.println("Test9 Passed All Tests: " + test9());
+    System.out.println("Test10 Passed All Tests: " + test10());
+    System.out.println("Test11 Passed All Tests: " + test11());
+    System.out.println("Test12 Passed All Tests: " + test12());
+    System.out.println("Test13 Passed All Tests: " + test13());
+    System.out.println("Test14 Passed All Tests: " + test14());
+    System.out.println("Test15 Passed All Tests: " + test15());
+    System.out.println("Test16 Passed All Tests: " + test16());
+    System.out.println("Test17 Passed All Tests: " + test17());
+    System.out.println("Test18 Passed All Tests: " + test18());
+    System.out.println("Test19 Passed All Tests: " + test19());
+    System.out.println("Test20 Passed All Tests: " + test20());
+    System.out.println("Test21 Passed All Tests: " + test21());
+    System.out.println("Test22 Passed All Tests: " + test22());
+    System.out.println("Test23 Passed All Tests: " + test23());
+    System.out.println("Test24 Passed All Tests: " + test24());
+    System.out.println("Test25 Passed All Tests: " + test25());
+    System.out.println("Test26 Passed All Tests: " + test26());
+    System.out.println("Test27 Passed All Tests: " + test27());
   }
 
 }
@@ -0,0 +1,254 @@
+import java.util.Arrays;
+
+/**
+ * Hashtable implementation specialized for long Keys. Keys are stored in a flat long array &
+ * Values in a parallel Object array with linear probing, so no Key is ever boxed & put(), get(),
+ * containsKey() & remove() allocate nothing. A missing Key is reported by returning null instead
+ * of throwing an exception
+ *
+ * @param <ValueType> - ObjectType of the Values
+ */
+public class LongObjectHashtableMap<ValueType> {
+
+  // Key marking an empty slot, the Key 0 itself is stored outside of the arrays
+  private static final long FREE_KEY = 0L;
+  // Largest power of two capacity
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  // Capacity of the HashTable, always a power of two
+  private int capacity;
+  // Will double capacity & rehash whenever load factor is >= 0.8
+  private double LOAD_FACTOR_THRESHOLD = 0.8;
+  // Keys of the HashTable, FREE_KEY marks an empty slot
+  private long[] keys;
+  // Values of the HashTable, stored at the same index as their key
+  private Object[] values;
+  // Number of Key/Value pairs currently stored in the Hashtable
+  private int size;
+  // Whether the Key 0 is stored & its value
+  private boolean hasZeroKey;
+  private ValueType zeroValue;
+
+  /**
+   * Constructor method for LongObjectHashtableMap
+   *
+   * @param capacity - Original Capacity of Hashtable, rounded up to a power of two
+   */
+  public LongObjectHashtableMap(int capacity) {
+    // At least 2 slots, so the load factor check always leaves an empty slot to stop probes
+    this.capacity = HashtableMap.roundUpToPowerOfTwo(Math.max(capacity, 2));
+    this.keys = new long[this.capacity];
+    this.values = new Object[this.capacity];
+  }
+
+  /**
+   * Default constructor method for the LongObjectHashtableMap with a default capacity of 32
+   */
+  public LongObjectHashtableMap() {
+    this(32);
+  }
+
+  /**
+   * Getter method for the capacity of hashtable
+   *
+   * @return - Capacity of Hashtable
+   */
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  /**
+   * Calculates the home slot of a key by folding its high bits into the low ones & spreading
+   *
+   * @param key - key to place
+   * @param mask - capacity - 1
+   * @return - index of the key's home slot
+   */
+  private static int homeSlot(long key, int mask) {
+    return HashtableMap.spread((int) (key ^ (key >>> 32))) & mask;
+  }
+
+  /**
+   * Finds the slot containing the Key, which must not be FREE_KEY
+   *
+   * @param key - key to search for
+   * @return - index of the slot containing the key, or -1 if the key is not in HashTable
+   */
+  private int findSlot(long key) {
+    int mask = capacity - 1;
+    for (int slot = homeSlot(key, mask);; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return slot;
+      }
+      if (keys[slot] == FREE_KEY) {
+        return -1;
+      }
+    }
+  }
+
+  /**
+   * Stores the Key/Value pair into the HashTable
+   *
+   * @param key - key to store
+   * @param value - value to store
+   * @return - true if the pair was stored, false if the key was already in HashTable
+   * @throws IllegalStateException - if the HashTable is full at its largest capacity
+   */
+  public boolean put(long key, ValueType value) {
+    if (key == FREE_KEY) {
+      if (hasZeroKey) {
+        return false;
+      }
+      hasZeroKey = true;
+      zeroValue = value;
+      size++;
+      return true;
+    }
+
+    // Probes from the key's home slot until the key or an empty slot is found
+    int mask = capacity - 1;
+    int slot = homeSlot(key, mask);
+    while (keys[slot] != FREE_KEY) {
+      if (keys[slot] == key) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    // At the largest capacity the HashTable fills up, but keeps one empty slot to stop probes
+    if (capacity == MAXIMUM_CAPACITY && size - (hasZeroKey ? 1 : 0) >= capacity - 1) {
+      throw new IllegalStateException("Hashtable is full!");
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    size++;
+
+    // If the ratio of the numOfPairs / capacity is greater than 0.8, rehash & resize
+    double currentThreshold = (double) size / capacity;
+    if (Double.compare(LOAD_FACTOR_THRESHOLD, currentThreshold) <= 0
+        && capacity < MAXIMUM_CAPACITY) {
+      capacityAdjustment(capacity * 2);
+    }
+
+    return true;
+  }
+
+  /**
+   * Rehashing function once the LOAD_FACTOR_THRESHOLD is reached
+   *
+   * @param newCapacity - capacity of the new HashTable
+   */
+  private void capacityAdjustment(int newCapacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+
+    capacity = newCapacity;
+    keys = new long[newCapacity];
+    values = new Object[newCapacity];
+
+    // Goes through the old HashTable, placing every entry into the first empty slot of the new one
+    int mask = newCapacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != FREE_KEY) {
+        int slot = homeSlot(oldKeys[i], mask);
+        while (keys[slot] != FREE_KEY) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Gets the Value associated with the Key
+   *
+   * @param key - key to search for
+   * @return - value of the key, or null if the key is not in HashTable
+   */
+  @SuppressWarnings("unchecked")
+  public ValueType get(long key) {
+    if (key == FREE_KEY) {
+      return hasZeroKey ? zeroValue : null;
+    }
+    int slot = findSlot(key);
+    return slot == -1 ? null : (ValueType) values[slot];
+  }
+
+  /**
+   * Gets the number of Key/Value pairs stored within the HashTable
+   *
+   * @return - # of Key/Value pairs
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Checks if the HashTable contains the Key. Needed to tell a missing Key from a null Value
+   *
+   * @param key - key to search for
+   * @return - true if the key is in HashTable, false otherwise
+   */
+  public boolean containsKey(long key) {
+    if (key == FREE_KEY) {
+      return hasZeroKey;
+    }
+    return findSlot(key) != -1;
+  }
+
+  /**
+   * Removes the Key within the HashTable. The entries following it are shifted back into the gap
+   * whenever their home slot allows it, so no tombstones are left behind
+   *
+   * @param key - key to remove
+   * @return - value of the removed key, or null if the key is not in HashTable
+   */
+  @SuppressWarnings("unchecked")
+  public ValueType remove(long key) {
+    if (key == FREE_KEY) {
+      if (!hasZeroKey) {
+        return null;
+      }
+      ValueType value = zeroValue;
+      hasZeroKey = false;
+      zeroValue = null;
+      size--;
+      return value;
+    }
+
+    int gap = findSlot(key);
+    if (gap == -1) {
+      return null;
+    }
+    ValueType value = (ValueType) values[gap];
+
+    // Moves back every following entry that would still be reachable from its home slot
+    int mask = capacity - 1;
+    for (int slot = (gap + 1) & mask; keys[slot] != FREE_KEY; slot = (slot + 1) & mask) {
+      int home = homeSlot(keys[slot], mask);
+      if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+        keys[gap] = keys[slot];
+        values[gap] = values[slot];
+        gap = slot;
+      }
+    }
+    keys[gap] = FREE_KEY;
+    values[gap] = null;
+    size--;
+
+    return value;
+  }
+
+  /**
+   * Removes all key-value pairs from the collection without changing underlying array capacity
+   */
+  public void clear() {
+    Arrays.fill(keys, FREE_KEY);
+    Arrays.fill(values, null);
+    hasZeroKey = false;
+    zeroValue = null;
+    size = 0;
+  }
+
+}
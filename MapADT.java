@@ -1,4 +1,6 @@
+import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
 
 /**
  * Interface used for abstraction of the HashtableMap
@@ -14,5 +16,155 @@ public interface MapADT<KeyType, ValueType> {
     public boolean containsKey(KeyType key);
     public ValueType remove(KeyType key);
     public void clear();
+
+    /**
+     * Gets the Value of a Key without throwing on a miss. Implementations override it to find the
+     * Key once, this default looks it up twice
+     * 
+     * @param key - key to look up
+     * @param defaultValue - Value returned if the Key is missing, such as a sentinel
+     * @return - Value of the Key, or defaultValue if the Key is missing or null
+     */
+    public default ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+        return key != null && containsKey(key) ? get(key) : defaultValue;
+    }
+
+    /**
+     * Finds the pair of a Key without throwing on a miss, telling a missing Key apart from one
+     * stored with a null Value. Implementations that do not store Nodes return a new Node holding
+     * the pair
+     * 
+     * @param key - key to look up
+     * @return - Node holding the Key & its Value, or null if the Key is missing or null
+     */
+    public default Node<KeyType, ValueType> find(KeyType key) {
+        return key != null && containsKey(key) ? new Node<KeyType, ValueType>(key, get(key)) : null;
+    }
+
+    /**
+     * Stores each Key/Value pair of the batch, as put() would
+     * 
+     * @param keys - Keys to store
+     * @param values - Values to store, values[i] is stored with keys[i]
+     * @return - # of pairs stored, null & duplicate Keys are skipped
+     * @throws IllegalArgumentException - if the arrays differ in length
+     */
+    public default int putAll(KeyType[] keys, ValueType[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Keys & values differ in length!");
+        }
+        int stored = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (put(keys[i], values[i])) {
+                stored++;
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Gets the Value of each Key of the batch without throwing for missing Keys
+     * 
+     * @param keys - Keys to look up
+     * @param values - output array, values[i] is set to the Value of keys[i], or null if missing
+     * @return - # of Keys found
+     * @throws IllegalArgumentException - if the output array is shorter than the Keys
+     */
+    public default int getAll(KeyType[] keys, ValueType[] values) {
+        if (values.length < keys.length) {
+            throw new IllegalArgumentException("Output array is too short!");
+        }
+        int found = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null && containsKey(keys[i])) {
+                values[i] = get(keys[i]);
+                found++;
+            } else {
+                values[i] = null;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Removes each Key of the batch, as remove() would
+     * 
+     * @param keys - Keys to remove
+     * @return - # of Keys removed
+     */
+    public default int removeAll(KeyType[] keys) {
+        int removed = 0;
+        for (KeyType key : keys) {
+            if (key != null && containsKey(key)) {
+                remove(key);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Creates a cursor in front of the first Key/Value pair. Cursors fail fast with a
+     * ConcurrentModificationException if the map is modified while they walk it, unless the
+     * implementation documents otherwise
+     * 
+     * @return - new cursor over every pair
+     */
+    public MapCursor<KeyType, ValueType> cursor();
+
+    /**
+     * Performs the action on every Key/Value pair with a single cursor
+     * 
+     * @param action - action performed on each Key & its Value
+     */
+    public default void forEach(BiConsumer<? super KeyType, ? super ValueType> action) {
+        MapCursor<KeyType, ValueType> cursor = cursor();
+        while (cursor.advance()) {
+            action.accept(cursor.getKey(), cursor.getValue());
+        }
+    }
+
+    /**
+     * Creates an iterator over every Key
+     * 
+     * @return - iterator over the Keys
+     */
+    public default Iterator<KeyType> keyIterator() {
+        return new CursorIterator<KeyType, ValueType, KeyType>(cursor()) {
+            @Override
+            protected KeyType current() {
+                return cursor.getKey();
+            }
+        };
+    }
+
+    /**
+     * Creates an iterator over every Value
+     * 
+     * @return - iterator over the Values
+     */
+    public default Iterator<ValueType> valueIterator() {
+        return new CursorIterator<KeyType, ValueType, ValueType>(cursor()) {
+            @Override
+            protected ValueType current() {
+                return cursor.getValue();
+            }
+        };
+    }
+
+    /**
+     * Creates an iterator over every Key/Value pair. Implementations that do not store Nodes
+     * return a new Node holding each pair
+     * 
+     * @return - iterator over the pairs
+     */
+    public default Iterator<Node<KeyType, ValueType>> entryIterator() {
+        return new CursorIterator<KeyType, ValueType, Node<KeyType, ValueType>>(cursor()) {
+            @Override
+            protected Node<KeyType, ValueType> current() {
+                return new Node<KeyType, ValueType>(cursor.getKey(), cursor.getValue());
+            }
+        };
+    }
     
-}
\ No newline at end of file
+}
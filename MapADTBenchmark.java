@@ -0,0 +1,405 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Benchmark harness comparing every MapADT implementation against java.util.HashMap over a
+ * matrix of operations, sizes, key types & table occupancies. The JMH benchmarks of
+ * src/jmh/java (gradle jmh) measure the same matrix in forked VMs & are the numbers to trust.
+ * This harness is the fallback that runs with nothing but javac: each cell runs warm up
+ * iterations before its measured ones, folds every result into a volatile field & reports both
+ * time & bytes allocated per operation, read from the thread allocation counter
+ *
+ * <p>
+ * Every dimension can be narrowed from the command line, e.g.
+ * {@code java MapADTBenchmark map=HashtableMap,HashMap op=get-hit size=1000,1000000 key=String}
+ * <ul>
+ * <li>map: HashtableMap, PowerOfTwoHashtableMap, IncrementalHashtableMap, RobinHoodHashtableMap,
+ * ConcurrentHashtableMap, HashMap</li>
+ * <li>op: put, get-hit, get-miss, getOrDefault-miss, get-mixed, getOrDefault-mixed,
+ * containsKey, remove, clear. The mixed operations miss 30% of their lookups, get-mixed catching
+ * the NoSuchElementException of each miss</li>
+ * <li>size: any # of entries, 100 to 10000000 by default</li>
+ * <li>key: Integer, String, Composite</li>
+ * <li>load: occupancy of the table while measuring, 0.5, 0.75 & 0.9 by default</li>
+ * </ul>
+ */
+public class MapADTBenchmark {
+  // Warm up & measured iterations run for each cell of the matrix
+  private static final int WARMUP_ITERATIONS = 3;
+  private static final int MEASURED_ITERATIONS = 5;
+  // Small maps repeat their operations until at least this many are timed per iteration
+  private static final int MINIMUM_OPERATIONS = 1_000_000;
+
+  // Every operation's result is folded into this field, so none can be optimized away
+  private static volatile long sink;
+
+  /**
+   * Creates an empty map able to hold a # of entries at the requested occupancy without resizing
+   */
+  interface MapFactory {
+    MapADT<Object, Integer> create(int capacity);
+  }
+
+  /**
+   * Creates the i-th key of a key type
+   */
+  interface KeyFactory {
+    Object create(int i);
+  }
+
+  /**
+   * Key with an expensive hashCode() & equals(), standing in for multi-field business keys. The
+   * hash is recomputed on every call, like most hand written composite keys
+   */
+  static final class CompositeKey {
+    private final String tenant;
+    private final long id;
+    private final int[] path;
+
+    CompositeKey(String tenant, long id, int[] path) {
+      this.tenant = tenant;
+      this.id = id;
+      this.path = path;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * tenant.hashCode() + Long.hashCode(id)) + Arrays.hashCode(path);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof CompositeKey)) {
+        return false;
+      }
+      CompositeKey key = (CompositeKey) other;
+      return id == key.id && tenant.equals(key.tenant) && Arrays.equals(path, key.path);
+    }
+  }
+
+  /**
+   * MapADT adapter over java.util.HashMap, used as the baseline. It follows the MapADT contract,
+   * so put() rejects duplicates & get() throws on a missing key
+   */
+  private static final class HashMapAdapter<KeyType, ValueType>
+      implements MapADT<KeyType, ValueType> {
+    private final HashMap<KeyType, ValueType> map;
+
+    HashMapAdapter(int capacity) {
+      this.map = new HashMap<KeyType, ValueType>(capacity);
+    }
+
+    public boolean put(KeyType key, ValueType value) {
+      return key != null && map.putIfAbsent(key, value) == null;
+    }
+
+    public ValueType get(KeyType key) {
+      ValueType value = map.get(key);
+      if (value == null) {
+        throw new NoSuchElementException("Does not contain this key!");
+      }
+      return value;
+    }
+
+    public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+      return map.getOrDefault(key, defaultValue);
+    }
+
+    public int size() {
+      return map.size();
+    }
+
+    public boolean containsKey(KeyType key) {
+      return map.containsKey(key);
+    }
+
+    public ValueType remove(KeyType key) {
+      return map.remove(key);
+    }
+
+    public void clear() {
+      map.clear();
+    }
+
+    public MapCursor<KeyType, ValueType> cursor() {
+      return new MapCursor<KeyType, ValueType>() {
+        private Iterator<Map.Entry<KeyType, ValueType>> iterator = map.entrySet().iterator();
+        private Map.Entry<KeyType, ValueType> entry;
+
+        public boolean advance() {
+          entry = iterator.hasNext() ? iterator.next() : null;
+          return entry != null;
+        }
+
+        public KeyType getKey() {
+          return entry.getKey();
+        }
+
+        public ValueType getValue() {
+          return entry.getValue();
+        }
+
+        public void reset() {
+          iterator = map.entrySet().iterator();
+          entry = null;
+        }
+      };
+    }
+  }
+
+  /**
+   * Gets the factory for a map name
+   *
+   * @param name - name of the implementation
+   * @return - factory creating that implementation
+   */
+  static MapFactory mapFactory(String name) {
+    switch (name) {
+      case "HashtableMap":
+        return capacity -> new HashtableMap<Object, Integer>(capacity);
+      case "PowerOfTwoHashtableMap":
+        return capacity -> new HashtableMap<Object, Integer>(capacity, true);
+      case "IncrementalHashtableMap":
+        return capacity -> new HashtableMap<Object, Integer>(capacity, true, true);
+      case "RobinHoodHashtableMap":
+        return capacity -> new RobinHoodHashtableMap<Object, Integer>(capacity);
+      case "ConcurrentHashtableMap":
+        return capacity -> new ConcurrentHashtableMap<Object, Integer>(capacity, 16);
+      case "HashMap":
+        return capacity -> new HashMapAdapter<Object, Integer>(capacity);
+      default:
+        throw new IllegalArgumentException("Unknown map: " + name);
+    }
+  }
+
+  /**
+   * Gets the factory for a key type name
+   *
+   * @param name - name of the key type
+   * @return - factory creating keys of that type
+   */
+  static KeyFactory keyFactory(String name) {
+    switch (name) {
+      case "Integer":
+        return i -> Integer.valueOf(i);
+      case "String":
+        return i -> "key-" + i;
+      case "Composite":
+        return i -> new CompositeKey("tenant-" + (i % 97), i, new int[] {i % 7, i % 11, i});
+      default:
+        throw new IllegalArgumentException("Unknown key type: " + name);
+    }
+  }
+
+  /**
+   * Creates the keys of a cell in a scrambled order, so consecutive operations touch unrelated
+   * buckets
+   *
+   * @param keys - factory of the key type
+   * @param size - # of keys
+   * @param first - index of the first key, 0 for the stored keys & size for the missing ones
+   * @return - keys first to first + size - 1, scrambled
+   */
+  static Object[] scrambledKeys(KeyFactory keys, int size, int first) {
+    Object[] scrambled = new Object[size];
+    for (int i = 0; i < size; i++) {
+      scrambled[i] = keys.create(first + (int) ((i * 0x9E3779B1L) % size));
+    }
+    return scrambled;
+  }
+
+  /**
+   * Gets the capacity that holds a # of entries at an occupancy
+   *
+   * @param size - # of entries
+   * @param load - occupancy of the table
+   * @return - capacity to create the map with
+   */
+  static int capacity(int size, double load) {
+    return (int) Math.min(Integer.MAX_VALUE / 2, Math.ceil(size / load));
+  }
+
+  /**
+   * Runs one operation over every key & returns the # of operations performed
+   *
+   * @param op - name of the operation
+   * @param map - map to run against, filled with the hits unless the operation is put
+   * @param hits - keys stored in the map
+   * @param misses - keys not stored in the map
+   * @return - # of operations performed
+   */
+  private static int runOperation(String op, MapADT<Object, Integer> map, Object[] hits,
+      Object[] misses) {
+    long result = 0;
+    switch (op) {
+      case "put":
+        for (int i = 0; i < hits.length; i++) {
+          result += map.put(hits[i], i) ? 1 : 0;
+        }
+        break;
+      case "get-hit":
+        for (Object key : hits) {
+          result += map.get(key);
+        }
+        break;
+      case "get-miss":
+        for (Object key : misses) {
+          try {
+            result += map.get(key);
+          } catch (NoSuchElementException e) {
+            result++;
+          }
+        }
+        break;
+      case "getOrDefault-miss":
+        for (Object key : misses) {
+          result += map.getOrDefault(key, -1);
+        }
+        break;
+      case "get-mixed":
+        for (int i = 0; i < hits.length; i++) {
+          try {
+            result += map.get(i % 10 < 3 ? misses[i] : hits[i]);
+          } catch (NoSuchElementException e) {
+            result++;
+          }
+        }
+        break;
+      case "getOrDefault-mixed":
+        for (int i = 0; i < hits.length; i++) {
+          result += map.getOrDefault(i % 10 < 3 ? misses[i] : hits[i], -1);
+        }
+        break;
+      case "containsKey":
+        // Alternates hits & misses
+        for (int i = 0; i < hits.length; i++) {
+          result += map.containsKey((i & 1) == 0 ? hits[i] : misses[i]) ? 1 : 0;
+        }
+        break;
+      case "remove":
+        for (Object key : hits) {
+          result += map.remove(key);
+        }
+        break;
+      case "clear":
+        map.clear();
+        result += map.size();
+        sink += result;
+        return 1;
+      default:
+        throw new IllegalArgumentException("Unknown operation: " + op);
+    }
+    sink += result;
+    return hits.length;
+  }
+
+  /**
+   * Measures one cell of the matrix & prints its row
+   *
+   * @param mapName - name of the implementation
+   * @param keyName - name of the key type
+   * @param size - # of entries
+   * @param load - occupancy of the table while measuring
+   * @param op - name of the operation
+   */
+  private static void runCell(String mapName, String keyName, int size, double load, String op) {
+    MapFactory maps = mapFactory(mapName);
+    KeyFactory keys = keyFactory(keyName);
+    int capacity = capacity(size, load);
+    Object[] hits = scrambledKeys(keys, size, 0);
+    Object[] misses = scrambledKeys(keys, size, size);
+
+    // Put, remove & clear change the map, so each repetition gets a fresh one
+    boolean mutates = op.equals("put") || op.equals("remove") || op.equals("clear");
+    int repetitions = Math.max(1, MINIMUM_OPERATIONS / size);
+    List<MapADT<Object, Integer>> prepared = new ArrayList<MapADT<Object, Integer>>();
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+
+    double bestNanos = Double.MAX_VALUE;
+    double totalNanos = 0;
+    double totalBytes = 0;
+    for (int iteration = 0; iteration < WARMUP_ITERATIONS + MEASURED_ITERATIONS; iteration++) {
+      // Builds the maps for this iteration outside of the timed section
+      prepared.clear();
+      for (int r = 0; r < (mutates ? repetitions : 1); r++) {
+        MapADT<Object, Integer> map = maps.create(capacity);
+        if (!op.equals("put")) {
+          for (int i = 0; i < size; i++) {
+            map.put(hits[i], i);
+          }
+        }
+        prepared.add(map);
+      }
+
+      long operations = 0;
+      long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+      long start = System.nanoTime();
+      for (int r = 0; r < repetitions; r++) {
+        operations += runOperation(op, prepared.get(mutates ? r : 0), hits, misses);
+      }
+      long elapsed = System.nanoTime() - start;
+      long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+      if (iteration >= WARMUP_ITERATIONS) {
+        double nanos = (double) elapsed / operations;
+        bestNanos = Math.min(bestNanos, nanos);
+        totalNanos += nanos;
+        totalBytes += (double) bytes / operations;
+      }
+    }
+
+    System.out.printf("%-24s %-9s %,11d %5.2f %-18s %10.1f %10.1f %10.1f%n", mapName, keyName,
+        size, load, op, totalNanos / MEASURED_ITERATIONS, bestNanos,
+        totalBytes / MEASURED_ITERATIONS);
+  }
+
+  /**
+   * Helper method that reads a comma separated command line option
+   *
+   * @param args - command line arguments of the form name=value1,value2
+   * @param name - name of the option
+   * @param defaults - values used when the option is absent
+   * @return - values of the option
+   */
+  private static String[] option(String[] args, String name, String... defaults) {
+    for (String arg : args) {
+      if (arg.startsWith(name + "=")) {
+        return arg.substring(name.length() + 1).split(",");
+      }
+    }
+    return defaults;
+  }
+
+  public static void main(String[] args) {
+    String[] mapNames = option(args, "map", "HashtableMap", "PowerOfTwoHashtableMap",
+        "IncrementalHashtableMap", "RobinHoodHashtableMap", "ConcurrentHashtableMap", "HashMap");
+    String[] ops = option(args, "op", "put", "get-hit", "get-miss", "getOrDefault-miss",
+        "get-mixed", "getOrDefault-mixed", "containsKey", "remove", "clear");
+    String[] sizes = option(args, "size", "100", "10000", "1000000", "10000000");
+    String[] keyNames = option(args, "key", "Integer", "String", "Composite");
+    String[] loads = option(args, "load", "0.5", "0.75", "0.9");
+
+    System.out.printf("%-24s %-9s %11s %5s %-18s %10s %10s %10s%n", "map", "key", "size", "load",
+        "op", "avg ns/op", "min ns/op", "B/op");
+    for (String keyName : keyNames) {
+      for (String size : sizes) {
+        for (String load : loads) {
+          for (String op : ops) {
+            for (String mapName : mapNames) {
+              runCell(mapName, keyName, Integer.parseInt(size), Double.parseDouble(load), op);
+            }
+          }
+        }
+      }
+    }
+  }
+
+}
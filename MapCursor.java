@@ -0,0 +1,38 @@
+/**
+ * Cursor walking the Key/Value pairs of a MapADT. A cursor is mutable & can be reset, so a scan
+ * of the whole map allocates nothing per pair & the same cursor can be reused for later scans
+ *
+ * @param <KeyType> - KeyType of the map being walked
+ * @param <ValueType> - ValueType of the map being walked
+ */
+public interface MapCursor<KeyType, ValueType> {
+
+    /**
+     * Moves the cursor to the next Key/Value pair
+     * 
+     * @return - true if the cursor is on a pair, false once every pair has been visited
+     * @throws java.util.ConcurrentModificationException - if the map was modified since the
+     *                                                   cursor was created or reset
+     */
+    public boolean advance();
+
+    /**
+     * Getter method for the Key of the pair the cursor is on
+     * 
+     * @return - Key of the current pair
+     */
+    public KeyType getKey();
+
+    /**
+     * Getter method for the Value of the pair the cursor is on
+     * 
+     * @return - Value of the current pair
+     */
+    public ValueType getValue();
+
+    /**
+     * Moves the cursor back in front of the first pair, so the map can be walked again
+     */
+    public void reset();
+
+}
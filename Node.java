@@ -10,6 +10,8 @@ public class Node <KeyType, ValueType> {
   protected KeyType key;
   protected ValueType value;
   protected Node<KeyType, ValueType> next;
+  // Cached hash of the key, so chains can be scanned & rehashed without calling hashCode()
+  protected int hash;
   
   /**
    * Constructor method for the Node class that stores a Key & Value
@@ -18,6 +20,19 @@ public class Node <KeyType, ValueType> {
    * @param value - Value to be stored
    */
   public Node(KeyType key, ValueType value) {
+    this(key == null ? 0 : key.hashCode(), key, value);
+  }
+
+  /**
+   * Constructor method for the Node class that stores a Key & Value along with an already
+   * computed hash of the Key
+   * 
+   * @param hash - hash of the Key to be cached
+   * @param key - Key to be stored
+   * @param value - Value to be stored
+   */
+  public Node(int hash, KeyType key, ValueType value) {
+    this.hash = hash;
     this.key = key;
     this.value = value;
   }
@@ -39,5 +54,14 @@ public class Node <KeyType, ValueType> {
   public ValueType getValue() {
     return this.value;
   }
+
+  /**
+   * Getter method for the cached hash of the Node's Key
+   * 
+   * @return - hash of the Key
+   */
+  public int getHash() {
+    return this.hash;
+  }
   
 }
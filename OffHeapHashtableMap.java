@@ -0,0 +1,598 @@
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * Hashtable implementation storing its buckets & entries outside of the Java heap, in direct
+ * ByteBuffers. Keys & Values are turned into bytes by ByteCodecs & lookups compare the bytes of
+ * the Key without decoding the stored ones, so the heap only holds a few buffer objects no matter
+ * how many Key/Value pairs are stored & the garbage collector never scans them
+ *
+ * <p>
+ * Entries are chained like the Nodes of the HashtableMap, the pointer to the next entry being a
+ * long of (chunk index, offset). Each entry is laid out as
+ * {@code [next: 8][hash: 4][key length: 4][value length: 4][key bytes][value bytes]}, padded to 8
+ * bytes, & appended to the last chunk. Removed entries leave garbage behind, which is reclaimed by
+ * compact() once it outweighs the live entries
+ *
+ * @param <KeyType> - ObjectType of the Keys
+ * @param <ValueType> - ObjectType of the Values
+ */
+public class OffHeapHashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+  // Bytes of the header in front of the key bytes of an entry
+  private static final int HEADER_SIZE = 20;
+  private static final int NEXT_OFFSET = 0;
+  private static final int HASH_OFFSET = 8;
+  private static final int KEY_LENGTH_OFFSET = 12;
+  private static final int VALUE_LENGTH_OFFSET = 16;
+  // Entries start on multiples of 8 bytes, the first 8 bytes of every chunk are never used so a
+  // pointer of 0 means no entry
+  private static final int ENTRY_ALIGNMENT = 8;
+  private static final long NO_ENTRY = 0L;
+  // Value length marking a null value
+  private static final int NULL_VALUE = -1;
+  // Buckets are split over pages of 2^24 buckets (128MB), since a ByteBuffer holds at most 2GB
+  private static final int BUCKET_PAGE_SHIFT = 24;
+  private static final int BUCKETS_PER_PAGE = 1 << BUCKET_PAGE_SHIFT;
+  // Largest power of two capacity
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+  // Default size of the chunks holding the entries
+  private static final int DEFAULT_CHUNK_SIZE = 1 << 24;
+
+  // Codecs turning the Keys & Values into bytes
+  private final ByteCodec<KeyType> keyCodec;
+  private final ByteCodec<ValueType> valueCodec;
+  // Capacity of the HashTable, always a power of two
+  private int capacity;
+  // Will double capacity & relink whenever load factor is >= 0.75
+  private double LOAD_FACTOR_THRESHOLD = 0.75;
+  // Bucket pages, each bucket holding the pointer to the first entry of its chain
+  private ByteBuffer[] buckets;
+  // Chunks holding the entries & the offset of the first free byte of the last chunk
+  private final int chunkSize;
+  private ArrayList<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+  private int chunkTop;
+  // Bytes taken by the stored entries & by the removed ones not yet reclaimed
+  private long liveBytes;
+  private long garbageBytes;
+  // Number of Key/Value pairs currently stored in the Hashtable
+  private int size;
+  // # of structural modifications (puts, removes, resizes & clears), checked by cursors
+  private int modCount;
+  // Heap buffer the Key & Value of the current operation are encoded into
+  private ByteBuffer scratch = ByteBuffer.allocate(256).order(ByteOrder.nativeOrder());
+
+  /**
+   * Constructor method for OffHeapHashtableMap
+   *
+   * @param keyCodec - codec of the Keys, equal Keys must encode to equal bytes
+   * @param valueCodec - codec of the Values
+   * @param capacity - Original Capacity of Hashtable, rounded up to a power of two
+   * @param chunkSize - # of bytes of each chunk of entries, bounding the size of one entry
+   */
+  public OffHeapHashtableMap(ByteCodec<KeyType> keyCodec, ByteCodec<ValueType> valueCodec,
+      int capacity, int chunkSize) {
+    if (keyCodec == null || valueCodec == null) {
+      throw new IllegalArgumentException("Codecs must not be null!");
+    }
+    if (chunkSize < 64 || chunkSize > (1 << 30)) {
+      throw new IllegalArgumentException("Chunk size must be between 64 & 2^30: " + chunkSize);
+    }
+    this.keyCodec = keyCodec;
+    this.valueCodec = valueCodec;
+    this.chunkSize = chunkSize;
+    this.capacity = HashtableMap.roundUpToPowerOfTwo(Math.max(capacity, 2));
+    this.buckets = createBuckets(this.capacity);
+    addChunk();
+  }
+
+  /**
+   * Default constructor method for the OffHeapHashtableMap with a default capacity of 32 &
+   * chunks of 16MB
+   *
+   * @param keyCodec - codec of the Keys, equal Keys must encode to equal bytes
+   * @param valueCodec - codec of the Values
+   */
+  public OffHeapHashtableMap(ByteCodec<KeyType> keyCodec, ByteCodec<ValueType> valueCodec) {
+    this(keyCodec, valueCodec, 32, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Getter method for the capacity of hashtable
+   *
+   * @return - Capacity of Hashtable
+   */
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  /**
+   * Gets the # of bytes allocated outside of the heap, for both the buckets & the chunks
+   *
+   * @return - # of off heap bytes
+   */
+  public long offHeapBytes() {
+    long bytes = (long) chunks.size() * chunkSize;
+    for (ByteBuffer page : buckets) {
+      bytes += page.capacity();
+    }
+    return bytes;
+  }
+
+  /**
+   * Helper method that allocates zeroed bucket pages, zero being the pointer to no entry
+   *
+   * @param capacity - # of buckets
+   * @return - bucket pages
+   */
+  private static ByteBuffer[] createBuckets(int capacity) {
+    int pages = (capacity + BUCKETS_PER_PAGE - 1) >>> BUCKET_PAGE_SHIFT;
+    ByteBuffer[] buckets = new ByteBuffer[pages];
+    for (int i = 0; i < pages; i++) {
+      int bucketsInPage = Math.min(capacity - (i << BUCKET_PAGE_SHIFT), BUCKETS_PER_PAGE);
+      buckets[i] = ByteBuffer.allocateDirect(bucketsInPage << 3).order(ByteOrder.nativeOrder());
+    }
+    return buckets;
+  }
+
+  /**
+   * Helper method that reads the pointer to the first entry of a bucket
+   *
+   * @param table - bucket pages
+   * @param index - index of the bucket
+   * @return - pointer to the first entry, or NO_ENTRY
+   */
+  private long bucket(ByteBuffer[] table, int index) {
+    return table[index >>> BUCKET_PAGE_SHIFT].getLong((index & (BUCKETS_PER_PAGE - 1)) << 3);
+  }
+
+  /**
+   * Helper method that writes the pointer to the first entry of a bucket
+   *
+   * @param table - bucket pages
+   * @param index - index of the bucket
+   * @param pointer - pointer to the first entry, or NO_ENTRY
+   */
+  private void setBucket(ByteBuffer[] table, int index, long pointer) {
+    table[index >>> BUCKET_PAGE_SHIFT].putLong((index & (BUCKETS_PER_PAGE - 1)) << 3, pointer);
+  }
+
+  /**
+   * Helper methods splitting a pointer into its chunk & its offset within the chunk
+   */
+  private ByteBuffer chunk(long pointer) {
+    return chunks.get((int) (pointer >>> 32));
+  }
+
+  private static int offset(long pointer) {
+    return (int) pointer;
+  }
+
+  /**
+   * Helper methods reading & writing the pointer to the next entry of a chain
+   */
+  private long next(long pointer) {
+    return chunk(pointer).getLong(offset(pointer) + NEXT_OFFSET);
+  }
+
+  private void setNext(long pointer, long next) {
+    chunk(pointer).putLong(offset(pointer) + NEXT_OFFSET, next);
+  }
+
+  /**
+   * Helper method that gets the # of bytes an entry takes within its chunk
+   *
+   * @param keyLength - # of key bytes
+   * @param valueLength - # of value bytes, or NULL_VALUE
+   * @return - # of bytes, padded to ENTRY_ALIGNMENT
+   */
+  private static int entrySize(int keyLength, int valueLength) {
+    int size = HEADER_SIZE + keyLength + Math.max(valueLength, 0);
+    return (size + ENTRY_ALIGNMENT - 1) & -ENTRY_ALIGNMENT;
+  }
+
+  /**
+   * Helper method that gets the # of bytes the entry at a pointer takes within its chunk
+   *
+   * @param pointer - pointer to the entry
+   * @return - # of bytes, padded to ENTRY_ALIGNMENT
+   */
+  private int entrySize(long pointer) {
+    ByteBuffer chunk = chunk(pointer);
+    int offset = offset(pointer);
+    return entrySize(chunk.getInt(offset + KEY_LENGTH_OFFSET),
+        chunk.getInt(offset + VALUE_LENGTH_OFFSET));
+  }
+
+  /**
+   * Helper method that appends an empty chunk, which new entries are then appended to
+   */
+  private void addChunk() {
+    chunks.add(ByteBuffer.allocateDirect(chunkSize).order(ByteOrder.nativeOrder()));
+    chunkTop = ENTRY_ALIGNMENT;
+  }
+
+  /**
+   * Helper method that encodes a value into the scratch buffer, growing it until it fits
+   *
+   * @param codec - codec of the value
+   * @param value - value to encode
+   * @param position - index of the scratch buffer the bytes start at
+   * @return - # of bytes written
+   */
+  private <T> int encode(ByteCodec<T> codec, T value, int position) {
+    while (true) {
+      try {
+        scratch.position(position);
+        codec.encode(value, scratch);
+        return scratch.position() - position;
+      } catch (BufferOverflowException e) {
+        // Keeps the bytes already encoded in front of position
+        ByteBuffer grown =
+            ByteBuffer.allocate(scratch.capacity() * 2).order(ByteOrder.nativeOrder());
+        grown.put(0, scratch, 0, position);
+        scratch = grown;
+      }
+    }
+  }
+
+  /**
+   * Helper method that hashes the first length bytes of the scratch buffer
+   *
+   * @param length - # of key bytes
+   * @return - spread hash of the bytes
+   */
+  private int hashScratch(int length) {
+    byte[] bytes = scratch.array();
+    int hash = 1;
+    for (int i = 0; i < length; i++) {
+      hash = 31 * hash + bytes[i];
+    }
+    return HashtableMap.spread(hash);
+  }
+
+  /**
+   * Finds the entry whose key bytes equal the first keyLength bytes of the scratch buffer. Bytes
+   * are compared 8 at a time, then one at a time for the tail
+   *
+   * @param hash - hash of the key bytes
+   * @param keyLength - # of key bytes
+   * @return - pointer to the entry, or NO_ENTRY if the key is not in HashTable
+   */
+  private long findEntry(int hash, int keyLength) {
+    for (long pointer = bucket(buckets, hash & (capacity - 1)); pointer != NO_ENTRY;
+        pointer = next(pointer)) {
+      ByteBuffer chunk = chunk(pointer);
+      int offset = offset(pointer);
+      if (chunk.getInt(offset + HASH_OFFSET) != hash
+          || chunk.getInt(offset + KEY_LENGTH_OFFSET) != keyLength) {
+        continue;
+      }
+      int keyOffset = offset + HEADER_SIZE;
+      int i = 0;
+      while (i + 8 <= keyLength && chunk.getLong(keyOffset + i) == scratch.getLong(i)) {
+        i += 8;
+      }
+      if (i + 8 > keyLength) {
+        while (i < keyLength && chunk.get(keyOffset + i) == scratch.get(i)) {
+          i++;
+        }
+      }
+      if (i == keyLength) {
+        return pointer;
+      }
+    }
+    return NO_ENTRY;
+  }
+
+  /**
+   * Stores the Key/Value pair into the HashTable
+   */
+  @Override
+  public boolean put(KeyType key, ValueType value) {
+    // Checks that key is not null & not equal to a key already in HashTable
+    if (key == null) {
+      return false;
+    }
+    int keyLength = encode(keyCodec, key, 0);
+    int hash = hashScratch(keyLength);
+    if (findEntry(hash, keyLength) != NO_ENTRY) {
+      return false;
+    }
+    int valueLength = value == null ? NULL_VALUE : encode(valueCodec, value, keyLength);
+
+    // Appends the entry to the last chunk, starting a new chunk once it is full
+    int entrySize = entrySize(keyLength, valueLength);
+    if (entrySize > chunkSize - ENTRY_ALIGNMENT) {
+      throw new IllegalArgumentException("Entry is larger than a chunk: " + entrySize);
+    }
+    if (chunkTop + entrySize > chunkSize) {
+      addChunk();
+    }
+    long pointer = ((long) (chunks.size() - 1) << 32) | chunkTop;
+    ByteBuffer chunk = chunks.get(chunks.size() - 1);
+    int index = hash & (capacity - 1);
+    chunk.putLong(chunkTop + NEXT_OFFSET, bucket(buckets, index));
+    chunk.putInt(chunkTop + HASH_OFFSET, hash);
+    chunk.putInt(chunkTop + KEY_LENGTH_OFFSET, keyLength);
+    chunk.putInt(chunkTop + VALUE_LENGTH_OFFSET, valueLength);
+    chunk.put(chunkTop + HEADER_SIZE, scratch, 0, keyLength + Math.max(valueLength, 0));
+    setBucket(buckets, index, pointer);
+    chunkTop += entrySize;
+    liveBytes += entrySize;
+    size++;
+    modCount++;
+
+    // If the ratio of the numOfPairs / capacity is greater than 0.75, relink into twice the buckets
+    double currentThreshold = (double) size / capacity;
+    if (Double.compare(LOAD_FACTOR_THRESHOLD, currentThreshold) <= 0
+        && capacity < MAXIMUM_CAPACITY) {
+      capacityAdjustment(capacity * 2);
+    }
+
+    return true;
+  }
+
+  /**
+   * Resizing function once the LOAD_FACTOR_THRESHOLD is reached. Entries stay where they are in
+   * their chunks, only their next pointers are rewritten to chain them into the new buckets
+   *
+   * @param newCapacity - capacity of the new HashTable
+   */
+  private void capacityAdjustment(int newCapacity) {
+    ByteBuffer[] newBuckets = createBuckets(newCapacity);
+    for (int i = 0; i < capacity; i++) {
+      long pointer = bucket(buckets, i);
+      while (pointer != NO_ENTRY) {
+        long next = next(pointer);
+        int index = chunk(pointer).getInt(offset(pointer) + HASH_OFFSET) & (newCapacity - 1);
+        setNext(pointer, bucket(newBuckets, index));
+        setBucket(newBuckets, index, pointer);
+        pointer = next;
+      }
+    }
+    buckets = newBuckets;
+    capacity = newCapacity;
+    modCount++;
+  }
+
+  /**
+   * Copies every stored entry into fresh chunks, dropping the space of removed entries. Run
+   * automatically by remove() once the garbage outweighs the stored entries
+   */
+  public void compact() {
+    ArrayList<ByteBuffer> oldChunks = chunks;
+    chunks = new ArrayList<ByteBuffer>();
+    addChunk();
+    for (int i = 0; i < capacity; i++) {
+      long newHead = NO_ENTRY;
+      long pointer = bucket(buckets, i);
+      while (pointer != NO_ENTRY) {
+        ByteBuffer oldChunk = oldChunks.get((int) (pointer >>> 32));
+        int oldOffset = offset(pointer);
+        int entrySize = entrySize(oldChunk.getInt(oldOffset + KEY_LENGTH_OFFSET),
+            oldChunk.getInt(oldOffset + VALUE_LENGTH_OFFSET));
+        long next = oldChunk.getLong(oldOffset + NEXT_OFFSET);
+
+        if (chunkTop + entrySize > chunkSize) {
+          addChunk();
+        }
+        ByteBuffer chunk = chunks.get(chunks.size() - 1);
+        chunk.put(chunkTop, oldChunk, oldOffset, entrySize);
+        chunk.putLong(chunkTop + NEXT_OFFSET, newHead);
+        newHead = ((long) (chunks.size() - 1) << 32) | chunkTop;
+        chunkTop += entrySize;
+        pointer = next;
+      }
+      setBucket(buckets, i, newHead);
+    }
+    garbageBytes = 0;
+    modCount++;
+  }
+
+  /**
+   * Gets the Value associated with the Key Exception is thrown when Key is not contained within
+   * HashTable
+   */
+  @Override
+  public ValueType get(KeyType key) throws NoSuchElementException {
+    long pointer = key == null ? NO_ENTRY : findEntry(key);
+
+    // If the hashTable does not contain key, throw the exception
+    if (pointer == NO_ENTRY) {
+      throw new NoSuchElementException("Does not contain this key!");
+    }
+
+    return decodeValue(pointer);
+  }
+
+  /**
+   * Gets the Value of the Key with a single lookup, a miss costing no exception
+   */
+  @Override
+  public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+    long pointer = key == null ? NO_ENTRY : findEntry(key);
+    return pointer == NO_ENTRY ? defaultValue : decodeValue(pointer);
+  }
+
+  /**
+   * Finds the pair of the Key with a single lookup, decoding its Value into a new Node
+   */
+  @Override
+  public Node<KeyType, ValueType> find(KeyType key) {
+    long pointer = key == null ? NO_ENTRY : findEntry(key);
+    return pointer == NO_ENTRY ? null : new Node<KeyType, ValueType>(key, decodeValue(pointer));
+  }
+
+  /**
+   * Helper method that encodes a Key & finds its entry
+   *
+   * @param key - key to search for, not null
+   * @return - pointer to the entry, or NO_ENTRY if the key is not in HashTable
+   */
+  private long findEntry(KeyType key) {
+    int keyLength = encode(keyCodec, key, 0);
+    return findEntry(hashScratch(keyLength), keyLength);
+  }
+
+  /**
+   * Helper methods decoding the Key & Value of the entry at a pointer
+   */
+  private KeyType decodeKey(long pointer) {
+    ByteBuffer chunk = chunk(pointer);
+    int offset = offset(pointer);
+    return keyCodec.decode(chunk, offset + HEADER_SIZE, chunk.getInt(offset + KEY_LENGTH_OFFSET));
+  }
+
+  private ValueType decodeValue(long pointer) {
+    ByteBuffer chunk = chunk(pointer);
+    int offset = offset(pointer);
+    int keyLength = chunk.getInt(offset + KEY_LENGTH_OFFSET);
+    int valueLength = chunk.getInt(offset + VALUE_LENGTH_OFFSET);
+    if (valueLength == NULL_VALUE) {
+      return null;
+    }
+    return valueCodec.decode(chunk, offset + HEADER_SIZE + keyLength, valueLength);
+  }
+
+  /**
+   * Gets the number of Key/Value pairs stored within the HashTable
+   */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Checks if the HashTable contains the Key
+   */
+  @Override
+  public boolean containsKey(KeyType key) {
+    return key != null && findEntry(key) != NO_ENTRY;
+  }
+
+  /**
+   * Removes the Key within the HashTable Returns Value associated with the Key. The entry is
+   * unlinked from its chain & its bytes become garbage until the next compaction
+   */
+  @Override
+  public ValueType remove(KeyType key) {
+    // If the key is null
+    if (key == null) {
+      return null;
+    }
+
+    int keyLength = encode(keyCodec, key, 0);
+    int hash = hashScratch(keyLength);
+    long pointer = findEntry(hash, keyLength);
+
+    // If the HashTable does not contain the key, return null
+    if (pointer == NO_ENTRY) {
+      return null;
+    }
+
+    // Unlinks the entry, either from its bucket or from the entry in front of it
+    int index = hash & (capacity - 1);
+    long next = next(pointer);
+    long previous = bucket(buckets, index);
+    if (previous == pointer) {
+      setBucket(buckets, index, next);
+    } else {
+      while (next(previous) != pointer) {
+        previous = next(previous);
+      }
+      setNext(previous, next);
+    }
+    ValueType value = decodeValue(pointer);
+    int entrySize = entrySize(pointer);
+    liveBytes -= entrySize;
+    garbageBytes += entrySize;
+    size--;
+    modCount++;
+
+    // Reclaims the garbage once it outweighs the stored entries & fills more than a chunk
+    if (garbageBytes > liveBytes && garbageBytes > chunkSize) {
+      compact();
+    }
+
+    // Return value of the removed Key
+    return value;
+  }
+
+  /**
+   * Removes all key-value pairs from the collection without changing the number of buckets. Every
+   * chunk except a fresh first one is released
+   */
+  @Override
+  public void clear() {
+    if (size == 0 && garbageBytes == 0) {
+      return;
+    }
+    buckets = createBuckets(capacity);
+    chunks = new ArrayList<ByteBuffer>();
+    addChunk();
+    liveBytes = 0;
+    garbageBytes = 0;
+    size = 0;
+    modCount++;
+  }
+
+  /**
+   * Creates a cursor walking the buckets in order, decoding the Key & Value of the entry it is on
+   * only when asked. Fails fast once the Hashtable is modified
+   */
+  @Override
+  public MapCursor<KeyType, ValueType> cursor() {
+    return new MapCursor<KeyType, ValueType>() {
+      // Bucket of the entry the cursor is on, -1 before the first pair
+      private int index = -1;
+      private long pointer = NO_ENTRY;
+      private int expectedModCount = modCount;
+
+      @Override
+      public boolean advance() {
+        if (modCount != expectedModCount) {
+          throw new ConcurrentModificationException("Hashtable was modified during iteration!");
+        }
+        if (pointer != NO_ENTRY) {
+          pointer = next(pointer);
+        }
+        while (pointer == NO_ENTRY && index + 1 < capacity) {
+          pointer = bucket(buckets, ++index);
+        }
+        if (pointer == NO_ENTRY) {
+          index = capacity;
+        }
+        return pointer != NO_ENTRY;
+      }
+
+      @Override
+      public KeyType getKey() {
+        if (pointer == NO_ENTRY) {
+          throw new NoSuchElementException("Cursor is not on a pair!");
+        }
+        return decodeKey(pointer);
+      }
+
+      @Override
+      public ValueType getValue() {
+        if (pointer == NO_ENTRY) {
+          throw new NoSuchElementException("Cursor is not on a pair!");
+        }
+        return decodeValue(pointer);
+      }
+
+      @Override
+      public void reset() {
+        index = -1;
+        pointer = NO_ENTRY;
+        expectedModCount = modCount;
+      }
+    };
+  }
+
+}
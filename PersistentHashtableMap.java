@@ -0,0 +1,1001 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32C;
+
+/**
+ * Hashtable implementation kept in a memory-mapped file, so a restarted process reopens it in
+ * O(1) instead of inserting every Key/Value pair again: only the header is read & the pages of the
+ * table are faulted in lazily by the operating system as they are touched
+ *
+ * <p>
+ * The file starts with a header, then an append only heap holding the entries & the slot array.
+ * Slots hold pointers to entries & are probed linearly, entries are never modified once written.
+ * Each put() & remove() is appended to a log file next to the table (CRC checked records) & kept
+ * in a small on heap overlay, a clear() is logged & forced before it switches the header.
+ * checkpoint() folds the overlay into the table in an order that keeps the table readable at
+ * every step:
+ * <ol>
+ * <li>the log is forced to disk</li>
+ * <li>new entries, & a new slot array when the table has to grow, are written after the heap top
+ * & forced, then a header reserving them is written</li>
+ * <li>slots are pointed at the new entries or tombstoned, each an atomic 8 byte write</li>
+ * <li>the header is switched to the new slot array & size, then the log is truncated</li>
+ * </ol>
+ * The header is written alternately into two copies carrying a sequence # & a CRC, so a torn
+ * header write falls back to the previous copy. Reopening after a crash replays the log over the
+ * table, which converges because every logged put() & remove() succeeded when logged & a logged
+ * clear() drops everything in front of it
+ *
+ * <p>
+ * Only one PersistentHashtableMap may have a file open at a time. Space of removed entries & old
+ * slot arrays is not reclaimed, copy the map into a new file to compact it
+ *
+ * @param <KeyType> - ObjectType of the Keys
+ * @param <ValueType> - ObjectType of the Values
+ */
+public class PersistentHashtableMap<KeyType, ValueType>
+    implements MapADT<KeyType, ValueType>, AutoCloseable {
+
+  // Identifies the file format & its version, bumped whenever the layout changes
+  private static final long MAGIC = 0x48544D4150464C45L;
+  static final int FORMAT_VERSION = 1;
+  // Bytes in front of the heap, holding the two header copies
+  private static final int HEADER_SIZE = 4096;
+  private static final int HEADER_COPY_SIZE = 512;
+  private static final int VERSION_OFFSET = 8;
+  private static final int REGION_SIZE_OFFSET = 12;
+  private static final int CAPACITY_OFFSET = 16;
+  private static final int TOMBSTONES_OFFSET = 20;
+  private static final int SLOTS_OFFSET = 24;
+  private static final int SIZE_OFFSET = 32;
+  private static final int HEAP_TOP_OFFSET = 40;
+  private static final int SEQUENCE_OFFSET = 48;
+  private static final int DIRTY_OFFSET = 56;
+  private static final int HEADER_CRC_OFFSET = 60;
+  // Slot values, real pointers are >= HEADER_SIZE
+  private static final long EMPTY_SLOT = 0L;
+  private static final long TOMBSTONE = 1L;
+  // Entry layout: [hash: 4][key length: 4][value length: 4][key bytes][value bytes]
+  private static final int ENTRY_HEADER_SIZE = 12;
+  private static final int NULL_VALUE = -1;
+  // Log record layout: [op: 1][key length: 4][value length: 4][key bytes][value bytes][crc: 4]
+  private static final byte PUT_RECORD = 1;
+  private static final byte REMOVE_RECORD = 2;
+  private static final byte CLEAR_RECORD = 3;
+  private static final int RECORD_OVERHEAD = 13;
+  // # of log bytes replay reads at a time, grown only for a record larger than it
+  private static final int REPLAY_BUFFER_SIZE = 1 << 16;
+  // Markers stored in the overlay for a removed key & a null value
+  private static final Object REMOVED = new Object();
+  private static final Object NULL = new Object();
+
+  // Codecs turning the Keys & Values into bytes
+  private final ByteCodec<KeyType> keyCodec;
+  private final ByteCodec<ValueType> valueCodec;
+  // Table file & the regions of it mapped so far, each regionSize bytes
+  private final FileChannel file;
+  private final ArrayList<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+  private final int regionSize;
+  // Log of the put() & remove() calls since the last checkpoint
+  private final FileChannel log;
+  // Will grow the slot array whenever (entries + tombstones) / capacity would reach 0.7
+  private double LOAD_FACTOR_THRESHOLD = 0.7;
+  // Committed state of the table, as written in the header
+  private int capacity;
+  private long slotsOffset;
+  private long tableSize;
+  private int tombstones;
+  private long heapTop;
+  private long sequence;
+  // Whether slots are being rewritten in place, so the counts in the header may be stale
+  private boolean dirty;
+  // Changes since the last checkpoint, Key -> Value, NULL or REMOVED
+  private final HashtableMap<KeyType, Object> pending = new HashtableMap<KeyType, Object>(64, true);
+  // # of overlay entries triggering a checkpoint
+  private final int checkpointThreshold;
+  // Whether the log is being replayed, so replayed calls are not logged again
+  private boolean replaying;
+  // Number of Key/Value pairs currently stored in the Hashtable
+  private int size;
+  // # of structural modifications (puts, removes & clears), checked by cursors
+  private int modCount;
+  // Heap buffers the Key & Value of the current operation & its log record are encoded into
+  private ByteBuffer scratch = ByteBuffer.allocate(256);
+  private ByteBuffer record = ByteBuffer.allocate(256);
+  private final CRC32C crc = new CRC32C();
+
+  /**
+   * Constructor method for PersistentHashtableMap, opening the file or creating it if it does not
+   * exist. Capacity & region size are only used when creating, an existing file keeps its own
+   *
+   * @param path - table file, the log is kept next to it with a .log suffix
+   * @param keyCodec - codec of the Keys, equal Keys must encode to equal bytes
+   * @param valueCodec - codec of the Values
+   * @param capacity - Original # of slots, rounded up to a power of two
+   * @param regionSize - # of bytes mapped at a time, a power of two bounding the size of an entry
+   * @param checkpointThreshold - # of changed Keys triggering a checkpoint
+   * @throws IOException - if the file cannot be opened or is not a PersistentHashtableMap file
+   */
+  public PersistentHashtableMap(Path path, ByteCodec<KeyType> keyCodec,
+      ByteCodec<ValueType> valueCodec, int capacity, int regionSize, int checkpointThreshold)
+      throws IOException {
+    if (keyCodec == null || valueCodec == null) {
+      throw new IllegalArgumentException("Codecs must not be null!");
+    }
+    if (regionSize < HEADER_SIZE || Integer.bitCount(regionSize) != 1) {
+      throw new IllegalArgumentException("Region size must be a power of two >= 4096: "
+          + regionSize);
+    }
+    if (checkpointThreshold < 1) {
+      throw new IllegalArgumentException("Checkpoint threshold must be positive: "
+          + checkpointThreshold);
+    }
+    this.keyCodec = keyCodec;
+    this.valueCodec = valueCodec;
+    this.checkpointThreshold = checkpointThreshold;
+
+    boolean exists = Files.exists(path) && Files.size(path) > 0;
+    this.file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    if (exists) {
+      this.regionSize = readHeader();
+      if (dirty) {
+        recount();
+        writeHeader();
+      }
+    } else {
+      // New file, an empty slot array right after the header
+      this.regionSize = regionSize;
+      this.capacity = HashtableMap.roundUpToPowerOfTwo(Math.max(capacity, 2));
+      this.heapTop = HEADER_SIZE;
+      this.slotsOffset = allocateSlots(this.capacity);
+      writeHeader();
+    }
+    this.size = (int) tableSize;
+
+    this.log = FileChannel.open(path.resolveSibling(path.getFileName() + ".log"),
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    replayLog();
+  }
+
+  /**
+   * Constructor method for the PersistentHashtableMap with a default capacity of 1024, regions
+   * of 1GB & a checkpoint every 65536 changed Keys
+   *
+   * @param path - table file, the log is kept next to it with a .log suffix
+   * @param keyCodec - codec of the Keys, equal Keys must encode to equal bytes
+   * @param valueCodec - codec of the Values
+   * @throws IOException - if the file cannot be opened or is not a PersistentHashtableMap file
+   */
+  public PersistentHashtableMap(Path path, ByteCodec<KeyType> keyCodec,
+      ByteCodec<ValueType> valueCodec) throws IOException {
+    this(path, keyCodec, valueCodec, 1024, 1 << 30, 1 << 16);
+  }
+
+  /**
+   * Getter method for the # of slots of the table
+   *
+   * @return - Capacity of Hashtable
+   */
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  /**
+   * Helper method that gets the mapped region holding a position of the file, mapping every
+   * region up to it on first use. Mapping past the end of the file grows the file
+   *
+   * @param position - position within the file
+   * @return - region holding the position
+   */
+  private MappedByteBuffer region(long position) {
+    int index = (int) (position / regionSize);
+    try {
+      while (regions.size() <= index) {
+        regions.add(file.map(FileChannel.MapMode.READ_WRITE, (long) regions.size() * regionSize,
+            regionSize));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return regions.get(index);
+  }
+
+  private int offset(long position) {
+    return (int) (position & (regionSize - 1));
+  }
+
+  private long readLong(long position) {
+    return region(position).getLong(offset(position));
+  }
+
+  private void writeLong(long position, long value) {
+    region(position).putLong(offset(position), value);
+  }
+
+  /**
+   * Helper method that reserves zeroed space for a slot array at the heap top. Space past the heap
+   * top may hold bytes of a checkpoint that never committed, so it is zeroed explicitly
+   *
+   * @param slots - # of slots
+   * @return - position of the slot array
+   */
+  private long allocateSlots(int slots) {
+    long position = heapTop;
+    for (int i = 0; i < slots; i++) {
+      writeLong(position + ((long) i << 3), EMPTY_SLOT);
+    }
+    heapTop += (long) slots << 3;
+    return position;
+  }
+
+  /**
+   * Helper method that reserves space for an entry at the heap top, skipping to the next region
+   * when the entry would straddle two
+   *
+   * @param bytes - # of bytes of the entry
+   * @return - position of the entry
+   */
+  private long allocateEntry(int bytes) {
+    if (bytes > regionSize) {
+      throw new IllegalArgumentException("Entry is larger than a region: " + bytes);
+    }
+    if (offset(heapTop) + (long) bytes > regionSize) {
+      heapTop += regionSize - offset(heapTop);
+    }
+    long position = heapTop;
+    // Keeps the next entry & slot array 8 byte aligned
+    heapTop += (bytes + 7) & -8;
+    return position;
+  }
+
+  /**
+   * Helper method that reads both header copies & loads the valid one with the highest sequence #
+   *
+   * @return - region size of the file
+   * @throws IOException - if neither copy is valid or the format version is not supported
+   */
+  private int readHeader() throws IOException {
+    ByteBuffer headers = ByteBuffer.allocate(2 * HEADER_COPY_SIZE);
+    while (headers.hasRemaining() && file.read(headers, headers.position()) > 0) {
+      // Reads until both copies are in
+    }
+    int best = -1;
+    for (int copy = 0; copy < 2; copy++) {
+      int base = copy * HEADER_COPY_SIZE;
+      if (headers.getLong(base) != MAGIC) {
+        continue;
+      }
+      crc.reset();
+      crc.update(headers.array(), base, HEADER_CRC_OFFSET);
+      if ((int) crc.getValue() != headers.getInt(base + HEADER_CRC_OFFSET)) {
+        continue;
+      }
+      if (best == -1 || headers.getLong(base + SEQUENCE_OFFSET)
+          > headers.getLong(best + SEQUENCE_OFFSET)) {
+        best = base;
+      }
+    }
+    if (best == -1) {
+      throw new IOException("Not a PersistentHashtableMap file, or its header is corrupt");
+    }
+    if (headers.getInt(best + VERSION_OFFSET) != FORMAT_VERSION) {
+      throw new IOException("Unsupported format version: " + headers.getInt(best + VERSION_OFFSET));
+    }
+
+    capacity = headers.getInt(best + CAPACITY_OFFSET);
+    tombstones = headers.getInt(best + TOMBSTONES_OFFSET);
+    slotsOffset = headers.getLong(best + SLOTS_OFFSET);
+    tableSize = headers.getLong(best + SIZE_OFFSET);
+    heapTop = headers.getLong(best + HEAP_TOP_OFFSET);
+    sequence = headers.getLong(best + SEQUENCE_OFFSET);
+    int fileRegionSize = headers.getInt(best + REGION_SIZE_OFFSET);
+    if (fileRegionSize < HEADER_SIZE || Integer.bitCount(fileRegionSize) != 1) {
+      throw new IOException("Corrupt region size: " + fileRegionSize);
+    }
+    dirty = headers.getInt(best + DIRTY_OFFSET) != 0;
+    return fileRegionSize;
+  }
+
+  /**
+   * Helper method that recounts the entries & tombstones of the slot array, after a crash in the
+   * middle of rewriting slots in place left the counts of the header stale
+   */
+  private void recount() {
+    tableSize = 0;
+    tombstones = 0;
+    for (int i = 0; i < capacity; i++) {
+      long pointer = readLong(slotsOffset + ((long) i << 3));
+      if (pointer == TOMBSTONE) {
+        tombstones++;
+      } else if (pointer != EMPTY_SLOT) {
+        tableSize++;
+      }
+    }
+    dirty = false;
+  }
+
+  /**
+   * Helper method that writes the committed state into the older header copy & forces it to disk
+   */
+  private void writeHeader() {
+    sequence++;
+    MappedByteBuffer header = region(0);
+    int base = (int) (sequence & 1) * HEADER_COPY_SIZE;
+    header.putLong(base, MAGIC);
+    header.putInt(base + VERSION_OFFSET, FORMAT_VERSION);
+    header.putInt(base + REGION_SIZE_OFFSET, regionSize);
+    header.putInt(base + CAPACITY_OFFSET, capacity);
+    header.putInt(base + TOMBSTONES_OFFSET, tombstones);
+    header.putLong(base + SLOTS_OFFSET, slotsOffset);
+    header.putLong(base + SIZE_OFFSET, tableSize);
+    header.putLong(base + HEAP_TOP_OFFSET, heapTop);
+    header.putLong(base + SEQUENCE_OFFSET, sequence);
+    header.putInt(base + DIRTY_OFFSET, dirty ? 1 : 0);
+    byte[] bytes = new byte[HEADER_CRC_OFFSET];
+    header.get(base, bytes);
+    crc.reset();
+    crc.update(bytes);
+    header.putInt(base + HEADER_CRC_OFFSET, (int) crc.getValue());
+    header.force(0, HEADER_SIZE);
+  }
+
+  /**
+   * Helper method that forces every mapped region to disk
+   */
+  private void forceRegions() {
+    for (MappedByteBuffer mapped : regions) {
+      mapped.force();
+    }
+  }
+
+  /**
+   * Helper method that encodes a value into the scratch buffer, growing it until it fits
+   *
+   * @param codec - codec of the value
+   * @param value - value to encode
+   * @param position - index of the scratch buffer the bytes start at
+   * @return - # of bytes written
+   */
+  private <T> int encode(ByteCodec<T> codec, T value, int position) {
+    while (true) {
+      try {
+        scratch.position(position);
+        codec.encode(value, scratch);
+        return scratch.position() - position;
+      } catch (BufferOverflowException e) {
+        // Keeps the bytes already encoded in front of position
+        ByteBuffer grown = ByteBuffer.allocate(scratch.capacity() * 2);
+        grown.put(0, scratch, 0, position);
+        scratch = grown;
+      }
+    }
+  }
+
+  /**
+   * Helper method that hashes the first length bytes of the scratch buffer
+   *
+   * @param length - # of key bytes
+   * @return - spread hash of the bytes
+   */
+  private int hashScratch(int length) {
+    byte[] bytes = scratch.array();
+    int hash = 1;
+    for (int i = 0; i < length; i++) {
+      hash = 31 * hash + bytes[i];
+    }
+    return HashtableMap.spread(hash);
+  }
+
+  /**
+   * Helper method that checks whether the entry at a pointer holds the key in the scratch buffer
+   *
+   * @param pointer - position of the entry
+   * @param hash - hash of the key bytes
+   * @param keyLength - # of key bytes
+   * @return - true if the entry holds the key, false otherwise
+   */
+  private boolean entryMatches(long pointer, int hash, int keyLength) {
+    MappedByteBuffer entries = region(pointer);
+    int offset = offset(pointer);
+    if (entries.getInt(offset) != hash || entries.getInt(offset + 4) != keyLength) {
+      return false;
+    }
+
+    // Compares 8 bytes at a time, then one at a time for the tail
+    int keyOffset = offset + ENTRY_HEADER_SIZE;
+    int i = 0;
+    for (; i + 8 <= keyLength; i += 8) {
+      if (entries.getLong(keyOffset + i) != scratch.getLong(i)) {
+        return false;
+      }
+    }
+    for (; i < keyLength; i++) {
+      if (entries.get(keyOffset + i) != scratch.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds the slot pointing at the entry of the key in the scratch buffer
+   *
+   * @param hash - hash of the key bytes
+   * @param keyLength - # of key bytes
+   * @return - position of the slot, or -1 if the key is not in the table
+   */
+  private long findSlot(int hash, int keyLength) {
+    int mask = capacity - 1;
+    for (int index = hash & mask;; index = (index + 1) & mask) {
+      long slot = slotsOffset + ((long) index << 3);
+      long pointer = readLong(slot);
+      if (pointer == EMPTY_SLOT) {
+        return -1;
+      }
+      if (pointer != TOMBSTONE && entryMatches(pointer, hash, keyLength)) {
+        return slot;
+      }
+    }
+  }
+
+  /**
+   * Points the slot of the key in the scratch buffer at a new entry, reusing the first tombstone
+   * on the way when the key is not in the table yet
+   *
+   * @param hash - hash of the key bytes
+   * @param keyLength - # of key bytes
+   * @param pointer - position of the new entry
+   */
+  private void storeSlot(int hash, int keyLength, long pointer) {
+    int mask = capacity - 1;
+    long firstTombstone = -1;
+    for (int index = hash & mask;; index = (index + 1) & mask) {
+      long slot = slotsOffset + ((long) index << 3);
+      long current = readLong(slot);
+      if (current == EMPTY_SLOT) {
+        if (firstTombstone != -1) {
+          slot = firstTombstone;
+          tombstones--;
+        }
+        writeLong(slot, pointer);
+        tableSize++;
+        return;
+      }
+      if (current == TOMBSTONE) {
+        if (firstTombstone == -1) {
+          firstTombstone = slot;
+        }
+      } else if (entryMatches(current, hash, keyLength)) {
+        writeLong(slot, pointer);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Helper method that decodes the Key or Value of the entry at a pointer
+   */
+  private KeyType decodeKey(long pointer) {
+    MappedByteBuffer entries = region(pointer);
+    int offset = offset(pointer);
+    return keyCodec.decode(entries, offset + ENTRY_HEADER_SIZE, entries.getInt(offset + 4));
+  }
+
+  private ValueType decodeValue(long pointer) {
+    MappedByteBuffer entries = region(pointer);
+    int offset = offset(pointer);
+    int valueLength = entries.getInt(offset + 8);
+    if (valueLength == NULL_VALUE) {
+      return null;
+    }
+    return valueCodec.decode(entries, offset + ENTRY_HEADER_SIZE + entries.getInt(offset + 4),
+        valueLength);
+  }
+
+  /**
+   * Helper method that appends a record for the key & value in the scratch buffer to the log
+   *
+   * @param op - PUT_RECORD, REMOVE_RECORD or CLEAR_RECORD
+   * @param keyLength - # of key bytes
+   * @param valueLength - # of value bytes, or NULL_VALUE
+   */
+  private void appendLog(byte op, int keyLength, int valueLength) {
+    int bytes = keyLength + Math.max(valueLength, 0);
+    if (record.capacity() < bytes + RECORD_OVERHEAD) {
+      record = ByteBuffer.allocate(Math.max(record.capacity() * 2, bytes + RECORD_OVERHEAD));
+    }
+    record.clear();
+    record.put(op).putInt(keyLength).putInt(valueLength).put(scratch.array(), 0, bytes);
+    crc.reset();
+    crc.update(record.array(), 0, record.position());
+    record.putInt((int) crc.getValue());
+    record.flip();
+    try {
+      while (record.hasRemaining()) {
+        log.write(record);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Helper method that replays the valid prefix of the log into the overlay & drops a torn tail,
+   * streaming the log through a bounded buffer
+   *
+   * @throws IOException - if the log cannot be read
+   */
+  private void replayLog() throws IOException {
+    long logSize = log.size();
+    ByteBuffer records = ByteBuffer.allocate(REPLAY_BUFFER_SIZE).limit(0);
+    // Position within the log of the record at records.position()
+    long position = 0;
+    replaying = true;
+    while ((records = readLog(records, position, RECORD_OVERHEAD)) != null) {
+      int base = records.position();
+      byte op = records.get(base);
+      int keyLength = records.getInt(base + 1);
+      int valueLength = records.getInt(base + 5);
+      // Checks the lengths against the log before buffering the record, a torn length may be huge
+      long recordLength = RECORD_OVERHEAD + (long) keyLength + Math.max(valueLength, 0);
+      if (keyLength < 0 || valueLength < NULL_VALUE || recordLength > logSize - position) {
+        break;
+      }
+      if ((records = readLog(records, position, (int) recordLength)) == null) {
+        break;
+      }
+      base = records.position();
+      crc.reset();
+      crc.update(records.array(), base, (int) recordLength - 4);
+      if ((int) crc.getValue() != records.getInt(base + (int) recordLength - 4)) {
+        break;
+      }
+
+      if (op == CLEAR_RECORD) {
+        clear();
+      } else if (op == PUT_RECORD) {
+        KeyType key = keyCodec.decode(records, base + 9, keyLength);
+        put(key, valueLength == NULL_VALUE ? null
+            : valueCodec.decode(records, base + 9 + keyLength, valueLength));
+      } else if (op == REMOVE_RECORD) {
+        remove(keyCodec.decode(records, base + 9, keyLength));
+      } else {
+        break;
+      }
+      records.position(base + (int) recordLength);
+      position += recordLength;
+    }
+    replaying = false;
+
+    log.truncate(position);
+    log.position(position);
+    if (pending.size() >= checkpointThreshold) {
+      checkpoint();
+    }
+  }
+
+  /**
+   * Helper method that makes sure the next bytes of the log are buffered, keeping the unread bytes
+   * & reading more of the log after them
+   *
+   * @param records - buffer whose remaining bytes start at position
+   * @param position - position within the log of the first remaining byte
+   * @param needed - # of bytes needed
+   * @return - records or a larger buffer holding at least needed remaining bytes, null if the log
+   *         ends first
+   * @throws IOException - if the log cannot be read
+   */
+  private ByteBuffer readLog(ByteBuffer records, long position, int needed) throws IOException {
+    if (records.remaining() >= needed) {
+      return records;
+    }
+    if (needed > records.capacity()) {
+      records = ByteBuffer.allocate(needed).put(records);
+    } else {
+      records.compact();
+    }
+    while (records.position() < needed) {
+      if (log.read(records, position + records.position()) <= 0) {
+        return null;
+      }
+    }
+    return records.flip();
+  }
+
+  /**
+   * Helper method that encodes a Key into the scratch buffer & checks whether it is stored,
+   * looking at the overlay first
+   *
+   * @param key - key to search for, not null
+   * @param keyLength - # of key bytes already encoded
+   * @return - position of its slot, -2 if the overlay holds it or -1 if it is missing
+   */
+  private long locate(KeyType key, int keyLength) {
+    if (pending.containsKey(key)) {
+      return pending.get(key) == REMOVED ? -1 : -2;
+    }
+    return findSlot(hashScratch(keyLength), keyLength);
+  }
+
+  /**
+   * Stores the Key/Value pair into the HashTable, logging it before returning
+   */
+  @Override
+  public boolean put(KeyType key, ValueType value) {
+    // Checks that key is not null & not equal to a key already in HashTable
+    if (key == null) {
+      return false;
+    }
+    int keyLength = encode(keyCodec, key, 0);
+    if (locate(key, keyLength) != -1) {
+      return false;
+    }
+
+    if (!replaying) {
+      int valueLength = value == null ? NULL_VALUE : encode(valueCodec, value, keyLength);
+      appendLog(PUT_RECORD, keyLength, valueLength);
+    }
+    pending.remove(key);
+    pending.put(key, value == null ? NULL : value);
+    size++;
+    modCount++;
+
+    if (!replaying && pending.size() >= checkpointThreshold) {
+      checkpoint();
+    }
+    return true;
+  }
+
+  /**
+   * Gets the Value associated with the Key Exception is thrown when Key is not contained within
+   * HashTable
+   */
+  @Override
+  public ValueType get(KeyType key) throws NoSuchElementException {
+    long slot = key == null ? -1 : locate(key, encode(keyCodec, key, 0));
+
+    // If the hashTable does not contain key, throw the exception
+    if (slot == -1) {
+      throw new NoSuchElementException("Does not contain this key!");
+    }
+    return valueAt(key, slot);
+  }
+
+  /**
+   * Gets the Value of the Key with a single lookup, a miss costing no exception
+   */
+  @Override
+  public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+    long slot = key == null ? -1 : locate(key, encode(keyCodec, key, 0));
+    return slot == -1 ? defaultValue : valueAt(key, slot);
+  }
+
+  /**
+   * Finds the pair of the Key with a single lookup, decoding its Value into a new Node
+   */
+  @Override
+  public Node<KeyType, ValueType> find(KeyType key) {
+    long slot = key == null ? -1 : locate(key, encode(keyCodec, key, 0));
+    return slot == -1 ? null : new Node<KeyType, ValueType>(key, valueAt(key, slot));
+  }
+
+  /**
+   * Helper method that reads the Value of a key locate() found
+   *
+   * @param key - key found
+   * @param slot - position locate() returned, -2 for the overlay
+   * @return - Value of the key
+   */
+  @SuppressWarnings("unchecked")
+  private ValueType valueAt(KeyType key, long slot) {
+    if (slot == -2) {
+      Object value = pending.get(key);
+      return value == NULL ? null : (ValueType) value;
+    }
+    return decodeValue(readLong(slot));
+  }
+
+  /**
+   * Gets the number of Key/Value pairs stored within the HashTable
+   */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Checks if the HashTable contains the Key
+   */
+  @Override
+  public boolean containsKey(KeyType key) {
+    return key != null && locate(key, encode(keyCodec, key, 0)) != -1;
+  }
+
+  /**
+   * Removes the Key within the HashTable Returns Value associated with the Key, logging the
+   * removal before returning
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType remove(KeyType key) {
+    // If the key is null
+    if (key == null) {
+      return null;
+    }
+    int keyLength = encode(keyCodec, key, 0);
+    long slot = locate(key, keyLength);
+
+    // If the HashTable does not contain the key, return null
+    if (slot == -1) {
+      return null;
+    }
+
+    ValueType value;
+    if (slot == -2) {
+      Object pendingValue = pending.get(key);
+      value = pendingValue == NULL ? null : (ValueType) pendingValue;
+    } else {
+      value = decodeValue(readLong(slot));
+    }
+    if (!replaying) {
+      appendLog(REMOVE_RECORD, keyLength, NULL_VALUE);
+    }
+    pending.remove(key);
+    pending.put(key, REMOVED);
+    size--;
+    modCount++;
+
+    if (!replaying && pending.size() >= checkpointThreshold) {
+      checkpoint();
+    }
+
+    // Return value of the removed Key
+    return value;
+  }
+
+  /**
+   * Removes all key-value pairs by switching the header to a new empty slot array of the same
+   * capacity, which is atomic, then truncating the log. The clear is logged & forced first, so a
+   * crash before the log is truncated replays it instead of the changes in front of it
+   */
+  @Override
+  public void clear() {
+    if (size == 0 && pending.size() == 0) {
+      return;
+    }
+    if (!replaying) {
+      appendLog(CLEAR_RECORD, 0, NULL_VALUE);
+      try {
+        log.force(false);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    slotsOffset = allocateSlots(capacity);
+    tableSize = 0;
+    tombstones = 0;
+    forceRegions();
+    writeHeader();
+    // The log being replayed is truncated once replay ends
+    if (!replaying) {
+      truncateLog();
+    }
+    pending.clear();
+    size = 0;
+    modCount++;
+  }
+
+  /**
+   * Folds every change since the last checkpoint into the table, then empties the log. Runs
+   * automatically once checkpointThreshold Keys have changed & on close()
+   */
+  @SuppressWarnings("unchecked")
+  public void checkpoint() {
+    if (pending.size() == 0) {
+      return;
+    }
+    try {
+      log.force(false);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    // Counts the puts, growing the slot array into new space if they could overfill it
+    int puts = 0;
+    MapCursor<KeyType, Object> changes = pending.cursor();
+    while (changes.advance()) {
+      puts += changes.getValue() == REMOVED ? 0 : 1;
+    }
+    int newCapacity = capacity;
+    long newSlotsOffset = slotsOffset;
+    boolean grows = tableSize + tombstones + puts >= LOAD_FACTOR_THRESHOLD * capacity;
+    if (grows) {
+      while (tableSize + puts >= LOAD_FACTOR_THRESHOLD * newCapacity / 2) {
+        newCapacity *= 2;
+      }
+      newSlotsOffset = allocateSlots(newCapacity);
+      int mask = newCapacity - 1;
+      for (int i = 0; i < capacity; i++) {
+        long pointer = readLong(slotsOffset + ((long) i << 3));
+        if (pointer == EMPTY_SLOT || pointer == TOMBSTONE) {
+          continue;
+        }
+        int index = region(pointer).getInt(offset(pointer)) & mask;
+        while (readLong(newSlotsOffset + ((long) index << 3)) != EMPTY_SLOT) {
+          index = (index + 1) & mask;
+        }
+        writeLong(newSlotsOffset + ((long) index << 3), pointer);
+      }
+    }
+
+    // Writes the new entries after the heap top
+    long[] pointers = new long[pending.size()];
+    int changed = 0;
+    changes.reset();
+    while (changes.advance()) {
+      Object value = changes.getValue();
+      if (value != REMOVED) {
+        int keyLength = encode(keyCodec, changes.getKey(), 0);
+        int valueLength = value == NULL ? NULL_VALUE
+            : encode(valueCodec, (ValueType) value, keyLength);
+        long pointer = allocateEntry(ENTRY_HEADER_SIZE + keyLength + Math.max(valueLength, 0));
+        MappedByteBuffer entries = region(pointer);
+        int offset = offset(pointer);
+        entries.putInt(offset, hashScratch(keyLength));
+        entries.putInt(offset + 4, keyLength);
+        entries.putInt(offset + 8, valueLength);
+        entries.put(offset + ENTRY_HEADER_SIZE, scratch, 0, keyLength + Math.max(valueLength, 0));
+        pointers[changed] = pointer;
+      }
+      changed++;
+    }
+
+    // Reserves the new entries & slot array while the header still points at the old slots,
+    // marking it dirty when the old slots are about to be rewritten in place
+    dirty = !grows;
+    forceRegions();
+    writeHeader();
+    if (grows) {
+      capacity = newCapacity;
+      slotsOffset = newSlotsOffset;
+      tombstones = 0;
+    }
+
+    // Points the slots at the new entries or tombstones them, one atomic write each
+    changed = 0;
+    changes.reset();
+    while (changes.advance()) {
+      int keyLength = encode(keyCodec, changes.getKey(), 0);
+      int hash = hashScratch(keyLength);
+      if (changes.getValue() != REMOVED) {
+        storeSlot(hash, keyLength, pointers[changed]);
+      } else {
+        long slot = findSlot(hash, keyLength);
+        if (slot != -1) {
+          writeLong(slot, TOMBSTONE);
+          tableSize--;
+          tombstones++;
+        }
+      }
+      changed++;
+    }
+
+    // Commits the new slots & size, after which the log is no longer needed
+    dirty = false;
+    forceRegions();
+    writeHeader();
+    truncateLog();
+    pending.clear();
+  }
+
+  /**
+   * Helper method that empties the log once its changes are committed to the table
+   */
+  private void truncateLog() {
+    try {
+      log.truncate(0);
+      log.position(0);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Forces the log to disk, so every put() & remove() so far survives a power loss & not only a
+   * process crash
+   *
+   * @throws IOException - if the log cannot be forced
+   */
+  public void flush() throws IOException {
+    log.force(false);
+  }
+
+  /**
+   * Checkpoints & closes the files. The map must not be used afterwards
+   *
+   * @throws IOException - if the files cannot be closed
+   */
+  @Override
+  public void close() throws IOException {
+    checkpoint();
+    log.close();
+    file.close();
+  }
+
+  /**
+   * Creates a cursor walking the slots of the table, skipping Keys changed since the last
+   * checkpoint, then the Keys put since the last checkpoint. Fails fast once the Hashtable is
+   * modified
+   */
+  @Override
+  public MapCursor<KeyType, ValueType> cursor() {
+    return new MapCursor<KeyType, ValueType>() {
+      // Slot the cursor is on, capacity once the cursor walks the overlay
+      private int index = -1;
+      private MapCursor<KeyType, Object> overlay = pending.cursor();
+      private int expectedModCount = modCount;
+
+      @Override
+      public boolean advance() {
+        if (modCount != expectedModCount) {
+          throw new ConcurrentModificationException("Hashtable was modified during iteration!");
+        }
+        while (++index < capacity) {
+          long pointer = readLong(slotsOffset + ((long) index << 3));
+          if (pointer != EMPTY_SLOT && pointer != TOMBSTONE
+              && (pending.size() == 0 || !pending.containsKey(decodeKey(pointer)))) {
+            return true;
+          }
+        }
+        index = capacity;
+        while (overlay.advance()) {
+          if (overlay.getValue() != REMOVED) {
+            return true;
+          }
+        }
+        return false;
+      }
+
+      @Override
+      public KeyType getKey() {
+        if (index < 0) {
+          throw new NoSuchElementException("Cursor is not on a pair!");
+        }
+        return index < capacity ? decodeKey(readLong(slotsOffset + ((long) index << 3)))
+            : overlay.getKey();
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public ValueType getValue() {
+        if (index < 0) {
+          throw new NoSuchElementException("Cursor is not on a pair!");
+        }
+        if (index < capacity) {
+          return decodeValue(readLong(slotsOffset + ((long) index << 3)));
+        }
+        Object value = overlay.getValue();
+        return value == NULL ? null : (ValueType) value;
+      }
+
+      @Override
+      public void reset() {
+        index = -1;
+        overlay = pending.cursor();
+        expectedModCount = modCount;
+      }
+    };
+  }
+
+}
@@ -0,0 +1,356 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * Hashtable implementation that uses open addressing instead of Nodes. Keys, Values & their
+ * hashes are stored in flat parallel arrays & collisions are resolved with Robin Hood linear
+ * probing, so no object is allocated per Key/Value pair & a lookup reads neighbouring slots
+ * instead of following references
+ *
+ * @param <KeyType> - ObjectType of the Keys
+ * @param <ValueType> - ObjectType of the Values
+ */
+public class RobinHoodHashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+  // Largest power of two capacity
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  // Capacity of the HashTable, always a power of two
+  private int capacity;
+  // Will double capacity & rehash whenever load factor is >= 0.8
+  private double LOAD_FACTOR_THRESHOLD = 0.8;
+  // Keys of the HashTable, a null key marks an empty slot
+  private Object[] keys;
+  // Values of the HashTable, stored at the same index as their key
+  private Object[] values;
+  // Spread hashes of the keys, stored at the same index as their key
+  private int[] hashes;
+  // Number of Key/Value pairs currently stored in the Hashtable
+  private int size;
+  // # of structural modifications (puts, removes, resizes & clears), checked by cursors
+  private int modCount;
+
+  /**
+   * Constructor method for RobinHoodHashtableMap
+   *
+   * @param capacity - Original Capacity of Hashtable, rounded up to a power of two
+   */
+  public RobinHoodHashtableMap(int capacity) {
+    // At least 2 slots, so the load factor check always leaves an empty slot to stop probes
+    this.capacity = HashtableMap.roundUpToPowerOfTwo(Math.max(capacity, 2));
+    this.keys = new Object[this.capacity];
+    this.values = new Object[this.capacity];
+    this.hashes = new int[this.capacity];
+  }
+
+  /**
+   * Default constructor method for the RobinHoodHashtableMap with a default capacity of 32
+   */
+  public RobinHoodHashtableMap() {
+    this(32);
+  }
+
+  /**
+   * Getter method for the capacity of hashtable
+   *
+   * @return - Capacity of Hashtable
+   */
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  /**
+   * Gets how far the slot is from the home slot of the hash stored in it
+   *
+   * @param hash - hash stored at the slot
+   * @param slot - index of the slot
+   * @return - # of slots between the home slot & the slot
+   */
+  private int probeDistance(int hash, int slot) {
+    return (slot - hash) & (capacity - 1);
+  }
+
+  /**
+   * Finds the slot containing the Key. The probe stops early at the first slot whose entry is
+   * closer to its home slot than the key would be, since Robin Hood insertion would have placed
+   * the key there
+   *
+   * @param key - key to search for
+   * @return - index of the slot containing the key, or -1 if the key is not in HashTable
+   */
+  private int findSlot(Object key) {
+    // A null key is never stored
+    if (key == null) {
+      return -1;
+    }
+
+    int hash = HashtableMap.spread(key.hashCode());
+    int mask = capacity - 1;
+    for (int slot = hash & mask, distance = 0;; slot = (slot + 1) & mask, distance++) {
+      Object slotKey = keys[slot];
+      if (slotKey == null || probeDistance(hashes[slot], slot) < distance) {
+        return -1;
+      }
+      if (hashes[slot] == hash && (slotKey == key || slotKey.equals(key))) {
+        return slot;
+      }
+    }
+  }
+
+  /**
+   * Stores the Key/Value pair into the HashTable, hashing the key once & probing once. The probe
+   * that shows the key is absent stops at the very slot Robin Hood insertion places it in
+   *
+   * @throws IllegalStateException - if the HashTable is full at its largest capacity
+   */
+  @Override
+  public boolean put(KeyType key, ValueType value) {
+    // A null key is never stored
+    if (key == null) {
+      return false;
+    }
+
+    // Walks until an empty slot or an entry closer to its home slot than the key would be, the
+    // key would have been stored before either
+    int hash = HashtableMap.spread(key.hashCode());
+    int mask = capacity - 1;
+    int slot = hash & mask;
+    int distance = 0;
+    for (;; slot = (slot + 1) & mask, distance++) {
+      Object slotKey = keys[slot];
+      if (slotKey == null || probeDistance(hashes[slot], slot) < distance) {
+        break;
+      }
+      if (hashes[slot] == hash && (slotKey == key || slotKey.equals(key))) {
+        return false;
+      }
+    }
+
+    // At the largest capacity the HashTable fills up, but keeps one empty slot to stop probes
+    if (capacity == MAXIMUM_CAPACITY && size >= capacity - 1) {
+      throw new IllegalStateException("Hashtable is full!");
+    }
+    insert(slot, distance, hash, key, value);
+    size++;
+    modCount++;
+
+    // If the ratio of the numOfPairs / capacity is greater than 0.8, rehash & resize
+    double currentThreshold = (double) size / capacity;
+    if (Double.compare(LOAD_FACTOR_THRESHOLD, currentThreshold) <= 0
+        && capacity < MAXIMUM_CAPACITY) {
+      capacityAdjustment(capacity * 2);
+    }
+
+    return true;
+  }
+
+  /**
+   * Places a key known not to be in the HashTable, from a slot of its probe sequence. Whenever
+   * the entry in a slot is closer to its own home than the carried entry, the two are swapped &
+   * the displaced entry carries on probing
+   *
+   * @param slot - slot to start from, the key's home slot or where a probe for it stopped
+   * @param distance - # of slots between the key's home slot & the slot
+   * @param hash - spread hash of the key
+   * @param key - key to place
+   * @param value - value to place
+   */
+  private void insert(int slot, int distance, int hash, Object key, Object value) {
+    int mask = capacity - 1;
+    for (;; slot = (slot + 1) & mask, distance++) {
+      // Empty slot found, the carried entry goes here
+      if (keys[slot] == null) {
+        keys[slot] = key;
+        values[slot] = value;
+        hashes[slot] = hash;
+        return;
+      }
+
+      // The resident entry is richer than the carried one, swap them
+      int residentDistance = probeDistance(hashes[slot], slot);
+      if (residentDistance < distance) {
+        Object residentKey = keys[slot];
+        Object residentValue = values[slot];
+        int residentHash = hashes[slot];
+        keys[slot] = key;
+        values[slot] = value;
+        hashes[slot] = hash;
+        key = residentKey;
+        value = residentValue;
+        hash = residentHash;
+        distance = residentDistance;
+      }
+    }
+  }
+
+  /**
+   * Rehashing function once the LOAD_FACTOR_THRESHOLD is reached. Entries are placed straight
+   * into the new arrays using their stored hashes
+   *
+   * @param newCapacity - capacity of the new HashTable
+   */
+  private void capacityAdjustment(int newCapacity) {
+    Object[] oldKeys = keys;
+    Object[] oldValues = values;
+    int[] oldHashes = hashes;
+
+    capacity = newCapacity;
+    keys = new Object[newCapacity];
+    values = new Object[newCapacity];
+    hashes = new int[newCapacity];
+
+    // Goes through the old HashTable, placing every entry into the new one
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != null) {
+        insert(oldHashes[i] & (newCapacity - 1), 0, oldHashes[i], oldKeys[i], oldValues[i]);
+      }
+    }
+  }
+
+  /**
+   * Gets the Value associated with the Key Exception is thrown when Key is not contained within
+   * HashTable
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType get(KeyType key) throws NoSuchElementException {
+    int slot = findSlot(key);
+
+    // If the hashTable does not contain key, throw the exception
+    if (slot == -1) {
+      throw new NoSuchElementException("Does not contain this key!");
+    }
+
+    return (ValueType) values[slot];
+  }
+
+  /**
+   * Gets the Value of the Key with a single probe sequence, a miss costing no exception
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+    int slot = findSlot(key);
+    return slot == -1 ? defaultValue : (ValueType) values[slot];
+  }
+
+  /**
+   * Finds the pair of the Key with a single probe sequence
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public Node<KeyType, ValueType> find(KeyType key) {
+    int slot = findSlot(key);
+    return slot == -1 ? null
+        : new Node<KeyType, ValueType>((KeyType) keys[slot], (ValueType) values[slot]);
+  }
+
+  /**
+   * Gets the number of Key/Value pairs stored within the HashTable
+   */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Checks if the HashTable contains the Key
+   */
+  @Override
+  public boolean containsKey(KeyType key) {
+    return findSlot(key) != -1;
+  }
+
+  /**
+   * Removes the Key within the HashTable Returns Value associated with the Key. The entries
+   * following it are shifted back one slot until an empty slot or an entry already in its home
+   * slot, so no tombstones are left behind
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType remove(KeyType key) {
+    int slot = findSlot(key);
+
+    // If the HashTable does not contain the key, return null
+    if (slot == -1) {
+      return null;
+    }
+
+    ValueType value = (ValueType) values[slot];
+    int mask = capacity - 1;
+    int next = (slot + 1) & mask;
+    while (keys[next] != null && probeDistance(hashes[next], next) > 0) {
+      keys[slot] = keys[next];
+      values[slot] = values[next];
+      hashes[slot] = hashes[next];
+      slot = next;
+      next = (next + 1) & mask;
+    }
+    keys[slot] = null;
+    values[slot] = null;
+    size--;
+    modCount++;
+
+    return value;
+  }
+
+  /**
+   * Removes all key-value pairs from the collection without changing underlying array capacity
+   */
+  @Override
+  public void clear() {
+    Arrays.fill(keys, null);
+    Arrays.fill(values, null);
+    size = 0;
+    modCount++;
+  }
+
+  /**
+   * Creates a cursor walking the slots in order, failing fast once the Hashtable is modified
+   */
+  @Override
+  public MapCursor<KeyType, ValueType> cursor() {
+    return new MapCursor<KeyType, ValueType>() {
+      // Slot the cursor is on, -1 before the first pair
+      private int slot = -1;
+      private int expectedModCount = modCount;
+
+      @Override
+      public boolean advance() {
+        if (modCount != expectedModCount) {
+          throw new ConcurrentModificationException("Hashtable was modified during iteration!");
+        }
+        do {
+          slot++;
+        } while (slot < capacity && keys[slot] == null);
+        return slot < capacity;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public KeyType getKey() {
+        if (slot < 0 || slot >= capacity) {
+          throw new NoSuchElementException("Cursor is not on a pair!");
+        }
+        return (KeyType) keys[slot];
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public ValueType getValue() {
+        if (slot < 0 || slot >= capacity) {
+          throw new NoSuchElementException("Cursor is not on a pair!");
+        }
+        return (ValueType) values[slot];
+      }
+
+      @Override
+      public void reset() {
+        slot = -1;
+        expectedModCount = modCount;
+      }
+    };
+  }
+
+}
@@ -0,0 +1,697 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Hashtable implementation specialized for String Keys. The UTF-8 bytes of every Key are copied
+ * once into a single byte array, the arena, behind their length, & each slot of the table only
+ * keeps a long of the Key's hash & offset within the arena next to the Value, with linear probing.
+ * No String, byte[] or Node is kept per Key/Value pair & a lookup reads the slot, the Key's bytes
+ * & the Value instead of following references to a Node, a String & its byte[]
+ *
+ * <p>
+ * Keys can also be looked up from any CharSequence or from a slice of a byte[] holding UTF-8, such
+ * as a buffer being parsed, without creating a String. Like String.getBytes(), a lone surrogate
+ * char is encoded as '?', so such Keys come back from the cursor with a '?' in its place. Removed
+ * Keys leave their bytes in the arena until compact() copies the stored ones into a new arena,
+ * which remove() does once the removed bytes outweigh them
+ *
+ * <p>
+ * A String being looked up is encoded & hashed again on every call, where the HashtableMap reuses
+ * its cached hashCode(), so maps mostly queried with Strings that already exist trade some speed
+ * for the memory saved. Lookups never write into the map, so like the HashtableMap it may be read
+ * from several threads at once as long as none writes to it
+ *
+ * @param <ValueType> - ObjectType of the Values
+ */
+public class StringHashtableMap<ValueType> implements MapADT<String, ValueType> {
+
+  // Entry marking an empty slot, stored offsets never have their sign bit set
+  private static final long FREE_ENTRY = -1L;
+  // Smallest arena, also the # of removed bytes below which remove() never compacts
+  private static final int MINIMUM_ARENA_SIZE = 256;
+  // Largest arena, some VMs reserve a few header words in an array
+  private static final int MAXIMUM_ARENA_SIZE = Integer.MAX_VALUE - 8;
+  // Largest power of two capacity
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  // Capacity of the HashTable, always a power of two
+  private int capacity;
+  // Will double capacity & rehash whenever load factor is >= 0.8
+  private double LOAD_FACTOR_THRESHOLD = 0.8;
+  // Spread hash of the key bytes in the high 32 bits & offset of the key within the arena in the
+  // low ones, FREE_ENTRY marks an empty slot
+  private long[] entries;
+  // Values of the HashTable, stored at the same index as their entry
+  private Object[] values;
+  // Keys back to back, each as its # of bytes in 7-bit groups, low group first & high bit set on
+  // all groups but the last, followed by its UTF-8 bytes. Offset of the first free byte
+  private byte[] arena;
+  private int arenaTop;
+  // Bytes of the arena left behind by removed keys
+  private int garbageBytes;
+  // Number of Key/Value pairs currently stored in the Hashtable
+  private int size;
+  // # of structural modifications (puts, removes, resizes, compactions & clears), checked by
+  // cursors
+  private int modCount;
+  // Buffer the UTF-8 bytes of the key being put are encoded into, & the hash of these bytes.
+  // Lookups never write into it, so they may run concurrently as long as nothing is written
+  private byte[] scratch = new byte[64];
+  private int scratchHash;
+
+  /**
+   * Constructor method for StringHashtableMap
+   *
+   * @param capacity - Original Capacity of Hashtable, rounded up to a power of two
+   */
+  public StringHashtableMap(int capacity) {
+    // At least 2 slots, so the load factor check always leaves an empty slot to stop probes
+    this.capacity = HashtableMap.roundUpToPowerOfTwo(Math.max(capacity, 2));
+    this.entries = new long[this.capacity];
+    Arrays.fill(entries, FREE_ENTRY);
+    this.values = new Object[this.capacity];
+    this.arena = new byte[MINIMUM_ARENA_SIZE];
+  }
+
+  /**
+   * Default constructor method for the StringHashtableMap with a default capacity of 32
+   */
+  public StringHashtableMap() {
+    this(32);
+  }
+
+  /**
+   * Getter method for the capacity of hashtable
+   *
+   * @return - Capacity of Hashtable
+   */
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  /**
+   * Getter method for the # of bytes the arena holds, including those of removed keys not yet
+   * compacted away
+   *
+   * @return - # of bytes used within the arena
+   */
+  public int arenaSize() {
+    return arenaTop;
+  }
+
+  /**
+   * Helper method that encodes a key being put into the scratch buffer as UTF-8 & hashes the
+   * bytes, without creating a String or a byte[] once the buffer is large enough
+   *
+   * @param key - key to encode
+   * @return - # of bytes written at the start of the scratch buffer
+   */
+  private int encode(CharSequence key) {
+    int length = key.length();
+    // No char takes more than 3 bytes, a surrogate pair takes 4 for 2 chars
+    if (scratch.length < 3 * length) {
+      scratch = new byte[Math.max(3 * length, 2 * scratch.length)];
+    }
+    // ASCII chars, the usual case, take one byte each
+    byte[] bytes = scratch;
+    int hash = 0;
+    for (int i = 0; i < length; i++) {
+      char c = key.charAt(i);
+      if (c >= 0x80) {
+        int encoded = encodeFrom(key, i, bytes);
+        scratchHash = hash(bytes, 0, encoded);
+        return encoded;
+      }
+      bytes[i] = (byte) c;
+      hash = 31 * hash + c;
+    }
+    scratchHash = HashtableMap.spread(hash);
+    return length;
+  }
+
+  /**
+   * Helper method that encodes the rest of a key as UTF-8 from its first char that is not ASCII
+   *
+   * @param key - key to encode
+   * @param first - index of the first char to encode, also the # of bytes already written
+   * @param bytes - buffer of at least 3 bytes per char of the key
+   * @return - # of bytes written at the start of the buffer
+   */
+  private static int encodeFrom(CharSequence key, int first, byte[] bytes) {
+    int length = key.length();
+    int at = first;
+    for (int i = first; i < length; i++) {
+      char c = key.charAt(i);
+      if (c < 0x80) {
+        bytes[at++] = (byte) c;
+      } else if (c < 0x800) {
+        bytes[at++] = (byte) (0xC0 | c >>> 6);
+        bytes[at++] = (byte) (0x80 | c & 0x3F);
+      } else if (!Character.isSurrogate(c)) {
+        bytes[at++] = (byte) (0xE0 | c >>> 12);
+        bytes[at++] = (byte) (0x80 | c >>> 6 & 0x3F);
+        bytes[at++] = (byte) (0x80 | c & 0x3F);
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(key.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, key.charAt(++i));
+        bytes[at++] = (byte) (0xF0 | codePoint >>> 18);
+        bytes[at++] = (byte) (0x80 | codePoint >>> 12 & 0x3F);
+        bytes[at++] = (byte) (0x80 | codePoint >>> 6 & 0x3F);
+        bytes[at++] = (byte) (0x80 | codePoint & 0x3F);
+      } else {
+        // Lone surrogate, replaced as String.getBytes() would
+        bytes[at++] = '?';
+      }
+    }
+    return at;
+  }
+
+  /**
+   * Helper method that hashes the bytes of a key & spreads the result
+   *
+   * @param bytes - array holding the key
+   * @param offset - index of the first byte of the key
+   * @param length - # of bytes of the key
+   * @return - spread hash of the bytes
+   */
+  private static int hash(byte[] bytes, int offset, int length) {
+    int hash = 0;
+    for (int i = offset; i < offset + length; i++) {
+      hash = 31 * hash + bytes[i];
+    }
+    return HashtableMap.spread(hash);
+  }
+
+  /**
+   * Helper method that gets the # of bytes the length of a key takes in front of it
+   *
+   * @param length - # of bytes of the key
+   * @return - # of 7-bit groups needed to write the length
+   */
+  private static int lengthSize(int length) {
+    return length < 1 << 7 ? 1 : length < 1 << 14 ? 2 : length < 1 << 21 ? 3
+        : length < 1 << 28 ? 4 : 5;
+  }
+
+  /**
+   * Helper method that reads the length of a key stored in the arena
+   *
+   * @param record - offset of the key within the arena
+   * @return - # of bytes of the key
+   */
+  private int keyLength(int record) {
+    int length = 0;
+    for (int shift = 0;; shift += 7) {
+      byte group = arena[record++];
+      length |= (group & 0x7F) << shift;
+      if (group >= 0) {
+        return length;
+      }
+    }
+  }
+
+  /**
+   * Finds the slot containing the key bytes, reading the arena only when the hash of a slot
+   * matches
+   *
+   * @param bytes - array holding the key
+   * @param offset - index of the first byte of the key
+   * @param length - # of bytes of the key
+   * @param hash - spread hash of the bytes
+   * @return - index of the slot containing the key, or -1 if the key is not in HashTable
+   */
+  private int findSlot(byte[] bytes, int offset, int length, int hash) {
+    int mask = capacity - 1;
+    for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+      long entry = entries[slot];
+      if (entry == FREE_ENTRY) {
+        return -1;
+      }
+      if ((int) (entry >>> 32) == hash) {
+        // Keys shorter than 128 bytes, the usual case, have their length in a single byte
+        int record = (int) entry;
+        int storedLength = arena[record];
+        int start = record + 1;
+        if (storedLength < 0) {
+          storedLength = keyLength(record);
+          start = record + lengthSize(storedLength);
+        }
+        if (storedLength == length
+            && Arrays.equals(arena, start, start + length, bytes, offset, offset + length)) {
+          return slot;
+        }
+      }
+    }
+  }
+
+  /**
+   * Finds the slot containing the key
+   *
+   * @param key - key to search for
+   * @return - index of the slot containing the key, or -1 if the key is null or not in HashTable
+   */
+  private int findSlot(CharSequence key) {
+    if (key == null) {
+      return -1;
+    }
+    // ASCII keys, the usual case, are hashed & compared straight from their chars, as their UTF-8
+    // bytes are the chars themselves
+    int length = key.length();
+    int hash = 0;
+    for (int i = 0; i < length; i++) {
+      char c = key.charAt(i);
+      if (c >= 0x80) {
+        return findEncodedSlot(key);
+      }
+      hash = 31 * hash + c;
+    }
+    return findAsciiSlot(key, length, HashtableMap.spread(hash));
+  }
+
+  /**
+   * Helper method that finds the slot containing an ASCII key, comparing its chars to the bytes
+   * stored in the arena
+   *
+   * @param key - key to search for, only made of ASCII chars
+   * @param length - # of chars of the key, also its # of bytes
+   * @param hash - spread hash of the key's bytes
+   * @return - index of the slot containing the key, or -1 if the key is not in HashTable
+   */
+  private int findAsciiSlot(CharSequence key, int length, int hash) {
+    int mask = capacity - 1;
+    for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+      long entry = entries[slot];
+      if (entry == FREE_ENTRY) {
+        return -1;
+      }
+      if ((int) (entry >>> 32) == hash) {
+        int record = (int) entry;
+        int storedLength = arena[record];
+        int start = record + 1;
+        if (storedLength < 0) {
+          storedLength = keyLength(record);
+          start = record + lengthSize(storedLength);
+        }
+        if (storedLength == length && equalsAscii(key, start, length)) {
+          return slot;
+        }
+      }
+    }
+  }
+
+  /**
+   * Helper method that compares an ASCII key to the bytes of a stored key. The bytes of chars
+   * that are not ASCII are negative, so they never match
+   *
+   * @param key - key to compare, only made of ASCII chars
+   * @param start - index of the stored key's first byte within the arena
+   * @param length - # of bytes of both keys
+   * @return - true if the stored key is the key
+   */
+  private boolean equalsAscii(CharSequence key, int start, int length) {
+    for (int i = 0; i < length; i++) {
+      if (arena[start + i] != key.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Helper method that finds the slot containing a key that is not ASCII, encoding it into a
+   * buffer of its own rather than the scratch buffer of put()
+   *
+   * @param key - key to search for
+   * @return - index of the slot containing the key, or -1 if the key is not in HashTable
+   */
+  private int findEncodedSlot(CharSequence key) {
+    // No char takes more than 3 bytes, a surrogate pair takes 4 for 2 chars
+    byte[] bytes = new byte[3 * key.length()];
+    int length = encodeFrom(key, 0, bytes);
+    return findSlot(bytes, 0, length, hash(bytes, 0, length));
+  }
+
+  /**
+   * Finds the slot containing the key held as UTF-8 by a slice of an array
+   *
+   * @param bytes - array holding the key
+   * @param offset - index of the first byte of the key
+   * @param length - # of bytes of the key
+   * @return - index of the slot containing the key, or -1 if the key is not in HashTable
+   * @throws IndexOutOfBoundsException - if the slice does not fit within the array
+   */
+  private int findSlot(byte[] bytes, int offset, int length) {
+    Objects.checkFromIndexSize(offset, length, bytes.length);
+    return findSlot(bytes, offset, length, hash(bytes, offset, length));
+  }
+
+  /**
+   * Stores the Key/Value pair into the HashTable, copying the UTF-8 bytes of the key into the
+   * arena
+   *
+   * @throws IllegalStateException - if the HashTable is full at its largest capacity, or the
+   *         stored keys would not fit within the arena
+   */
+  @Override
+  public boolean put(String key, ValueType value) {
+    // Checks that key is not null & not equal to a key already in HashTable
+    if (key == null) {
+      return false;
+    }
+    int length = encode(key);
+    int hash = scratchHash;
+    if (findSlot(scratch, 0, length, hash) != -1) {
+      return false;
+    }
+
+    // At the largest capacity the HashTable fills up, but keeps one empty slot to stop probes
+    if (capacity == MAXIMUM_CAPACITY && size >= capacity - 1) {
+      throw new IllegalStateException("Hashtable is full!");
+    }
+
+    // Appends the length & the bytes of the key to the arena, making room first if needed
+    int recordSize = lengthSize(length) + length;
+    if (recordSize > arena.length - arenaTop) {
+      growArena(recordSize);
+    }
+    long entry = (long) hash << 32 | arenaTop;
+    int remaining = length;
+    while (remaining >= 0x80) {
+      arena[arenaTop++] = (byte) (remaining | 0x80);
+      remaining >>>= 7;
+    }
+    arena[arenaTop++] = (byte) remaining;
+    System.arraycopy(scratch, 0, arena, arenaTop, length);
+    arenaTop += length;
+
+    // Probes from the key's home slot until an empty slot is found
+    int mask = capacity - 1;
+    int slot = hash & mask;
+    while (entries[slot] != FREE_ENTRY) {
+      slot = (slot + 1) & mask;
+    }
+    entries[slot] = entry;
+    values[slot] = value;
+    size++;
+    modCount++;
+
+    // If the ratio of the numOfPairs / capacity is greater than 0.8, rehash & resize
+    double currentThreshold = (double) size / capacity;
+    if (Double.compare(LOAD_FACTOR_THRESHOLD, currentThreshold) <= 0
+        && capacity < MAXIMUM_CAPACITY) {
+      capacityAdjustment(capacity * 2);
+    }
+
+    return true;
+  }
+
+  /**
+   * Helper method that makes room for more key bytes at the end of the arena, compacting it when
+   * that frees enough room & doubling it otherwise
+   *
+   * @param recordSize - # of bytes about to be appended
+   * @throws IllegalStateException - if the stored keys would not fit within an array
+   */
+  private void growArena(int recordSize) {
+    int liveBytes = arenaTop - garbageBytes;
+    if ((long) liveBytes + recordSize > MAXIMUM_ARENA_SIZE) {
+      throw new IllegalStateException("Key arena is full!");
+    }
+    // Removed keys taking half of the arena, or the only way to fit the key, are compacted away
+    if (garbageBytes >= arena.length / 2 || (long) arenaTop + recordSize > MAXIMUM_ARENA_SIZE) {
+      compact();
+    }
+    if (recordSize > arena.length - arenaTop) {
+      long newLength = Math.max(2L * arena.length, (long) arenaTop + recordSize);
+      arena = Arrays.copyOf(arena, (int) Math.min(newLength, MAXIMUM_ARENA_SIZE));
+    }
+  }
+
+  /**
+   * Rehashing function once the LOAD_FACTOR_THRESHOLD is reached. Entries are placed straight
+   * into the new arrays using their stored hashes, the arena is left as is
+   *
+   * @param newCapacity - capacity of the new HashTable
+   */
+  private void capacityAdjustment(int newCapacity) {
+    long[] oldEntries = entries;
+    Object[] oldValues = values;
+
+    capacity = newCapacity;
+    entries = new long[newCapacity];
+    Arrays.fill(entries, FREE_ENTRY);
+    values = new Object[newCapacity];
+
+    // Goes through the old HashTable, placing every entry into the first empty slot of the new one
+    int mask = newCapacity - 1;
+    for (int i = 0; i < oldEntries.length; i++) {
+      if (oldEntries[i] != FREE_ENTRY) {
+        int slot = (int) (oldEntries[i] >>> 32) & mask;
+        while (entries[slot] != FREE_ENTRY) {
+          slot = (slot + 1) & mask;
+        }
+        entries[slot] = oldEntries[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Copies the bytes of every stored key into a new arena, dropping those of removed keys. Run
+   * automatically by remove() once the removed bytes outweigh the stored ones
+   */
+  public void compact() {
+    int liveBytes = arenaTop - garbageBytes;
+    byte[] newArena = new byte[Math.max(MINIMUM_ARENA_SIZE,
+        (int) Math.min(2L * liveBytes, MAXIMUM_ARENA_SIZE))];
+    int top = 0;
+    for (int slot = 0; slot < capacity; slot++) {
+      long entry = entries[slot];
+      if (entry != FREE_ENTRY) {
+        int length = keyLength((int) entry);
+        int recordSize = lengthSize(length) + length;
+        System.arraycopy(arena, (int) entry, newArena, top, recordSize);
+        entries[slot] = entry & 0xFFFFFFFF00000000L | top;
+        top += recordSize;
+      }
+    }
+    arena = newArena;
+    arenaTop = top;
+    garbageBytes = 0;
+    modCount++;
+  }
+
+  /**
+   * Gets the Value associated with the Key Exception is thrown when Key is not contained within
+   * HashTable
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType get(String key) throws NoSuchElementException {
+    int slot = findSlot(key);
+
+    // If the hashTable does not contain key, throw the exception
+    if (slot == -1) {
+      throw new NoSuchElementException("Does not contain this key!");
+    }
+
+    return (ValueType) values[slot];
+  }
+
+  /**
+   * Gets the Value of the Key with a single probe sequence, a miss costing no exception
+   */
+  @Override
+  public ValueType getOrDefault(String key, ValueType defaultValue) {
+    return getOrDefault((CharSequence) key, defaultValue);
+  }
+
+  /**
+   * Gets the Value of a Key held by any CharSequence, such as a StringBuilder, without creating a
+   * String
+   *
+   * @param key - key to look up
+   * @param defaultValue - Value returned if the Key is missing
+   * @return - Value of the Key, or defaultValue if the Key is missing or null
+   */
+  @SuppressWarnings("unchecked")
+  public ValueType getOrDefault(CharSequence key, ValueType defaultValue) {
+    int slot = findSlot(key);
+    return slot == -1 ? defaultValue : (ValueType) values[slot];
+  }
+
+  /**
+   * Gets the Value of a Key held as UTF-8 by a slice of an array, such as a buffer being parsed,
+   * without decoding it
+   *
+   * @param bytes - array holding the Key
+   * @param offset - index of the first byte of the Key
+   * @param length - # of bytes of the Key
+   * @param defaultValue - Value returned if the Key is missing
+   * @return - Value of the Key, or defaultValue if the Key is missing
+   * @throws IndexOutOfBoundsException - if the slice does not fit within the array
+   */
+  @SuppressWarnings("unchecked")
+  public ValueType getOrDefault(byte[] bytes, int offset, int length, ValueType defaultValue) {
+    int slot = findSlot(bytes, offset, length);
+    return slot == -1 ? defaultValue : (ValueType) values[slot];
+  }
+
+  /**
+   * Finds the pair of the Key with a single probe sequence, the Node holding the Key passed in
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public Node<String, ValueType> find(String key) {
+    int slot = findSlot(key);
+    return slot == -1 ? null : new Node<String, ValueType>(key, (ValueType) values[slot]);
+  }
+
+  /**
+   * Gets the number of Key/Value pairs stored within the HashTable
+   */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Checks if the HashTable contains the Key
+   */
+  @Override
+  public boolean containsKey(String key) {
+    return findSlot(key) != -1;
+  }
+
+  /**
+   * Checks if the HashTable contains a Key held by any CharSequence, without creating a String
+   *
+   * @param key - key to search for
+   * @return - true if the key is in HashTable, false otherwise
+   */
+  public boolean containsKey(CharSequence key) {
+    return findSlot(key) != -1;
+  }
+
+  /**
+   * Checks if the HashTable contains a Key held as UTF-8 by a slice of an array, without decoding
+   * it
+   *
+   * @param bytes - array holding the Key
+   * @param offset - index of the first byte of the Key
+   * @param length - # of bytes of the Key
+   * @return - true if the key is in HashTable, false otherwise
+   * @throws IndexOutOfBoundsException - if the slice does not fit within the array
+   */
+  public boolean containsKey(byte[] bytes, int offset, int length) {
+    return findSlot(bytes, offset, length) != -1;
+  }
+
+  /**
+   * Removes the Key within the HashTable Returns Value associated with the Key. The entries
+   * following it are shifted back into the gap whenever their home slot allows it, so no
+   * tombstones are left behind. The key bytes stay in the arena until the next compaction
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType remove(String key) {
+    int gap = findSlot(key);
+
+    // If the HashTable does not contain the key, return null
+    if (gap == -1) {
+      return null;
+    }
+
+    ValueType value = (ValueType) values[gap];
+    int length = keyLength((int) entries[gap]);
+    garbageBytes += lengthSize(length) + length;
+
+    // Moves back every following entry that would still be reachable from its home slot
+    int mask = capacity - 1;
+    for (int slot = (gap + 1) & mask; entries[slot] != FREE_ENTRY; slot = (slot + 1) & mask) {
+      int home = (int) (entries[slot] >>> 32) & mask;
+      if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+        entries[gap] = entries[slot];
+        values[gap] = values[slot];
+        gap = slot;
+      }
+    }
+    entries[gap] = FREE_ENTRY;
+    values[gap] = null;
+    size--;
+    modCount++;
+
+    // Reclaims the removed bytes once they outweigh the stored ones
+    if (garbageBytes > arenaTop - garbageBytes && garbageBytes > MINIMUM_ARENA_SIZE) {
+      compact();
+    }
+
+    return value;
+  }
+
+  /**
+   * Removes all key-value pairs from the collection without changing underlying array capacity
+   */
+  @Override
+  public void clear() {
+    Arrays.fill(entries, FREE_ENTRY);
+    Arrays.fill(values, null);
+    arenaTop = 0;
+    garbageBytes = 0;
+    size = 0;
+    modCount++;
+  }
+
+  /**
+   * Creates a cursor walking the slots in order, failing fast once the Hashtable is modified.
+   * getKey() decodes a new String from the arena on each call
+   */
+  @Override
+  public MapCursor<String, ValueType> cursor() {
+    return new MapCursor<String, ValueType>() {
+      // Slot the cursor is on, -1 before the first pair
+      private int slot = -1;
+      private int expectedModCount = modCount;
+
+      @Override
+      public boolean advance() {
+        if (modCount != expectedModCount) {
+          throw new ConcurrentModificationException("Hashtable was modified during iteration!");
+        }
+        do {
+          slot++;
+        } while (slot < capacity && entries[slot] == FREE_ENTRY);
+        return slot < capacity;
+      }
+
+      @Override
+      public String getKey() {
+        if (slot < 0 || slot >= capacity) {
+          throw new NoSuchElementException("Cursor is not on a pair!");
+        }
+        int record = (int) entries[slot];
+        int length = keyLength(record);
+        return new String(arena, record + lengthSize(length), length, StandardCharsets.UTF_8);
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public ValueType getValue() {
+        if (slot < 0 || slot >= capacity) {
+          throw new NoSuchElementException("Cursor is not on a pair!");
+        }
+        return (ValueType) values[slot];
+      }
+
+      @Override
+      public void reset() {
+        slot = -1;
+        expectedModCount = modCount;
+      }
+    };
+  }
+
+}
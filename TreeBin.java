@@ -0,0 +1,330 @@
+import java.util.function.Consumer;
+
+/**
+ * Balanced search tree over the Nodes of one overlong chain of a HashtableMap, so a bucket that
+ * many colliding keys pile into is searched in O(log n) instead of walked. The Nodes keep their
+ * chain through next, so everything that walks chains still works, & the tree only indexes them
+ *
+ * <p>
+ * Entries are ordered by the cached hash, then by compareTo() when both keys are of the same
+ * Comparable class. A lookup takes the side compareTo() points to, & searches both sides of a key
+ * of another class or a tie, as equals() may hold across classes, such as between an ArrayList &
+ * a LinkedList. Only insertion breaks the remaining ties, by class name, then identity, so only
+ * Comparable keys get the O(log n) bound. The tree is an AVL tree, & its entries are also linked
+ * in chain order so a Node's predecessor in the chain is found without walking it
+ *
+ * @param <KeyType> - ObjectType of the Keys
+ * @param <ValueType> - ObjectType of the Values
+ */
+final class TreeBin<KeyType, ValueType> {
+
+  /**
+   * Tree entry indexing one Node of the chain
+   */
+  private static final class Entry<KeyType, ValueType> {
+    private final Node<KeyType, ValueType> node;
+    // Breaks ties of the key order after the class name, insertion order for identity collisions
+    private final int identity;
+    private final long sequence;
+    private Entry<KeyType, ValueType> left;
+    private Entry<KeyType, ValueType> right;
+    private int height = 1;
+    // Neighbours in chain order
+    private Entry<KeyType, ValueType> before;
+    private Entry<KeyType, ValueType> after;
+
+    private Entry(Node<KeyType, ValueType> node, long sequence) {
+      this.node = node;
+      this.identity = System.identityHashCode(node.key);
+      this.sequence = sequence;
+    }
+  }
+
+  private Entry<KeyType, ValueType> root;
+  // Entry of the chain's head Node
+  private Entry<KeyType, ValueType> first;
+  private int size;
+  private long sequence;
+
+  /**
+   * Constructor method that indexes every Node of a chain
+   *
+   * @param head - head of the chain
+   */
+  TreeBin(Node<KeyType, ValueType> head) {
+    Entry<KeyType, ValueType> last = null;
+    for (Node<KeyType, ValueType> node = head; node != null; node = node.next) {
+      Entry<KeyType, ValueType> entry = new Entry<KeyType, ValueType>(node, sequence++);
+      entry.before = last;
+      if (last == null) {
+        first = entry;
+      } else {
+        last.after = entry;
+      }
+      last = entry;
+      root = insert(root, entry);
+      size++;
+    }
+  }
+
+  /**
+   * Gets the # of Nodes in the chain
+   *
+   * @return - # of Nodes indexed
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Finds the Node containing a key
+   *
+   * @param hash - hash of the key
+   * @param key - key to search for
+   * @return - Node containing the key, or null if the chain does not contain it
+   */
+  Node<KeyType, ValueType> find(int hash, KeyType key) {
+    Entry<KeyType, ValueType> entry = findEntry(root, hash, key);
+    return entry == null ? null : entry.node;
+  }
+
+  /**
+   * Indexes a Node the caller just linked in front of the chain
+   *
+   * @param node - new head of the chain
+   */
+  void addFirst(Node<KeyType, ValueType> node) {
+    Entry<KeyType, ValueType> entry = new Entry<KeyType, ValueType>(node, sequence++);
+    entry.after = first;
+    if (first != null) {
+      first.before = entry;
+    }
+    first = entry;
+    root = insert(root, entry);
+    size++;
+  }
+
+  /**
+   * Unlinks the Node containing a key from the chain & from the tree
+   *
+   * @param table - Hashtable containing the chain
+   * @param index - index of the chain within the Hashtable
+   * @param hash - hash of the key
+   * @param key - key to remove
+   * @return - unlinked Node, or null if the chain does not contain the key
+   */
+  Node<KeyType, ValueType> unlink(Node<KeyType, ValueType>[] table, int index, int hash,
+      KeyType key) {
+    Entry<KeyType, ValueType> entry = findEntry(root, hash, key);
+    if (entry == null) {
+      return null;
+    }
+
+    // The entry before it in chain order holds the Node to relink
+    if (entry.before == null) {
+      table[index] = entry.node.next;
+      first = entry.after;
+    } else {
+      entry.before.node.next = entry.node.next;
+      entry.before.after = entry.after;
+    }
+    if (entry.after != null) {
+      entry.after.before = entry.before;
+    }
+    root = remove(root, entry);
+    size--;
+    return entry.node;
+  }
+
+  /**
+   * Calls the action on every Node, used to find where a resize moved them
+   *
+   * @param action - action to call
+   */
+  void forEachNode(Consumer<Node<KeyType, ValueType>> action) {
+    for (Entry<KeyType, ValueType> entry = first; entry != null; entry = entry.after) {
+      action.accept(entry.node);
+    }
+  }
+
+  /**
+   * Helper method that orders a key against a Node by hash, then by compareTo() when both keys are
+   * of the same Comparable class. Keys of different classes are left tied, an equal key may be of
+   * another class
+   *
+   * @return - negative, 0 or positive as the key sorts before, tied with or after the Node
+   */
+  @SuppressWarnings("unchecked")
+  private static int compare(int hash, Object key, Node<?, ?> node) {
+    if (hash != node.hash) {
+      return hash < node.hash ? -1 : 1;
+    }
+    if (key.getClass() != node.key.getClass() || !(key instanceof Comparable)) {
+      return 0;
+    }
+    // A class comparable to some other type only ever ties with itself
+    try {
+      return Integer.signum(((Comparable<Object>) key).compareTo(node.key));
+    } catch (ClassCastException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Helper method that orders two entries completely for insertion, breaking ties of the key order
+   */
+  private static int compare(Entry<?, ?> a, Entry<?, ?> b) {
+    int order = compare(a.node.hash, a.node.key, b.node);
+    return order != 0 ? order : tieBreakOrder(a, b);
+  }
+
+  /**
+   * Helper method that orders two tied entries by class name, identity, then insertion order.
+   * Lookups never follow it, so it only has to be consistent
+   */
+  private static int tieBreakOrder(Entry<?, ?> a, Entry<?, ?> b) {
+    int order = a.node.key.getClass().getName().compareTo(b.node.key.getClass().getName());
+    if (order != 0) {
+      return order;
+    }
+    order = Integer.compare(a.identity, b.identity);
+    return order != 0 ? order : Long.compare(a.sequence, b.sequence);
+  }
+
+  /**
+   * Helper method that searches a subtree for a key, searching both sides of a tie
+   */
+  private static <KeyType, ValueType> Entry<KeyType, ValueType> findEntry(
+      Entry<KeyType, ValueType> entry, int hash, KeyType key) {
+    while (entry != null) {
+      Node<KeyType, ValueType> node = entry.node;
+      if (node.hash == hash && (node.key == key || node.key.equals(key))) {
+        return entry;
+      }
+      int order = compare(hash, key, node);
+      if (order < 0) {
+        entry = entry.left;
+      } else if (order > 0) {
+        entry = entry.right;
+      } else {
+        Entry<KeyType, ValueType> found = findEntry(entry.right, hash, key);
+        if (found != null) {
+          return found;
+        }
+        entry = entry.left;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Helper method that inserts an entry into a subtree
+   *
+   * @return - new root of the subtree
+   */
+  private static <KeyType, ValueType> Entry<KeyType, ValueType> insert(
+      Entry<KeyType, ValueType> subtree, Entry<KeyType, ValueType> entry) {
+    if (subtree == null) {
+      return entry;
+    }
+    if (compare(entry, subtree) < 0) {
+      subtree.left = insert(subtree.left, entry);
+    } else {
+      subtree.right = insert(subtree.right, entry);
+    }
+    return balance(subtree);
+  }
+
+  /**
+   * Helper method that removes an entry from a subtree. The complete order leads straight to it
+   *
+   * @return - new root of the subtree
+   */
+  private static <KeyType, ValueType> Entry<KeyType, ValueType> remove(
+      Entry<KeyType, ValueType> subtree, Entry<KeyType, ValueType> entry) {
+    if (subtree != entry) {
+      if (compare(entry, subtree) < 0) {
+        subtree.left = remove(subtree.left, entry);
+      } else {
+        subtree.right = remove(subtree.right, entry);
+      }
+      return balance(subtree);
+    }
+
+    // The entry is replaced by the smallest entry of its right subtree
+    if (entry.left == null || entry.right == null) {
+      return entry.left == null ? entry.right : entry.left;
+    }
+    Entry<KeyType, ValueType> successor = entry.right;
+    while (successor.left != null) {
+      successor = successor.left;
+    }
+    successor.right = removeSmallest(entry.right);
+    successor.left = entry.left;
+    return balance(successor);
+  }
+
+  /**
+   * Helper method that removes the smallest entry of a subtree
+   *
+   * @return - new root of the subtree
+   */
+  private static <KeyType, ValueType> Entry<KeyType, ValueType> removeSmallest(
+      Entry<KeyType, ValueType> subtree) {
+    if (subtree.left == null) {
+      return subtree.right;
+    }
+    subtree.left = removeSmallest(subtree.left);
+    return balance(subtree);
+  }
+
+  private static int height(Entry<?, ?> entry) {
+    return entry == null ? 0 : entry.height;
+  }
+
+  /**
+   * Helper method that restores the AVL balance of a subtree whose children differ in height by
+   * at most 2, with one or two rotations
+   *
+   * @return - new root of the subtree
+   */
+  private static <KeyType, ValueType> Entry<KeyType, ValueType> balance(
+      Entry<KeyType, ValueType> entry) {
+    int skew = height(entry.left) - height(entry.right);
+    if (skew > 1) {
+      if (height(entry.left.left) < height(entry.left.right)) {
+        entry.left = rotateLeft(entry.left);
+      }
+      return rotateRight(entry);
+    }
+    if (skew < -1) {
+      if (height(entry.right.right) < height(entry.right.left)) {
+        entry.right = rotateRight(entry.right);
+      }
+      return rotateLeft(entry);
+    }
+    entry.height = Math.max(height(entry.left), height(entry.right)) + 1;
+    return entry;
+  }
+
+  private static <KeyType, ValueType> Entry<KeyType, ValueType> rotateLeft(
+      Entry<KeyType, ValueType> entry) {
+    Entry<KeyType, ValueType> right = entry.right;
+    entry.right = right.left;
+    right.left = entry;
+    entry.height = Math.max(height(entry.left), height(entry.right)) + 1;
+    right.height = Math.max(height(right.left), height(right.right)) + 1;
+    return right;
+  }
+
+  private static <KeyType, ValueType> Entry<KeyType, ValueType> rotateRight(
+      Entry<KeyType, ValueType> entry) {
+    Entry<KeyType, ValueType> left = entry.left;
+    entry.left = left.right;
+    left.right = entry;
+    entry.height = Math.max(height(entry.left), height(entry.right)) + 1;
+    left.height = Math.max(height(left.left), height(left.right)) + 1;
+    return left;
+  }
+
+}
@@ -0,0 +1,176 @@
+package hashtable;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks comparing every MapADT implementation against java.util.HashMap over the matrix
+ * of MapADTBenchmark: map, key type, # of entries & occupancy of the table are parameters, each
+ * operation is a benchmark method. Run with gradle jmh, which adds the GC profiler for the bytes
+ * allocated per operation. The 10M entry cells need a larger heap, e.g. -jvmArgs -Xmx8g
+ *
+ * <p>
+ * Lookups run one operation per invocation against a map filled once per trial, walking the keys
+ * in a scrambled order. put() & remove() run one pass over every key against a map prepared
+ * before each invocation, so their score is the time of size operations, & clear() empties a
+ * full map. The GC profiler counts the map prepared for these three as well, so their bytes per
+ * operation include it
+ *
+ * <p>
+ * Compiled by the build against a copy of the sources placed in package hashtable, as JMH rejects
+ * benchmark classes of the default package
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapADTJmhBenchmark {
+
+  @Param({"HashtableMap", "PowerOfTwoHashtableMap", "IncrementalHashtableMap",
+      "RobinHoodHashtableMap", "ConcurrentHashtableMap", "HashMap"})
+  public String map;
+
+  @Param({"100", "10000", "1000000", "10000000"})
+  public int size;
+
+  @Param({"Integer", "String", "Composite"})
+  public String key;
+
+  @Param({"0.5", "0.75", "0.9"})
+  public double load;
+
+  private MapADTBenchmark.MapFactory maps;
+  private int capacity;
+  // Keys stored in the filled map & keys it never stores, both scrambled
+  private Object[] hits;
+  private Object[] misses;
+  // Map holding every hit, read by the lookups
+  private MapADT<Object, Integer> filled;
+  // Index of the key the next lookup uses
+  private int next;
+
+  /**
+   * Empty map created before each invocation of put()
+   */
+  @State(Scope.Thread)
+  public static class EmptyMap {
+    MapADT<Object, Integer> map;
+
+    @Setup(Level.Invocation)
+    public void create(MapADTJmhBenchmark matrix) {
+      map = matrix.maps.create(matrix.capacity);
+    }
+  }
+
+  /**
+   * Map holding every hit, created before each invocation of remove() & clear()
+   */
+  @State(Scope.Thread)
+  public static class FilledMap {
+    MapADT<Object, Integer> map;
+
+    @Setup(Level.Invocation)
+    public void create(MapADTJmhBenchmark matrix) {
+      map = matrix.fill(matrix.maps.create(matrix.capacity));
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    maps = MapADTBenchmark.mapFactory(map);
+    capacity = MapADTBenchmark.capacity(size, load);
+    MapADTBenchmark.KeyFactory keys = MapADTBenchmark.keyFactory(key);
+    hits = MapADTBenchmark.scrambledKeys(keys, size, 0);
+    misses = MapADTBenchmark.scrambledKeys(keys, size, size);
+    filled = fill(maps.create(capacity));
+  }
+
+  /**
+   * Helper method that stores every hit into a map
+   *
+   * @param empty - map to fill
+   * @return - the map
+   */
+  private MapADT<Object, Integer> fill(MapADT<Object, Integer> empty) {
+    for (int i = 0; i < size; i++) {
+      empty.put(hits[i], i);
+    }
+    return empty;
+  }
+
+  /**
+   * Helper method that gets the index of the next lookup's key, wrapping around
+   *
+   * @return - index within hits & misses
+   */
+  private int nextIndex() {
+    int index = next;
+    next = index + 1 == size ? 0 : index + 1;
+    return index;
+  }
+
+  @Benchmark
+  public int put(EmptyMap empty) {
+    int stored = 0;
+    for (int i = 0; i < size; i++) {
+      stored += empty.map.put(hits[i], i) ? 1 : 0;
+    }
+    return stored;
+  }
+
+  @Benchmark
+  public Integer getHit() {
+    return filled.get(hits[nextIndex()]);
+  }
+
+  @Benchmark
+  public Integer getMiss() {
+    try {
+      return filled.get(misses[nextIndex()]);
+    } catch (NoSuchElementException e) {
+      return null;
+    }
+  }
+
+  @Benchmark
+  public Integer getOrDefaultMiss() {
+    return filled.getOrDefault(misses[nextIndex()], -1);
+  }
+
+  @Benchmark
+  public boolean containsKey() {
+    // Alternates hits & misses
+    int index = nextIndex();
+    return filled.containsKey((index & 1) == 0 ? hits[index] : misses[index]);
+  }
+
+  @Benchmark
+  public long remove(FilledMap full) {
+    long removed = 0;
+    for (int i = 0; i < size; i++) {
+      removed += full.map.remove(hits[i]);
+    }
+    return removed;
+  }
+
+  @Benchmark
+  public int clear(FilledMap full) {
+    full.map.clear();
+    return full.map.size();
+  }
+
+}